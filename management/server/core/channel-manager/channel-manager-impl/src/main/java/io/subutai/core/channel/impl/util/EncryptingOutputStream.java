@@ -0,0 +1,119 @@
+package io.subutai.core.channel.impl.util;
+
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.bouncycastle.openpgp.PGPPublicKey;
+
+import io.subutai.core.security.api.SecurityManager;
+import io.subutai.core.security.api.crypto.KeyManager;
+
+
+/**
+ * Encrypts message content as it is written to the underlying stream. Encryption starts on the first write, so empty
+ * content is passed through as is. Closing the stream finishes the encrypted message but leaves the underlying stream
+ * open.
+ */
+class EncryptingOutputStream extends OutputStream
+{
+    private final SecurityManager securityManager;
+    private final String hostIdTarget;
+    private final OutputStream out;
+
+    private OutputStream encryptingStream;
+    private boolean closed = false;
+
+
+    EncryptingOutputStream( final SecurityManager securityManager, final String hostIdTarget, final OutputStream out )
+    {
+        this.securityManager = securityManager;
+        this.hostIdTarget = hostIdTarget;
+        this.out = out;
+    }
+
+
+    @Override
+    public void write( final int b ) throws IOException
+    {
+        getEncryptingStream().write( b );
+    }
+
+
+    @Override
+    public void write( final byte[] b, final int off, final int len ) throws IOException
+    {
+        if ( len > 0 )
+        {
+            getEncryptingStream().write( b, off, len );
+        }
+    }
+
+
+    @Override
+    public void flush() throws IOException
+    {
+        if ( encryptingStream != null )
+        {
+            encryptingStream.flush();
+        }
+    }
+
+
+    @Override
+    public void close() throws IOException
+    {
+        if ( closed )
+        {
+            return;
+        }
+
+        closed = true;
+
+        if ( encryptingStream != null )
+        {
+            encryptingStream.close();
+        }
+    }
+
+
+    boolean isEncrypted()
+    {
+        return encryptingStream != null;
+    }
+
+
+    private OutputStream getEncryptingStream() throws IOException
+    {
+        if ( closed )
+        {
+            throw new IOException( "Stream is closed" );
+        }
+
+        if ( encryptingStream == null )
+        {
+            try
+            {
+                KeyManager keyMan = securityManager.getKeyManager();
+                PGPPublicKey pubKey = keyMan.getRemoteHostPublicKey( hostIdTarget );
+
+                if ( pubKey == null )
+                {
+                    throw new IOException( String.format( "Could not find Public key : %s", hostIdTarget ) );
+                }
+
+                encryptingStream = securityManager.getEncryptionTool().encrypt( out, pubKey, true );
+            }
+            catch ( IOException e )
+            {
+                throw e;
+            }
+            catch ( Exception e )
+            {
+                throw new IOException( "Error in encryptData", e );
+            }
+        }
+
+        return encryptingStream;
+    }
+}
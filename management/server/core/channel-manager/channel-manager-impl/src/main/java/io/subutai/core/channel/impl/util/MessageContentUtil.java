@@ -1,9 +1,9 @@
 package io.subutai.core.channel.impl.util;
 
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.PushbackInputStream;
 import java.nio.charset.Charset;
 import java.security.AccessControlException;
 
@@ -11,14 +11,10 @@ import javax.security.auth.login.LoginException;
 import javax.servlet.http.HttpServletResponse;
 
 import org.bouncycastle.openpgp.PGPException;
-import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.apache.commons.lang.ArrayUtils;
-import org.apache.cxf.helpers.IOUtils;
-import org.apache.cxf.io.CachedOutputStream;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.transport.http.AbstractHTTPDestination;
 
@@ -87,28 +83,30 @@ public class MessageContentUtil
                                        String hostIdTarget )
     {
 
-        InputStream is = message.getContent( InputStream.class );
+        InputStream content = message.getContent( InputStream.class );
 
-        CachedOutputStream os = new CachedOutputStream();
+        if ( content == null )
+        {
+            return;
+        }
+
+        PushbackInputStream is = new PushbackInputStream( content );
 
         LOG.debug( String.format( "Decrypting IDs: %s -> %s", hostIdSource, hostIdTarget ) );
         try
         {
-            int copied = IOUtils.copyAndCloseInput( is, os );
-            os.flush();
+            int first = is.read();
 
-            byte[] data = copied > 0 ? decryptData( securityManager, hostIdSource, os.getBytes() ) : null;
-            org.apache.commons.io.IOUtils.closeQuietly( os );
-
-            if ( !ArrayUtils.isEmpty( data ) )
+            if ( first == -1 )
             {
-                LOG.debug( String.format( "Decrypted payload: \"%s\"", new String( data ) ) );
-                message.setContent( InputStream.class, new ByteArrayInputStream( data ) );
-            }
-            else
-            {
-                LOG.debug( "Decrypted data is NULL!!!" );
+                LOG.debug( "Encrypted payload is empty" );
+                return;
             }
+
+            is.unread( first );
+
+            //content is decrypted as the next interceptors read it
+            message.setContent( InputStream.class, decryptData( securityManager, hostIdSource, is ) );
         }
         catch ( Exception e )
         {
@@ -118,36 +116,29 @@ public class MessageContentUtil
 
 
     //***************************************************************************
-    private static byte[] decryptData( SecurityManager securityManager, String hostIdSource, byte[] data )
+    private static InputStream decryptData( SecurityManager securityManager, String hostIdSource, InputStream data )
             throws PGPException
     {
 
         try
         {
-            if ( ArrayUtils.isEmpty( data ) )
-            {
-                return ArrayUtils.EMPTY_BYTE_ARRAY;
-            }
-            else
-            {
-                EncryptionTool encTool = securityManager.getEncryptionTool();
+            EncryptionTool encTool = securityManager.getEncryptionTool();
 
 
-                KeyManager keyMan = securityManager.getKeyManager();
-                PGPSecretKeyRing secKey = keyMan.getSecretKeyRing( hostIdSource );
+            KeyManager keyMan = securityManager.getKeyManager();
+            PGPSecretKeyRing secKey = keyMan.getSecretKeyRing( hostIdSource );
 
-                if ( secKey != null )
-                {
-                    LOG.debug( " ****** Decrypting with: " + hostIdSource + " ****** " );
+            if ( secKey != null )
+            {
+                LOG.debug( " ****** Decrypting with: " + hostIdSource + " ****** " );
 
-                    return encTool.decrypt( data, secKey, "" );
-                }
-                else
-                {
-                    LOG.debug( String.format( " ****** Decryption error. Could not find Secret key : %s ****** ",
-                            hostIdSource ) );
-                    throw new PGPException( "Cannot find Secret Key" );
-                }
+                return encTool.decrypt( data, secKey, "" );
+            }
+            else
+            {
+                LOG.debug( String.format( " ****** Decryption error. Could not find Secret key : %s ****** ",
+                        hostIdSource ) );
+                throw new PGPException( "Cannot find Secret Key" );
             }
         }
         catch ( Exception ex )
@@ -162,42 +153,24 @@ public class MessageContentUtil
     {
         OutputStream os = message.getContent( OutputStream.class );
 
-        CachedStream cs = new CachedStream();
-        message.setContent( OutputStream.class, cs );
+        //content is encrypted as the next interceptors write it
+        EncryptingOutputStream es = new EncryptingOutputStream( securityManager, hostIdTarget, os );
+        message.setContent( OutputStream.class, es );
 
-        message.getInterceptorChain().doIntercept( message );
         LOG.debug( String.format( "Encrypting IDs: %s -> %s", hostIdSource, hostIdTarget ) );
 
+        message.getInterceptorChain().doIntercept( message );
+
         try
         {
-            cs.flush();
-            CachedOutputStream csnew = ( CachedOutputStream ) message.getContent( OutputStream.class );
-
-            byte[] originalMessage = org.apache.commons.io.IOUtils.toByteArray( csnew.getInputStream() );
-            LOG.debug( String.format( "Original payload: \"%s\"", new String( originalMessage ) ) );
+            es.close();
 
-            csnew.flush();
-            org.apache.commons.io.IOUtils.closeQuietly( cs );
-            org.apache.commons.io.IOUtils.closeQuietly( csnew );
-
-            //do something with original message to produce finalMessage
-            byte[] finalMessage =
-                    originalMessage.length > 0 ? encryptData( securityManager, hostIdTarget, originalMessage ) : null;
-
-            if ( !ArrayUtils.isEmpty( finalMessage ) )
+            if ( es.isEncrypted() )
             {
-
-                InputStream replaceInStream = new ByteArrayInputStream( finalMessage );
-
-                org.apache.commons.io.IOUtils.copy( replaceInStream, os );
-                replaceInStream.close();
-                org.apache.commons.io.IOUtils.closeQuietly( replaceInStream );
-
                 os.flush();
                 message.setContent( OutputStream.class, os );
             }
 
-
             org.apache.commons.io.IOUtils.closeQuietly( os );
         }
         catch ( Exception ioe )
@@ -205,40 +178,4 @@ public class MessageContentUtil
             throw new ActionFailedException( "Error encrypting content", ioe );
         }
     }
-
-
-    private static byte[] encryptData( SecurityManager securityManager, String hostIdTarget, byte[] data )
-            throws PGPException
-    {
-        try
-        {
-            if ( ArrayUtils.isEmpty( data ) )
-            {
-                return ArrayUtils.EMPTY_BYTE_ARRAY;
-            }
-            else
-            {
-                EncryptionTool encTool = securityManager.getEncryptionTool();
-                KeyManager keyMan = securityManager.getKeyManager();
-                PGPPublicKey pubKey = keyMan.getRemoteHostPublicKey( hostIdTarget );
-
-                if ( pubKey != null )
-                {
-                    LOG.debug( String.format( " ****** Encrypting with %s ****** ", hostIdTarget ) );
-
-                    return encTool.encrypt( data, pubKey, true );
-                }
-                else
-                {
-                    LOG.debug( String.format( " ****** Encryption error. Could not find Public key : %s ****** ",
-                            hostIdTarget ) );
-                    throw new PGPException( "Cannot find Public Key" );
-                }
-            }
-        }
-        catch ( Exception ex )
-        {
-            throw new PGPException( "Error in encryptData", ex );
-        }
-    }
-}
\ No newline at end of file
+}
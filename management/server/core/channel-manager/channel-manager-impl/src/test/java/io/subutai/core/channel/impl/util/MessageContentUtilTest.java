@@ -2,6 +2,7 @@ package io.subutai.core.channel.impl.util;
 
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.AccessControlException;
@@ -10,6 +11,7 @@ import javax.security.auth.login.LoginException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
+import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
 import org.junit.Before;
@@ -17,7 +19,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Matchers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import org.apache.cxf.interceptor.InterceptorChain;
 import org.apache.cxf.io.CachedOutputStream;
@@ -29,12 +33,16 @@ import io.subutai.core.security.api.SecurityManager;
 import io.subutai.core.security.api.crypto.EncryptionTool;
 import io.subutai.core.security.api.crypto.KeyManager;
 
-import static org.mockito.Matchers.any;
+import static junit.framework.TestCase.assertEquals;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 
@@ -110,36 +118,92 @@ public class MessageContentUtilTest
     @Test
     public void testDecryptContent() throws Exception
     {
-        doReturn( "OK".getBytes() ).when( encryptionTool )
-                                   .decrypt( isA( byte[].class ), isA( PGPSecretKeyRing.class ), anyString() );
+        InputStream decrypted = new ByteArrayInputStream( "OK".getBytes() );
+        doReturn( decrypted ).when( encryptionTool )
+                             .decrypt( isA( InputStream.class ), isA( PGPSecretKeyRing.class ), anyString() );
 
         MessageContentUtil.decryptContent( securityManager, message, SRC, TARGET );
 
-        verify( encryptionTool ).decrypt( isA( byte[].class ), isA( PGPSecretKeyRing.class ), anyString() );
+        verify( encryptionTool ).decrypt( isA( InputStream.class ), isA( PGPSecretKeyRing.class ), anyString() );
 
-        verify( message ).setContent( any( Class.class ), Matchers.anyObject() );
+        verify( message ).setContent( InputStream.class, decrypted );
 
         //
 
-        doReturn( null ).when( encryptionTool )
-                        .decrypt( isA( byte[].class ), isA( PGPSecretKeyRing.class ), anyString() );
+        doThrow( new PGPException( "" ) ).when( encryptionTool )
+                                         .decrypt( isA( InputStream.class ), isA( PGPSecretKeyRing.class ),
+                                                 anyString() );
+        doReturn( new ByteArrayInputStream( "test".getBytes() ) ).when( message ).getContent( InputStream.class );
+
+        MessageContentUtil.decryptContent( securityManager, message, SRC, TARGET );
+
+        verify( message, times( 1 ) ).setContent( eq( InputStream.class ), Matchers.anyObject() );
+    }
+
+
+    @Test
+    public void testDecryptEmptyContent() throws Exception
+    {
+        doReturn( new ByteArrayInputStream( new byte[0] ) ).when( message ).getContent( InputStream.class );
 
         MessageContentUtil.decryptContent( securityManager, message, SRC, TARGET );
+
+        verify( encryptionTool, never() )
+                .decrypt( isA( InputStream.class ), isA( PGPSecretKeyRing.class ), anyString() );
     }
 
 
     @Test
     public void testEncryptContent() throws Exception
     {
-        doReturn( new ByteArrayInputStream( "OK".getBytes() ) ).when( cachedOutputStream ).getInputStream();
+        final ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
         doReturn( pgpPublicKey ).when( keyManager ).getRemoteHostPublicKey( anyString() );
+        doReturn( encrypted ).when( encryptionTool ).encrypt( cachedOutputStream, pgpPublicKey, true );
+        writeContentOnIntercept( "OK" );
 
-        doReturn( "OK".getBytes() ).when( encryptionTool )
-                                   .encrypt( isA( byte[].class ), isA( PGPPublicKey.class ), eq( true ) );
+        MessageContentUtil.encryptContent( securityManager, SRC, TARGET, message );
+
+        verify( encryptionTool ).encrypt( cachedOutputStream, pgpPublicKey, true );
+        assertEquals( "OK", encrypted.toString() );
+        verify( message ).setContent( OutputStream.class, cachedOutputStream );
+        verify( cachedOutputStream ).close();
+    }
 
 
+    @Test
+    public void testEncryptEmptyContent() throws Exception
+    {
+        writeContentOnIntercept( "" );
+
         MessageContentUtil.encryptContent( securityManager, SRC, TARGET, message );
 
-        verify( encryptionTool ).encrypt( isA( byte[].class ), eq( pgpPublicKey ), eq( true ) );
+        verify( encryptionTool, never() ).encrypt( isA( OutputStream.class ), isA( PGPPublicKey.class ), eq( true ) );
+    }
+
+
+    private void writeContentOnIntercept( final String content )
+    {
+        final OutputStream[] messageContent = new OutputStream[1];
+
+        doAnswer( new Answer<Void>()
+        {
+            @Override
+            public Void answer( final InvocationOnMock invocation ) throws Throwable
+            {
+                messageContent[0] = ( OutputStream ) invocation.getArguments()[1];
+                return null;
+            }
+        } ).when( message ).setContent( eq( OutputStream.class ), Matchers.anyObject() );
+
+        doAnswer( new Answer<Void>()
+        {
+            @Override
+            public Void answer( final InvocationOnMock invocation ) throws Throwable
+            {
+                messageContent[0].write( content.getBytes() );
+                messageContent[0].close();
+                return null;
+            }
+        } ).when( interceptors ).doIntercept( message );
     }
 }
@@ -1,6 +1,7 @@
 package io.subutai.core.executor.api;
 
 
+import java.util.List;
 import java.util.Set;
 
 import io.subutai.common.command.Response;
@@ -12,6 +13,11 @@ public interface RestProcessor
 
     void handleResponse( Response response );
 
+    /**
+     * Handles responses received from agents in one batch
+     */
+    void handleResponses( List<? extends Response> responses );
+
     Set<String> getRequests( String hostId );
 
     void handleHeartbeat( HeartBeat heartBeat );
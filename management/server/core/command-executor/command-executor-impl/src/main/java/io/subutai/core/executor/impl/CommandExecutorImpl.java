@@ -45,7 +45,7 @@ public class CommandExecutorImpl implements CommandExecutor
 
         Request request = requestBuilder.build( hostId );
 
-        commandProcessor.execute( request, callback );
+        commandProcessor.execute( request, callback, true );
 
         return commandProcessor.getResult( request.getCommandId() );
     }
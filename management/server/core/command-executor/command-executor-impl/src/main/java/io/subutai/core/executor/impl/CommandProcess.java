@@ -1,16 +1,12 @@
 package io.subutai.core.executor.impl;
 
 
-import java.security.PrivilegedAction;
 import java.util.Comparator;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import javax.security.auth.Subject;
-
 import org.bouncycastle.openpgp.PGPException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,10 +15,11 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
 
+import io.subutai.common.command.BufferedCommandResult;
 import io.subutai.common.command.CommandCallback;
 import io.subutai.common.command.CommandException;
+import io.subutai.common.command.CommandOutput;
 import io.subutai.common.command.CommandResult;
-import io.subutai.common.command.CommandResultImpl;
 import io.subutai.common.command.CommandStatus;
 import io.subutai.common.command.Request;
 import io.subutai.common.command.Response;
@@ -42,13 +39,13 @@ class CommandProcess
     private static final Logger LOG = LoggerFactory.getLogger( CommandProcess.class.getName() );
 
     private CommandCallback callback;
-    private StringBuilder stdOut;
-    private StringBuilder stdErr;
+    private CommandOutput stdOut;
+    private CommandOutput stdErr;
     private Integer exitCode;
     private CommandProcessor commandProcessor;
     volatile CommandStatus status;
     Semaphore semaphore;
-    protected ExecutorService executor;
+    protected Executor executor;
     private Request request;
     Session userSession;
     private int expectedResponseNumber = 1;
@@ -56,6 +53,9 @@ class CommandProcess
     private String rhId;
     private AtomicBoolean isSent = new AtomicBoolean( false );
     private String encryptedRequest;
+    //output of a synchronous command is kept after completion until the caller closes the result
+    private boolean awaited;
+    private boolean completed;
 
 
     CommandProcess( final CommandProcessor commandProcessor, final CommandCallback callback, final Request request,
@@ -71,8 +71,8 @@ class CommandProcess
         this.commandProcessor = commandProcessor;
         this.callback = callback;
 
-        stdOut = new StringBuilder();
-        stdErr = new StringBuilder();
+        stdOut = new CommandOutput();
+        stdErr = new CommandOutput();
         status = CommandStatus.NEW;
         semaphore = new Semaphore( 0 );
 
@@ -129,9 +129,45 @@ class CommandProcess
             status = CommandStatus.TIMEOUT;
         }
 
+        completeOutput();
+
         semaphore.release();
+    }
+
+
+    /**
+     * Marks process as synchronous, must be called before the process is registered so that output produced before
+     * the caller gets the result is not disposed on completion
+     */
+    synchronized void setAwaited( boolean awaited )
+    {
+        this.awaited = awaited;
+
+        if ( completed && !awaited )
+        {
+            disposeOutput();
+        }
+    }
 
-        executor.shutdown();
+
+    private synchronized void completeOutput()
+    {
+        completed = true;
+
+        stdOut.close();
+        stdErr.close();
+
+        if ( !awaited )
+        {
+            disposeOutput();
+        }
+    }
+
+
+    private void disposeOutput()
+    {
+        stdOut.dispose();
+        stdErr.dispose();
     }
 
 
@@ -164,31 +200,14 @@ class CommandProcess
 
     void processNextResponse( final Response response )
     {
-        final CommandProcess THIS = this;
-
-        if ( userSession != null )
+        try
         {
-
-            Subject.doAs( userSession.getSubject(), new PrivilegedAction<Void>()
-            {
-                @Override
-                public Void run()
-                {
-                    try
-                    {
-                        executor.execute( new ResponseProcessor( response, THIS, commandProcessor, request ) );
-                    }
-                    catch ( Exception e )
-                    {
-                        LOG.error( "Error in processResponse", e );
-                    }
-                    return null;
-                }
-            } );
+            //lane threads are shared, so ResponseProcessor itself switches to the user of the command
+            executor.execute( new ResponseProcessor( response, this, commandProcessor, request ) );
         }
-        else
+        catch ( Exception e )
         {
-            executor.execute( new ResponseProcessor( response, THIS, commandProcessor, request ) );
+            LOG.error( "Error in processResponse", e );
         }
     }
 
@@ -201,7 +220,7 @@ class CommandProcess
         }
 
         status = CommandStatus.RUNNING;
-        executor = Executors.newSingleThreadExecutor();
+        executor = commandProcessor.getResponseExecutor( request.getCommandId() );
     }
 
 
@@ -244,9 +263,27 @@ class CommandProcess
     }
 
 
+    Session getUserSession()
+    {
+        return userSession;
+    }
+
+
+    CommandOutput getStdOut()
+    {
+        return stdOut;
+    }
+
+
+    CommandOutput getStdErr()
+    {
+        return stdErr;
+    }
+
+
     CommandResult getResult()
     {
-        return new CommandResultImpl( exitCode, stdOut.toString(), stdErr.toString(), status );
+        return new BufferedCommandResult( exitCode, stdOut, stdErr, status );
     }
 
 
@@ -1,15 +1,23 @@
 package io.subutai.core.executor.impl;
 
 
-import java.util.Collection;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.ws.rs.core.Form;
 
@@ -21,7 +29,6 @@ import org.apache.cxf.jaxrs.client.WebClient;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
 
-import io.subutai.common.cache.CacheEntry;
 import io.subutai.common.cache.ExpiringCache;
 import io.subutai.common.command.CommandCallback;
 import io.subutai.common.command.CommandException;
@@ -37,6 +44,7 @@ import io.subutai.common.settings.Common;
 import io.subutai.common.util.IPUtil;
 import io.subutai.common.util.JsonUtil;
 import io.subutai.common.util.RestUtil;
+import io.subutai.common.util.StripedExecutor;
 import io.subutai.core.executor.api.RestProcessor;
 import io.subutai.core.hostregistry.api.HostDisconnectedException;
 import io.subutai.core.hostregistry.api.HostRegistry;
@@ -52,12 +60,33 @@ public class CommandProcessor implements RestProcessor
     private static final Logger LOG = LoggerFactory.getLogger( CommandProcessor.class.getName() );
     private static final int NOTIFIER_INTERVAL_MS = 300;
     private static final int EXTRA_TIMEOUT_SEC = 60;
+    private static final int RESPONSE_LANES = Math.max( 4, Runtime.getRuntime().availableProcessors() * 2 );
+    private static final int HEARTBEAT_LANES = Math.max( 2, Runtime.getRuntime().availableProcessors() );
+    private static final int MAX_PENDING_HEARTBEATS = 1000;
     private final HostRegistry hostRegistry;
     private IdentityManager identityManager;
     ExpiringCache<UUID, CommandProcess> commands = new ExpiringCache<>();
+    //outputs of results handed out to callers of synchronous commands, released when the caller closes the result
+    //or, as a leak, once the result is garbage collected
+    Set<ResultReference> resultReferences =
+            Collections.newSetFromMap( new ConcurrentHashMap<ResultReference, Boolean>() );
+    ReferenceQueue<CommandResult> collectedResults = new ReferenceQueue<>();
     private ScheduledExecutorService notifier = Executors.newSingleThreadScheduledExecutor();
     ExecutorService notifierPool = Executors.newCachedThreadPool();
+    //serializes response processing per command on a bounded set of threads, a slow callback delays its whole lane
+    StripedExecutor responseExecutor = new StripedExecutor( RESPONSE_LANES, "command-response" );
     Set<HeartbeatListener> listeners = Collections.newSetFromMap( new ConcurrentHashMap<HeartbeatListener, Boolean>() );
+    //commands not yet picked up by agents, indexed by RH id
+    ConcurrentMap<String, Queue<CommandProcess>> pendingCommands = new ConcurrentHashMap<>();
+    //RHs that have pending commands and need to be notified
+    Set<String> dirtyRhIds = Collections.newSetFromMap( new ConcurrentHashMap<String, Boolean>() );
+    //processes heartbeats of each RH in order on a bounded set of threads
+    StripedExecutor heartbeatExecutor = new StripedExecutor( HEARTBEAT_LANES, "heartbeat" );
+    //latest not yet processed heartbeat per RH id
+    ConcurrentMap<String, HeartBeat> pendingHeartbeats = new ConcurrentHashMap<>();
+    private final AtomicLong receivedHeartbeats = new AtomicLong();
+    private final AtomicLong coalescedHeartbeats = new AtomicLong();
+    private final AtomicLong droppedHeartbeats = new AtomicLong();
 
     JsonUtil jsonUtil = new JsonUtil();
     IPUtil ipUtil = new IPUtil();
@@ -85,9 +114,20 @@ public class CommandProcessor implements RestProcessor
     {
         commands.dispose();
 
+        for ( ResultReference resultReference : resultReferences )
+        {
+            resultReference.release();
+        }
+
+        resultReferences.clear();
+
         notifier.shutdown();
 
         notifierPool.shutdown();
+
+        responseExecutor.shutdown();
+
+        heartbeatExecutor.shutdown();
     }
 
 
@@ -107,6 +147,8 @@ public class CommandProcessor implements RestProcessor
                 try
                 {
                     notifyAgents();
+
+                    releaseCollectedResults();
                 }
                 catch ( Exception e )
                 {
@@ -117,33 +159,108 @@ public class CommandProcessor implements RestProcessor
     }
 
 
+    /**
+     * Queues heartbeat for processing. Only the latest heartbeat of an RH is kept, a heartbeat that arrives before the
+     * previous one of the same RH got processed replaces it.
+     */
     @Override
     public void handleHeartbeat( final HeartBeat heartBeat )
     {
-        LOG.debug( String.format( "Heartbeat:%n%s", jsonUtil.to( heartBeat ) ) );
+        if ( LOG.isDebugEnabled() )
+        {
+            LOG.debug( String.format( "Heartbeat:%n%s", jsonUtil.to( heartBeat ) ) );
+        }
 
-        for ( final HeartbeatListener listener : listeners )
+        receivedHeartbeats.incrementAndGet();
+
+        final String rhId = heartBeat.getHostInfo().getId();
+
+        if ( pendingHeartbeats.size() >= MAX_PENDING_HEARTBEATS && !pendingHeartbeats.containsKey( rhId ) )
+        {
+            droppedHeartbeats.incrementAndGet();
+
+            LOG.warn( "Too many pending heartbeats, dropping heartbeat from {}", rhId );
+
+            return;
+        }
+
+        if ( pendingHeartbeats.put( rhId, heartBeat ) != null )
         {
-            notifierPool.submit( new Runnable()
+            //processing of RH is already scheduled and will pick up this heartbeat
+            coalescedHeartbeats.incrementAndGet();
+
+            return;
+        }
+
+        heartbeatExecutor.execute( rhId, new Runnable()
+        {
+            @Override
+            public void run()
             {
-                @Override
-                public void run()
+                HeartBeat latestHeartBeat = pendingHeartbeats.remove( rhId );
+
+                if ( latestHeartBeat != null )
                 {
-                    try
-                    {
-                        listener.onHeartbeat( heartBeat );
-                    }
-                    catch ( Exception e )
-                    {
-                        LOG.error( "Error in handleHeartbeat", e );
-                    }
+                    notifyListeners( latestHeartBeat );
                 }
-            } );
+            }
+        } );
+    }
+
+
+    void notifyListeners( HeartBeat heartBeat )
+    {
+        for ( final HeartbeatListener listener : listeners )
+        {
+            try
+            {
+                listener.onHeartbeat( heartBeat );
+            }
+            catch ( Exception e )
+            {
+                LOG.error( "Error in handleHeartbeat", e );
+            }
         }
     }
 
 
+    public long getReceivedHeartbeatCount()
+    {
+        return receivedHeartbeats.get();
+    }
+
+
+    /**
+     * Returns number of heartbeats replaced by a fresher one before being processed
+     */
+    public long getCoalescedHeartbeatCount()
+    {
+        return coalescedHeartbeats.get();
+    }
+
+
+    /**
+     * Returns number of heartbeats dropped because too many RHs had pending heartbeats
+     */
+    public long getDroppedHeartbeatCount()
+    {
+        return droppedHeartbeats.get();
+    }
+
+
     void execute( final Request request, CommandCallback callback ) throws CommandException
+    {
+        execute( request, callback, false );
+    }
+
+
+    /**
+     * Executes command
+     *
+     * @param awaited true if the caller is going to wait for the result, output is then kept after completion until
+     * the caller closes the result
+     */
+    void execute( final Request request, CommandCallback callback, boolean awaited ) throws CommandException
     {
         //find target host
         ResourceHostInfo resourceHostInfo;
@@ -170,6 +287,12 @@ public class CommandProcessor implements RestProcessor
         //create command process
         CommandProcess commandProcess = createCommandProcess( callback, request, resourceHostInfo.getId() );
 
+        if ( awaited )
+        {
+            //before registering, otherwise the command might complete and dispose output before the caller waits
+            commandProcess.setAwaited( true );
+        }
+
         boolean queued = commands.put( request.getCommandId(), commandProcess,
                 ( request.getTimeout() + EXTRA_TIMEOUT_SEC ) * 1000L, new CommandProcessExpiryCallback() );
 
@@ -183,6 +306,8 @@ public class CommandProcessor implements RestProcessor
         {
             commandProcess.start();
 
+            enqueue( commandProcess );
+
             String command = jsonUtil.to( new RequestWrapper( request ) );
 
             LOG.debug( String.format( "Sending:%n%s", command ) );
@@ -213,18 +338,47 @@ public class CommandProcessor implements RestProcessor
     }
 
 
+    void enqueue( CommandProcess commandProcess )
+    {
+        String rhId = commandProcess.getRhId();
+
+        Queue<CommandProcess> rhCommands = pendingCommands.get( rhId );
+
+        if ( rhCommands == null )
+        {
+            Queue<CommandProcess> newRhCommands = new ConcurrentLinkedQueue<>();
+
+            rhCommands = pendingCommands.putIfAbsent( rhId, newRhCommands );
+
+            if ( rhCommands == null )
+            {
+                rhCommands = newRhCommands;
+            }
+        }
+
+        rhCommands.offer( commandProcess );
+
+        dirtyRhIds.add( rhId );
+    }
+
+
     @Override
     public Set<String> getRequests( final String hostId )
     {
         Set<String> hostRequests = Sets.newHashSet();
 
-        Collection<CacheEntry<CommandProcess>> commandProcessEntries = commands.getEntries().values();
+        Queue<CommandProcess> rhCommands = pendingCommands.get( hostId );
 
-        for ( CacheEntry<CommandProcess> commandProcessEntry : commandProcessEntries )
+        if ( rhCommands == null )
         {
-            CommandProcess commandProcess = commandProcessEntry.getValue();
+            return hostRequests;
+        }
+
+        CommandProcess commandProcess;
 
-            if ( commandProcess.getRhId().equals( hostId ) && commandProcess.markAsSent() )
+        while ( ( commandProcess = rhCommands.poll() ) != null )
+        {
+            if ( !commandProcess.isDone() && commandProcess.markAsSent() )
             {
                 hostRequests.add( commandProcess.getEncryptedRequest() );
             }
@@ -234,42 +388,67 @@ public class CommandProcessor implements RestProcessor
     }
 
 
-    private void notifyAgents()
+    void notifyAgents()
     {
-        Collection<CacheEntry<CommandProcess>> commandProcessEntries = commands.getEntries().values();
-
-        Set<String> notifiedRhIds = Sets.newHashSet();
-
-        for ( CacheEntry<CommandProcess> commandProcessEntry : commandProcessEntries )
+        for ( Iterator<String> iterator = dirtyRhIds.iterator(); iterator.hasNext(); )
         {
-            final CommandProcess commandProcess = commandProcessEntry.getValue();
+            final String rhId = iterator.next();
 
-            if ( !commandProcess.isSent() && !notifiedRhIds.contains( commandProcess.getRhId() ) )
+            if ( !hasPendingCommands( rhId ) )
             {
-                notifiedRhIds.add( commandProcess.getRhId() );
+                iterator.remove();
+
+                //re-check in case a command got queued concurrently
+                if ( !hasPendingCommands( rhId ) )
+                {
+                    continue;
+                }
+
+                dirtyRhIds.add( rhId );
+            }
 
-                notifierPool.execute( new Runnable()
+            notifierPool.execute( new Runnable()
+            {
+                @Override
+                public void run()
                 {
-                    @Override
-                    public void run()
+                    try
                     {
-                        try
-                        {
-                            ResourceHostInfo resourceHostInfo = getResourceHostInfo( commandProcess.getRhId() );
-
-                            notifyAgent( resourceHostInfo );
-                        }
-                        catch ( Exception e )
-                        {
-                            //ignore
-                        }
+                        ResourceHostInfo resourceHostInfo = getResourceHostInfo( rhId );
+
+                        notifyAgent( resourceHostInfo );
                     }
-                } );
-            }
+                    catch ( Exception e )
+                    {
+                        //ignore
+                    }
+                }
+            } );
         }
     }
 
 
+    private boolean hasPendingCommands( String rhId )
+    {
+        Queue<CommandProcess> rhCommands = pendingCommands.get( rhId );
+
+        if ( rhCommands == null )
+        {
+            return false;
+        }
+
+        //drop commands that expired or completed before being picked up by agent
+        CommandProcess head;
+
+        while ( ( head = rhCommands.peek() ) != null && ( head.isDone() || head.isSent() ) )
+        {
+            rhCommands.remove( head );
+        }
+
+        return head != null;
+    }
+
+
     void notifyAgent( ResourceHostInfo resourceHostInfo )
     {
         WebClient webClient = null;
@@ -302,6 +481,12 @@ public class CommandProcessor implements RestProcessor
     }
 
 
+    Executor getResponseExecutor( UUID commandId )
+    {
+        return responseExecutor.getLane( commandId );
+    }
+
+
     ResourceHostInfo getResourceHostInfo( String requestHostId ) throws HostDisconnectedException
     {
         try
@@ -332,7 +517,12 @@ public class CommandProcessor implements RestProcessor
         if ( commandProcess != null )
         {
             //wait until process completes  & return result
-            return commandProcess.waitResult();
+            CommandResult result = commandProcess.waitResult();
+
+            resultReferences.add( new ResultReference( commandId, result, commandProcess.getStdOut(),
+                    commandProcess.getStdErr(), collectedResults ) );
+
+            return result;
         }
         else
         {
@@ -341,6 +531,28 @@ public class CommandProcessor implements RestProcessor
     }
 
 
+    /**
+     * Releases output of results which callers dropped without closing them
+     */
+    void releaseCollectedResults()
+    {
+        Reference<? extends CommandResult> reference;
+
+        while ( ( reference = collectedResults.poll() ) != null )
+        {
+            ResultReference resultReference = ( ResultReference ) reference;
+
+            resultReferences.remove( resultReference );
+
+            if ( resultReference.release() )
+            {
+                LOG.warn( "Result of command {} was not closed, removed its spilled output",
+                        resultReference.getCommandId() );
+            }
+        }
+    }
+
+
     @Override
     public void handleResponse( final Response response )
     {
@@ -348,27 +560,78 @@ public class CommandProcessor implements RestProcessor
         {
             Preconditions.checkNotNull( response );
 
-            CommandProcess commandProcess = commands.get( response.getCommandId() );
+            processResponse( response );
 
-            if ( commandProcess != null )
+            //update rh timestamp
+            ResourceHostInfo resourceHostInfo = getResourceHostInfo( response.getId() );
+
+            hostRegistry.updateResourceHostEntryTimestamp( resourceHostInfo.getId() );
+        }
+        catch ( Exception e )
+        {
+            LOG.error( "Error processing response", e );
+        }
+    }
+
+
+    @Override
+    public void handleResponses( final List<? extends Response> responses )
+    {
+        Preconditions.checkNotNull( responses );
+
+        Set<String> hostIds = Sets.newHashSet();
+
+        for ( Response response : responses )
+        {
+            try
             {
-                LOG.debug( "Response: {}", response );
+                Preconditions.checkNotNull( response );
+
+                processResponse( response );
 
-                commandProcess.processResponse( response );
+                hostIds.add( response.getId() );
             }
-            else
+            catch ( Exception e )
             {
-                LOG.warn( String.format( "Callback not found for response: %s", jsonUtil.to( response ) ) );
+                LOG.error( "Error processing response", e );
             }
+        }
 
-            //update rh timestamp
-            ResourceHostInfo resourceHostInfo = getResourceHostInfo( response.getId() );
+        //update rh timestamp once per batch
+        Set<String> rhIds = Sets.newHashSet();
 
-            hostRegistry.updateResourceHostEntryTimestamp( resourceHostInfo.getId() );
+        for ( String hostId : hostIds )
+        {
+            try
+            {
+                rhIds.add( getResourceHostInfo( hostId ).getId() );
+            }
+            catch ( Exception e )
+            {
+                LOG.error( "Error resolving resource host of {}", hostId, e );
+            }
         }
-        catch ( Exception e )
+
+        for ( String rhId : rhIds )
         {
-            LOG.error( "Error processing response", e );
+            hostRegistry.updateResourceHostEntryTimestamp( rhId );
+        }
+    }
+
+
+    private void processResponse( Response response )
+    {
+        CommandProcess commandProcess = commands.get( response.getCommandId() );
+
+        if ( commandProcess != null )
+        {
+            LOG.debug( "Response: {}", response );
+
+            commandProcess.processResponse( response );
+        }
+        else
+        {
+            LOG.warn( String.format( "Callback not found for response: %s", jsonUtil.to( response ) ) );
         }
     }
 
@@ -1,6 +1,10 @@
 package io.subutai.core.executor.impl;
 
 
+import java.security.PrivilegedAction;
+
+import javax.security.auth.Subject;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -8,14 +12,17 @@ import com.google.common.base.Preconditions;
 
 import io.subutai.common.command.Request;
 import io.subutai.common.command.Response;
+import io.subutai.core.identity.api.model.Session;
 
 
 /**
- * Processes response
+ * Processes response. Runs on a response lane shared with other commands, so a slow callback delays responses of all
+ * commands on the same lane.
  */
 public class ResponseProcessor implements Runnable
 {
     private static final Logger LOG = LoggerFactory.getLogger( ResponseProcessor.class.getName() );
+    private static final long SLOW_CALLBACK_THRESHOLD_MS = 1000;
 
     private Response response;
     private CommandProcess process;
@@ -39,13 +46,48 @@ public class ResponseProcessor implements Runnable
 
     @Override
     public void run()
+    {
+        Session userSession = process.getUserSession();
+
+        if ( userSession != null )
+        {
+            //lane thread may have been created by another user, run callback as the user who issued the command
+            Subject.doAs( userSession.getSubject(), new PrivilegedAction<Void>()
+            {
+                @Override
+                public Void run()
+                {
+                    processResponse();
+
+                    return null;
+                }
+            } );
+        }
+        else
+        {
+            processResponse();
+        }
+    }
+
+
+    private void processResponse()
     {
         process.appendResponse( response );
 
         try
         {
+            long start = System.currentTimeMillis();
+
             process.getCallback().onResponse( response, process.getResult() );
 
+            long elapsed = System.currentTimeMillis() - start;
+
+            if ( elapsed > SLOW_CALLBACK_THRESHOLD_MS )
+            {
+                LOG.warn( "Callback of command {} took {} ms, responses of other commands on its lane were delayed",
+                        response.getCommandId(), elapsed );
+            }
+
             if ( process.isDone() )
             {
                 //remove process from command processor
@@ -0,0 +1,54 @@
+package io.subutai.core.executor.impl;
+
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.UUID;
+
+import io.subutai.common.command.CommandOutput;
+import io.subutai.common.command.CommandResult;
+
+
+/**
+ * Tracks output of a result handed out to the caller of a synchronous command. The caller releases output by closing
+ * the result, output of a result that got garbage collected without being closed is released by {@link #release()}.
+ */
+class ResultReference extends PhantomReference<CommandResult>
+{
+    private final UUID commandId;
+    private final CommandOutput stdOut;
+    private final CommandOutput stdErr;
+
+
+    ResultReference( final UUID commandId, final CommandResult result, final CommandOutput stdOut,
+                     final CommandOutput stdErr, final ReferenceQueue<CommandResult> queue )
+    {
+        super( result, queue );
+
+        this.commandId = commandId;
+        this.stdOut = stdOut;
+        this.stdErr = stdErr;
+    }
+
+
+    UUID getCommandId()
+    {
+        return commandId;
+    }
+
+
+    /**
+     * Disposes output
+     *
+     * @return true if output was not yet disposed and had been spilled to disk, i.e. the caller leaked it
+     */
+    boolean release()
+    {
+        boolean leaked = !stdOut.isDisposed() && stdOut.isSpilled() || !stdErr.isDisposed() && stdErr.isSpilled();
+
+        stdOut.dispose();
+        stdErr.dispose();
+
+        return leaked;
+    }
+}
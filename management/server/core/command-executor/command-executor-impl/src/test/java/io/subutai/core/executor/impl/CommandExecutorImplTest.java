@@ -67,7 +67,7 @@ public class CommandExecutorImplTest
     {
         commandExecutor.execute( HOST_ID, requestBuilder );
 
-        verify( commandProcessor ).execute( any( Request.class ), any( CommandCallback.class ) );
+        verify( commandProcessor ).execute( any( Request.class ), any( CommandCallback.class ), eq( true ) );
         verify( commandProcessor ).getResult( any( UUID.class ) );
     }
 
@@ -77,7 +77,7 @@ public class CommandExecutorImplTest
     {
         commandExecutor.execute( HOST_ID, requestBuilder, callback );
 
-        verify( commandProcessor ).execute( any( Request.class ), eq( callback ) );
+        verify( commandProcessor ).execute( any( Request.class ), eq( callback ), eq( true ) );
         verify( commandProcessor ).getResult( any( UUID.class ) );
     }
 
@@ -4,6 +4,7 @@ package io.subutai.core.executor.impl;
 import java.io.PrintStream;
 import java.util.Comparator;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Semaphore;
 
@@ -22,6 +23,7 @@ import io.subutai.common.command.CommandStatus;
 import io.subutai.common.command.Request;
 import io.subutai.common.command.Response;
 import io.subutai.common.command.ResponseType;
+import io.subutai.common.exception.ActionFailedException;
 import io.subutai.core.identity.api.model.Session;
 
 import static junit.framework.TestCase.assertEquals;
@@ -34,6 +36,7 @@ import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -146,7 +149,7 @@ public class CommandProcessTest
         commandProcess.stop();
 
         verify( semaphore ).release();
-        verify( executor ).shutdown();
+        verify( executor, never() ).shutdown();
 
         commandProcess.status = CommandStatus.RUNNING;
 
@@ -156,6 +159,47 @@ public class CommandProcessTest
     }
 
 
+    @Test( expected = ActionFailedException.class )
+    public void testStopReleasesOutput() throws Exception
+    {
+        when( response.getStdOut() ).thenReturn( OUTPUT );
+
+        commandProcess.appendResponse( response );
+
+        commandProcess.stop();
+
+        commandProcess.getResult().getStdOut();
+    }
+
+
+    @Test
+    public void testStopKeepsAwaitedOutput() throws Exception
+    {
+        when( response.getStdOut() ).thenReturn( OUTPUT );
+
+        commandProcess.setAwaited( true );
+        commandProcess.appendResponse( response );
+
+        //command completes before the caller waits for the result
+        commandProcess.stop();
+
+        CommandResult result = commandProcess.waitResult();
+
+        assertEquals( OUTPUT, result.getStdOut() );
+
+        result.close();
+
+        try
+        {
+            commandProcess.getResult().getStdOut();
+            fail( "Expected ActionFailedException" );
+        }
+        catch ( ActionFailedException e )
+        {
+        }
+    }
+
+
     @Test
     public void testProcessResponse() throws Exception
     {
@@ -183,6 +227,7 @@ public class CommandProcessTest
         commandProcess.start();
 
         assertEquals( CommandStatus.RUNNING, commandProcess.status );
+        verify( commandProcessor ).getResponseExecutor( any( UUID.class ) );
 
         commandProcess.status = CommandStatus.RUNNING;
 
@@ -285,6 +330,6 @@ public class CommandProcessTest
         commandProcess.processNextResponse( response );
 
         verify( executor ).execute( isA( ResponseProcessor.class ) );
-        verify( session, times( 2 ) ).getSubject();
+        verify( session, never() ).getSubject();
     }
 }
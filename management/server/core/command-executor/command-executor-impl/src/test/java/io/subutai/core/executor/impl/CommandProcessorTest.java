@@ -11,16 +11,20 @@ import javax.ws.rs.core.Response;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 import org.apache.cxf.jaxrs.client.WebClient;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 import io.subutai.common.cache.ExpiringCache;
 import io.subutai.common.command.CommandCallback;
 import io.subutai.common.command.CommandException;
+import io.subutai.common.command.CommandOutput;
+import io.subutai.common.command.CommandResult;
 import io.subutai.common.command.Request;
 import io.subutai.common.host.ContainerHostInfo;
 import io.subutai.common.host.HeartBeat;
@@ -28,6 +32,7 @@ import io.subutai.common.host.HeartbeatListener;
 import io.subutai.common.host.ResourceHostInfo;
 import io.subutai.common.util.IPUtil;
 import io.subutai.common.util.JsonUtil;
+import io.subutai.common.util.StripedExecutor;
 import io.subutai.core.hostregistry.api.HostDisconnectedException;
 import io.subutai.core.hostregistry.api.HostRegistry;
 import io.subutai.core.identity.api.IdentityManager;
@@ -35,14 +40,19 @@ import io.subutai.core.identity.api.model.Session;
 import io.subutai.core.identity.api.model.User;
 import io.subutai.core.security.api.SecurityManager;
 
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -89,6 +99,10 @@ public class CommandProcessorTest
     ExecutorService notifierPool;
     @Mock
     IPUtil ipUtil;
+    @Mock
+    StripedExecutor responseExecutor;
+    @Mock
+    StripedExecutor heartbeatExecutor;
 
     CommandProcessor commandProcessor;
     @Mock
@@ -104,6 +118,8 @@ public class CommandProcessorTest
         commandProcessor.jsonUtil = jsonUtil;
         commandProcessor.notifierPool = notifierPool;
         commandProcessor.ipUtil = ipUtil;
+        commandProcessor.responseExecutor = responseExecutor;
+        commandProcessor.heartbeatExecutor = heartbeatExecutor;
         doThrow( new HostDisconnectedException( "" ) ).when( hostRegistry ).getResourceHostInfoById( HOST_ID );
         when( hostRegistry.getContainerHostInfoById( HOST_ID ) ).thenReturn( containerHostInfo );
         when( hostRegistry.getResourceHostByContainerHost( containerHostInfo ) ).thenReturn( resourceHostInfo );
@@ -164,10 +180,39 @@ public class CommandProcessorTest
     {
 
         commandProcessor.listeners = Sets.newHashSet( heartbeatListener );
+        when( heartBeat.getHostInfo() ).thenReturn( resourceHostInfo );
+
+        commandProcessor.handleHeartbeat( heartBeat );
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass( Runnable.class );
+        verify( heartbeatExecutor ).execute( eq( HOST_ID ), captor.capture() );
+
+        captor.getValue().run();
+
+        verify( heartbeatListener ).onHeartbeat( heartBeat );
+    }
+
+
+    @Test
+    public void testHandleHeartbeatCoalesce() throws Exception
+    {
+        commandProcessor.listeners = Sets.newHashSet( heartbeatListener );
+        HeartBeat latestHeartBeat = mock( HeartBeat.class );
+        when( heartBeat.getHostInfo() ).thenReturn( resourceHostInfo );
+        when( latestHeartBeat.getHostInfo() ).thenReturn( resourceHostInfo );
 
         commandProcessor.handleHeartbeat( heartBeat );
+        commandProcessor.handleHeartbeat( latestHeartBeat );
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass( Runnable.class );
+        verify( heartbeatExecutor ).execute( eq( HOST_ID ), captor.capture() );
 
-        verify( notifierPool ).submit( isA( Runnable.class ) );
+        captor.getValue().run();
+
+        verify( heartbeatListener ).onHeartbeat( latestHeartBeat );
+        verify( heartbeatListener, never() ).onHeartbeat( heartBeat );
+        assertEquals( 2, commandProcessor.getReceivedHeartbeatCount() );
+        assertEquals( 1, commandProcessor.getCoalescedHeartbeatCount() );
     }
 
 
@@ -198,6 +243,34 @@ public class CommandProcessorTest
         commandProcessor.getResult( COMMAND_ID );
 
         verify( process ).waitResult();
+        assertEquals( 1, commandProcessor.resultReferences.size() );
+    }
+
+
+    @Test
+    public void testReleaseCollectedResults() throws Exception
+    {
+        CommandOutput stdOut = new CommandOutput( 0 );
+        CommandOutput stdErr = new CommandOutput( 0 );
+        stdOut.append( "output" );
+
+        ResultReference resultReference =
+                new ResultReference( COMMAND_ID, mock( CommandResult.class ), stdOut, stdErr,
+                        commandProcessor.collectedResults );
+        commandProcessor.resultReferences.add( resultReference );
+
+        commandProcessor.releaseCollectedResults();
+
+        assertFalse( stdOut.isDisposed() );
+
+        //result was garbage collected without being closed
+        resultReference.enqueue();
+
+        commandProcessor.releaseCollectedResults();
+
+        assertTrue( stdOut.isDisposed() );
+        assertTrue( stdErr.isDisposed() );
+        assertTrue( commandProcessor.resultReferences.isEmpty() );
     }
 
 
@@ -221,12 +294,14 @@ public class CommandProcessorTest
 
         try
         {
-            commandProcessor.execute( request, callback );
+            commandProcessor.execute( request, callback, true );
             fail( "Expected CommandException" );
         }
         catch ( CommandException e )
         {
         }
+
+        verify( commandProcess ).setAwaited( true );
     }
 
 
@@ -236,6 +311,37 @@ public class CommandProcessorTest
         Set<String> requests = commandProcessor.getRequests( HOST_ID );
 
         assertNotNull( requests );
+
+        doReturn( HOST_ID ).when( commandProcess ).getRhId();
+        doReturn( true ).when( commandProcess ).markAsSent();
+        doReturn( "REQUEST" ).when( commandProcess ).getEncryptedRequest();
+
+        commandProcessor.enqueue( commandProcess );
+
+        requests = commandProcessor.getRequests( HOST_ID );
+
+        assertTrue( requests.contains( "REQUEST" ) );
+        assertTrue( commandProcessor.getRequests( HOST_ID ).isEmpty() );
+    }
+
+
+    @Test
+    public void testNotifyAgents() throws Exception
+    {
+        doReturn( HOST_ID ).when( commandProcess ).getRhId();
+
+        commandProcessor.enqueue( commandProcess );
+
+        commandProcessor.notifyAgents();
+
+        verify( notifierPool ).execute( isA( Runnable.class ) );
+        assertTrue( commandProcessor.dirtyRhIds.contains( HOST_ID ) );
+
+        doReturn( true ).when( commandProcess ).isSent();
+
+        commandProcessor.notifyAgents();
+
+        assertFalse( commandProcessor.dirtyRhIds.contains( HOST_ID ) );
     }
 
 
@@ -265,6 +371,10 @@ public class CommandProcessorTest
         verify( commands ).dispose();
 
         verify( notifierPool ).shutdown();
+
+        verify( responseExecutor ).shutdown();
+
+        verify( heartbeatExecutor ).shutdown();
     }
 
 
@@ -285,4 +395,19 @@ public class CommandProcessorTest
 
         verify( hostRegistry, times( 2 ) ).updateResourceHostEntryTimestamp( anyString() );
     }
+
+
+    @Test
+    public void testHandleResponses() throws Exception
+    {
+        io.subutai.common.command.Response response = mock( io.subutai.common.command.Response.class );
+        when( response.getId() ).thenReturn( HOST_ID );
+        doReturn( resourceHostInfo ).when( commandProcessor ).getResourceHostInfo( anyString() );
+        doReturn( process ).when( commands ).get( any( UUID.class ) );
+
+        commandProcessor.handleResponses( Lists.newArrayList( response, response, response ) );
+
+        verify( process, times( 3 ) ).processResponse( response );
+        verify( hostRegistry ).updateResourceHostEntryTimestamp( HOST_ID );
+    }
 }
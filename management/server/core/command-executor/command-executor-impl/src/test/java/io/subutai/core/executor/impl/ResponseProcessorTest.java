@@ -2,21 +2,30 @@ package io.subutai.core.executor.impl;
 
 
 import java.io.PrintStream;
+import java.security.AccessController;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.security.auth.Subject;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import io.subutai.common.command.CommandCallback;
 import io.subutai.common.command.CommandResult;
 import io.subutai.common.command.Request;
 import io.subutai.common.command.Response;
+import io.subutai.core.identity.api.model.Session;
 
+import static junit.framework.TestCase.assertSame;
 import static junit.framework.TestCase.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -36,6 +45,8 @@ public class ResponseProcessorTest
     CommandCallback callback;
     @Mock
     Request request;
+    @Mock
+    Session session;
 
     ResponseProcessor responseProcessor;
 
@@ -100,4 +111,29 @@ public class ResponseProcessorTest
 
         verify( exception ).printStackTrace( any( PrintStream.class ) );
     }
+
+
+    @Test
+    public void testRunAsUserOfCommand() throws Exception
+    {
+        Subject subject = new Subject();
+        final AtomicReference<Subject> callbackSubject = new AtomicReference<>();
+
+        when( commandProcess.getUserSession() ).thenReturn( session );
+        when( session.getSubject() ).thenReturn( subject );
+        doAnswer( new Answer<Void>()
+        {
+            @Override
+            public Void answer( final InvocationOnMock invocation ) throws Throwable
+            {
+                callbackSubject.set( Subject.getSubject( AccessController.getContext() ) );
+
+                return null;
+            }
+        } ).when( callback ).onResponse( eq( response ), any( CommandResult.class ) );
+
+        responseProcessor.run();
+
+        assertSame( subject, callbackSubject.get() );
+    }
 }
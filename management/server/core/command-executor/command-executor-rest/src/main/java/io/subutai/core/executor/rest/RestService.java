@@ -25,6 +25,16 @@ public interface RestService
     @Consumes( { MediaType.APPLICATION_FORM_URLENCODED } )
     Response processResponse( @FormParam( "response" ) String response );
 
+    @POST
+    @Path( "responses" )
+    @Consumes( { MediaType.APPLICATION_FORM_URLENCODED } )
+    Response processResponses( @FormParam( "responses" ) String responses );
+
+    @GET
+    @Path( "features" )
+    @Produces( { MediaType.APPLICATION_JSON } )
+    Response getFeatures();
+
     @GET
     @Path( "requests/{hostId}" )
     @Produces( { MediaType.APPLICATION_JSON } )
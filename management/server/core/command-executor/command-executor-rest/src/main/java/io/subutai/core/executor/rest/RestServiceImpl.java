@@ -1,6 +1,7 @@
 package io.subutai.core.executor.rest;
 
 
+import java.util.List;
 import java.util.Set;
 
 import javax.annotation.security.RolesAllowed;
@@ -11,9 +12,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 
 import io.subutai.common.command.ResponseImpl;
 import io.subutai.common.command.ResponseWrapper;
+import io.subutai.common.command.ResponsesWrapper;
 import io.subutai.common.host.HeartBeat;
 import io.subutai.common.util.CollectionUtil;
 import io.subutai.common.util.JsonUtil;
@@ -25,6 +28,9 @@ public class RestServiceImpl implements RestService
 {
     private final static String INVALID_RESPONSE = "Invalid response";
     private final static String INVALID_HEARTBEAT = "Invalid heartbeat";
+    //features agents can opt in to
+    static final String BATCH_RESPONSES_FEATURE = "batch-responses";
+    private static final List<String> FEATURES = ImmutableList.of( BATCH_RESPONSES_FEATURE );
     private static final Logger LOG = LoggerFactory.getLogger( RestServiceImpl.class.getName() );
     private final SecurityManager securityManager;
     private final RestProcessor restProcessor;
@@ -108,6 +114,48 @@ public class RestServiceImpl implements RestService
     }
 
 
+    @RolesAllowed( "Resource-Management|Write" )
+    @Override
+    public Response processResponses( final String responses )
+    {
+        try
+        {
+            Preconditions.checkArgument( responses != null && !responses.trim().isEmpty(), INVALID_RESPONSE );
+
+            String decryptedResponses = decrypt( responses );
+
+            Preconditions.checkArgument( decryptedResponses != null && !decryptedResponses.trim().isEmpty(),
+                    INVALID_RESPONSE );
+
+            ResponsesWrapper responsesWrapper = JsonUtil.fromJson( decryptedResponses, ResponsesWrapper.class );
+
+            Preconditions.checkNotNull( responsesWrapper, INVALID_RESPONSE );
+
+            Preconditions.checkArgument( !CollectionUtil.isCollectionEmpty( responsesWrapper.getResponses() ),
+                    INVALID_RESPONSE );
+
+            restProcessor.handleResponses( responsesWrapper.getResponses() );
+
+            return Response.accepted().build();
+        }
+        catch ( Exception e )
+        {
+            LOG.error( "Error processing command responses from agent: {}", e.getMessage() );
+
+            return Response.status( Response.Status.INTERNAL_SERVER_ERROR ).
+                    entity( e.getMessage() ).build();
+        }
+    }
+
+
+    @RolesAllowed( "Resource-Management|Read" )
+    @Override
+    public Response getFeatures()
+    {
+        return Response.ok( JsonUtil.toJson( FEATURES ) ).build();
+    }
+
+
     @RolesAllowed( "Resource-Management|Read" )
     @Override
     public Response getRequests( String hostId )
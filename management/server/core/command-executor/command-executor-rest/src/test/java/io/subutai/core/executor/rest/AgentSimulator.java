@@ -0,0 +1,188 @@
+package io.subutai.core.executor.rest;
+
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+
+import io.subutai.common.command.Response;
+import io.subutai.common.command.ResponseImpl;
+import io.subutai.common.command.ResponseType;
+import io.subutai.common.command.ResponseWrapper;
+import io.subutai.common.command.ResponsesWrapper;
+import io.subutai.common.host.HeartBeat;
+import io.subutai.common.util.JsonUtil;
+import io.subutai.core.executor.api.RestProcessor;
+import io.subutai.core.security.api.SecurityManager;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+/**
+ * Stand-in agent which feeds command responses to the agent endpoint one per request or in batches and reports
+ * throughput of both. Encryption is stubbed out, so numbers reflect ingestion cost on the management side only.
+ *
+ * Usage: AgentSimulator [commands] [responses per command] [batch size]
+ */
+public class AgentSimulator
+{
+    private static final String HOST_ID = UUID.randomUUID().toString();
+    private static final String STD_OUT = "simulated output line of a long running command\n";
+
+    private final RestServiceImpl restService;
+    private final CountingRestProcessor restProcessor = new CountingRestProcessor();
+
+
+    public AgentSimulator() throws Exception
+    {
+        SecurityManager securityManager = mock( SecurityManager.class );
+
+        when( securityManager.decryptNVerifyResponseFromHost( anyString() ) ).thenAnswer( new Answer<String>()
+        {
+            @Override
+            public String answer( final InvocationOnMock invocation ) throws Throwable
+            {
+                return ( String ) invocation.getArguments()[0];
+            }
+        } );
+
+        restService = new RestServiceImpl( securityManager, restProcessor );
+    }
+
+
+    public static void main( String[] args ) throws Exception
+    {
+        int commands = args.length > 0 ? Integer.parseInt( args[0] ) : 100;
+        int responsesPerCommand = args.length > 1 ? Integer.parseInt( args[1] ) : 100;
+        int batchSize = args.length > 2 ? Integer.parseInt( args[2] ) : 50;
+
+        AgentSimulator simulator = new AgentSimulator();
+
+        List<ResponseImpl> responses = generateResponses( commands, responsesPerCommand );
+
+        //warm up
+        simulator.sendSingle( responses );
+        simulator.sendBatched( responses, batchSize );
+
+        report( "single", responses.size(), simulator.sendSingle( responses ) );
+        report( String.format( "batched by %d", batchSize ), responses.size(),
+                simulator.sendBatched( responses, batchSize ) );
+    }
+
+
+    static List<ResponseImpl> generateResponses( int commands, int responsesPerCommand )
+    {
+        List<ResponseImpl> responses = Lists.newArrayListWithCapacity( commands * responsesPerCommand );
+
+        for ( int i = 0; i < commands; i++ )
+        {
+            UUID commandId = UUID.randomUUID();
+
+            for ( int j = 1; j <= responsesPerCommand; j++ )
+            {
+                responses.add( new ResponseImpl( ResponseType.EXECUTE_RESPONSE, HOST_ID, commandId, i, j, STD_OUT, "",
+                        j == responsesPerCommand ? 0 : null ) );
+            }
+        }
+
+        return responses;
+    }
+
+
+    /**
+     * Sends each response in its own request, returns elapsed millis
+     */
+    long sendSingle( List<ResponseImpl> responses )
+    {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        for ( ResponseImpl response : responses )
+        {
+            restService.processResponse( JsonUtil.toJson( new ResponseWrapper( response ) ) );
+        }
+
+        return stopwatch.elapsed( TimeUnit.MILLISECONDS );
+    }
+
+
+    /**
+     * Sends responses in batches of the given size, returns elapsed millis
+     */
+    long sendBatched( List<ResponseImpl> responses, int batchSize )
+    {
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        for ( List<ResponseImpl> batch : Lists.partition( responses, batchSize ) )
+        {
+            restService.processResponses( JsonUtil.toJson( new ResponsesWrapper( batch ) ) );
+        }
+
+        return stopwatch.elapsed( TimeUnit.MILLISECONDS );
+    }
+
+
+    long getResponseCount()
+    {
+        return restProcessor.responses.get();
+    }
+
+
+    long getRequestCount()
+    {
+        return restProcessor.requests.get();
+    }
+
+
+    private static void report( String mode, int responses, long elapsedMs )
+    {
+        System.out.println( String.format( "%s: %d responses in %d ms, %.0f responses/sec", mode, responses, elapsedMs,
+                responses * 1000.0 / Math.max( 1, elapsedMs ) ) );
+    }
+
+
+    private static class CountingRestProcessor implements RestProcessor
+    {
+        private final AtomicLong responses = new AtomicLong();
+        private final AtomicLong requests = new AtomicLong();
+
+
+        @Override
+        public void handleResponse( final Response response )
+        {
+            requests.incrementAndGet();
+            responses.incrementAndGet();
+        }
+
+
+        @Override
+        public void handleResponses( final List<? extends Response> responses )
+        {
+            requests.incrementAndGet();
+            this.responses.addAndGet( responses.size() );
+        }
+
+
+        @Override
+        public Set<String> getRequests( final String hostId )
+        {
+            return null;
+        }
+
+
+        @Override
+        public void handleHeartbeat( final HeartBeat heartBeat )
+        {
+            //not used
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.subutai.core.executor.rest;
+
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.subutai.core.executor.api.RestProcessor;
+import io.subutai.core.security.api.SecurityManager;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
+import static org.mockito.Mockito.mock;
+
+
+public class RestServiceImplTest
+{
+    private AgentSimulator simulator;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        simulator = new AgentSimulator();
+    }
+
+
+    @Test
+    public void testProcessResponses() throws Exception
+    {
+        simulator.sendBatched( AgentSimulator.generateResponses( 3, 10 ), 10 );
+
+        assertEquals( 30, simulator.getResponseCount() );
+        assertEquals( 3, simulator.getRequestCount() );
+    }
+
+
+    @Test
+    public void testProcessResponse() throws Exception
+    {
+        simulator.sendSingle( AgentSimulator.generateResponses( 1, 10 ) );
+
+        assertEquals( 10, simulator.getResponseCount() );
+        assertEquals( 10, simulator.getRequestCount() );
+    }
+
+
+    @Test
+    public void testGetFeatures() throws Exception
+    {
+        RestServiceImpl restService =
+                new RestServiceImpl( mock( SecurityManager.class ), mock( RestProcessor.class ) );
+
+        assertTrue( restService.getFeatures().getEntity().toString()
+                               .contains( RestServiceImpl.BATCH_RESPONSES_FEATURE ) );
+    }
+}
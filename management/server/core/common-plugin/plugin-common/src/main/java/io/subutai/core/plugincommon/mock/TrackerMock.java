@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.UUID;
 
 import io.subutai.common.tracker.TrackerOperation;
+import io.subutai.common.tracker.TrackerOperationLog;
 import io.subutai.common.tracker.TrackerOperationView;
 import io.subutai.core.tracker.api.Tracker;
 
@@ -21,6 +22,21 @@ public class TrackerMock implements Tracker
     }
 
 
+    @Override
+    public List<String> getTrackerOperationLog( String source, UUID operationTrackId, int fromLine )
+    {
+        return Collections.emptyList();
+    }
+
+
+    @Override
+    public TrackerOperationLog waitForTrackerOperationLog( String source, UUID operationTrackId, int fromLine,
+                                                           long timeoutMs )
+    {
+        return null;
+    }
+
+
     @Override
     public TrackerOperation createTrackerOperation( String source, String description )
     {
@@ -0,0 +1,36 @@
+package io.subutai.core.environment.cli;
+
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.karaf.shell.commands.Command;
+
+import io.subutai.common.util.FanOutScheduler;
+import io.subutai.core.identity.rbac.cli.SubutaiShellCommandSupport;
+
+
+/**
+ * Prints queue and latency statistics of parallel workflow steps
+ */
+@Command( scope = "environment", name = "list-task-lanes",
+        description = "Lists queue and latency statistics of parallel workflow tasks" )
+public class ListTaskLanesCommand extends SubutaiShellCommandSupport
+{
+
+    @Override
+    protected Object doExecute() throws Exception
+    {
+        Map<String, FanOutScheduler.LaneStats> stats =
+                new TreeMap<>( FanOutScheduler.getInstance().getStats() );
+
+        System.out.format( "Found %d task lane(s)%n", stats.size() );
+
+        for ( Map.Entry<String, FanOutScheduler.LaneStats> entry : stats.entrySet() )
+        {
+            System.out.printf( "%s\t%s%n", entry.getKey(), entry.getValue() );
+        }
+
+        return null;
+    }
+}
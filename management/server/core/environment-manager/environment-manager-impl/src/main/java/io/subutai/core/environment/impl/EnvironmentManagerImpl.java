@@ -81,6 +81,7 @@ import io.subutai.common.settings.Common;
 import io.subutai.common.tracker.TrackerOperation;
 import io.subutai.common.util.CollectionUtil;
 import io.subutai.common.util.ExceptionUtil;
+import io.subutai.common.util.FanOutScheduler;
 import io.subutai.common.util.JsonUtil;
 import io.subutai.common.util.NumUtil;
 import io.subutai.common.util.ServiceLocator;
@@ -230,7 +231,7 @@ public class EnvironmentManagerImpl extends HostListener
 
     protected EnvironmentAdapter getEnvironmentAdapter( HubAdapter hubAdapter )
     {
-        return new EnvironmentAdapter( this, peerManager, hubAdapter, identityManager );
+        return new EnvironmentAdapter( this, peerManager, hubAdapter, identityManager, executor );
     }
 
 
@@ -1210,6 +1211,9 @@ public class EnvironmentManagerImpl extends HostListener
             {
                 activeWorkflow.cancel();
 
+                //drop parallel steps of the workflow still queued or running
+                FanOutScheduler.getInstance().cancel( environmentId );
+
                 removeActiveWorkflow( environmentId );
             }
             else
@@ -1246,21 +1250,21 @@ public class EnvironmentManagerImpl extends HostListener
     {
         Preconditions.checkNotNull( environmentId, "Invalid environment id" );
 
-        // First get from Hub
-        LocalEnvironment environment = environmentAdapter.get( environmentId );
+        // First get local environment, no need to go to Hub for it
+        LocalEnvironment environment = environmentService.find( environmentId );
 
         if ( environment != null )
         {
+            setTransientFields( Sets.<Environment>newHashSet( environment ) );
+
             return environment;
         }
 
-        // try to get local environment
-        environment = environmentService.find( environmentId );
+        // try to get from Hub
+        environment = environmentAdapter.get( environmentId );
 
         if ( environment != null )
         {
-            setTransientFields( Sets.<Environment>newHashSet( environment ) );
-
             return environment;
         }
 
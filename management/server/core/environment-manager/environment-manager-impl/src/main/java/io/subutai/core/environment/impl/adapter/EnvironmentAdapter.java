@@ -3,6 +3,7 @@ package io.subutai.core.environment.impl.adapter;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +33,7 @@ import io.subutai.core.environment.impl.entity.EnvironmentContainerImpl;
 import io.subutai.core.environment.impl.entity.LocalEnvironment;
 import io.subutai.core.hubmanager.api.HubManager;
 import io.subutai.core.identity.api.IdentityManager;
+import io.subutai.core.identity.api.model.User;
 import io.subutai.core.peer.api.PeerManager;
 import io.subutai.hub.share.common.HubAdapter;
 import io.subutai.hub.share.json.JsonUtil;
@@ -48,9 +50,11 @@ public class EnvironmentAdapter
     private final HubAdapter hubAdapter;
     private final IdentityManager identityManager;
 
+    private final HubEnvironmentIndex hubEnvironmentIndex;
+
 
     public EnvironmentAdapter( EnvironmentManagerImpl environmentManager, PeerManager peerManager,
-                               HubAdapter hubAdapter, IdentityManager identityManager )
+                               HubAdapter hubAdapter, IdentityManager identityManager, Executor refreshExecutor )
     {
         this.environmentManager = environmentManager;
 
@@ -59,6 +63,8 @@ public class EnvironmentAdapter
         this.hubAdapter = hubAdapter;
 
         this.identityManager = identityManager;
+
+        this.hubEnvironmentIndex = new HubEnvironmentIndex( this, refreshExecutor );
     }
 
 
@@ -72,13 +78,7 @@ public class EnvironmentAdapter
     {
         try
         {
-            for ( HubEnvironment e : getEnvironments( identityManager.isTenantManager() ) )
-            {
-                if ( e.getId().equals( id ) )
-                {
-                    return e;
-                }
-            }
+            return hubEnvironmentIndex.get( getScope( identityManager.isTenantManager() ), id );
         }
         catch ( ActionFailedException e )
         {
@@ -90,12 +90,54 @@ public class EnvironmentAdapter
 
 
     /**
-     * Returns hub environments for this peer. Throws {@code ActionFailedException} if requests to Hub failed for some
-     * reason
+     * Returns hub environments for this peer. Environments are served from the index which is refreshed periodically.
+     * Throws {@code ActionFailedException} if requests to Hub failed for some reason
      *
      * @param all true: returns all environments, false: returns current user environments
      */
     public Set<HubEnvironment> getEnvironments( boolean all )
+    {
+        return hubEnvironmentIndex.getEnvironments( getScope( all ) );
+    }
+
+
+    /**
+     * Returns index scope of environments. Fails if environments can not be obtained from Hub at the moment so that
+     * environments are not served from the index of a peer which is no longer registered
+     */
+    private String getScope( boolean all )
+    {
+        if ( !canWorkWithHub() )
+        {
+            throw new ActionFailedException( "Peer is not registered with Hub or connection to Hub failed" );
+        }
+
+        if ( all )
+        {
+            return HubEnvironmentIndex.ALL_ENVIRONMENTS;
+        }
+
+        User activeUser = identityManager.getActiveUser();
+
+        if ( activeUser == null )
+        {
+            throw new ActionFailedException( "Failed to obtain environments from Hub" );
+        }
+
+        return String.valueOf( activeUser.getId() );
+    }
+
+
+    /**
+     * Drops indexed Hub environments, called once environments are changed on Hub by this peer
+     */
+    public void invalidateEnvironments()
+    {
+        hubEnvironmentIndex.invalidate();
+    }
+
+
+    String downloadEnvironments( boolean all )
     {
         if ( !canWorkWithHub() )
         {
@@ -111,6 +153,12 @@ public class EnvironmentAdapter
 
         log.debug( "Json with environments: {}", json );
 
+        return json;
+    }
+
+
+    Set<HubEnvironment> parseEnvironments( String json )
+    {
         Set<HubEnvironment> envs = new HashSet<>();
 
         try
@@ -133,6 +181,12 @@ public class EnvironmentAdapter
     }
 
 
+    Set<String> getLocalContainerIds()
+    {
+        return proxyContainerHelper.getLocalContainerIds();
+    }
+
+
     public Set<String> getDeletedEnvironmentsIds()
     {
 
@@ -185,6 +239,8 @@ public class EnvironmentAdapter
             ( ( EnvironmentContainerImpl ) ch ).destroy( false );
 
             hubAdapter.destroyContainer( env.getId(), containerId );
+
+            invalidateEnvironments();
         }
         catch ( Exception e )
         {
@@ -204,6 +260,8 @@ public class EnvironmentAdapter
         {
             hubAdapter.removeEnvironment( envId );
 
+            invalidateEnvironments();
+
             return true;
         }
         catch ( Exception e )
@@ -315,6 +373,8 @@ public class EnvironmentAdapter
         }
 
         hubAdapter.removeSshKey( envId, sshKey );
+
+        invalidateEnvironments();
     }
 
 
@@ -326,6 +386,8 @@ public class EnvironmentAdapter
         }
 
         hubAdapter.addSshKey( envId, sshKey );
+
+        invalidateEnvironments();
     }
 
 
@@ -0,0 +1,216 @@
+package io.subutai.core.environment.impl.adapter;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import io.subutai.common.exception.ActionFailedException;
+
+
+/**
+ * Id-indexed cache of environments obtained from Hub. Environments are kept per scope: all environments of the peer
+ * and environments of a particular user. A scope older than REFRESH_INTERVAL_SEC is still served while it is
+ * downloaded again, in the background for peer environments and by the calling thread for user environments since
+ * those are requested on behalf of the active user. Downloaded environments are parsed only if the Hub response or
+ * the set of local containers changed since the previous download.
+ */
+class HubEnvironmentIndex
+{
+    private static final Logger LOG = LoggerFactory.getLogger( HubEnvironmentIndex.class );
+
+    static final String ALL_ENVIRONMENTS = "ALL";
+    static final long REFRESH_INTERVAL_SEC = 30;
+    static final long EXPIRATION_SEC = 600;
+    private static final int MAX_SCOPES = 1000;
+
+    private final EnvironmentAdapter environmentAdapter;
+    private final Executor refreshExecutor;
+    private final LoadingCache<String, Snapshot> snapshots;
+
+
+    HubEnvironmentIndex( final EnvironmentAdapter environmentAdapter, final Executor refreshExecutor )
+    {
+        this( environmentAdapter, refreshExecutor, Ticker.systemTicker() );
+    }
+
+
+    HubEnvironmentIndex( final EnvironmentAdapter environmentAdapter, final Executor refreshExecutor,
+                         final Ticker ticker )
+    {
+        this.environmentAdapter = environmentAdapter;
+        this.refreshExecutor = refreshExecutor;
+        this.snapshots = CacheBuilder.newBuilder().ticker( ticker ).maximumSize( MAX_SCOPES )
+                                     .refreshAfterWrite( REFRESH_INTERVAL_SEC, TimeUnit.SECONDS )
+                                     .expireAfterWrite( EXPIRATION_SEC, TimeUnit.SECONDS )
+                                     .build( new SnapshotLoader() );
+    }
+
+
+    /**
+     * Returns environment of scope by id or null if not found. Scope which is already cached is downloaded again once
+     * before giving up, the environment may have been created on Hub since the scope was downloaded
+     */
+    HubEnvironment get( String scope, String environmentId )
+    {
+        boolean cached = snapshots.getIfPresent( scope ) != null;
+
+        Snapshot snapshot = getSnapshot( scope );
+
+        HubEnvironment environment = snapshot.environments.get( environmentId );
+
+        if ( environment == null && cached )
+        {
+            environment = refresh( scope, snapshot ).environments.get( environmentId );
+        }
+
+        return environment;
+    }
+
+
+    Set<HubEnvironment> getEnvironments( String scope )
+    {
+        //callers are free to modify returned set
+        return Sets.newHashSet( getSnapshot( scope ).environments.values() );
+    }
+
+
+    /**
+     * Drops all scopes so that the next request downloads environments from Hub
+     */
+    void invalidate()
+    {
+        snapshots.invalidateAll();
+    }
+
+
+    private Snapshot getSnapshot( String scope )
+    {
+        try
+        {
+            return snapshots.get( scope );
+        }
+        catch ( ExecutionException | UncheckedExecutionException e )
+        {
+            if ( e.getCause() instanceof ActionFailedException )
+            {
+                throw ( ActionFailedException ) e.getCause();
+            }
+
+            throw new ActionFailedException( "Failed to obtain environments from Hub", e.getCause() );
+        }
+    }
+
+
+    private Snapshot refresh( String scope, Snapshot previous )
+    {
+        Snapshot snapshot = download( scope, previous );
+
+        snapshots.put( scope, snapshot );
+
+        return snapshot;
+    }
+
+
+    private Snapshot download( String scope, Snapshot previous )
+    {
+        String json = environmentAdapter.downloadEnvironments( ALL_ENVIRONMENTS.equals( scope ) );
+
+        Set<String> localContainerIds = environmentAdapter.getLocalContainerIds();
+
+        Hasher hasher = Hashing.sha256().newHasher().putString( json, StandardCharsets.UTF_8 );
+
+        for ( String containerId : Ordering.natural().sortedCopy( localContainerIds ) )
+        {
+            hasher.putString( containerId, StandardCharsets.UTF_8 );
+        }
+
+        HashCode digest = hasher.hash();
+
+        if ( previous != null && previous.digest.equals( digest ) )
+        {
+            LOG.debug( "Hub environments of scope {} did not change", scope );
+
+            return previous;
+        }
+
+        Map<String, HubEnvironment> environments = Maps.newHashMap();
+
+        for ( HubEnvironment environment : environmentAdapter.parseEnvironments( json ) )
+        {
+            environments.put( environment.getId(), environment );
+        }
+
+        return new Snapshot( digest, ImmutableMap.copyOf( environments ) );
+    }
+
+
+    private class SnapshotLoader extends CacheLoader<String, Snapshot>
+    {
+        @Override
+        public Snapshot load( final String scope )
+        {
+            return download( scope, null );
+        }
+
+
+        @Override
+        public ListenableFuture<Snapshot> reload( final String scope, final Snapshot previous )
+        {
+            if ( !ALL_ENVIRONMENTS.equals( scope ) )
+            {
+                return Futures.immediateFuture( download( scope, previous ) );
+            }
+
+            ListenableFutureTask<Snapshot> task = ListenableFutureTask.create( new Callable<Snapshot>()
+            {
+                @Override
+                public Snapshot call()
+                {
+                    return download( scope, previous );
+                }
+            } );
+
+            refreshExecutor.execute( task );
+
+            return task;
+        }
+    }
+
+
+    private static class Snapshot
+    {
+        private final HashCode digest;
+        private final Map<String, HubEnvironment> environments;
+
+
+        private Snapshot( final HashCode digest, final Map<String, HubEnvironment> environments )
+        {
+            this.digest = digest;
+            this.environments = environments;
+        }
+    }
+}
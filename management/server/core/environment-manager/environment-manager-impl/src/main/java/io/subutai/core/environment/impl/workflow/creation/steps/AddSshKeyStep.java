@@ -19,7 +19,7 @@ public class AddSshKeyStep
     private final String sshKey;
     private final LocalEnvironment environment;
     private final TrackerOperation trackerOperation;
-    protected PeerUtil<Object> keyUtil = new PeerUtil<>();
+    protected PeerUtil<Object> keyUtil;
 
 
     public AddSshKeyStep( final String sshKey, final LocalEnvironment environment,
@@ -27,6 +27,7 @@ public class AddSshKeyStep
     {
         this.sshKey = sshKey;
         this.environment = environment;
+        this.keyUtil = new PeerUtil<>( environment.getId() );
         this.trackerOperation = trackerOperation;
     }
 
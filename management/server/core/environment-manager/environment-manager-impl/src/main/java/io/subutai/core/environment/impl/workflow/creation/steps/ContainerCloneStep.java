@@ -9,9 +9,6 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.apache.commons.net.util.SubnetUtils;
-
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import io.subutai.common.environment.CreateEnvironmentContainersResponse;
@@ -32,6 +29,7 @@ import io.subutai.core.environment.api.exception.EnvironmentCreationException;
 import io.subutai.core.environment.impl.entity.EnvironmentContainerImpl;
 import io.subutai.core.environment.impl.entity.LocalEnvironment;
 import io.subutai.core.environment.impl.workflow.creation.steps.helpers.CreatePeerEnvironmentContainersTask;
+import io.subutai.core.environment.impl.workflow.creation.steps.helpers.SubnetIpAllocator;
 import io.subutai.core.identity.api.IdentityManager;
 import io.subutai.core.peer.api.PeerManager;
 import io.subutai.hub.share.quota.ContainerQuota;
@@ -50,7 +48,7 @@ public class ContainerCloneStep
     private final TrackerOperation operationTracker;
     private final String localPeerId;
     private PeerManager peerManager;
-    protected PeerUtil<CreateEnvironmentContainersResponse> cloneUtil = new PeerUtil<>();
+    protected PeerUtil<CreateEnvironmentContainersResponse> cloneUtil;
     private Map<String, ContainerQuota> containerQuotas = Maps.newHashMap();
 
 
@@ -61,6 +59,7 @@ public class ContainerCloneStep
         this.defaultDomain = defaultDomain;
         this.topology = topology;
         this.environment = environment;
+        this.cloneUtil = new PeerUtil<>( environment.getId() );
         this.peerManager = peerManager;
         this.identityManager = identityManager;
         this.operationTracker = operationTracker;
@@ -73,21 +72,17 @@ public class ContainerCloneStep
 
         Map<String, Set<Node>> placement = topology.getNodeGroupPlacement();
 
-        SubnetUtils cidr = new SubnetUtils( environment.getSubnetCidr() );
-
-        List<String> addresses = Lists.newArrayList( cidr.getInfo().getAllAddresses() );
-
-        //remove gw IP
-        addresses.remove( cidr.getInfo().getLowAddress() );
+        //ip usage is derived from existing containers, so IPs of destroyed containers are free again
+        SubnetIpAllocator ipAllocator = new SubnetIpAllocator( environment.getSubnetCidr() );
 
-        //remove already used container IPs
+        //mark already used container IPs
         for ( ContainerHost containerHost : environment.getContainerHosts() )
         {
-            addresses.remove( containerHost.getIp() );
+            ipAllocator.markUsed( containerHost.getIp() );
         }
 
         //obtain available ip address count
-        int totalAvailableIpCount = addresses.size();
+        int totalAvailableIpCount = ipAllocator.getAvailableCount();
 
         //obtain requested ip address count
         int requestedContainerCount = 0;
@@ -105,6 +100,8 @@ public class ContainerCloneStep
                             requestedContainerCount, totalAvailableIpCount ) );
         }
 
+        //only requested addresses are materialized, each peer gets a contiguous block
+        List<String> addresses = ipAllocator.allocate( requestedContainerCount );
 
         int currentOffset = 0;
 
@@ -34,7 +34,7 @@ public class PEKGenerationStep
     private final PeerManager peerManager;
     private final SecurityManager securityManager;
     private final TrackerOperation trackerOperation;
-    protected PeerUtil<Object> pekUtil = new PeerUtil<>();
+    protected PeerUtil<Object> pekUtil;
 
 
     public PEKGenerationStep( final Topology topology, final Environment environment, final PeerManager peerManager,
@@ -42,6 +42,7 @@ public class PEKGenerationStep
     {
         this.topology = topology;
         this.environment = environment;
+        this.pekUtil = new PeerUtil<>( environment.getId() );
         this.peerManager = peerManager;
         this.securityManager = securityManager;
         this.trackerOperation = trackerOperation;
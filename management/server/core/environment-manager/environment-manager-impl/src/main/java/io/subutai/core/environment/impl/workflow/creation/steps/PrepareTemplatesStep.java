@@ -27,13 +27,14 @@ public class PrepareTemplatesStep
     private final PeerManager peerManager;
     private final String kurjunToken;
     private final TrackerOperation operationTracker;
-    protected PeerUtil<PrepareTemplatesResponse> templateUtil = new PeerUtil<>();
+    protected PeerUtil<PrepareTemplatesResponse> templateUtil;
 
 
     public PrepareTemplatesStep( final Environment environment, final PeerManager peerManager, final Topology topology,
                                  final String kurjunToken, final TrackerOperation operationTracker )
     {
         this.environment = environment;
+        this.templateUtil = new PeerUtil<>( environment.getId() );
         this.topology = topology;
         this.peerManager = peerManager;
         this.kurjunToken = kurjunToken;
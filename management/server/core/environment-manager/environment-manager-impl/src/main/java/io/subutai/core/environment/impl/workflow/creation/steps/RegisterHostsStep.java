@@ -24,7 +24,7 @@ public class RegisterHostsStep
     private final Topology topology;
     private final LocalEnvironment environment;
     private final TrackerOperation trackerOperation;
-    PeerUtil<Object> hostUtil = new PeerUtil<>();
+    PeerUtil<Object> hostUtil;
 
 
     public RegisterHostsStep( final Topology topology, final LocalEnvironment environment,
@@ -32,6 +32,7 @@ public class RegisterHostsStep
     {
         this.topology = topology;
         this.environment = environment;
+        this.hostUtil = new PeerUtil<>( environment.getId() );
         this.trackerOperation = trackerOperation;
     }
 
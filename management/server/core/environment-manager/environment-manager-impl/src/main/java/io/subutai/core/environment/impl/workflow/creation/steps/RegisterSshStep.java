@@ -24,7 +24,7 @@ public class RegisterSshStep
     private final Topology topology;
     private final LocalEnvironment environment;
     private final TrackerOperation trackerOperation;
-    protected PeerUtil<Object> peerUtil = new PeerUtil<>();
+    protected PeerUtil<Object> peerUtil;
 
 
     public RegisterSshStep( final Topology topology, final LocalEnvironment environment,
@@ -32,6 +32,7 @@ public class RegisterSshStep
     {
         this.topology = topology;
         this.environment = environment;
+        this.peerUtil = new PeerUtil<>( environment.getId() );
         this.trackerOperation = trackerOperation;
     }
 
@@ -35,7 +35,7 @@ public class ReservationStep
     private final PeerManager peerManager;
     private final IdentityManager identityManager;
     private final TrackerOperation trackerOperation;
-    protected PeerUtil<Object> peerUtil = new PeerUtil<>();
+    protected PeerUtil<Object> peerUtil;
 
 
     public ReservationStep( final Topology topology, final LocalEnvironment environment, final PeerManager peerManager,
@@ -43,6 +43,7 @@ public class ReservationStep
     {
         this.topology = topology;
         this.environment = environment;
+        this.peerUtil = new PeerUtil<>( environment.getId() );
         this.peerManager = peerManager;
         this.identityManager = identityManager;
         this.trackerOperation = trackerOperation;
@@ -18,14 +18,16 @@ public class SetQuotaStep
     private final LocalEnvironment environment;
     private final TrackerOperation trackerOperation;
     private final Map<String, ContainerQuota> containerQuotas;
-    protected PeerUtil<Object> peerUtil = new PeerUtil<>();
-    protected TaskUtil<Object> quotaUtil = new TaskUtil<>();
+    protected PeerUtil<Object> peerUtil;
+    protected TaskUtil<Object> quotaUtil;
 
 
     public SetQuotaStep( final LocalEnvironment environment, final Map<String, ContainerQuota> containerQuotas,
                          final TrackerOperation trackerOperation )
     {
         this.environment = environment;
+        this.peerUtil = new PeerUtil<>( environment.getId() );
+        this.quotaUtil = new TaskUtil<>( environment.getId() );
         this.containerQuotas = containerQuotas;
         this.trackerOperation = trackerOperation;
     }
@@ -0,0 +1,136 @@
+package io.subutai.core.environment.impl.workflow.creation.steps.helpers;
+
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.commons.net.util.SubnetUtils;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+
+
+/**
+ * Allocates container IPs of an environment subnet. Usage of host addresses is tracked in a bit set indexed by offset
+ * from the lowest host address, which is reserved for gateway. Addresses are handed out in ascending order, so that
+ * each allocation is a contiguous run of free addresses where possible.
+ */
+public class SubnetIpAllocator
+{
+    private final SubnetUtils.SubnetInfo subnetInfo;
+    private final int lowAddress;
+    private final int addressCount;
+    private final BitSet usedAddresses;
+
+
+    public SubnetIpAllocator( final String cidr )
+    {
+        Preconditions.checkArgument( !Strings.isNullOrEmpty( cidr ), "Invalid cidr" );
+
+        this.subnetInfo = new SubnetUtils( cidr ).getInfo();
+        this.addressCount = subnetInfo.getAddressCount();
+        this.lowAddress = addressCount > 0 ? subnetInfo.asInteger( subnetInfo.getLowAddress() ) : 0;
+        this.usedAddresses = new BitSet( addressCount );
+
+        //gateway
+        if ( addressCount > 0 )
+        {
+            usedAddresses.set( 0 );
+        }
+    }
+
+
+    /**
+     * Marks address as used, addresses outside of subnet are ignored
+     */
+    public void markUsed( String ip )
+    {
+        int offset = getOffset( ip );
+
+        if ( offset >= 0 )
+        {
+            usedAddresses.set( offset );
+        }
+    }
+
+
+    /**
+     * Marks address as free, gateway and addresses outside of subnet are ignored
+     */
+    public void release( String ip )
+    {
+        int offset = getOffset( ip );
+
+        if ( offset > 0 )
+        {
+            usedAddresses.clear( offset );
+        }
+    }
+
+
+    public int getAvailableCount()
+    {
+        return addressCount - usedAddresses.cardinality();
+    }
+
+
+    /**
+     * Allocates the given number of lowest free addresses
+     *
+     * @throws IllegalStateException if not enough addresses are available
+     */
+    public List<String> allocate( int count )
+    {
+        Preconditions.checkArgument( count >= 0, "Invalid count" );
+
+        if ( count > getAvailableCount() )
+        {
+            throw new IllegalStateException(
+                    String.format( "Requested %d IP addresses but only %d available", count, getAvailableCount() ) );
+        }
+
+        List<String> addresses = Lists.newArrayListWithCapacity( count );
+
+        int offset = 0;
+
+        for ( int i = 0; i < count; i++ )
+        {
+            offset = usedAddresses.nextClearBit( offset );
+
+            usedAddresses.set( offset );
+
+            addresses.add( format( lowAddress + offset ) );
+        }
+
+        return addresses;
+    }
+
+
+    private int getOffset( String ip )
+    {
+        if ( Strings.isNullOrEmpty( ip ) || addressCount == 0 )
+        {
+            return -1;
+        }
+
+        try
+        {
+            //strip mask if any
+            int offset = subnetInfo.asInteger( ip.split( "/" )[0] ) - lowAddress;
+
+            return offset >= 0 && offset < addressCount ? offset : -1;
+        }
+        catch ( IllegalArgumentException e )
+        {
+            return -1;
+        }
+    }
+
+
+    private static String format( int address )
+    {
+        return ( ( address >>> 24 ) & 0xFF ) + "." + ( ( address >>> 16 ) & 0xFF ) + "." + ( ( address >>> 8 ) & 0xFF )
+                + "." + ( address & 0xFF );
+    }
+}
@@ -15,12 +15,13 @@ public class CleanupEnvironmentStep
 {
     private final LocalEnvironment environment;
     private final TrackerOperation trackerOperation;
-    protected PeerUtil<Object> cleanupUtil = new PeerUtil<>();
+    protected PeerUtil<Object> cleanupUtil;
 
 
     public CleanupEnvironmentStep( final LocalEnvironment environment, final TrackerOperation trackerOperation )
     {
         this.environment = environment;
+        this.cleanupUtil = new PeerUtil<>( environment.getId() );
         this.trackerOperation = trackerOperation;
     }
 
@@ -22,7 +22,7 @@ public class ChangeHostnameStep
 
     private String oldHostname;
 
-    protected TaskUtil<Object> renameUtil = new TaskUtil<>();
+    protected TaskUtil<Object> renameUtil;
 
 
     public ChangeHostnameStep( final EnvironmentManagerImpl environmentManager, final LocalEnvironment environment,
@@ -30,6 +30,7 @@ public class ChangeHostnameStep
     {
         this.environmentManager = environmentManager;
         this.environment = environment;
+        this.renameUtil = new TaskUtil<>( environment.getId() );
         this.containerId = containerId;
         this.newHostname = newHostname;
     }
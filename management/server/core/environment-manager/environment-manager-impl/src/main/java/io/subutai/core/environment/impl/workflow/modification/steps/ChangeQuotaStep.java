@@ -18,13 +18,14 @@ public class ChangeQuotaStep
     private final LocalEnvironment environment;
     private final Map<String, ContainerQuota> changedContainers;
     private final TrackerOperation trackerOperation;
-    protected TaskUtil<Object> quotaUtil = new TaskUtil<>();
+    protected TaskUtil<Object> quotaUtil;
 
 
     public ChangeQuotaStep( final LocalEnvironment environment, final Map<String, ContainerQuota> changedContainers,
                             final TrackerOperation trackerOperation )
     {
         this.environment = environment;
+        this.quotaUtil = new TaskUtil<>( environment.getId() );
         this.changedContainers = changedContainers;
         this.trackerOperation = trackerOperation;
     }
@@ -24,13 +24,14 @@ public class DestroyContainersStep
     private final EnvironmentManagerImpl environmentManager;
     private final List<String> removedContainers;
     private final TrackerOperation trackerOperation;
-    protected TaskUtil<Object> destroyUtil = new TaskUtil<>();
+    protected TaskUtil<Object> destroyUtil;
 
 
     public DestroyContainersStep( final LocalEnvironment environment, final EnvironmentManagerImpl environmentManager,
                                   final List<String> removedContainers, TrackerOperation trackerOperation )
     {
         this.environment = environment;
+        this.destroyUtil = new TaskUtil<>( environment.getId() );
         this.environmentManager = environmentManager;
         this.removedContainers = removedContainers;
         this.trackerOperation = trackerOperation;
@@ -18,13 +18,14 @@ public class P2PSecretKeyResetStep
     private final LocalEnvironment environment;
     private final P2PCredentials p2PCredentials;
     private final TrackerOperation trackerOperation;
-    protected PeerUtil<Object> resetUtil = new PeerUtil<>();
+    protected PeerUtil<Object> resetUtil;
 
 
     public P2PSecretKeyResetStep( final LocalEnvironment environment, final P2PCredentials p2PCredentials,
                                   final TrackerOperation trackerOperation )
     {
         this.environment = environment;
+        this.resetUtil = new PeerUtil<>( environment.getId() );
         this.p2PCredentials = p2PCredentials;
         this.trackerOperation = trackerOperation;
     }
@@ -24,7 +24,7 @@ public class PEKGenerationStep
     private final PeerManager peerManager;
     private final TrackerOperation trackerOperation;
     private final SecurityManager securityManager;
-    protected PeerUtil<Object> pekUtil = new PeerUtil<>();
+    protected PeerUtil<Object> pekUtil;
 
 
     public PEKGenerationStep( final Topology topology, final LocalEnvironment environment, final PeerManager peerManager,
@@ -32,6 +32,7 @@ public class PEKGenerationStep
     {
         this.topology = topology;
         this.environment = environment;
+        this.pekUtil = new PeerUtil<>( environment.getId() );
         this.peerManager = peerManager;
         this.securityManager = securityManager;
         this.trackerOperation = trackerOperation;
@@ -35,7 +35,7 @@ public class SetupP2PStep
     private final Topology topology;
     private final LocalEnvironment environment;
     private final TrackerOperation trackerOperation;
-    protected PeerUtil<Object> peerUtil = new PeerUtil<>();
+    protected PeerUtil<Object> peerUtil;
 
 
     public SetupP2PStep( final Topology topology, final LocalEnvironment environment,
@@ -43,6 +43,7 @@ public class SetupP2PStep
     {
         this.topology = topology;
         this.environment = environment;
+        this.peerUtil = new PeerUtil<>( environment.getId() );
         this.trackerOperation = trackerOperation;
     }
 
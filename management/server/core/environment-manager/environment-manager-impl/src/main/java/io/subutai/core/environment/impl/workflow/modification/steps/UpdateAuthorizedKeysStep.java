@@ -18,13 +18,14 @@ public class UpdateAuthorizedKeysStep
     private final String oldHostname;
     private final String newHostname;
     private final TrackerOperation trackerOperation;
-    protected PeerUtil<Object> peerUtil = new PeerUtil<>();
+    protected PeerUtil<Object> peerUtil;
 
 
     public UpdateAuthorizedKeysStep( final LocalEnvironment environment, final String oldHostname,
                                      final String newHostname, TrackerOperation trackerOperation )
     {
         this.environment = environment;
+        this.peerUtil = new PeerUtil<>( environment.getId() );
         this.oldHostname = oldHostname;
         this.newHostname = newHostname;
         this.trackerOperation = trackerOperation;
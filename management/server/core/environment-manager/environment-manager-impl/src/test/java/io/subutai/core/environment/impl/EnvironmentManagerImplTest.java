@@ -928,11 +928,16 @@ public class EnvironmentManagerImplTest
 
 
         doReturn( hubEnvironment ).when( environmentAdapter ).get( TestHelper.ENV_ID );
-        reset( environmentService );
 
-        environmentManager.loadEnvironment( TestHelper.ENV_ID );
+        assertEquals( hubEnvironment, environmentManager.loadEnvironment( TestHelper.ENV_ID ) );
+
+        //local environment is found without going to Hub
+        reset( environmentAdapter );
+        doReturn( environment ).when( environmentService ).find( TestHelper.ENV_ID );
+
+        assertEquals( environment, environmentManager.loadEnvironment( TestHelper.ENV_ID ) );
 
-        verify( environmentService, never() ).find( TestHelper.ENV_ID );
+        verify( environmentAdapter, never() ).get( TestHelper.ENV_ID );
     }
 
 
@@ -0,0 +1,159 @@
+package io.subutai.core.environment.impl.adapter;
+
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import io.subutai.common.exception.ActionFailedException;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.fail;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+
+@RunWith( MockitoJUnitRunner.class )
+public class HubEnvironmentIndexTest
+{
+    private static final String ENV_ID = "env";
+    private static final String JSON = "[{\"id\":\"env\"}]";
+    private static final String USER_SCOPE = "1";
+
+    @Mock
+    EnvironmentAdapter environmentAdapter;
+    @Mock
+    HubEnvironment hubEnvironment;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    HubEnvironmentIndex index;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        index = new HubEnvironmentIndex( environmentAdapter, MoreExecutors.sameThreadExecutor(), new Ticker()
+        {
+            @Override
+            public long read()
+            {
+                return nanos.get();
+            }
+        } );
+
+        doReturn( ENV_ID ).when( hubEnvironment ).getId();
+        doReturn( JSON ).when( environmentAdapter ).downloadEnvironments( true );
+        doReturn( Sets.newHashSet( "container" ) ).when( environmentAdapter ).getLocalContainerIds();
+        doReturn( Sets.newHashSet( hubEnvironment ) ).when( environmentAdapter ).parseEnvironments( JSON );
+    }
+
+
+    @Test
+    public void testGet() throws Exception
+    {
+        assertNull( index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, "unknown" ) );
+        assertSame( hubEnvironment, index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, ENV_ID ) );
+        assertEquals( Sets.newHashSet( hubEnvironment ),
+                index.getEnvironments( HubEnvironmentIndex.ALL_ENVIRONMENTS ) );
+
+        verify( environmentAdapter ).downloadEnvironments( true );
+    }
+
+
+    @Test
+    public void testGetRefreshesOnMiss() throws Exception
+    {
+        index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, ENV_ID );
+
+        assertNull( index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, "unknown" ) );
+
+        verify( environmentAdapter, times( 2 ) ).downloadEnvironments( true );
+
+        //environment created on Hub after scope was downloaded
+        String json = "[{\"id\":\"env\"},{\"id\":\"env2\"}]";
+        HubEnvironment created = mock( HubEnvironment.class );
+
+        doReturn( "env2" ).when( created ).getId();
+        doReturn( json ).when( environmentAdapter ).downloadEnvironments( true );
+        doReturn( Sets.newHashSet( hubEnvironment, created ) ).when( environmentAdapter ).parseEnvironments( json );
+
+        assertSame( created, index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, "env2" ) );
+        assertSame( created, index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, "env2" ) );
+
+        verify( environmentAdapter, times( 3 ) ).downloadEnvironments( true );
+    }
+
+
+    @Test
+    public void testRefreshWithoutChanges() throws Exception
+    {
+        index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, ENV_ID );
+
+        nanos.addAndGet( TimeUnit.SECONDS.toNanos( HubEnvironmentIndex.REFRESH_INTERVAL_SEC + 1 ) );
+
+        index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, ENV_ID );
+
+        verify( environmentAdapter, times( 2 ) ).downloadEnvironments( true );
+        verify( environmentAdapter, times( 1 ) ).parseEnvironments( JSON );
+    }
+
+
+    @Test
+    public void testRefreshWithChanges() throws Exception
+    {
+        index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, ENV_ID );
+
+        doReturn( Sets.newHashSet( "container", "container2" ) ).when( environmentAdapter ).getLocalContainerIds();
+        nanos.addAndGet( TimeUnit.SECONDS.toNanos( HubEnvironmentIndex.REFRESH_INTERVAL_SEC + 1 ) );
+
+        index.get( HubEnvironmentIndex.ALL_ENVIRONMENTS, ENV_ID );
+
+        verify( environmentAdapter, times( 2 ) ).parseEnvironments( JSON );
+    }
+
+
+    @Test
+    public void testInvalidate() throws Exception
+    {
+        doReturn( JSON ).when( environmentAdapter ).downloadEnvironments( false );
+
+        index.get( USER_SCOPE, ENV_ID );
+        index.invalidate();
+        index.get( USER_SCOPE, ENV_ID );
+
+        verify( environmentAdapter, times( 2 ) ).downloadEnvironments( false );
+    }
+
+
+    @Test
+    public void testDownloadFailure() throws Exception
+    {
+        doThrow( new ActionFailedException( "failed" ) ).when( environmentAdapter ).downloadEnvironments( false );
+
+        try
+        {
+            index.get( USER_SCOPE, ENV_ID );
+
+            fail( "Expected ActionFailedException" );
+        }
+        catch ( ActionFailedException e )
+        {
+            assertEquals( "failed", e.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.subutai.core.environment.impl.workflow.creation.steps.helpers;
+
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import static junit.framework.TestCase.assertEquals;
+
+
+public class SubnetIpAllocatorTest
+{
+    private static final String CIDR = "192.168.0.1/24";
+
+    SubnetIpAllocator allocator;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        allocator = new SubnetIpAllocator( CIDR );
+    }
+
+
+    @Test
+    public void testAllocate() throws Exception
+    {
+        //gateway is reserved
+        assertEquals( 253, allocator.getAvailableCount() );
+
+        allocator.markUsed( "192.168.0.3" );
+        allocator.markUsed( "127.0.0.1" );
+
+        assertEquals( Lists.newArrayList( "192.168.0.2", "192.168.0.4", "192.168.0.5" ), allocator.allocate( 3 ) );
+        assertEquals( 249, allocator.getAvailableCount() );
+    }
+
+
+    @Test
+    public void testRelease() throws Exception
+    {
+        allocator.allocate( 2 );
+
+        allocator.release( "192.168.0.2/24" );
+        allocator.release( "192.168.0.1" );
+
+        assertEquals( Lists.newArrayList( "192.168.0.2" ), allocator.allocate( 1 ) );
+    }
+
+
+    @Test( expected = IllegalStateException.class )
+    public void testAllocateExhausted() throws Exception
+    {
+        allocator.allocate( 254 );
+    }
+}
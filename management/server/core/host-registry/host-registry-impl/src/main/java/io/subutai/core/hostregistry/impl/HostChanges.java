@@ -0,0 +1,254 @@
+package io.subutai.core.hostregistry.impl;
+
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import io.subutai.common.host.ContainerHostInfo;
+import io.subutai.common.host.ContainerHostState;
+import io.subutai.common.host.HostInterfaceModel;
+import io.subutai.common.host.ResourceHostInfo;
+
+
+/**
+ * Container changes between two consecutive heartbeats of a resource host. Computed once per heartbeat and shared by
+ * all host listeners.
+ */
+class HostChanges
+{
+    static final HostChanges NONE = new HostChanges( false );
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final boolean rhConnected;
+    private final List<ContainerHostInfo> createdContainers = Lists.newArrayList();
+    private final List<StateChange> stateChanges = Lists.newArrayList();
+    private final List<HostnameChange> hostnameChanges = Lists.newArrayList();
+    private final List<InterfaceChange> interfaceChanges = Lists.newArrayList();
+    private final List<InterfaceChange> addedInterfaces = Lists.newArrayList();
+    private final List<InterfaceChange> removedInterfaces = Lists.newArrayList();
+
+
+    private HostChanges( final boolean rhConnected )
+    {
+        this.rhConnected = rhConnected;
+    }
+
+
+    /**
+     * Computes changes between previous and current info of a resource host
+     *
+     * @param oldRhInfo - info from the previous heartbeat, null if resource host has just connected
+     * @param newRhInfo - info from the current heartbeat
+     */
+    static HostChanges compute( ResourceHostInfo oldRhInfo, ResourceHostInfo newRhInfo )
+    {
+        if ( oldRhInfo == null )
+        {
+            return new HostChanges( true );
+        }
+
+        HostChanges changes = new HostChanges( false );
+
+        Map<String, ContainerHostInfo> oldContainers = Maps.newHashMap();
+
+        for ( ContainerHostInfo oldContainerInfo : oldRhInfo.getContainers() )
+        {
+            oldContainers.put( oldContainerInfo.getId().toLowerCase(), oldContainerInfo );
+        }
+
+        for ( ContainerHostInfo newContainerInfo : newRhInfo.getContainers() )
+        {
+            ContainerHostInfo oldContainerInfo = oldContainers.get( newContainerInfo.getId().toLowerCase() );
+
+            if ( oldContainerInfo == null )
+            {
+                changes.createdContainers.add( newContainerInfo );
+
+                continue;
+            }
+
+            if ( newContainerInfo.getState() != oldContainerInfo.getState() )
+            {
+                changes.stateChanges.add( new StateChange( newContainerInfo, oldContainerInfo.getState() ) );
+            }
+
+            if ( !newContainerInfo.getHostname().equalsIgnoreCase( oldContainerInfo.getHostname() ) )
+            {
+                changes.hostnameChanges.add( new HostnameChange( newContainerInfo, oldContainerInfo.getHostname() ) );
+            }
+
+            changes.computeInterfaceChanges( oldContainerInfo, newContainerInfo );
+        }
+
+        return changes;
+    }
+
+
+    private void computeInterfaceChanges( ContainerHostInfo oldContainerInfo, ContainerHostInfo newContainerInfo )
+    {
+        Map<String, HostInterfaceModel> oldInterfaces = Maps.newHashMap();
+
+        for ( HostInterfaceModel oldNetInterface : oldContainerInfo.getHostInterfaces().getAll() )
+        {
+            oldInterfaces.put( oldNetInterface.getName().toLowerCase(), oldNetInterface );
+        }
+
+        for ( HostInterfaceModel newNetInterface : newContainerInfo.getHostInterfaces().getAll() )
+        {
+            HostInterfaceModel oldNetInterface = oldInterfaces.remove( newNetInterface.getName().toLowerCase() );
+
+            if ( oldNetInterface == null )
+            {
+                addedInterfaces.add( new InterfaceChange( newContainerInfo, null, newNetInterface ) );
+            }
+            else if ( !Objects.equal( newNetInterface.getIp(), oldNetInterface.getIp() ) )
+            {
+                interfaceChanges.add( new InterfaceChange( newContainerInfo, oldNetInterface, newNetInterface ) );
+            }
+        }
+
+        for ( HostInterfaceModel oldNetInterface : oldInterfaces.values() )
+        {
+            removedInterfaces.add( new InterfaceChange( newContainerInfo, oldNetInterface, null ) );
+        }
+    }
+
+
+    /**
+     * Returns fingerprint of the resource host info fields that are tracked by {@code compute}. Equal fingerprints of
+     * two heartbeats mean there are no container changes between them. Fingerprint does not depend on iteration order
+     * of containers and interfaces.
+     */
+    static long fingerprint( ResourceHostInfo rhInfo )
+    {
+        long fingerprint = 0;
+
+        for ( ContainerHostInfo containerInfo : rhInfo.getContainers() )
+        {
+            long interfacesFingerprint = 0;
+
+            for ( HostInterfaceModel netInterface : containerInfo.getHostInterfaces().getAll() )
+            {
+                interfacesFingerprint += hash( netInterface.getName(), netInterface.getIp() );
+            }
+
+            ContainerHostState state = containerInfo.getState();
+
+            fingerprint += hash( containerInfo.getId(), containerInfo.getHostname(),
+                    state == null ? null : state.name(), String.valueOf( interfacesFingerprint ) );
+        }
+
+        return fingerprint;
+    }
+
+
+    private static long hash( String... values )
+    {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+
+        for ( String value : values )
+        {
+            //case insensitive to match the comparisons done by compute
+            hasher.putString( value == null ? "" : value.toLowerCase(), StandardCharsets.UTF_8 ).putInt( 0 );
+        }
+
+        return hasher.hash().asLong();
+    }
+
+
+    boolean isRhConnected()
+    {
+        return rhConnected;
+    }
+
+
+    List<ContainerHostInfo> getCreatedContainers()
+    {
+        return Collections.unmodifiableList( createdContainers );
+    }
+
+
+    List<StateChange> getStateChanges()
+    {
+        return Collections.unmodifiableList( stateChanges );
+    }
+
+
+    List<HostnameChange> getHostnameChanges()
+    {
+        return Collections.unmodifiableList( hostnameChanges );
+    }
+
+
+    List<InterfaceChange> getInterfaceChanges()
+    {
+        return Collections.unmodifiableList( interfaceChanges );
+    }
+
+
+    List<InterfaceChange> getAddedInterfaces()
+    {
+        return Collections.unmodifiableList( addedInterfaces );
+    }
+
+
+    List<InterfaceChange> getRemovedInterfaces()
+    {
+        return Collections.unmodifiableList( removedInterfaces );
+    }
+
+
+    static class StateChange
+    {
+        final ContainerHostInfo containerInfo;
+        final ContainerHostState previousState;
+
+
+        StateChange( final ContainerHostInfo containerInfo, final ContainerHostState previousState )
+        {
+            this.containerInfo = containerInfo;
+            this.previousState = previousState;
+        }
+    }
+
+
+    static class HostnameChange
+    {
+        final ContainerHostInfo containerInfo;
+        final String previousHostname;
+
+
+        HostnameChange( final ContainerHostInfo containerInfo, final String previousHostname )
+        {
+            this.containerInfo = containerInfo;
+            this.previousHostname = previousHostname;
+        }
+    }
+
+
+    static class InterfaceChange
+    {
+        final ContainerHostInfo containerInfo;
+        final HostInterfaceModel oldNetInterface;
+        final HostInterfaceModel newNetInterface;
+
+
+        InterfaceChange( final ContainerHostInfo containerInfo, final HostInterfaceModel oldNetInterface,
+                         final HostInterfaceModel newNetInterface )
+        {
+            this.containerInfo = containerInfo;
+            this.oldNetInterface = oldNetInterface;
+            this.newNetInterface = newNetInterface;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package io.subutai.core.hostregistry.impl;
+
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import io.subutai.common.host.ContainerHostInfo;
+import io.subutai.common.host.ResourceHostInfo;
+
+
+/**
+ * Secondary indexes of containers by id, hostname and container name. Index of a resource host is rebuilt on each
+ * heartbeat. Index entries are bound to the resource host info instance they were created from, so stale entries left
+ * by previous heartbeats or by other resource hosts never overwrite fresh ones.
+ */
+class HostIndex
+{
+    private final ConcurrentMap<String, IndexedContainer> containersById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IndexedContainer> containersByHostname = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IndexedContainer> containersByName = new ConcurrentHashMap<>();
+
+    //guarded by this
+    private final Map<String, IndexedResourceHost> resourceHosts = Maps.newHashMap();
+
+
+    synchronized void index( ResourceHostInfo resourceHostInfo )
+    {
+        IndexedResourceHost indexedResourceHost = new IndexedResourceHost( resourceHostInfo );
+
+        for ( ContainerHostInfo containerHostInfo : resourceHostInfo.getContainers() )
+        {
+            IndexedContainer indexedContainer = new IndexedContainer( resourceHostInfo, containerHostInfo );
+
+            put( containersById, containerHostInfo.getId(), indexedContainer );
+            put( containersByHostname, normalize( containerHostInfo.getHostname() ), indexedContainer );
+            put( containersByName, normalize( containerHostInfo.getContainerName() ), indexedContainer );
+
+            indexedResourceHost.containers.add( indexedContainer );
+        }
+
+        IndexedResourceHost previous = resourceHosts.put( resourceHostInfo.getId(), indexedResourceHost );
+
+        if ( previous != null )
+        {
+            unindex( previous );
+        }
+    }
+
+
+    /**
+     * Removes entries of resource host from index if they were created from the given resource host info
+     */
+    synchronized void remove( ResourceHostInfo resourceHostInfo )
+    {
+        IndexedResourceHost indexedResourceHost = resourceHosts.get( resourceHostInfo.getId() );
+
+        if ( indexedResourceHost != null && indexedResourceHost.resourceHostInfo == resourceHostInfo )
+        {
+            resourceHosts.remove( resourceHostInfo.getId() );
+
+            unindex( indexedResourceHost );
+        }
+    }
+
+
+    synchronized void clear()
+    {
+        resourceHosts.clear();
+        containersById.clear();
+        containersByHostname.clear();
+        containersByName.clear();
+    }
+
+
+    IndexedContainer getById( String id )
+    {
+        return id == null ? null : containersById.get( id );
+    }
+
+
+    IndexedContainer getByHostname( String hostname )
+    {
+        return hostname == null ? null : containersByHostname.get( normalize( hostname ) );
+    }
+
+
+    IndexedContainer getByContainerName( String containerName )
+    {
+        return containerName == null ? null : containersByName.get( normalize( containerName ) );
+    }
+
+
+    private void unindex( IndexedResourceHost indexedResourceHost )
+    {
+        //conditional removal keeps entries which were re-indexed by a fresher heartbeat
+        for ( IndexedContainer indexedContainer : indexedResourceHost.containers )
+        {
+            ContainerHostInfo containerHostInfo = indexedContainer.containerHostInfo;
+
+            remove( containersById, containerHostInfo.getId(), indexedContainer );
+            remove( containersByHostname, normalize( containerHostInfo.getHostname() ), indexedContainer );
+            remove( containersByName, normalize( containerHostInfo.getContainerName() ), indexedContainer );
+        }
+    }
+
+
+    private void put( ConcurrentMap<String, IndexedContainer> index, String key, IndexedContainer value )
+    {
+        if ( key != null )
+        {
+            index.put( key, value );
+        }
+    }
+
+
+    private void remove( ConcurrentMap<String, IndexedContainer> index, String key, IndexedContainer value )
+    {
+        if ( key != null )
+        {
+            index.remove( key, value );
+        }
+    }
+
+
+    private String normalize( String key )
+    {
+        return Strings.isNullOrEmpty( key ) ? null : key.toLowerCase();
+    }
+
+
+    static class IndexedContainer
+    {
+        private final ResourceHostInfo resourceHostInfo;
+        private final ContainerHostInfo containerHostInfo;
+
+
+        IndexedContainer( final ResourceHostInfo resourceHostInfo, final ContainerHostInfo containerHostInfo )
+        {
+            this.resourceHostInfo = resourceHostInfo;
+            this.containerHostInfo = containerHostInfo;
+        }
+
+
+        ResourceHostInfo getResourceHostInfo()
+        {
+            return resourceHostInfo;
+        }
+
+
+        ContainerHostInfo getContainerHostInfo()
+        {
+            return containerHostInfo;
+        }
+    }
+
+
+    private static class IndexedResourceHost
+    {
+        private final ResourceHostInfo resourceHostInfo;
+        private final List<IndexedContainer> containers = Lists.newArrayList();
+
+
+        private IndexedResourceHost( final ResourceHostInfo resourceHostInfo )
+        {
+            this.resourceHostInfo = resourceHostInfo;
+        }
+    }
+}
@@ -7,14 +7,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.subutai.common.host.ContainerHostInfo;
-import io.subutai.common.host.HostInterfaceModel;
 import io.subutai.common.host.ResourceHostInfo;
 import io.subutai.common.metric.QuotaAlertValue;
 import io.subutai.core.hostregistry.api.HostListener;
 
 
 /**
- * Notifies listener on host heartbeat
+ * Notifies listener on host heartbeat. Changes are precomputed once per heartbeat and shared by notifiers of all
+ * listeners
  */
 public class HostNotifier implements Runnable
 {
@@ -25,16 +25,17 @@ public class HostNotifier implements Runnable
     private ResourceHostInfo oldRhInfo;
     private ResourceHostInfo newRhInfo;
     private Set<QuotaAlertValue> alerts;
+    private HostChanges changes;
     private boolean rhDisconnected = false;
 
 
-    HostNotifier( final HostListener listener, final ResourceHostInfo oldRhInfo, final ResourceHostInfo newRhInfo,
-                  final Set<QuotaAlertValue> alerts )
+    HostNotifier( final HostListener listener, final ResourceHostInfo newRhInfo, final Set<QuotaAlertValue> alerts,
+                  final HostChanges changes )
     {
         this.listener = listener;
-        this.oldRhInfo = oldRhInfo;
         this.newRhInfo = newRhInfo;
         this.alerts = alerts;
+        this.changes = changes;
     }
 
 
@@ -49,28 +50,32 @@ public class HostNotifier implements Runnable
     @Override
     public void run()
     {
-        processHeartbeat( oldRhInfo, newRhInfo, alerts );
+        if ( rhDisconnected )
+        {
+            processDisconnection();
+        }
+        else
+        {
+            processHeartbeat();
+        }
     }
 
 
-    private void processHeartbeat( ResourceHostInfo oldRhInfo, ResourceHostInfo newRhInfo, Set<QuotaAlertValue> alerts )
+    private void processDisconnection()
     {
-        if ( rhDisconnected )
+        try
         {
-            // notify on RH disconnection
-            try
-            {
-                listener.onRhDisconnected( oldRhInfo );
-            }
-            catch ( Exception e )
-            {
-                LOG.warn( ERR_MSG_TEMPLATE, e );
-            }
-
-            return;
+            listener.onRhDisconnected( oldRhInfo );
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( ERR_MSG_TEMPLATE, e );
         }
+    }
 
 
+    private void processHeartbeat()
+    {
         // 0. notify on heartbeat
         try
         {
@@ -82,7 +87,7 @@ public class HostNotifier implements Runnable
         }
 
 
-        if ( oldRhInfo == null )
+        if ( changes.isRhConnected() )
         {
             // notify on RH connection
             try
@@ -97,160 +102,87 @@ public class HostNotifier implements Runnable
             return;
         }
 
-
-        for ( final ContainerHostInfo newContainerInfo : newRhInfo.getContainers() )
+        // 1. notify on container state changes
+        for ( HostChanges.StateChange stateChange : changes.getStateChanges() )
         {
-            boolean containerExistedBefore = false;
-
-            for ( final ContainerHostInfo oldContainerInfo : oldRhInfo.getContainers() )
+            try
             {
-                if ( newContainerInfo.getId().equalsIgnoreCase( oldContainerInfo.getId() ) )
-                {
-                    // 1. check if container state has changed
-                    if ( newContainerInfo.getState() != oldContainerInfo.getState() )
-                    {
-                        try
-                        {
-                            listener.onContainerStateChanged( newContainerInfo, oldContainerInfo.getState(),
-                                    newContainerInfo.getState() );
-                        }
-                        catch ( Exception e )
-                        {
-                            LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
-                        }
-                    }
-
-                    // 2. check if container hostname has changed
-                    if ( !newContainerInfo.getHostname().equalsIgnoreCase( oldContainerInfo.getHostname() ) )
-                    {
-                        try
-                        {
-                            listener.onContainerHostnameChanged( newContainerInfo, oldContainerInfo.getHostname(),
-                                    newContainerInfo.getHostname() );
-                        }
-                        catch ( Exception e )
-                        {
-                            LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
-                        }
-                    }
-
-                    // 3. check if container interfaces have been changed/added
-                    for ( final HostInterfaceModel newNetInterface : newContainerInfo.getHostInterfaces().getAll() )
-                    {
-                        boolean interfaceExistedBefore = false;
-
-                        for ( final HostInterfaceModel oldNetInterface : oldContainerInfo.getHostInterfaces().getAll() )
-                        {
-                            if ( newNetInterface.getName().equalsIgnoreCase( oldNetInterface.getName() ) )
-                            {
-                                if ( !newNetInterface.getIp().equals( oldNetInterface.getIp() ) )
-                                {
-                                    try
-                                    {
-                                        listener.onContainerNetInterfaceChanged( newContainerInfo, oldNetInterface,
-                                                newNetInterface );
-                                    }
-                                    catch ( Exception e )
-                                    {
-                                        LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
-                                    }
-                                }
-
-                                interfaceExistedBefore = true;
-
-                                break;
-                            }
-                        }
-
-                        if ( !interfaceExistedBefore )
-                        {
-                            try
-                            {
-                                listener.onContainerNetInterfaceAdded( newContainerInfo, newNetInterface );
-                            }
-                            catch ( Exception e )
-                            {
-                                LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
-                            }
-                        }
-                    }
-
-                    // 4. check if net interfaces have been removed
-                    for ( final HostInterfaceModel oldNetInterface : oldContainerInfo.getHostInterfaces().getAll() )
-                    {
-                        boolean interfaceStillExists = false;
-
-                        for ( HostInterfaceModel newNetInterface : newContainerInfo.getHostInterfaces().getAll() )
-                        {
-                            if ( oldNetInterface.getName().equalsIgnoreCase( newNetInterface.getName() ) )
-                            {
-                                interfaceStillExists = true;
-
-                                break;
-                            }
-                        }
+                listener.onContainerStateChanged( stateChange.containerInfo, stateChange.previousState,
+                        stateChange.containerInfo.getState() );
+            }
+            catch ( Exception e )
+            {
+                LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
+            }
+        }
 
-                        if ( !interfaceStillExists )
-                        {
-                            try
-                            {
-                                listener.onContainerNetInterfaceRemoved( newContainerInfo, oldNetInterface );
-                            }
-                            catch ( Exception e )
-                            {
-                                LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
-                            }
-                        }
-                    }
+        // 2. notify on container hostname changes
+        for ( HostChanges.HostnameChange hostnameChange : changes.getHostnameChanges() )
+        {
+            try
+            {
+                listener.onContainerHostnameChanged( hostnameChange.containerInfo, hostnameChange.previousHostname,
+                        hostnameChange.containerInfo.getHostname() );
+            }
+            catch ( Exception e )
+            {
+                LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
+            }
+        }
 
+        // 3. notify on container interfaces changes/additions
+        for ( HostChanges.InterfaceChange interfaceChange : changes.getInterfaceChanges() )
+        {
+            try
+            {
+                listener.onContainerNetInterfaceChanged( interfaceChange.containerInfo, interfaceChange.oldNetInterface,
+                        interfaceChange.newNetInterface );
+            }
+            catch ( Exception e )
+            {
+                LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
+            }
+        }
 
-                    containerExistedBefore = true;
+        for ( HostChanges.InterfaceChange interfaceChange : changes.getAddedInterfaces() )
+        {
+            try
+            {
+                listener.onContainerNetInterfaceAdded( interfaceChange.containerInfo, interfaceChange.newNetInterface );
+            }
+            catch ( Exception e )
+            {
+                LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
+            }
+        }
 
-                    break;
-                }
+        // 4. notify on container interfaces removal
+        for ( HostChanges.InterfaceChange interfaceChange : changes.getRemovedInterfaces() )
+        {
+            try
+            {
+                listener.onContainerNetInterfaceRemoved( interfaceChange.containerInfo,
+                        interfaceChange.oldNetInterface );
             }
+            catch ( Exception e )
+            {
+                LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
+            }
+        }
 
-            // 5. notify that container has been created
-            if ( !containerExistedBefore )
+        // 5. notify that container has been created
+        for ( ContainerHostInfo containerInfo : changes.getCreatedContainers() )
+        {
+            try
+            {
+                listener.onContainerCreated( containerInfo );
+            }
+            catch ( Exception e )
             {
-                try
-                {
-                    listener.onContainerCreated( newContainerInfo );
-                }
-                catch ( Exception e )
-                {
-                    LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
-                }
+                LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
             }
         }
 
-        //disabled due to https://github.com/subutai-io/base/issues/1735
-        //        // 6. check if container has been destroyed
-        //        for ( final ContainerHostInfo oldContainerInfo : oldRhInfo.getContainers() )
-        //        {
-        //            boolean containerStillExists = false;
-        //
-        //            for ( final ContainerHostInfo newContainerInfo : newRhInfo.getContainers() )
-        //            {
-        //                if ( oldContainerInfo.getId().equalsIgnoreCase( newContainerInfo.getId() ) )
-        //                {
-        //                    containerStillExists = true;
-        //
-        //                    break;
-        //                }
-        //            }
-        //
-        //            if ( !containerStillExists )
-        //            {
-        //                try
-        //                {
-        //                    listener.onContainerDestroyed( oldContainerInfo );
-        //                }
-        //                catch ( Exception e )
-        //                {
-        //                    LOG.warn( ERR_MSG_TEMPLATE, e.getMessage() );
-        //                }
-        //            }
-        //        }
+        //container destruction is not notified due to https://github.com/subutai-io/base/issues/1735
     }
 }
@@ -2,6 +2,7 @@ package io.subutai.core.hostregistry.impl;
 
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
@@ -20,6 +21,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Sets;
@@ -57,7 +59,11 @@ public class HostRegistryImpl implements HostRegistry
     Set<HostListener> hostListeners = Collections.newSetFromMap( new ConcurrentHashMap<HostListener, Boolean>() );
     ScheduledExecutorService hostUpdater = Executors.newSingleThreadScheduledExecutor();
     ExecutorService threadPool = Executors.newCachedThreadPool();
+    //one task per listener per heartbeat, bounded so that a burst of heartbeats does not spawn a thread per task
+    ExecutorService notifierPool = Executors.newFixedThreadPool( Common.MAX_EXECUTOR_SIZE );
     Cache<String, ResourceHostInfo> hosts;
+    HostIndex hostIndex = new HostIndex();
+    Map<String, Long> rhFingerprints = new ConcurrentHashMap<>();
 
     IPUtil ipUtil = new IPUtil();
 
@@ -76,18 +82,7 @@ public class HostRegistryImpl implements HostRegistry
     {
         Preconditions.checkNotNull( id, "Id is null" );
 
-        for ( ResourceHostInfo resourceHostInfo : hosts.asMap().values() )
-        {
-            for ( ContainerHostInfo containerHostInfo : resourceHostInfo.getContainers() )
-            {
-                if ( id.equals( containerHostInfo.getId() ) )
-                {
-                    return containerHostInfo;
-                }
-            }
-        }
-
-        throw new HostDisconnectedException( String.format( HOST_NOT_CONNECTED_MSG, id ) );
+        return getIndexedContainer( hostIndex.getById( id ), id ).getContainerHostInfo();
     }
 
 
@@ -96,18 +91,7 @@ public class HostRegistryImpl implements HostRegistry
     {
         Preconditions.checkArgument( !Strings.isNullOrEmpty( hostname ), "Invalid hostname" );
 
-        for ( ResourceHostInfo resourceHostInfo : hosts.asMap().values() )
-        {
-            for ( ContainerHostInfo containerHostInfo : resourceHostInfo.getContainers() )
-            {
-                if ( hostname.equalsIgnoreCase( containerHostInfo.getHostname() ) )
-                {
-                    return containerHostInfo;
-                }
-            }
-        }
-
-        throw new HostDisconnectedException( String.format( HOST_NOT_CONNECTED_MSG, hostname ) );
+        return getIndexedContainer( hostIndex.getByHostname( hostname ), hostname ).getContainerHostInfo();
     }
 
 
@@ -117,18 +101,21 @@ public class HostRegistryImpl implements HostRegistry
     {
         Preconditions.checkArgument( !Strings.isNullOrEmpty( containerName ), "Invalid container name" );
 
-        for ( ResourceHostInfo resourceHostInfo : hosts.asMap().values() )
+        return getIndexedContainer( hostIndex.getByContainerName( containerName ), containerName )
+                .getContainerHostInfo();
+    }
+
+
+    private HostIndex.IndexedContainer getIndexedContainer( HostIndex.IndexedContainer indexedContainer, String key )
+            throws HostDisconnectedException
+    {
+        //containsKey does not prolong lifespan of the cache entry, unlike get
+        if ( indexedContainer == null || !hosts.asMap().containsKey( indexedContainer.getResourceHostInfo().getId() ) )
         {
-            for ( ContainerHostInfo containerHostInfo : resourceHostInfo.getContainers() )
-            {
-                if ( containerName.equalsIgnoreCase( containerHostInfo.getContainerName() ) )
-                {
-                    return containerHostInfo;
-                }
-            }
+            throw new HostDisconnectedException( String.format( HOST_NOT_CONNECTED_MSG, key ) );
         }
 
-        throw new HostDisconnectedException( String.format( HOST_NOT_CONNECTED_MSG, containerName ) );
+        return indexedContainer;
     }
 
 
@@ -193,18 +180,8 @@ public class HostRegistryImpl implements HostRegistry
     {
         Preconditions.checkNotNull( containerHostInfo, "Container host info is null" );
 
-        for ( ResourceHostInfo resourceHostInfo : hosts.asMap().values() )
-        {
-            for ( ContainerHostInfo containerHostInfo1 : resourceHostInfo.getContainers() )
-            {
-                if ( containerHostInfo.getId().equals( containerHostInfo1.getId() ) )
-                {
-                    return resourceHostInfo;
-                }
-            }
-        }
-
-        throw new HostDisconnectedException( "Host is not connected" );
+        return getIndexedContainer( hostIndex.getById( containerHostInfo.getId() ), containerHostInfo.getId() )
+                .getResourceHostInfo();
     }
 
 
@@ -267,12 +244,23 @@ public class HostRegistryImpl implements HostRegistry
             ( ( ResourceHostInfoModel ) newRhInfo ).setDateCreated( System.currentTimeMillis() );
         }
 
+        //index before replacing cache entry so that lookups never miss containers of a connected host
+        hostIndex.index( newRhInfo );
+
         hosts.put( newRhInfo.getId(), newRhInfo );
 
+        //most heartbeats carry no changes, skip diffing if content fingerprint is the same as of the previous one
+        long fingerprint = HostChanges.fingerprint( newRhInfo );
+
+        Long oldFingerprint = rhFingerprints.put( newRhInfo.getId(), fingerprint );
+
+        HostChanges changes = oldRhInfo != null && oldFingerprint != null && oldFingerprint == fingerprint ?
+                              HostChanges.NONE : HostChanges.compute( oldRhInfo, newRhInfo );
+
         //notify listeners
         for ( HostListener listener : hostListeners )
         {
-            threadPool.execute( new HostNotifier( listener, oldRhInfo, newRhInfo, alerts ) );
+            notifierPool.execute( new HostNotifier( listener, newRhInfo, alerts, changes ) );
         }
     }
 
@@ -287,9 +275,16 @@ public class HostRegistryImpl implements HostRegistry
                                         public void onRemoval(
                                                 final RemovalNotification<String, ResourceHostInfo> notification )
                                         {
+                                            if ( notification.getCause() != RemovalCause.REPLACED )
+                                            {
+                                                hostIndex.remove( notification.getValue() );
+
+                                                rhFingerprints.remove( notification.getKey() );
+                                            }
+
                                             for ( HostListener listener : hostListeners )
                                             {
-                                                threadPool.execute(
+                                                notifierPool.execute(
                                                         new HostNotifier( listener, notification.getValue() ) );
                                             }
                                         }
@@ -311,8 +306,12 @@ public class HostRegistryImpl implements HostRegistry
     {
         hosts.invalidateAll();
 
+        hostIndex.clear();
+
         threadPool.shutdown();
 
+        notifierPool.shutdown();
+
         hostUpdater.shutdown();
     }
 
@@ -0,0 +1,111 @@
+package io.subutai.core.hostregistry.impl;
+
+
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.collect.Sets;
+
+import io.subutai.common.host.ContainerHostInfo;
+import io.subutai.common.host.ContainerHostState;
+import io.subutai.common.host.HostInterfaceModel;
+import io.subutai.common.host.HostInterfaces;
+import io.subutai.common.host.ResourceHostInfo;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import static org.mockito.Mockito.when;
+
+
+@RunWith( MockitoJUnitRunner.class )
+public class HostChangesTest
+{
+    private static final String CONTAINER_ID = UUID.randomUUID().toString();
+    private static final String HOSTNAME = "hostname";
+    private static final String INTERFACE_NAME = "eth0";
+
+    @Mock
+    ResourceHostInfo oldRhInfo;
+    @Mock
+    ResourceHostInfo newRhInfo;
+    @Mock
+    ContainerHostInfo oldContainerInfo;
+    @Mock
+    ContainerHostInfo newContainerInfo;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        when( oldRhInfo.getContainers() ).thenReturn( Sets.newHashSet( oldContainerInfo ) );
+        when( newRhInfo.getContainers() ).thenReturn( Sets.newHashSet( newContainerInfo ) );
+        when( oldContainerInfo.getId() ).thenReturn( CONTAINER_ID );
+        when( newContainerInfo.getId() ).thenReturn( CONTAINER_ID );
+        when( oldContainerInfo.getHostname() ).thenReturn( HOSTNAME );
+        when( newContainerInfo.getHostname() ).thenReturn( HOSTNAME );
+        when( oldContainerInfo.getState() ).thenReturn( ContainerHostState.RUNNING );
+        when( newContainerInfo.getState() ).thenReturn( ContainerHostState.RUNNING );
+        when( oldContainerInfo.getHostInterfaces() ).thenReturn( interfaces( "10.0.0.1" ) );
+        when( newContainerInfo.getHostInterfaces() ).thenReturn( interfaces( "10.0.0.1" ) );
+    }
+
+
+    private HostInterfaces interfaces( String ip )
+    {
+        return new HostInterfaces( CONTAINER_ID, Sets.newHashSet( new HostInterfaceModel( INTERFACE_NAME, ip ) ) );
+    }
+
+
+    @Test
+    public void testNoChanges() throws Exception
+    {
+        HostChanges changes = HostChanges.compute( oldRhInfo, newRhInfo );
+
+        assertFalse( changes.isRhConnected() );
+        assertTrue( changes.getStateChanges().isEmpty() );
+        assertTrue( changes.getInterfaceChanges().isEmpty() );
+        assertTrue( changes.getCreatedContainers().isEmpty() );
+        assertEquals( HostChanges.fingerprint( oldRhInfo ), HostChanges.fingerprint( newRhInfo ) );
+    }
+
+
+    @Test
+    public void testChanges() throws Exception
+    {
+        when( newContainerInfo.getState() ).thenReturn( ContainerHostState.STOPPED );
+        when( newContainerInfo.getHostInterfaces() ).thenReturn( interfaces( "10.0.0.2" ) );
+
+        HostChanges changes = HostChanges.compute( oldRhInfo, newRhInfo );
+
+        assertEquals( 1, changes.getStateChanges().size() );
+        assertEquals( ContainerHostState.RUNNING, changes.getStateChanges().get( 0 ).previousState );
+        assertEquals( 1, changes.getInterfaceChanges().size() );
+        assertTrue( changes.getAddedInterfaces().isEmpty() );
+        assertTrue( changes.getRemovedInterfaces().isEmpty() );
+        assertFalse( HostChanges.fingerprint( oldRhInfo ) == HostChanges.fingerprint( newRhInfo ) );
+    }
+
+
+    @Test
+    public void testContainerCreated() throws Exception
+    {
+        when( oldRhInfo.getContainers() ).thenReturn( Sets.<ContainerHostInfo>newHashSet() );
+
+        HostChanges changes = HostChanges.compute( oldRhInfo, newRhInfo );
+
+        assertEquals( newContainerInfo, changes.getCreatedContainers().get( 0 ) );
+    }
+
+
+    @Test
+    public void testRhConnected() throws Exception
+    {
+        assertTrue( HostChanges.compute( null, newRhInfo ).isRhConnected() );
+    }
+}
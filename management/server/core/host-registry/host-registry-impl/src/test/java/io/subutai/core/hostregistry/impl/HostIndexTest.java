@@ -0,0 +1,95 @@
+package io.subutai.core.hostregistry.impl;
+
+
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.collect.Sets;
+
+import io.subutai.common.host.ContainerHostInfo;
+import io.subutai.common.host.ResourceHostInfo;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static org.mockito.Mockito.when;
+
+
+@RunWith( MockitoJUnitRunner.class )
+public class HostIndexTest
+{
+    private static final String RH_ID = UUID.randomUUID().toString();
+    private static final String CONTAINER_ID = UUID.randomUUID().toString();
+    private static final String CONTAINER_HOSTNAME = "Container";
+    private static final String CONTAINER_NAME = "name";
+
+    @Mock
+    ResourceHostInfo resourceHostInfo;
+    @Mock
+    ResourceHostInfo newResourceHostInfo;
+    @Mock
+    ContainerHostInfo containerHostInfo;
+
+    HostIndex hostIndex;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        hostIndex = new HostIndex();
+
+        when( resourceHostInfo.getId() ).thenReturn( RH_ID );
+        when( newResourceHostInfo.getId() ).thenReturn( RH_ID );
+        when( resourceHostInfo.getContainers() ).thenReturn( Sets.newHashSet( containerHostInfo ) );
+        when( containerHostInfo.getId() ).thenReturn( CONTAINER_ID );
+        when( containerHostInfo.getHostname() ).thenReturn( CONTAINER_HOSTNAME );
+        when( containerHostInfo.getContainerName() ).thenReturn( CONTAINER_NAME );
+    }
+
+
+    @Test
+    public void testIndex() throws Exception
+    {
+        hostIndex.index( resourceHostInfo );
+
+        assertEquals( containerHostInfo, hostIndex.getById( CONTAINER_ID ).getContainerHostInfo() );
+        assertEquals( containerHostInfo, hostIndex.getByHostname( "container" ).getContainerHostInfo() );
+        assertEquals( containerHostInfo, hostIndex.getByContainerName( CONTAINER_NAME ).getContainerHostInfo() );
+        assertEquals( resourceHostInfo, hostIndex.getById( CONTAINER_ID ).getResourceHostInfo() );
+    }
+
+
+    @Test
+    public void testReindexDropsMissingContainers() throws Exception
+    {
+        hostIndex.index( resourceHostInfo );
+
+        hostIndex.index( newResourceHostInfo );
+
+        assertNull( hostIndex.getById( CONTAINER_ID ) );
+        assertNull( hostIndex.getByHostname( CONTAINER_HOSTNAME ) );
+    }
+
+
+    @Test
+    public void testRemoveStaleInfo() throws Exception
+    {
+        when( newResourceHostInfo.getContainers() ).thenReturn( Sets.newHashSet( containerHostInfo ) );
+
+        hostIndex.index( resourceHostInfo );
+        hostIndex.index( newResourceHostInfo );
+
+        //removal of the replaced info must not affect entries of the fresh one
+        hostIndex.remove( resourceHostInfo );
+
+        assertEquals( newResourceHostInfo, hostIndex.getById( CONTAINER_ID ).getResourceHostInfo() );
+
+        hostIndex.remove( newResourceHostInfo );
+
+        assertNull( hostIndex.getById( CONTAINER_ID ) );
+    }
+}
@@ -45,7 +45,7 @@ public class HostNotifierTest
     public void setUp() throws Exception
     {
         alerts = Sets.newHashSet( quotaAlertValue );
-        notifier = new HostNotifier( listener, oldRhInfo, newRhInfo, alerts );
+        notifier = new HostNotifier( listener, newRhInfo, alerts, HostChanges.NONE );
     }
 
 
@@ -63,4 +63,27 @@ public class HostNotifierTest
 
         verify( exception ).printStackTrace( any( PrintStream.class ) );
     }
+
+
+    @Test
+    public void testRunOnConnect() throws Exception
+    {
+        notifier = new HostNotifier( listener, newRhInfo, alerts,
+                HostChanges.compute( null, newRhInfo ) );
+
+        notifier.run();
+
+        verify( listener ).onRhConnected( newRhInfo );
+    }
+
+
+    @Test
+    public void testRunOnDisconnect() throws Exception
+    {
+        notifier = new HostNotifier( listener, oldRhInfo );
+
+        notifier.run();
+
+        verify( listener ).onRhDisconnected( oldRhInfo );
+    }
 }
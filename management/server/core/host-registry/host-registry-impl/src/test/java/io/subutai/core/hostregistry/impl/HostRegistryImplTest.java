@@ -102,6 +102,7 @@ public class HostRegistryImplTest
         registry = spy( new HostRegistryImpl() );
         registry.hostListeners = hostListeners;
         registry.threadPool = notifier;
+        registry.notifierPool = notifier;
         registry.hosts = hosts;
         registry.hostUpdater = hostUpdater;
         registry.ipUtil = ipUtil;
@@ -112,6 +113,8 @@ public class HostRegistryImplTest
         when( resourceHostInfo.getHostname() ).thenReturn( HOST_HOSTNAME );
         when( containerHostInfo.getId() ).thenReturn( CONTAINER_ID );
         when( containerHostInfo.getHostname() ).thenReturn( CONTAINER_HOSTNAME );
+        when( map.containsKey( HOST_ID ) ).thenReturn( true );
+        registry.hostIndex.index( resourceHostInfo );
         Iterator<HostListener> hostListenerIterator = mock( Iterator.class );
         when( hostListeners.iterator() ).thenReturn( hostListenerIterator );
         when( hostListenerIterator.hasNext() ).thenReturn( true ).thenReturn( false );
@@ -0,0 +1,143 @@
+package io.subutai.core.identity.impl;
+
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+import io.subutai.common.security.objects.PermissionObject;
+import io.subutai.common.security.objects.PermissionOperation;
+import io.subutai.common.security.objects.PermissionScope;
+import io.subutai.core.identity.api.model.Permission;
+import io.subutai.core.identity.api.model.Role;
+
+
+/**
+ * Permissions of a user compiled from its roles into a bit set indexed by permission object, scope and operation. The
+ * first permission found for an object and scope decides, as when roles are walked on every check. Ids of the roles
+ * are kept, so that permissions compiled for a user can be checked against the roles the user currently holds.
+ */
+final class EffectivePermissions
+{
+    private static final PermissionObject[] OBJECTS = PermissionObject.values();
+    private static final PermissionScope[] SCOPES = PermissionScope.values();
+    private static final PermissionOperation[] OPERATIONS = PermissionOperation.values();
+
+    private final BitSet bits;
+    private final Long[] roleIds;
+
+
+    private EffectivePermissions( final BitSet bits, final Long[] roleIds )
+    {
+        this.bits = bits;
+        this.roleIds = roleIds;
+    }
+
+
+    static EffectivePermissions compile( List<Role> roles )
+    {
+        BitSet bits = new BitSet( OBJECTS.length * SCOPES.length * OPERATIONS.length );
+        boolean[] decided = new boolean[OBJECTS.length * SCOPES.length];
+        Long[] roleIds = new Long[roles == null ? 0 : roles.size()];
+
+        if ( roles != null )
+        {
+            int i = 0;
+
+            for ( Role role : roles )
+            {
+                roleIds[i++] = role.getId();
+
+                for ( Permission permission : role.getPermissions() )
+                {
+                    PermissionObject object = getObject( permission.getObject() );
+                    PermissionScope scope = getScope( permission.getScope() );
+
+                    if ( object == null || scope == null || decided[slot( object, scope )] )
+                    {
+                        continue;
+                    }
+
+                    decided[slot( object, scope )] = true;
+
+                    bits.set( index( object, scope, PermissionOperation.READ ), permission.isRead() );
+                    bits.set( index( object, scope, PermissionOperation.WRITE ), permission.isWrite() );
+                    bits.set( index( object, scope, PermissionOperation.UPDATE ), permission.isUpdate() );
+                    bits.set( index( object, scope, PermissionOperation.DELETE ), permission.isDelete() );
+                }
+            }
+        }
+
+        return new EffectivePermissions( bits, roleIds );
+    }
+
+
+    /**
+     * Returns true if permissions were compiled from the given roles, in the same order
+     */
+    boolean isCompiledFrom( List<Role> roles )
+    {
+        int size = roles == null ? 0 : roles.size();
+
+        if ( size != roleIds.length )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( !Objects.equals( roleIds[i], roles.get( i ).getId() ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    boolean isPermitted( PermissionObject object, PermissionScope scope, PermissionOperation operation )
+    {
+        return bits.get( index( object, scope, operation ) );
+    }
+
+
+    private static int slot( PermissionObject object, PermissionScope scope )
+    {
+        return object.ordinal() * SCOPES.length + scope.ordinal();
+    }
+
+
+    private static int index( PermissionObject object, PermissionScope scope, PermissionOperation operation )
+    {
+        return slot( object, scope ) * OPERATIONS.length + operation.ordinal();
+    }
+
+
+    private static PermissionObject getObject( int id )
+    {
+        for ( PermissionObject object : OBJECTS )
+        {
+            if ( object.getId() == id )
+            {
+                return object;
+            }
+        }
+
+        return null;
+    }
+
+
+    private static PermissionScope getScope( int id )
+    {
+        for ( PermissionScope scope : SCOPES )
+        {
+            if ( scope.getId() == id )
+            {
+                return scope;
+            }
+        }
+
+        return null;
+    }
+}
@@ -16,6 +16,7 @@ import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.security.PermitAll;
@@ -41,6 +42,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import io.subutai.common.dao.DaoManager;
 import io.subutai.common.security.crypto.pgp.KeyPair;
@@ -108,6 +110,11 @@ public class IdentityManagerImpl implements IdentityManager
     private static final String ADMIN_ROLE = "Administrator";
     private static final String SYSTEM_ROLE = "Internal-System";
     private static final long SIGN_TOKEN_TTL_SEC = 30;
+    private static final long SYSTEM_SESSION_TTL_MIN = 10;
+    private static final long VERIFIED_TOKEN_TTL_MIN = 10;
+    private static final int MAX_VERIFIED_TOKENS = 10000;
+    private static final long USER_PERMISSIONS_TTL_MIN = 10;
+    private static final int MAX_USER_PERMISSIONS = 10000;
 
     private IdentityDataService identityDataService = null;
     private SecurityController securityController = null;
@@ -118,6 +125,22 @@ public class IdentityManagerImpl implements IdentityManager
     private Cache<String, Boolean> signTokensCache =
             CacheBuilder.newBuilder().expireAfterWrite( SIGN_TOKEN_TTL_SEC, TimeUnit.SECONDS ).build();
 
+    //system user session reused by internal and public endpoints,
+    //dropped on change of tokens, roles and permissions and renewed periodically
+    private Cache<String, Session> systemSessionCache =
+            CacheBuilder.newBuilder().expireAfterWrite( SYSTEM_SESSION_TTL_MIN, TimeUnit.MINUTES ).build();
+
+    //tokens with verified signature by full JWT, dropped on change of tokens and checked against token valid date
+    private Cache<String, UserToken> verifiedTokensCache =
+            CacheBuilder.newBuilder().maximumSize( MAX_VERIFIED_TOKENS )
+                        .expireAfterWrite( VERIFIED_TOKEN_TTL_MIN, TimeUnit.MINUTES ).build();
+
+    //permissions of users compiled from their roles by user id, recompiled if the given user holds other roles,
+    //dropped on change of users, roles and permissions
+    private Cache<Long, EffectivePermissions> userPermissionsCache =
+            CacheBuilder.newBuilder().maximumSize( MAX_USER_PERMISSIONS )
+                        .expireAfterWrite( USER_PERMISSIONS_TTL_MIN, TimeUnit.MINUTES ).build();
+
 
     /* *************************************************
      */
@@ -287,21 +310,61 @@ public class IdentityManagerImpl implements IdentityManager
     @Override
     public Session loginSystemUser()
     {
-        String sptoken = getSystemUserToken();
-        Session session = login( TOKEN_ID, sptoken );
-
-        if ( session != null )
+        try
         {
-            return session;
-        }
+            return systemSessionCache.get( SYSTEM_USERNAME, new Callable<Session>()
+            {
+                @Override
+                public Session call() throws Exception
+                {
+                    Session session = login( TOKEN_ID, getSystemUserToken() );
 
-        else
+                    if ( session == null )
+                    {
+                        throw new InvalidLoginException( "Failed to login system user" );
+                    }
+
+                    return session;
+                }
+            } );
+        }
+        catch ( ExecutionException | UncheckedExecutionException e )
         {
+            LOGGER.warn( "Error logging in system user: {}", e.getMessage() );
+
             return null;
         }
     }
 
 
+    /* *************************************************
+     * Drops cached system user session so that the next request logs in again
+     */
+    private void invalidateSystemSession()
+    {
+        systemSessionCache.invalidateAll();
+    }
+
+
+    /* *************************************************
+     * Drops caches depending on roles and permissions of users
+     */
+    private void invalidateRoleCaches()
+    {
+        systemSessionCache.invalidateAll();
+        userPermissionsCache.invalidateAll();
+    }
+
+
+    /* *************************************************
+     * Drops verified tokens so that signatures and validity are checked against stored tokens again
+     */
+    private void invalidateVerifiedTokens()
+    {
+        verifiedTokensCache.invalidateAll();
+    }
+
+
     /* *************************************************
      */
     @PermitAll
@@ -390,10 +453,30 @@ public class IdentityManagerImpl implements IdentityManager
 
         session = sessionManager.startSession( sessionId, session, user );
 
+        if ( session != null && TOKEN_ID.equalsIgnoreCase( login ) )
+        {
+            alignSessionWithToken( session, password );
+        }
+
         return session;
     }
 
 
+    /* *************************************************
+     * Token session must not outlive the token it was started with
+     */
+    private void alignSessionWithToken( Session session, String token )
+    {
+        UserToken userToken = verifiedTokensCache.getIfPresent( token );
+
+        if ( userToken != null && userToken.getType() == TokenType.SESSION.getId() && userToken.getValidDate() != null
+                && session.getEndDate().after( userToken.getValidDate() ) )
+        {
+            session.setEndDate( userToken.getValidDate() );
+        }
+    }
+
+
     /**
      * ***********************************************************************************
      * Create JSON Web Token and save in DB
@@ -438,6 +521,7 @@ public class IdentityManagerImpl implements IdentityManager
             userToken.setValidDate( validDate );
 
             identityDataService.persistUserToken( userToken );
+            invalidateSystemSession();
 
             return userToken;
         }
@@ -680,11 +764,9 @@ public class IdentityManagerImpl implements IdentityManager
     @Override
     public User authenticateByToken( String token ) throws SystemSecurityException
     {
-        String subject = TokenUtil.getSubject( token );
-
-        UserToken userToken = identityDataService.getValidUserToken( subject );
+        UserToken userToken = getVerifiedToken( token );
 
-        if ( userToken != null && TokenUtil.verifySignature( token, userToken.getSecret() ) )
+        if ( userToken != null )
         {
             return getUser( userToken.getUserId() );
         }
@@ -695,6 +777,43 @@ public class IdentityManagerImpl implements IdentityManager
     }
 
 
+    /* *************************************************
+     * Returns valid token with matching signature, signature of a token is verified once
+     */
+    private UserToken getVerifiedToken( String token )
+    {
+        UserToken userToken = verifiedTokensCache.getIfPresent( token );
+
+        if ( userToken != null && isTokenValid( userToken ) )
+        {
+            return userToken;
+        }
+
+        String subject = TokenUtil.getSubject( token );
+
+        userToken = identityDataService.getValidUserToken( subject );
+
+        if ( userToken != null && TokenUtil.verifySignature( token, userToken.getSecret() ) )
+        {
+            verifiedTokensCache.put( token, userToken );
+
+            return userToken;
+        }
+
+        verifiedTokensCache.invalidate( token );
+
+        return null;
+    }
+
+
+    private boolean isTokenValid( UserToken userToken )
+    {
+        Date currentDate = new Date( System.currentTimeMillis() );
+
+        return userToken.getType() != TokenType.SESSION.getId() || userToken.getValidDate().after( currentDate );
+    }
+
+
     /**
      * ***********************************************************************************
      * Authenticate user with Username and password
@@ -922,6 +1041,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void assignUserRole( long userId, Role role )
     {
         identityDataService.assignUserRole( userId, role );
+        invalidateRoleCaches();
     }
 
 
@@ -932,6 +1052,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void assignUserRole( User user, Role role )
     {
         identityDataService.assignUserRole( user, role );
+        invalidateRoleCaches();
     }
 
 
@@ -1386,6 +1507,7 @@ public class IdentityManagerImpl implements IdentityManager
             }
 
             identityDataService.updateUser( user );
+            userPermissionsCache.invalidate( user.getId() );
         }
         catch ( IllegalArgumentException e )
         {
@@ -1408,6 +1530,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void removeUserRole( long userId, Role role )
     {
         identityDataService.removeUserRole( userId, role );
+        invalidateRoleCaches();
     }
 
 
@@ -1418,6 +1541,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void removeUserRole( User user, Role role )
     {
         identityDataService.removeUserRole( user, role );
+        invalidateRoleCaches();
     }
 
 
@@ -1571,6 +1695,7 @@ public class IdentityManagerImpl implements IdentityManager
         //***********************************************
 
         identityDataService.updateUser( user );
+        userPermissionsCache.invalidate( user.getId() );
     }
 
 
@@ -1588,6 +1713,7 @@ public class IdentityManagerImpl implements IdentityManager
         //***********************************************
 
         identityDataService.updateUser( user );
+        userPermissionsCache.invalidate( user.getId() );
     }
 
 
@@ -1606,6 +1732,8 @@ public class IdentityManagerImpl implements IdentityManager
         }
 
         identityDataService.removeUser( userId );
+        userPermissionsCache.invalidate( userId );
+        invalidateVerifiedTokens();
     }
 
 
@@ -1712,33 +1840,29 @@ public class IdentityManagerImpl implements IdentityManager
             return false;
         }
 
-        List<Role> roles = user.getRoles();
+        EffectivePermissions permissions = getEffectivePermissions( user );
+
+        return permissions.isPermitted( permObj, permScope, permOp );
+    }
+
 
-        for ( Role role : roles )
+    private EffectivePermissions getEffectivePermissions( User user )
+    {
+        if ( user.getId() == null )
         {
-            for ( Permission permission : role.getPermissions() )
-            {
-                if ( permission.getObject() == permObj.getId() && permission.getScope() == permScope.getId() )
-                {
-                    switch ( permOp )
-                    {
-                        case READ:
-                            return permission.isRead();
-                        case WRITE:
-                            return permission.isWrite();
-                        case UPDATE:
-                            return permission.isUpdate();
-                        case DELETE:
-                            return permission.isDelete();
-                        default:
-                            // no-op
-                            break;
-                    }
-                }
-            }
+            return EffectivePermissions.compile( user.getRoles() );
         }
 
-        return false;
+        EffectivePermissions permissions = userPermissionsCache.getIfPresent( user.getId() );
+
+        if ( permissions == null || !permissions.isCompiledFrom( user.getRoles() ) )
+        {
+            permissions = EffectivePermissions.compile( user.getRoles() );
+
+            userPermissionsCache.put( user.getId(), permissions );
+        }
+
+        return permissions;
     }
 
 
@@ -1823,6 +1947,7 @@ public class IdentityManagerImpl implements IdentityManager
         //*********************************
 
         identityDataService.updateRole( role );
+        invalidateRoleCaches();
     }
 
 
@@ -1842,6 +1967,7 @@ public class IdentityManagerImpl implements IdentityManager
         //***********************************************
 
         identityDataService.removeRole( roleId );
+        invalidateRoleCaches();
     }
 
 
@@ -1873,6 +1999,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void assignRolePermission( long roleId, Permission permission )
     {
         identityDataService.assignRolePermission( roleId, permission );
+        invalidateRoleCaches();
     }
 
 
@@ -1883,6 +2010,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void assignRolePermission( Role role, Permission permission )
     {
         identityDataService.assignRolePermission( role, permission );
+        invalidateRoleCaches();
     }
 
 
@@ -1893,6 +2021,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void removeAllRolePermissions( long roleId )
     {
         identityDataService.removeAllRolePermissions( roleId );
+        invalidateRoleCaches();
     }
 
 
@@ -1903,6 +2032,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void removePermission( long permissionId )
     {
         identityDataService.removePermission( permissionId );
+        invalidateRoleCaches();
     }
 
 
@@ -1913,6 +2043,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void removeRolePermission( long roleId, Permission permission )
     {
         identityDataService.removeRolePermission( roleId, permission );
+        invalidateRoleCaches();
     }
 
 
@@ -1933,6 +2064,7 @@ public class IdentityManagerImpl implements IdentityManager
     public void updatePermission( Permission permission )
     {
         identityDataService.updatePermission( permission );
+        invalidateRoleCaches();
     }
 
 
@@ -1967,6 +2099,8 @@ public class IdentityManagerImpl implements IdentityManager
         }
         token.setValidDate( DateUtils.addMinutes( new Date( System.currentTimeMillis() ), minutes ) );
         identityDataService.updateUserToken( token );
+        invalidateSystemSession();
+        invalidateVerifiedTokens();
     }
 
 
@@ -1977,6 +2111,8 @@ public class IdentityManagerImpl implements IdentityManager
     public void updateUserToken( UserToken token )
     {
         identityDataService.updateUserToken( token );
+        invalidateSystemSession();
+        invalidateVerifiedTokens();
     }
 
 
@@ -1988,6 +2124,7 @@ public class IdentityManagerImpl implements IdentityManager
                                  Date validDate )
     {
         identityDataService.removeUserToken( tokenId );
+        invalidateVerifiedTokens();
         createUserToken( user, token, secret, issuer, tokenType, validDate );
     }
 
@@ -1999,6 +2136,8 @@ public class IdentityManagerImpl implements IdentityManager
     public void removeUserToken( String tokenId )
     {
         identityDataService.removeUserToken( tokenId );
+        invalidateSystemSession();
+        invalidateVerifiedTokens();
     }
 
 
@@ -2,8 +2,10 @@ package io.subutai.core.identity.impl;
 
 
 import java.util.Date;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -25,7 +27,10 @@ import io.subutai.core.identity.impl.model.SessionEntity;
 
 
 /**
- * Implementation of SessionManager
+ * Implementation of SessionManager. Sessions are kept in a concurrent map shared by all request threads. Expiration
+ * times of sessions are tracked in a queue ordered by time, so that invalidation visits only sessions which may have
+ * expired. Since sessions are extended in place, a session found in the queue with a later end date is put back with
+ * its actual end date.
  */
 public class SessionManagerImpl implements SessionManager
 {
@@ -37,7 +42,8 @@ public class SessionManagerImpl implements SessionManager
 
     //****************************************
     private ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor();
-    private Map<String, Session> sessionContext = Maps.newTreeMap();
+    private ConcurrentMap<String, Session> sessionContext = Maps.newConcurrentMap();
+    private final Queue<SessionExpiry> expiryQueue = new PriorityQueue<>();
     private IdentityDataService identityDataService = null;
     //****************************************
 
@@ -68,7 +74,7 @@ public class SessionManagerImpl implements SessionManager
                     LOG.error( e.getMessage() );
                 }
             }
-        }, 5, 5, TimeUnit.MINUTES );
+        }, 1, 1, TimeUnit.MINUTES );
     }
 
 
@@ -100,6 +106,7 @@ public class SessionManagerImpl implements SessionManager
                 userSession.setStartDate( currentDate );
                 userSession.setEndDate( DateUtils.addMinutes( currentDate, SESSION_TIMEOUT ) );
                 sessionContext.put( sessionId, userSession );
+                scheduleExpiry( sessionId, userSession.getEndDate().getTime() );
             }
             else
             {
@@ -124,7 +131,7 @@ public class SessionManagerImpl implements SessionManager
     {
         Session sc = sessionContext.get( sessionId );
 
-        if ( sc != null )
+        if ( sc != null && !isExpired( sc, System.currentTimeMillis() ) )
         {
             return sc;
         }
@@ -190,17 +197,49 @@ public class SessionManagerImpl implements SessionManager
             currentDate = new Date( System.currentTimeMillis() );
         }
 
-        for ( Iterator<Session> iterator = sessionContext.values().iterator(); iterator.hasNext(); )
+        long currentTime = currentDate.getTime();
+
+        synchronized ( expiryQueue )
         {
-            final Session session = iterator.next();
-            if ( session.getEndDate().getTime() <= currentDate.getTime() )
+            while ( !expiryQueue.isEmpty() && expiryQueue.peek().time <= currentTime )
             {
-                iterator.remove();
+                SessionExpiry expiry = expiryQueue.poll();
+                Session session = sessionContext.get( expiry.sessionId );
+
+                if ( session == null )
+                {
+                    continue;
+                }
+
+                if ( isExpired( session, currentTime ) )
+                {
+                    sessionContext.remove( expiry.sessionId, session );
+                }
+                else if ( session.getEndDate() != null )
+                {
+                    //session was extended since it was scheduled
+                    expiryQueue.add( new SessionExpiry( expiry.sessionId, session.getEndDate().getTime() ) );
+                }
             }
         }
     }
 
 
+    private void scheduleExpiry( String sessionId, long time )
+    {
+        synchronized ( expiryQueue )
+        {
+            expiryQueue.add( new SessionExpiry( sessionId, time ) );
+        }
+    }
+
+
+    private boolean isExpired( Session session, long currentTime )
+    {
+        return session.getEndDate() != null && session.getEndDate().getTime() <= currentTime;
+    }
+
+
     /* *************************************************
      */
     private void removeInvalidTokens()
@@ -230,4 +269,25 @@ public class SessionManagerImpl implements SessionManager
     {
         return sessionContext;
     }
+
+
+    private static class SessionExpiry implements Comparable<SessionExpiry>
+    {
+        private final String sessionId;
+        private final long time;
+
+
+        private SessionExpiry( final String sessionId, final long time )
+        {
+            this.sessionId = sessionId;
+            this.time = time;
+        }
+
+
+        @Override
+        public int compareTo( final SessionExpiry o )
+        {
+            return Long.compare( time, o.time );
+        }
+    }
 }
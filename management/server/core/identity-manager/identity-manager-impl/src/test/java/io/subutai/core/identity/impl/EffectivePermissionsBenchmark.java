@@ -0,0 +1,212 @@
+package io.subutai.core.identity.impl;
+
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+import io.subutai.common.security.objects.PermissionObject;
+import io.subutai.common.security.objects.PermissionOperation;
+import io.subutai.common.security.objects.PermissionScope;
+import io.subutai.core.identity.api.model.Permission;
+import io.subutai.core.identity.api.model.Role;
+import io.subutai.core.identity.impl.model.PermissionEntity;
+import io.subutai.core.identity.impl.model.RoleEntity;
+
+
+/**
+ * Compares permission checks against {@link EffectivePermissions} with walking roles and permissions of the user on
+ * every check, as IdentityManagerImpl.isUserPermitted did before. Roles mirror the ones created on first start: a hub
+ * user holding Environment-Manager and Template-Manager plus a custom role, and a user holding the Internal-System
+ * role. Checks cycle through all objects, scopes and operations, so denied checks which walk all roles are included.
+ * Compiled permissions are looked up by user id in an expiring cache and checked against the roles of the user on every
+ * check, as IdentityManagerImpl does.
+ *
+ * Usage: EffectivePermissionsBenchmark [checks], defaults to 10000000
+ */
+public class EffectivePermissionsBenchmark
+{
+    private static final int ROUNDS = 3;
+    private static final Long USER_ID = 1L;
+
+    private static long roleId = 0;
+
+
+    public static void main( String[] args ) throws Exception
+    {
+        int checks = args.length > 0 ? Integer.parseInt( args[0] ) : 10000000;
+
+        List<Role> hubUserRoles = Lists.newArrayList(
+                createRole( createPermission( PermissionObject.ENVIRONMENT_MANAGEMENT, PermissionScope.ALL_SCOPE ) ),
+                createRole( createPermission( PermissionObject.TEMPLATE_MANAGEMENT, PermissionScope.ALL_SCOPE ) ),
+                createRole( createPermission( PermissionObject.PEER_MANAGEMENT, PermissionScope.OWNER_SCOPE ),
+                        createPermission( PermissionObject.RESOURCE_MANAGEMENT, PermissionScope.OWNER_SCOPE ),
+                        createPermission( PermissionObject.PLUGIN_MANAGEMENT, PermissionScope.OWNER_SCOPE ) ) );
+
+        List<Permission> systemPermissions = Lists.newArrayList();
+
+        for ( PermissionObject object : PermissionObject.values() )
+        {
+            if ( object != PermissionObject.IDENTITY_MANAGEMENT
+                    && object != PermissionObject.KARAF_SERVER_ADMINISTRATION
+                    && object != PermissionObject.TENANT_MANAGEMENT )
+            {
+                systemPermissions.add( createPermission( object, PermissionScope.ALL_SCOPE ) );
+            }
+        }
+
+        List<Role> systemUserRoles = Lists.newArrayList(
+                createRole( systemPermissions.toArray( new Permission[systemPermissions.size()] ) ) );
+
+        for ( int round = 1; round <= ROUNDS; round++ )
+        {
+            //first round warms up
+            run( "hub user", hubUserRoles, checks, round > 1 );
+            run( "system user", systemUserRoles, checks, round > 1 );
+        }
+    }
+
+
+    private static void run( String name, List<Role> roles, int checks, boolean report )
+    {
+        List<PermissionObject> objects = Lists.newArrayList();
+        List<PermissionScope> scopes = Lists.newArrayList();
+        List<PermissionOperation> operations = Lists.newArrayList();
+
+        for ( PermissionObject object : PermissionObject.values() )
+        {
+            for ( PermissionScope scope : PermissionScope.values() )
+            {
+                for ( PermissionOperation operation : PermissionOperation.values() )
+                {
+                    objects.add( object );
+                    scopes.add( scope );
+                    operations.add( operation );
+                }
+            }
+        }
+
+        int combinations = objects.size();
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        EffectivePermissions compiled = EffectivePermissions.compile( roles );
+
+        long compileNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        Cache<Long, EffectivePermissions> userPermissionsCache =
+                CacheBuilder.newBuilder().maximumSize( 10000 ).expireAfterWrite( 10, TimeUnit.MINUTES ).build();
+
+        userPermissionsCache.put( USER_ID, compiled );
+
+        long permitted = 0;
+
+        stopwatch.reset().start();
+
+        for ( int i = 0; i < checks; i++ )
+        {
+            int c = i % combinations;
+
+            EffectivePermissions permissions = userPermissionsCache.getIfPresent( USER_ID );
+
+            if ( permissions == null || !permissions.isCompiledFrom( roles ) )
+            {
+                throw new IllegalStateException( "Compiled permissions not found" );
+            }
+
+            if ( permissions.isPermitted( objects.get( c ), scopes.get( c ), operations.get( c ) ) )
+            {
+                permitted++;
+            }
+        }
+
+        long compiledNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        stopwatch.reset().start();
+
+        for ( int i = 0; i < checks; i++ )
+        {
+            int c = i % combinations;
+
+            if ( isPermittedByRoles( roles, objects.get( c ), scopes.get( c ), operations.get( c ) ) )
+            {
+                permitted--;
+            }
+        }
+
+        long walkNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        if ( permitted != 0 )
+        {
+            throw new IllegalStateException( "Compiled permissions and roles disagree" );
+        }
+
+        if ( report )
+        {
+            System.out.println( String.format( "%s: compile %d ns, check compiled %.1f ns, check by roles %.1f ns",
+                    name, compileNs, ( double ) compiledNs / checks, ( double ) walkNs / checks ) );
+        }
+    }
+
+
+    /**
+     * Former check of IdentityManagerImpl.isUserPermitted
+     */
+    private static boolean isPermittedByRoles( List<Role> roles, PermissionObject permObj,
+                                               PermissionScope permScope, PermissionOperation permOp )
+    {
+        for ( Role role : roles )
+        {
+            for ( Permission permission : role.getPermissions() )
+            {
+                if ( permission.getObject() == permObj.getId() && permission.getScope() == permScope.getId() )
+                {
+                    switch ( permOp )
+                    {
+                        case READ:
+                            return permission.isRead();
+                        case WRITE:
+                            return permission.isWrite();
+                        case UPDATE:
+                            return permission.isUpdate();
+                        case DELETE:
+                            return permission.isDelete();
+                        default:
+                            // no-op
+                            break;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+
+    private static Permission createPermission( PermissionObject object, PermissionScope scope )
+    {
+        Permission permission = new PermissionEntity();
+        permission.setObject( object.getId() );
+        permission.setScope( scope.getId() );
+        permission.setRead( true );
+        permission.setWrite( true );
+        permission.setUpdate( true );
+        permission.setDelete( scope == PermissionScope.ALL_SCOPE );
+
+        return permission;
+    }
+
+
+    private static Role createRole( Permission... permissions )
+    {
+        Role role = new RoleEntity();
+        role.setId( ++roleId );
+        role.setPermissions( Lists.newArrayList( permissions ) );
+
+        return role;
+    }
+}
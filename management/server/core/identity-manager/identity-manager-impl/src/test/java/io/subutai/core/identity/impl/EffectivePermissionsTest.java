@@ -0,0 +1,104 @@
+package io.subutai.core.identity.impl;
+
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import io.subutai.common.security.objects.PermissionObject;
+import io.subutai.common.security.objects.PermissionOperation;
+import io.subutai.common.security.objects.PermissionScope;
+import io.subutai.core.identity.api.model.Permission;
+import io.subutai.core.identity.api.model.Role;
+import io.subutai.core.identity.impl.model.PermissionEntity;
+import io.subutai.core.identity.impl.model.RoleEntity;
+
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+
+public class EffectivePermissionsTest
+{
+
+    private Permission createPermission( PermissionObject object, boolean read, boolean write )
+    {
+        Permission permission = new PermissionEntity();
+        permission.setObject( object.getId() );
+        permission.setScope( PermissionScope.ALL_SCOPE.getId() );
+        permission.setRead( read );
+        permission.setWrite( write );
+
+        return permission;
+    }
+
+
+    private Role createRole( Permission... permissions )
+    {
+        Role role = new RoleEntity();
+        role.setPermissions( Lists.newArrayList( permissions ) );
+
+        return role;
+    }
+
+
+    @Test
+    public void testIsPermitted() throws Exception
+    {
+        List<Role> roles = Lists.newArrayList( createRole( createPermission( PermissionObject.PEER_MANAGEMENT, true,
+                false ) ) );
+
+        EffectivePermissions permissions = EffectivePermissions.compile( roles );
+
+        assertTrue( permissions.isPermitted( PermissionObject.PEER_MANAGEMENT, PermissionScope.ALL_SCOPE,
+                PermissionOperation.READ ) );
+        assertFalse( permissions.isPermitted( PermissionObject.PEER_MANAGEMENT, PermissionScope.ALL_SCOPE,
+                PermissionOperation.WRITE ) );
+        assertFalse( permissions.isPermitted( PermissionObject.PEER_MANAGEMENT, PermissionScope.OWNER_SCOPE,
+                PermissionOperation.READ ) );
+        assertFalse( permissions.isPermitted( PermissionObject.IDENTITY_MANAGEMENT, PermissionScope.ALL_SCOPE,
+                PermissionOperation.READ ) );
+    }
+
+
+    @Test
+    public void testFirstPermissionDecides() throws Exception
+    {
+        List<Role> roles = Lists.newArrayList( createRole( createPermission( PermissionObject.PEER_MANAGEMENT, true,
+                false ) ), createRole( createPermission( PermissionObject.PEER_MANAGEMENT, true, true ) ) );
+
+        EffectivePermissions permissions = EffectivePermissions.compile( roles );
+
+        assertFalse( permissions.isPermitted( PermissionObject.PEER_MANAGEMENT, PermissionScope.ALL_SCOPE,
+                PermissionOperation.WRITE ) );
+    }
+
+
+    @Test
+    public void testNoRoles() throws Exception
+    {
+        EffectivePermissions permissions = EffectivePermissions.compile( null );
+
+        assertFalse( permissions.isPermitted( PermissionObject.PEER_MANAGEMENT, PermissionScope.ALL_SCOPE,
+                PermissionOperation.READ ) );
+    }
+
+
+    @Test
+    public void testIsCompiledFrom() throws Exception
+    {
+        Role role = createRole( createPermission( PermissionObject.PEER_MANAGEMENT, true, false ) );
+        role.setId( 1L );
+        Role otherRole = createRole( createPermission( PermissionObject.PEER_MANAGEMENT, true, true ) );
+        otherRole.setId( 2L );
+
+        EffectivePermissions permissions = EffectivePermissions.compile( Lists.newArrayList( role, otherRole ) );
+
+        assertTrue( permissions.isCompiledFrom( Lists.newArrayList( role, otherRole ) ) );
+        assertFalse( permissions.isCompiledFrom( Lists.newArrayList( otherRole, role ) ) );
+        assertFalse( permissions.isCompiledFrom( Lists.newArrayList( role ) ) );
+        assertFalse( permissions.isCompiledFrom( null ) );
+        assertTrue( EffectivePermissions.compile( null ).isCompiledFrom( Lists.<Role>newArrayList() ) );
+    }
+}
@@ -0,0 +1,155 @@
+package io.subutai.core.identity.impl;
+
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.collect.Lists;
+
+import io.subutai.common.security.objects.PermissionObject;
+import io.subutai.common.security.objects.PermissionOperation;
+import io.subutai.common.security.objects.PermissionScope;
+import io.subutai.core.identity.api.dao.IdentityDataService;
+import io.subutai.core.identity.api.model.Permission;
+import io.subutai.core.identity.api.model.Role;
+import io.subutai.core.identity.api.model.Session;
+import io.subutai.core.identity.api.model.User;
+import io.subutai.core.identity.api.model.UserToken;
+
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+@RunWith( MockitoJUnitRunner.class )
+public class IdentityManagerImplTest
+{
+    private static final String SYSTEM_TOKEN = "token";
+
+    @Mock
+    IdentityDataService identityDataService;
+    @Mock
+    Session session;
+    @Mock
+    Session otherSession;
+    @Mock
+    Role role;
+    @Mock
+    Permission permission;
+    @Mock
+    UserToken userToken;
+    @Mock
+    User user;
+
+    @InjectMocks
+    IdentityManagerImpl identityManager = new IdentityManagerImpl();
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        identityManager = spy( identityManager );
+
+        doReturn( SYSTEM_TOKEN ).when( identityManager ).getSystemUserToken();
+        doReturn( session ).when( identityManager ).login( anyString(), anyString() );
+    }
+
+
+    @Test
+    public void testLoginSystemUserReusesSession() throws Exception
+    {
+        assertSame( session, identityManager.loginSystemUser() );
+        assertSame( session, identityManager.loginSystemUser() );
+
+        verify( identityManager ).login( anyString(), anyString() );
+    }
+
+
+    @Test
+    public void testFailedSystemLoginIsNotCached() throws Exception
+    {
+        doReturn( null ).when( identityManager ).login( anyString(), anyString() );
+
+        assertNull( identityManager.loginSystemUser() );
+
+        doReturn( session ).when( identityManager ).login( anyString(), anyString() );
+
+        assertSame( session, identityManager.loginSystemUser() );
+        verify( identityManager, times( 2 ) ).login( anyString(), anyString() );
+    }
+
+
+    @Test
+    public void testRoleChangeInvalidatesSystemSession() throws Exception
+    {
+        identityManager.loginSystemUser();
+
+        identityManager.assignUserRole( 1L, role );
+
+        assertRelogin();
+    }
+
+
+    @Test
+    public void testPermissionChangeInvalidatesSystemSession() throws Exception
+    {
+        identityManager.loginSystemUser();
+
+        identityManager.assignRolePermission( role, permission );
+
+        assertRelogin();
+    }
+
+
+    @Test
+    public void testTokenChangeInvalidatesSystemSession() throws Exception
+    {
+        identityManager.loginSystemUser();
+
+        identityManager.updateUserToken( userToken );
+
+        assertRelogin();
+    }
+
+
+    @Test
+    public void testPermissionsFollowRolesOfUser() throws Exception
+    {
+        when( user.getId() ).thenReturn( 1L );
+        when( user.getRoles() ).thenReturn( Lists.newArrayList( role ) );
+        when( role.getId() ).thenReturn( 1L );
+        when( role.getPermissions() ).thenReturn( Lists.newArrayList( permission ) );
+        when( permission.getObject() ).thenReturn( PermissionObject.PEER_MANAGEMENT.getId() );
+        when( permission.getScope() ).thenReturn( PermissionScope.ALL_SCOPE.getId() );
+        when( permission.isRead() ).thenReturn( true );
+
+        assertTrue( identityManager.isUserPermitted( user, PermissionObject.PEER_MANAGEMENT, PermissionScope.ALL_SCOPE,
+                PermissionOperation.READ ) );
+
+        //roles changed without going through identity manager
+        when( user.getRoles() ).thenReturn( Lists.<Role>newArrayList() );
+
+        assertFalse( identityManager.isUserPermitted( user, PermissionObject.PEER_MANAGEMENT,
+                PermissionScope.ALL_SCOPE, PermissionOperation.READ ) );
+    }
+
+
+    private void assertRelogin() throws Exception
+    {
+        doReturn( otherSession ).when( identityManager ).login( anyString(), anyString() );
+
+        assertSame( otherSession, identityManager.loginSystemUser() );
+        verify( identityManager, times( 2 ) ).login( anyString(), anyString() );
+    }
+}
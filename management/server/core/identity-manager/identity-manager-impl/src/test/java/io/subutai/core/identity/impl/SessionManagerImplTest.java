@@ -99,4 +99,32 @@ public class SessionManagerImplTest
     }
 
 
+    /* *************************************************
+     */
+    @Test
+    public void invalidateExtendedSession()
+    {
+        Date currentDate = DateUtils.addMinutes( session.getStartDate(), sessionManager.getSessionTimeout() );
+
+        session.setEndDate( DateUtils.addMinutes( currentDate, 1 ) );
+
+        sessionManager.invalidateSessions( currentDate );
+
+        assertEquals( session, sessionManager.getSessionContext().get( sessionId ) );
+
+        sessionManager.invalidateSessions( DateUtils.addMinutes( currentDate, 1 ) );
+
+        assertNull( sessionManager.getSessionContext().get( sessionId ) );
+    }
+
+
+    /* *************************************************
+     */
+    @Test
+    public void testGetExpiredSession()
+    {
+        session.setEndDate( new Date( System.currentTimeMillis() - 1 ) );
+
+        assertNull( sessionManager.getValidSession( sessionId ) );
+    }
 }
@@ -18,6 +18,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.annotation.security.PermitAll;
@@ -203,6 +204,8 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
     private static final Logger LOG = LoggerFactory.getLogger( LocalPeerImpl.class );
     private static final BigDecimal ONE_HUNDRED = new BigDecimal( "100.00" );
     private static final double ACCOMMODATION_OVERHEAD_FACTOR = 1.01;
+    private static final long RH_UPDATE_FLUSH_INTERVAL_SEC = 5;
+    private static final long NET_RESOURCES_RECONCILE_INTERVAL_SEC = 60;
 
     private transient DaoManager daoManager;
     private transient TemplateManager templateManager;
@@ -225,9 +228,16 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
     volatile boolean initialized = false;
     PeerInfo peerInfo;
     private transient ScheduledExecutorService cleaner = Executors.newSingleThreadScheduledExecutor();
+    //saves resource hosts changed by heartbeats, separate from cleaner so that slow cleanup does not delay saves
+    private transient ScheduledExecutorService rhFlusher = Executors.newSingleThreadScheduledExecutor();
     private transient ExecutorService threadPool = Executors.newCachedThreadPool();
     private transient Set<LocalPeerEventListener> peerEventListeners = Sets.newHashSet();
     private AtomicInteger containerCreationCounter = new AtomicInteger();
+    //resource hosts changed by heartbeats and not yet saved
+    transient Set<ResourceHostEntity> dirtyResourceHosts = Sets.newConcurrentHashSet();
+    //reserved and used network resources, also serves as reservation lock
+    transient NetworkResourceIndex networkResourceIndex = new NetworkResourceIndex();
+    private transient AtomicBoolean netResourcesReconcileScheduled = new AtomicBoolean();
 
 
     public LocalPeerImpl( DaoManager daoManager, TemplateManager templateManager, CommandExecutor commandExecutor,
@@ -291,6 +301,24 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
                     removeStaleContainers();
                 }
             }, 30, 5, TimeUnit.MINUTES );
+
+            rhFlusher.scheduleWithFixedDelay( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    flushResourceHosts();
+                }
+            }, RH_UPDATE_FLUSH_INTERVAL_SEC, RH_UPDATE_FLUSH_INTERVAL_SEC, TimeUnit.SECONDS );
+
+            cleaner.scheduleWithFixedDelay( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    reconcileNetworkResources();
+                }
+            }, NET_RESOURCES_RECONCILE_INTERVAL_SEC, NET_RESOURCES_RECONCILE_INTERVAL_SEC, TimeUnit.SECONDS );
         }
         catch ( Exception e )
         {
@@ -359,6 +387,12 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
     @Override
     public void dispose()
     {
+        cleaner.shutdown();
+
+        rhFlusher.shutdown();
+
+        flushResourceHosts();
+
         for ( ResourceHost resourceHost : getResourceHosts() )
         {
             ( ( Disposable ) resourceHost ).dispose();
@@ -370,6 +404,51 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
     }
 
 
+    void flushResourceHosts()
+    {
+        List<ResourceHostEntity> hostsToSave = Lists.newArrayList();
+
+        //hosts are taken out before saving, so that a host changed again meanwhile stays dirty
+        for ( Iterator<ResourceHostEntity> iterator = dirtyResourceHosts.iterator(); iterator.hasNext(); )
+        {
+            hostsToSave.add( iterator.next() );
+
+            iterator.remove();
+        }
+
+        if ( hostsToSave.isEmpty() )
+        {
+            return;
+        }
+
+        try
+        {
+            resourceHostDataService.updateAll( hostsToSave );
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( "Error saving {} resource hosts in one transaction, saving them one by one", hostsToSave.size(),
+                    e );
+
+            //so that a host which can not be saved does not hold back the others
+            for ( ResourceHostEntity host : hostsToSave )
+            {
+                try
+                {
+                    resourceHostDataService.updateAll( Lists.newArrayList( host ) );
+                }
+                catch ( Exception hostError )
+                {
+                    LOG.error( "Error saving resource host {}, retrying on next flush", host.getId(), hostError );
+
+                    //in-memory state already matches the heartbeat, so it would not be marked dirty again
+                    dirtyResourceHosts.add( host );
+                }
+            }
+        }
+    }
+
+
     private void setResourceHostTransientFields( Set<ResourceHost> resourceHosts )
     {
         for ( ResourceHost resourceHost : resourceHosts )
@@ -1739,6 +1818,8 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
         {
             boolean firstMhRegistration = false;
 
+            boolean newRhRegistration = false;
+
             ResourceHostEntity host;
 
             try
@@ -1747,6 +1828,8 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
             }
             catch ( HostNotFoundException e )
             {
+                newRhRegistration = true;
+
                 //register new RH
                 host = new ResourceHostEntity( getId(), resourceHostInfo );
 
@@ -1777,12 +1860,21 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
                 }
             }
 
-            //update host info from heartbeat
-            host.updateHostInfo( resourceHostInfo );
-
-            resourceHostDataService.update( host );
+            //update host info from heartbeat, save only if something has changed
+            if ( host.updateHostInfo( resourceHostInfo ) )
+            {
+                if ( newRhRegistration || firstMhRegistration )
+                {
+                    resourceHostDataService.update( host );
+                }
+                else
+                {
+                    //coalesce with updates of other hosts, saved by flusher in one transaction
+                    dirtyResourceHosts.add( host );
+                }
 
-            LOG.debug( String.format( "Resource host %s updated.", resourceHostInfo.getHostname() ) );
+                LOG.debug( String.format( "Resource host %s updated.", resourceHostInfo.getHostname() ) );
+            }
 
             if ( firstMhRegistration )
             {
@@ -1818,6 +1910,27 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
         registerResourceHost( resourceHostInfo );
 
         releaseUpdateLock( resourceHostInfo );
+
+        //network resources of a new RH are not indexed yet
+        if ( networkResourceIndex.isReconciled() && !networkResourceIndex.isHostKnown( resourceHostInfo.getId() )
+                && netResourcesReconcileScheduled.compareAndSet( false, true ) )
+        {
+            cleaner.submit( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        reconcileNetworkResources();
+                    }
+                    finally
+                    {
+                        netResourcesReconcileScheduled.set( false );
+                    }
+                }
+            } );
+        }
     }
 
 
@@ -2379,40 +2492,41 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
 
 
     @Override
-    public synchronized Integer reserveNetworkResource( final NetworkResourceImpl networkResource ) throws PeerException
+    public Integer reserveNetworkResource( final NetworkResourceImpl networkResource ) throws PeerException
     {
 
         Preconditions.checkNotNull( networkResource );
 
         try
         {
-            NetworkResource nr = networkResourceDao.find( networkResource );
+            ensureNetworkResourceIndex();
 
-            if ( nr != null )
+            synchronized ( networkResourceIndex )
             {
-                throw new PeerException( String.format( "Network resource %s is already reserved", nr ) );
-            }
-            else
-            {
-                UsedNetworkResources usedNetworkResources = getUsedNetworkResources();
+                NetworkResource nr = networkResourceIndex.findReserved( networkResource );
 
-                if ( usedNetworkResources.containerSubnetExists( networkResource.getContainerSubnet() ) )
+                if ( nr != null )
+                {
+                    throw new PeerException( String.format( "Network resource %s is already reserved", nr ) );
+                }
+
+                if ( networkResourceIndex.containerSubnetExists( networkResource.getContainerSubnet() ) )
                 {
                     throw new PeerException( String.format( "Container subnet %s is already reserved",
                             networkResource.getContainerSubnet() ) );
                 }
-                if ( usedNetworkResources.p2pSubnetExists( networkResource.getP2pSubnet() ) )
+                if ( networkResourceIndex.p2pSubnetExists( networkResource.getP2pSubnet() ) )
                 {
                     throw new PeerException(
                             String.format( "P2P subnet %s is already reserved", networkResource.getP2pSubnet() ) );
                 }
-                if ( usedNetworkResources.vniExists( networkResource.getVni() ) )
+                if ( networkResourceIndex.vniExists( networkResource.getVni() ) )
                 {
                     throw new PeerException( String.format( "VNI %d is already reserved", networkResource.getVni() ) );
                 }
 
                 //calculate free vlan for this environment
-                int freeVlan = usedNetworkResources.calculateFreeVlan();
+                int freeVlan = networkResourceIndex.calculateFreeVlan();
                 if ( freeVlan == -1 )
                 {
                     throw new PeerException( "No free VLAN slots are left" );
@@ -2422,6 +2536,8 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
 
                 networkResourceDao.create( networkResourceEntity );
 
+                networkResourceIndex.addReserved( networkResourceEntity );
+
                 return freeVlan;
             }
         }
@@ -2434,41 +2550,55 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
     }
 
 
-    @Override
-    public ReservedNetworkResources getReservedNetworkResources() throws PeerException
+    /**
+     * Loads reservations and resources used on resource hosts into index if not loaded yet
+     */
+    private void ensureNetworkResourceIndex() throws PeerException, DaoException
     {
-        ReservedNetworkResources reservedNetworkResources = new ReservedNetworkResources();
-
-        try
+        synchronized ( networkResourceIndex )
         {
-            for ( NetworkResource networkResource : networkResourceDao.readAll() )
+            if ( !networkResourceIndex.isLoaded() )
             {
-                reservedNetworkResources.addNetworkResource( networkResource );
+                networkResourceIndex.load( networkResourceDao.readAll() );
             }
         }
-        catch ( Exception e )
+
+        if ( !networkResourceIndex.isReconciled() )
         {
-            String errMsg = String.format( "Error getting reserved network resources: %s", e.getMessage() );
-            LOG.error( errMsg );
-            throw new PeerException( errMsg, e );
+            updateHostNetworkResources( getResourceHosts() );
         }
+    }
 
-        return reservedNetworkResources;
+
+    /**
+     * Refreshes network resources used on resource hosts in index. Previous state is kept on failure.
+     */
+    void reconcileNetworkResources()
+    {
+        try
+        {
+            updateHostNetworkResources( getResourceHosts() );
+        }
+        catch ( Exception e )
+        {
+            LOG.warn( "Error reconciling network resources: {}", e.getMessage() );
+        }
     }
 
 
-    @Override
-    public UsedNetworkResources getUsedNetworkResources() throws PeerException
+    private UsedNetworkResources updateHostNetworkResources( Set<ResourceHost> resourceHostSet ) throws PeerException
     {
         final UsedNetworkResources usedNetworkResources = new UsedNetworkResources();
 
-        Set<ResourceHost> resourceHostSet = getResourceHosts();
-
         HostUtil.Tasks hostTasks = new HostUtil.Tasks();
 
+        Set<String> resourceHostIds = Sets.newHashSet();
+
         for ( final ResourceHost resourceHost : resourceHostSet )
         {
             hostTasks.addTask( resourceHost, new UsedHostNetResourcesTask( resourceHost, usedNetworkResources ) );
+
+            resourceHostIds.add( resourceHost.getId() );
         }
 
         HostUtil.Results results = hostUtil.executeFailFast( hostTasks, null );
@@ -2486,6 +2616,39 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
             throw new PeerException( errMsg, task.getException() );
         }
 
+        networkResourceIndex.updateHostResources( usedNetworkResources, resourceHostIds );
+
+        return usedNetworkResources;
+    }
+
+
+    @Override
+    public ReservedNetworkResources getReservedNetworkResources() throws PeerException
+    {
+        ReservedNetworkResources reservedNetworkResources = new ReservedNetworkResources();
+
+        try
+        {
+            for ( NetworkResource networkResource : networkResourceDao.readAll() )
+            {
+                reservedNetworkResources.addNetworkResource( networkResource );
+            }
+        }
+        catch ( Exception e )
+        {
+            String errMsg = String.format( "Error getting reserved network resources: %s", e.getMessage() );
+            LOG.error( errMsg );
+            throw new PeerException( errMsg, e );
+        }
+
+        return reservedNetworkResources;
+    }
+
+
+    @Override
+    public UsedNetworkResources getUsedNetworkResources() throws PeerException
+    {
+        UsedNetworkResources usedNetworkResources = updateHostNetworkResources( getResourceHosts() );
 
         //add reserved ones too
         for ( NetworkResource networkResource : getReservedNetworkResources().getNetworkResources() )
@@ -2794,6 +2957,8 @@ public class LocalPeerImpl extends HostListener implements LocalPeer, Disposable
         try
         {
             networkResourceDao.delete( ( NetworkResourceEntity ) reservedNetworkResource );
+
+            networkResourceIndex.removeReserved( reservedNetworkResource.getEnvironmentId() );
         }
         catch ( DaoException e )
         {
@@ -0,0 +1,257 @@
+package io.subutai.core.localpeer.impl;
+
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import io.subutai.common.network.NetworkResource;
+import io.subutai.common.network.UsedNetworkResources;
+import io.subutai.common.settings.Common;
+import io.subutai.common.util.IPUtil;
+
+
+/**
+ * In-memory index of network resources of the local peer. It consists of resources reserved for environments, which
+ * are kept in sync with reservations as they are made and released, and of resources found on resource hosts during
+ * the last reconciliation. Subnets are indexed by network address, VLANs by a bit set. All methods are synchronized on
+ * the index, which also serves as the reservation lock.
+ */
+class NetworkResourceIndex
+{
+    private final Map<String, NetworkResource> reservedResources = Maps.newHashMap();
+    private final Set<Long> reservedVnis = Sets.newHashSet();
+    private final BitSet reservedVlans = new BitSet( Common.MAX_VLAN_ID + 1 );
+    private final Set<String> reservedContainerSubnets = Sets.newHashSet();
+    private final Set<String> reservedP2pSubnets = Sets.newHashSet();
+
+    private final Set<Long> hostVnis = Sets.newHashSet();
+    private final BitSet hostVlans = new BitSet( Common.MAX_VLAN_ID + 1 );
+    private final Set<String> hostContainerSubnets = Sets.newHashSet();
+    private final Set<String> hostP2pSubnets = Sets.newHashSet();
+    private Set<String> hostIds = ImmutableSet.of();
+
+    private boolean loaded = false;
+    private boolean reconciled = false;
+
+
+    synchronized boolean isLoaded()
+    {
+        return loaded;
+    }
+
+
+    synchronized boolean isReconciled()
+    {
+        return reconciled;
+    }
+
+
+    /**
+     * Replaces reserved resources with the given ones
+     */
+    synchronized void load( Collection<? extends NetworkResource> networkResources )
+    {
+        reservedResources.clear();
+
+        for ( NetworkResource networkResource : networkResources )
+        {
+            reservedResources.put( networkResource.getEnvironmentId(), networkResource );
+        }
+
+        rebuildReserved();
+
+        loaded = true;
+    }
+
+
+    synchronized void addReserved( NetworkResource networkResource )
+    {
+        Preconditions.checkNotNull( networkResource );
+
+        reservedResources.put( networkResource.getEnvironmentId(), networkResource );
+
+        addReservedToIndex( networkResource );
+    }
+
+
+    synchronized void removeReserved( String environmentId )
+    {
+        if ( reservedResources.remove( environmentId ) != null )
+        {
+            rebuildReserved();
+        }
+    }
+
+
+    /**
+     * Replaces resources used on resource hosts with the result of reconciliation
+     *
+     * @param usedNetworkResources resources found on resource hosts
+     * @param resourceHostIds ids of resource hosts which were queried
+     */
+    synchronized void updateHostResources( UsedNetworkResources usedNetworkResources, Set<String> resourceHostIds )
+    {
+        hostVnis.clear();
+        hostVnis.addAll( usedNetworkResources.getVnis() );
+
+        hostVlans.clear();
+        for ( Integer vlan : usedNetworkResources.getVlans() )
+        {
+            hostVlans.set( vlan );
+        }
+
+        hostContainerSubnets.clear();
+        for ( String containerSubnet : usedNetworkResources.getContainerSubnets() )
+        {
+            hostContainerSubnets.add( IPUtil.getNetworkAddress( containerSubnet ) );
+        }
+
+        hostP2pSubnets.clear();
+        for ( String p2pSubnet : usedNetworkResources.getP2pSubnets() )
+        {
+            hostP2pSubnets.add( IPUtil.getNetworkAddress( p2pSubnet ) );
+        }
+
+        hostIds = ImmutableSet.copyOf( resourceHostIds );
+
+        reconciled = true;
+    }
+
+
+    synchronized boolean isHostKnown( String resourceHostId )
+    {
+        return hostIds.contains( resourceHostId );
+    }
+
+
+    /**
+     * Returns reservation which has the same environment, subnets or vni as the given resource, null if none
+     */
+    synchronized NetworkResource findReserved( NetworkResource networkResource )
+    {
+        NetworkResource reserved = reservedResources.get( networkResource.getEnvironmentId() );
+
+        if ( reserved != null )
+        {
+            return reserved;
+        }
+
+        String containerSubnet = IPUtil.getNetworkAddress( networkResource.getContainerSubnet() );
+        String p2pSubnet = IPUtil.getNetworkAddress( networkResource.getP2pSubnet() );
+
+        if ( reservedContainerSubnets.contains( containerSubnet ) || reservedP2pSubnets.contains( p2pSubnet )
+                || reservedVnis.contains( networkResource.getVni() ) )
+        {
+            for ( NetworkResource resource : reservedResources.values() )
+            {
+                if ( containerSubnet.equals( getNetworkAddress( resource.getContainerSubnet() ) ) || p2pSubnet
+                        .equals( getNetworkAddress( resource.getP2pSubnet() ) )
+                        || resource.getVni() == networkResource.getVni() )
+                {
+                    return resource;
+                }
+            }
+        }
+
+        return null;
+    }
+
+
+    synchronized boolean containerSubnetExists( String subnet )
+    {
+        String netAddress = IPUtil.getNetworkAddress( subnet );
+
+        return reservedContainerSubnets.contains( netAddress ) || hostContainerSubnets.contains( netAddress );
+    }
+
+
+    synchronized boolean p2pSubnetExists( String subnet )
+    {
+        String netAddress = IPUtil.getNetworkAddress( subnet );
+
+        return reservedP2pSubnets.contains( netAddress ) || hostP2pSubnets.contains( netAddress );
+    }
+
+
+    synchronized boolean vniExists( long vni )
+    {
+        return reservedVnis.contains( vni ) || hostVnis.contains( vni );
+    }
+
+
+    /**
+     * Returns the lowest VLAN neither reserved nor used on resource hosts, -1 if none is left
+     */
+    synchronized int calculateFreeVlan()
+    {
+        int vlan = Common.MIN_VLAN_ID;
+
+        while ( vlan <= Common.MAX_VLAN_ID )
+        {
+            int reservedFree = reservedVlans.nextClearBit( vlan );
+            int hostFree = hostVlans.nextClearBit( reservedFree );
+
+            if ( hostFree == reservedFree )
+            {
+                return reservedFree <= Common.MAX_VLAN_ID ? reservedFree : -1;
+            }
+
+            vlan = hostFree;
+        }
+
+        return -1;
+    }
+
+
+    private void rebuildReserved()
+    {
+        reservedVnis.clear();
+        reservedVlans.clear();
+        reservedContainerSubnets.clear();
+        reservedP2pSubnets.clear();
+
+        for ( NetworkResource networkResource : reservedResources.values() )
+        {
+            addReservedToIndex( networkResource );
+        }
+    }
+
+
+    private void addReservedToIndex( NetworkResource networkResource )
+    {
+        reservedVnis.add( networkResource.getVni() );
+
+        if ( networkResource.getVlan() >= Common.MIN_VLAN_ID && networkResource.getVlan() <= Common.MAX_VLAN_ID )
+        {
+            reservedVlans.set( networkResource.getVlan() );
+        }
+
+        String containerSubnet = getNetworkAddress( networkResource.getContainerSubnet() );
+
+        if ( containerSubnet != null )
+        {
+            reservedContainerSubnets.add( containerSubnet );
+        }
+
+        String p2pSubnet = getNetworkAddress( networkResource.getP2pSubnet() );
+
+        if ( p2pSubnet != null )
+        {
+            reservedP2pSubnets.add( p2pSubnet );
+        }
+    }
+
+
+    private static String getNetworkAddress( String subnet )
+    {
+        return Strings.isNullOrEmpty( subnet ) ? null : IPUtil.getNetworkAddress( subnet );
+    }
+}
@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
 
+import io.subutai.common.exception.DaoException;
 import io.subutai.common.protocol.api.DataService;
 import io.subutai.core.localpeer.impl.entity.ResourceHostEntity;
 
@@ -140,7 +141,12 @@ public class ResourceHostDataService implements DataService<String, ResourceHost
         try
         {
             em.getTransaction().begin();
-            em.merge( item );
+
+            synchronized ( item.getStateLock() )
+            {
+                em.merge( item );
+            }
+
             em.getTransaction().commit();
         }
         catch ( Exception e )
@@ -156,4 +162,40 @@ public class ResourceHostDataService implements DataService<String, ResourceHost
             em.close();
         }
     }
+
+
+    /**
+     * Merges all given hosts in a single transaction
+     *
+     * @throws DaoException if the transaction failed, none of the hosts is saved then
+     */
+    public synchronized void updateAll( Collection<ResourceHostEntity> items ) throws DaoException
+    {
+        EntityManager em = emf.createEntityManager();
+        try
+        {
+            em.getTransaction().begin();
+            for ( ResourceHostEntity item : items )
+            {
+                synchronized ( item.getStateLock() )
+                {
+                    em.merge( item );
+                }
+            }
+            em.getTransaction().commit();
+        }
+        catch ( Exception e )
+        {
+            if ( em.getTransaction().isActive() )
+            {
+                em.getTransaction().rollback();
+            }
+
+            throw new DaoException( e );
+        }
+        finally
+        {
+            em.close();
+        }
+    }
 }
@@ -12,6 +12,7 @@ import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.Transient;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 
@@ -158,13 +159,22 @@ public abstract class AbstractSubutaiHost implements Host
     }
 
 
-    public void updateHostInfo( final HostInfo hostInfo )
+    /**
+     * Updates host from heartbeat info
+     *
+     * @return true if persistent state of host has changed and needs to be saved
+     */
+    public boolean updateHostInfo( final HostInfo hostInfo )
     {
         Preconditions.checkNotNull( hostInfo );
 
         this.lastHeartbeat = System.currentTimeMillis();
 
+        boolean changed = !Objects.equal( this.hostname, hostInfo.getHostname() );
+
         this.hostname = hostInfo.getHostname();
+
+        return changed;
     }
 
 
@@ -2,6 +2,7 @@ package io.subutai.core.localpeer.impl.entity;
 
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import javax.persistence.Access;
@@ -22,7 +23,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import io.subutai.common.host.ContainerHostInfo;
@@ -292,13 +295,48 @@ public class ContainerHostEntity extends AbstractSubutaiHost implements Containe
 
 
     @Override
-    public void updateHostInfo( final HostInfo hostInfo )
+    public boolean updateHostInfo( final HostInfo hostInfo )
     {
-        super.updateHostInfo( hostInfo );
+        boolean changed = super.updateHostInfo( hostInfo );
 
-        this.containerName = ( ( ContainerHostInfo ) hostInfo ).getContainerName();
+        ContainerHostInfo containerHostInfo = ( ContainerHostInfo ) hostInfo;
 
-        setSavedHostInterfaces( ( ( ContainerHostInfo ) hostInfo ).getHostInterfaces() );
+        if ( !Objects.equal( this.containerName, containerHostInfo.getContainerName() ) )
+        {
+            this.containerName = containerHostInfo.getContainerName();
+
+            changed = true;
+        }
+
+        //replace interfaces only if they differ to avoid re-inserting interface rows on each heartbeat
+        if ( !hostInterfacesEqual( containerHostInfo.getHostInterfaces() ) )
+        {
+            setSavedHostInterfaces( containerHostInfo.getHostInterfaces() );
+
+            changed = true;
+        }
+
+        return changed;
+    }
+
+
+    private boolean hostInterfacesEqual( HostInterfaces newHostInterfaces )
+    {
+        Map<String, String> savedInterfaces = Maps.newHashMap();
+
+        for ( HostInterface hostInterface : hostInterfaces )
+        {
+            savedInterfaces.put( hostInterface.getName(), hostInterface.getIp() );
+        }
+
+        Map<String, String> newInterfaces = Maps.newHashMap();
+
+        for ( HostInterface hostInterface : newHostInterfaces.getAll() )
+        {
+            newInterfaces.put( hostInterface.getName(), hostInterface.getIp() );
+        }
+
+        return savedInterfaces.size() == hostInterfaces.size() && savedInterfaces.equals( newInterfaces );
     }
 
 
@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.commons.lang.StringUtils;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
@@ -641,6 +642,16 @@ public class ResourceHostEntity extends AbstractSubutaiHost implements ResourceH
     }
 
 
+    /**
+     * Returns lock guarding persisted state of host and its containers. Heartbeat updates and saving to database hold
+     * it, so that a host is never saved while being updated
+     */
+    public Object getStateLock()
+    {
+        return containersHosts;
+    }
+
+
     @Override
     public void addContainerHost( ContainerHost host )
     {
@@ -1099,13 +1110,23 @@ public class ResourceHostEntity extends AbstractSubutaiHost implements ResourceH
 
 
     @Override
-    public void updateHostInfo( final HostInfo hostInfo )
+    public boolean updateHostInfo( final HostInfo hostInfo )
     {
-        super.updateHostInfo( hostInfo );
+        boolean changed;
 
         ResourceHostInfo resourceHostInfo = ( ResourceHostInfo ) hostInfo;
 
-        this.address = resourceHostInfo.getAddress();
+        synchronized ( getStateLock() )
+        {
+            changed = super.updateHostInfo( hostInfo );
+
+            if ( !Objects.equal( this.address, resourceHostInfo.getAddress() ) )
+            {
+                this.address = resourceHostInfo.getAddress();
+
+                changed = true;
+            }
+        }
 
         for ( ContainerHostInfo info : resourceHostInfo.getContainers() )
         {
@@ -1113,7 +1134,11 @@ public class ResourceHostEntity extends AbstractSubutaiHost implements ResourceH
             try
             {
                 containerHost = ( ContainerHostEntity ) getContainerHostById( info.getId() );
-                containerHost.updateHostInfo( info );
+
+                synchronized ( getStateLock() )
+                {
+                    changed |= containerHost.updateHostInfo( info );
+                }
             }
             catch ( HostNotFoundException e )
             {
@@ -1146,6 +1171,8 @@ public class ResourceHostEntity extends AbstractSubutaiHost implements ResourceH
                                         new ContainerQuota( ContainerSize.SMALL ), info.getVlan() );
 
                         addContainerHost( containerHost );
+
+                        changed = true;
                     }
                     catch ( PeerException e1 )
                     {
@@ -1163,6 +1190,8 @@ public class ResourceHostEntity extends AbstractSubutaiHost implements ResourceH
                 LOG.warn( "Error updating container info {}", e.getMessage() );
             }
         }
+
+        return changed;
     }
 
 
@@ -17,6 +17,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import org.apache.openjpa.persistence.EntityManagerFactoryImpl;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -25,6 +26,7 @@ import io.subutai.common.command.CommandException;
 import io.subutai.common.command.CommandUtil;
 import io.subutai.common.command.RequestBuilder;
 import io.subutai.common.dao.DaoManager;
+import io.subutai.common.exception.DaoException;
 import io.subutai.common.host.ContainerHostInfo;
 import io.subutai.common.host.ContainerHostInfoModel;
 import io.subutai.common.host.ContainerHostState;
@@ -78,7 +80,9 @@ import static junit.framework.TestCase.assertNotNull;
 import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -643,4 +647,36 @@ public class LocalPeerImplTest
 
         resourceHost.updateHostInfo( resourceHostInfo );
     }
+
+
+    @Test
+    public void testFlushResourceHosts() throws Exception
+    {
+        localPeer.dirtyResourceHosts.add( resourceHost );
+
+        localPeer.flushResourceHosts();
+
+        verify( resourceHostDataService ).updateAll( Lists.newArrayList( resourceHost ) );
+        assertTrue( localPeer.dirtyResourceHosts.isEmpty() );
+    }
+
+
+    @Test
+    public void testFlushResourceHostsKeepsFailedHostDirty() throws Exception
+    {
+        ResourceHostEntity otherResourceHost = mock( ResourceHostEntity.class );
+
+        localPeer.dirtyResourceHosts.add( resourceHost );
+        localPeer.dirtyResourceHosts.add( otherResourceHost );
+
+        doThrow( new DaoException( new RuntimeException() ) ).when( resourceHostDataService )
+                                                            .updateAll( anyCollectionOf( ResourceHostEntity.class ) );
+        doNothing().when( resourceHostDataService ).updateAll( Lists.newArrayList( otherResourceHost ) );
+
+        localPeer.flushResourceHosts();
+
+        //other host is saved on its own after the batch failed
+        verify( resourceHostDataService ).updateAll( Lists.newArrayList( otherResourceHost ) );
+        assertEquals( Sets.newHashSet( resourceHost ), localPeer.dirtyResourceHosts );
+    }
 }
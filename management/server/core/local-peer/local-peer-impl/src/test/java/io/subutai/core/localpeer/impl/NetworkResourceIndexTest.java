@@ -0,0 +1,92 @@
+package io.subutai.core.localpeer.impl;
+
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+import io.subutai.common.network.NetworkResourceImpl;
+import io.subutai.common.network.UsedNetworkResources;
+import io.subutai.common.settings.Common;
+import io.subutai.core.localpeer.impl.entity.NetworkResourceEntity;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+
+
+public class NetworkResourceIndexTest
+{
+    private static final String ENV_ID = "123";
+    private static final String OTHER_ENV_ID = "456";
+    private static final long VNI = 1000L;
+    private static final String P2P_SUBNET = "10.11.0.0";
+    private static final String CONTAINER_SUBNET = "172.16.1.0";
+    private static final String RH_ID = "RH";
+
+    NetworkResourceIndex index;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        index = new NetworkResourceIndex();
+
+        index.load( Lists.newArrayList(
+                new NetworkResourceEntity( ENV_ID, VNI, P2P_SUBNET, CONTAINER_SUBNET, Common.MIN_VLAN_ID, "peer",
+                        "user", "1" ) ) );
+    }
+
+
+    @Test
+    public void testFindReserved() throws Exception
+    {
+        assertNotNull( index.findReserved(
+                new NetworkResourceImpl( ENV_ID, VNI + 1, "10.12.0.0", "172.16.2.0", "peer", "user", "1" ) ) );
+        assertNotNull( index.findReserved(
+                new NetworkResourceImpl( OTHER_ENV_ID, VNI + 1, "10.12.0.0", "172.16.1.100", "peer", "user", "1" ) ) );
+        assertNull( index.findReserved(
+                new NetworkResourceImpl( OTHER_ENV_ID, VNI + 1, "10.12.0.0", "172.16.2.0", "peer", "user", "1" ) ) );
+    }
+
+
+    @Test
+    public void testRemoveReserved() throws Exception
+    {
+        index.removeReserved( ENV_ID );
+
+        assertFalse( index.vniExists( VNI ) );
+        assertFalse( index.containerSubnetExists( CONTAINER_SUBNET ) );
+        assertEquals( Common.MIN_VLAN_ID, index.calculateFreeVlan() );
+    }
+
+
+    @Test
+    public void testUpdateHostResources() throws Exception
+    {
+        UsedNetworkResources usedNetworkResources = new UsedNetworkResources();
+        usedNetworkResources.addVni( VNI + 1 );
+        usedNetworkResources.addVlan( Common.MIN_VLAN_ID + 1 );
+        usedNetworkResources.addP2pSubnet( "10.12.0.1" );
+
+        index.updateHostResources( usedNetworkResources, Sets.newHashSet( RH_ID ) );
+
+        assertTrue( index.isReconciled() );
+        assertTrue( index.isHostKnown( RH_ID ) );
+        assertTrue( index.vniExists( VNI + 1 ) );
+        assertTrue( index.p2pSubnetExists( "10.12.0.0" ) );
+        assertTrue( index.p2pSubnetExists( P2P_SUBNET ) );
+        assertEquals( Common.MIN_VLAN_ID + 2, index.calculateFreeVlan() );
+
+        //host resources are replaced
+        index.updateHostResources( new UsedNetworkResources(), Sets.<String>newHashSet() );
+
+        assertFalse( index.isHostKnown( RH_ID ) );
+        assertFalse( index.vniExists( VNI + 1 ) );
+        assertEquals( Common.MIN_VLAN_ID + 1, index.calculateFreeVlan() );
+    }
+}
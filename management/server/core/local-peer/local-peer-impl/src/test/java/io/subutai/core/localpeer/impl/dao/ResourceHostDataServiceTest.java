@@ -12,7 +12,9 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.google.common.collect.Lists;
 
+import io.subutai.common.exception.DaoException;
 import io.subutai.core.localpeer.impl.entity.ResourceHostEntity;
 
 import static org.mockito.Matchers.anyString;
@@ -49,6 +51,7 @@ public class ResourceHostDataServiceTest
         when( em.getTransaction() ).thenReturn( transaction );
         when( transaction.isActive() ).thenReturn( true );
         when( em.createQuery( anyString(), eq( ResourceHostEntity.class ) ) ).thenReturn( typedQuery );
+        when( item.getStateLock() ).thenReturn( new Object() );
         service = new ResourceHostDataService( entityManagerFactory );
     }
 
@@ -145,4 +148,30 @@ public class ResourceHostDataServiceTest
 
         verifyRollback();
     }
+
+
+    @Test
+    public void testUpdateAll() throws Exception
+    {
+        service.updateAll( Lists.newArrayList( item ) );
+
+        verify( em ).merge( item );
+        verifyCommit();
+    }
+
+
+    @Test( expected = DaoException.class )
+    public void testUpdateAllFailure() throws Exception
+    {
+        throwException();
+
+        try
+        {
+            service.updateAll( Lists.newArrayList( item ) );
+        }
+        finally
+        {
+            verifyRollback();
+        }
+    }
 }
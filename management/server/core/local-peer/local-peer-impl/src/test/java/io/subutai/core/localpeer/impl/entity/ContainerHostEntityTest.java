@@ -25,6 +25,7 @@ import io.subutai.core.hostregistry.api.HostRegistry;
 import io.subutai.hub.share.quota.ContainerQuota;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
@@ -157,9 +158,12 @@ public class ContainerHostEntityTest
     @Test
     public void testUpdateHostInfo() throws Exception
     {
-        containerHostEntity.updateHostInfo( containerHostInfo );
+        assertTrue( containerHostEntity.updateHostInfo( containerHostInfo ) );
 
         assertEquals( containerHostInfo.getContainerName(), containerHostEntity.getContainerName() );
+
+        //unchanged heartbeat does not require saving
+        assertFalse( containerHostEntity.updateHostInfo( containerHostInfo ) );
     }
 
 
@@ -7,4 +7,11 @@ package io.subutai.core.messenger.api;
 public interface MessageProcessor
 {
     public void processMessage( String envelope ) throws MessageException;
+
+    /**
+     * Processes a batch of envelopes delivered in one request
+     *
+     * @param envelopes - JSON array of envelopes
+     */
+    public void processMessages( String envelopes ) throws MessageException;
 }
@@ -3,6 +3,7 @@ package io.subutai.core.messenger.api;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Future;
 
 import io.subutai.common.peer.Peer;
 
@@ -32,9 +33,13 @@ public interface Messenger
      * @param timeToLive - time-to-live (in seconds) of message within which message is retried to be sent to recipient.
      * After ttl expires and message is still not sent, it expires
      * @param headers - optional HTTP request headers
+     *
+     * @return - handle which completes with {@code MessageStatus.SENT} once message is delivered or with {@code
+     * MessageStatus.EXPIRED} if it could not be delivered within its time-to-live
      */
-    public void sendMessage( final Peer peer, final Message message, final String recipient, final int timeToLive,
-                             final Map<String, String> headers ) throws MessageException;
+    public Future<MessageStatus> sendMessage( final Peer peer, final Message message, final String recipient,
+                                              final int timeToLive, final Map<String, String> headers )
+            throws MessageException;
 
     /**
      * Returns status of message
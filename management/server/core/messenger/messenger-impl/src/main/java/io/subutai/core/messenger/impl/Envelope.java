@@ -6,8 +6,11 @@ import java.util.Map;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 
 import io.subutai.core.messenger.api.Message;
+import io.subutai.core.messenger.api.MessageStatus;
 import io.subutai.core.messenger.impl.entity.MessageEntity;
 
 
@@ -23,6 +26,7 @@ public class Envelope
     private final Map<String, String> headers;
     private transient boolean isSent;
     private transient Timestamp createDate;
+    private final transient SettableFuture<MessageStatus> status = SettableFuture.create();
 
 
     public Envelope( MessageEntity message )
@@ -89,6 +93,29 @@ public class Envelope
     public void setSent( final boolean isSent )
     {
         this.isSent = isSent;
+
+        if ( isSent )
+        {
+            status.set( MessageStatus.SENT );
+        }
+    }
+
+
+    /**
+     * Completes status of envelope which could not be delivered within its time-to-live
+     */
+    public void setExpired()
+    {
+        status.set( MessageStatus.EXPIRED );
+    }
+
+
+    /**
+     * Returns delivery status of envelope, available only on the sending side
+     */
+    public ListenableFuture<MessageStatus> getStatus()
+    {
+        return status;
     }
 
 
@@ -1,41 +1,52 @@
 package io.subutai.core.messenger.impl;
 
 
-import java.util.Comparator;
-import java.util.Map;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.CompletionService;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import io.subutai.common.peer.Peer;
 import io.subutai.common.peer.PeerException;
 
 
 /**
- * Background message sender
+ * Background message sender. Envelopes are queued in memory per target peer and delivered as soon as they are queued,
+ * one sender per peer at a time. Failed deliveries are retried with exponential backoff. Database is swept
+ * periodically to pick up undelivered envelopes left from previous runs.
  */
 public class MessageSender
 {
-    public static final int SLEEP_BETWEEN_ITERATIONS_SEC = 1;
+    public static final int SWEEP_INTERVAL_SEC = 60;
+    static final int MAX_ENVELOPES_PER_ROUND = 100;
+    static final long MIN_RETRY_DELAY_MS = 500;
+    static final long MAX_RETRY_DELAY_MS = 30000;
+
     private final MessengerDataService messengerDataService;
     private final MessengerImpl messenger;
 
     protected static Logger LOG = LoggerFactory.getLogger( MessageSender.class.getName() );
     protected ScheduledExecutorService mainLoopExecutor = Executors.newSingleThreadScheduledExecutor();
     protected ExecutorService restExecutor = Executors.newCachedThreadPool();
-    protected CompletionService<Boolean> completer = new ExecutorCompletionService<>( restExecutor );
+    protected final ConcurrentMap<String, PeerQueue> peerQueues = new ConcurrentHashMap<>();
+    //ids of envelopes delivered while the sweep loads undelivered envelopes, null if no sweep is in progress
+    private volatile Set<UUID> deliveredDuringSweep;
 
 
     public MessageSender( final MessengerDataService messengerDataService, final MessengerImpl messenger )
@@ -47,7 +58,7 @@ public class MessageSender
 
     public void init()
     {
-        //main background thread
+        //background sweeper, first run picks up envelopes persisted before restart
         mainLoopExecutor.scheduleWithFixedDelay( new Runnable()
         {
             @Override
@@ -56,7 +67,7 @@ public class MessageSender
 
                 try
                 {
-                    deliverMessages();
+                    loadUndeliveredMessages();
                     purgeExpiredMessages();
                 }
                 catch ( Exception e )
@@ -64,7 +75,7 @@ public class MessageSender
                     LOG.error( "Error in MessageSender", e );
                 }
             }
-        }, 0, SLEEP_BETWEEN_ITERATIONS_SEC, TimeUnit.SECONDS );
+        }, 0, SWEEP_INTERVAL_SEC, TimeUnit.SECONDS );
     }
 
 
@@ -75,81 +86,325 @@ public class MessageSender
     }
 
 
+    /**
+     * Queues envelope for immediate delivery to its target peer
+     */
+    public void enqueue( Envelope envelope )
+    {
+        getPeerQueue( envelope.getTargetPeerId() ).add( envelope );
+    }
+
+
     protected void purgeExpiredMessages()
     {
         messengerDataService.purgeExpiredMessages();
     }
 
 
-    protected void deliverMessages()
+    protected void loadUndeliveredMessages()
+    {
+        Set<UUID> deliveredIds = Collections.newSetFromMap( new ConcurrentHashMap<UUID, Boolean>() );
+
+        deliveredDuringSweep = deliveredIds;
+
+        try
+        {
+            for ( Envelope envelope : messengerDataService.getEnvelopes() )
+            {
+                PeerQueue peerQueue = getPeerQueue( envelope.getTargetPeerId() );
+
+                //while peer queue is active its memory state is authoritative
+                if ( !peerQueue.isActive() )
+                {
+                    peerQueue.addUndelivered( envelope, deliveredIds );
+                }
+            }
+        }
+        finally
+        {
+            deliveredDuringSweep = null;
+        }
+    }
+
+
+    protected PeerQueue getPeerQueue( String peerId )
+    {
+        PeerQueue peerQueue = peerQueues.get( peerId );
+
+        if ( peerQueue == null )
+        {
+            PeerQueue newPeerQueue = new PeerQueue( peerId );
+
+            peerQueue = peerQueues.putIfAbsent( peerId, newPeerQueue );
+
+            if ( peerQueue == null )
+            {
+                peerQueue = newPeerQueue;
+            }
+        }
+
+        return peerQueue;
+    }
+
+
+    protected Callable<Boolean> createSender( Peer targetPeer, Set<Envelope> envelopes )
+    {
+        if ( targetPeer.isLocal() )
+        {
+            return new LocalPeerMessageSender( messenger, messengerDataService, envelopes );
+        }
+        else
+        {
+            return new RemotePeerMessageSender( messengerDataService, targetPeer, envelopes );
+        }
+    }
+
+
+    static boolean isExpired( Envelope envelope, long now )
+    {
+        return envelope.getCreateDate().getTime() + envelope.getTimeToLive() * 1000L < now;
+    }
+
+
+    /**
+     * Outbound queue of a peer. At most one drain of the queue is scheduled or running at a time
+     */
+    protected class PeerQueue implements Runnable
     {
-        //get next messages to send
-        Set<Envelope> envelopes = messengerDataService.getEnvelopes();
+        private final String peerId;
+        private final Deque<Envelope> envelopes = new ConcurrentLinkedDeque<>();
+        private final Set<UUID> queuedIds = Collections.newSetFromMap( new ConcurrentHashMap<UUID, Boolean>() );
+        private final AtomicBoolean active = new AtomicBoolean( false );
+
+        //accessed by the drain only
+        private int failures = 0;
+
+
+        PeerQueue( final String peerId )
+        {
+            this.peerId = peerId;
+        }
+
+
+        void add( Envelope envelope )
+        {
+            if ( queuedIds.add( envelope.getMessage().getId() ) )
+            {
+                envelopes.addLast( envelope );
+
+                schedule();
+            }
+        }
+
+
+        /**
+         * Adds envelope read from database unless it has been delivered since it was read
+         */
+        void addUndelivered( Envelope envelope, Set<UUID> deliveredIds )
+        {
+            synchronized ( queuedIds )
+            {
+                if ( !deliveredIds.contains( envelope.getMessage().getId() ) )
+                {
+                    add( envelope );
+                }
+            }
+        }
+
+
+        boolean isActive()
+        {
+            return active.get();
+        }
+
+
+        int size()
+        {
+            return envelopes.size();
+        }
+
 
-        Map<String, Set<Envelope>> peerEnvelopesMap = Maps.newHashMap();
-        int maxTimeToLive = 0;
-        //distribute envelops to peers
-        for ( Envelope envelope : envelopes )
+        private void schedule()
         {
-            if ( envelope.getTimeToLive() > maxTimeToLive )
+            if ( active.compareAndSet( false, true ) )
             {
-                maxTimeToLive = envelope.getTimeToLive();
+                restExecutor.execute( this );
             }
-            Set<Envelope> peerEnvelopes = peerEnvelopesMap.get( envelope.getTargetPeerId() );
-            if ( peerEnvelopes == null )
+        }
+
+
+        @Override
+        public void run()
+        {
+            long retryDelay;
+
+            try
+            {
+                retryDelay = drain();
+            }
+            catch ( PeerException e )
             {
-                //sort by createDate asc once more
-                peerEnvelopes = new TreeSet<>( new Comparator<Envelope>()
+                //peer is gone, sweep picks up its envelopes until they expire
+                LOG.warn( "Dropping message queue of peer {}: {}", peerId, e.getMessage() );
+
+                peerQueues.remove( peerId, this );
+
+                return;
+            }
+            catch ( Exception e )
+            {
+                LOG.error( "Error delivering messages to peer {}", peerId, e );
+
+                removeExpired();
+
+                retryDelay = envelopes.isEmpty() ? 0 : nextRetryDelay();
+            }
+
+            if ( retryDelay > 0 && !mainLoopExecutor.isShutdown() )
+            {
+                //queue stays active so that new envelopes do not bypass the backoff
+                mainLoopExecutor.schedule( new Runnable()
                 {
                     @Override
-                    public int compare( final Envelope o1, final Envelope o2 )
+                    public void run()
                     {
-                        return o1.getCreateDate().compareTo( o2.getCreateDate() );
+                        restExecutor.execute( PeerQueue.this );
                     }
-                } );
-                peerEnvelopesMap.put( envelope.getTargetPeerId(), peerEnvelopes );
+                }, retryDelay, TimeUnit.MILLISECONDS );
+
+                return;
             }
 
-            peerEnvelopes.add( envelope );
+            active.set( false );
+
+            //pick up envelopes added after the queue was found empty
+            if ( !envelopes.isEmpty() )
+            {
+                schedule();
+            }
         }
 
 
-        //try to send messages in parallel - one thread per peer
-        try
+        /**
+         * Delivers queued envelopes
+         *
+         * @return delay before the next attempt if delivery failed, 0 otherwise
+         */
+        protected long drain() throws Exception
         {
-            for ( Map.Entry<String, Set<Envelope>> envelopsPerPeer : peerEnvelopesMap.entrySet() )
+            if ( envelopes.isEmpty() )
             {
-                Peer targetPeer = messenger.getPeerManager().getPeer( envelopsPerPeer.getKey() );
-                if ( targetPeer.isLocal() )
+                return 0;
+            }
+
+            Peer targetPeer = messenger.getPeerManager().getPeer( peerId );
+
+            while ( !envelopes.isEmpty() )
+            {
+                Set<Envelope> round = Sets.newLinkedHashSet();
+                long now = System.currentTimeMillis();
+                Envelope envelope;
+
+                while ( round.size() < MAX_ENVELOPES_PER_ROUND && ( envelope = envelopes.pollFirst() ) != null )
+                {
+                    if ( isExpired( envelope, now ) )
+                    {
+                        queuedIds.remove( envelope.getMessage().getId() );
+
+                        envelope.setExpired();
+                    }
+                    else
+                    {
+                        round.add( envelope );
+                    }
+                }
+
+                if ( round.isEmpty() )
+                {
+                    continue;
+                }
+
+                try
                 {
-                    completer.submit(
-                            new LocalPeerMessageSender( messenger, messengerDataService, envelopsPerPeer.getValue() ) );
+                    createSender( targetPeer, round ).call();
                 }
-                else
+                catch ( Exception e )
                 {
-                    completer.submit(
-                            new RemotePeerMessageSender(
-                                    messengerDataService, targetPeer, envelopsPerPeer.getValue() ) );
+                    LOG.error( "Error delivering messages to peer {}", peerId, e );
                 }
+
+                List<Envelope> undelivered = Lists.newArrayList();
+
+                for ( Envelope sentEnvelope : round )
+                {
+                    if ( sentEnvelope.isSent() )
+                    {
+                        removeDelivered( sentEnvelope );
+                    }
+                    else
+                    {
+                        undelivered.add( sentEnvelope );
+                    }
+                }
+
+                if ( !undelivered.isEmpty() )
+                {
+                    //return undelivered envelopes to the head preserving their order
+                    for ( Envelope undeliveredEnvelope : Lists.reverse( undelivered ) )
+                    {
+                        envelopes.addFirst( undeliveredEnvelope );
+                    }
+
+                    return nextRetryDelay();
+                }
+
+                failures = 0;
             }
 
-            //wait for completion
-            try
+            return 0;
+        }
+
+
+        private void removeDelivered( Envelope envelope )
+        {
+            UUID id = envelope.getMessage().getId();
+
+            synchronized ( queuedIds )
             {
-                for ( int i = 0; i < peerEnvelopesMap.size(); i++ )
+                Set<UUID> deliveredIds = deliveredDuringSweep;
+
+                //sweep may be holding a stale copy of the envelope
+                if ( deliveredIds != null )
                 {
-                    Future<Boolean> future = completer.take();
-                    future.get();
+                    deliveredIds.add( id );
                 }
+
+                queuedIds.remove( id );
             }
-            catch ( InterruptedException | ExecutionException e )
+        }
+
+
+        private void removeExpired()
+        {
+            long now = System.currentTimeMillis();
+
+            for ( Envelope envelope : envelopes )
             {
-                LOG.warn( "ignore", e );
+                if ( isExpired( envelope, now ) && envelopes.remove( envelope ) )
+                {
+                    queuedIds.remove( envelope.getMessage().getId() );
+
+                    envelope.setExpired();
+                }
             }
         }
-        catch ( PeerException e )
+
+
+        private long nextRetryDelay()
         {
-            LOG.error( e.getMessage(), e );
+            failures++;
+
+            return Math.min( MAX_RETRY_DELAY_MS, MIN_RETRY_DELAY_MS << Math.min( failures - 1, 16 ) );
         }
     }
 }
@@ -1,6 +1,8 @@
 package io.subutai.core.messenger.impl;
 
 
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -12,6 +14,7 @@ import io.subutai.core.messenger.impl.dao.MessageDao;
 import io.subutai.core.messenger.impl.entity.MessageEntity;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 
@@ -21,7 +24,7 @@ import com.google.common.collect.Sets;
 public class MessengerDataService
 {
     private static final int WIDENING_INTERVAL_SEC = 5;
-    private static final int MESSAGE_LIMIT_PER_PEER = 10;
+    private static final int MESSAGE_LIMIT_PER_PEER = 100;
 
     protected MessageDao messageDao;
 
@@ -76,6 +79,22 @@ public class MessengerDataService
     public void markAsSent( Envelope envelope )
     {
         messageDao.markAsSent( envelope.getMessage().getId().toString() );
+
+        envelope.setSent( true );
+    }
+
+
+    /**
+     * Marks a batch of envelopes as sent in one transaction
+     */
+    public void markAsSent( Collection<Envelope> envelopes )
+    {
+        messageDao.markAsSent( getMessageIds( envelopes ) );
+
+        for ( Envelope envelope : envelopes )
+        {
+            envelope.setSent( true );
+        }
     }
 
 
@@ -85,10 +104,34 @@ public class MessengerDataService
     }
 
 
+    /**
+     * Increments delivery attempts of a batch of envelopes in one transaction
+     */
+    public void incrementDeliveryAttempts( Collection<Envelope> envelopes )
+    {
+        messageDao.incrementDeliveryAttempts( getMessageIds( envelopes ) );
+    }
+
+
+    private List<String> getMessageIds( Collection<Envelope> envelopes )
+    {
+        List<String> messageIds = Lists.newArrayList();
+
+        for ( Envelope envelope : envelopes )
+        {
+            messageIds.add( envelope.getMessage().getId().toString() );
+        }
+
+        return messageIds;
+    }
+
+
     public void saveEnvelope( Envelope envelope )
     {
         MessageEntity messageEntity = new MessageEntity( envelope );
         messageDao.persist( messageEntity );
+
+        envelope.setCreateDate( new Timestamp( messageEntity.getCreateDate() ) );
     }
 
 
@@ -1,13 +1,16 @@
 package io.subutai.core.messenger.impl;
 
 
+import java.lang.reflect.Type;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
 
 import io.subutai.common.dao.DaoManager;
 import io.subutai.common.peer.Peer;
@@ -36,6 +40,9 @@ import io.subutai.core.peer.api.PeerManager;
 public class MessengerImpl implements Messenger, MessageProcessor
 {
     private static Logger LOG = LoggerFactory.getLogger( MessengerImpl.class.getName() );
+    private static final Type ENVELOPE_LIST_TYPE = new TypeToken<List<Envelope>>()
+    {
+    }.getType();
     protected final Set<MessageListener> listeners =
             Collections.newSetFromMap( new ConcurrentHashMap<MessageListener, Boolean>() );
     protected ExecutorService notificationExecutor = Executors.newCachedThreadPool();
@@ -92,8 +99,9 @@ public class MessengerImpl implements Messenger, MessageProcessor
 
 
     @Override
-    public void sendMessage( final Peer peer, final Message message, final String recipient, final int timeToLive,
-                             final Map<String, String> headers ) throws MessageException
+    public Future<MessageStatus> sendMessage( final Peer peer, final Message message, final String recipient,
+                                              final int timeToLive, final Map<String, String> headers )
+            throws MessageException
     {
         Preconditions.checkNotNull( peer, "Peer is null" );
         Preconditions.checkNotNull( message, "Message is null" );
@@ -105,6 +113,10 @@ public class MessengerImpl implements Messenger, MessageProcessor
             Envelope envelope = new Envelope( message, peer.getId(), recipient, timeToLive, headers );
 
             messengerDataService.saveEnvelope( envelope );
+
+            messageSender.enqueue( envelope );
+
+            return envelope.getStatus();
         }
         catch ( Exception e )
         {
@@ -166,6 +178,41 @@ public class MessengerImpl implements Messenger, MessageProcessor
     }
 
 
+    @Override
+    public void processMessages( String envelopesString ) throws MessageException
+    {
+        List<Envelope> envelopes;
+
+        try
+        {
+            envelopes = JsonUtil.fromJson( envelopesString, ENVELOPE_LIST_TYPE );
+        }
+        catch ( JsonSyntaxException e )
+        {
+            LOG.error( "Error in processMessages", e );
+            throw new MessageException( e );
+        }
+
+        if ( envelopes == null )
+        {
+            throw new MessageException( "Envelopes are missing" );
+        }
+
+        for ( Envelope envelope : envelopes )
+        {
+            try
+            {
+                notifyListeners( envelope );
+            }
+            catch ( NullPointerException e )
+            {
+                //skip malformed envelope, the rest of batch is still delivered
+                LOG.error( "Error in processMessages", e );
+            }
+        }
+    }
+
+
     protected void notifyListeners( Envelope envelope )
     {
         Message message = envelope.getMessage();
@@ -1,6 +1,9 @@
 package io.subutai.core.messenger.impl;
 
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 
@@ -11,6 +14,8 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.cxf.jaxrs.client.WebClient;
 
+import com.google.common.collect.Lists;
+
 import io.subutai.common.peer.Peer;
 import io.subutai.common.peer.PeerInfo;
 import io.subutai.common.security.WebClientBuilder;
@@ -18,12 +23,16 @@ import io.subutai.common.util.JsonUtil;
 
 
 /**
- * Delivers messages to a specific peer
+ * Delivers messages to a specific peer. Messages are shipped in batches bounded by count and size, peers which do
+ * not expose the batch endpoint get messages one by one
  */
 public class RemotePeerMessageSender implements Callable<Boolean>
 {
     private static final Logger LOG = LoggerFactory.getLogger( RemotePeerMessageSender.class.getName() );
 
+    static final int MAX_BATCH_SIZE = 100;
+    static final int MAX_BATCH_BYTES = 1024 * 1024;
+
     private Peer targetPeer;
     private Set<Envelope> envelopes;
 
@@ -40,12 +49,96 @@ public class RemotePeerMessageSender implements Callable<Boolean>
 
     @Override
     public Boolean call()
+    {
+        try
+        {
+            List<Envelope> pending = Lists.newArrayList( envelopes );
+
+            //single message goes via the regular endpoint, no need to wrap it
+            if ( pending.size() > 1 )
+            {
+                pending = sendBatches( pending );
+            }
+
+            if ( !pending.isEmpty() )
+            {
+                sendOneByOne( pending );
+            }
+
+            return true;
+        }
+        catch ( Exception e )
+        {
+            LOG.error( e.getMessage() );
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Sends envelopes in batches
+     *
+     * @return envelopes which must be sent one by one since target peer does not support batches
+     */
+    protected List<Envelope> sendBatches( List<Envelope> pending )
+    {
+        WebClient client = null;
+        try
+        {
+            client = getBatchWebClient( targetPeer.getPeerInfo() );
+
+            int offset = 0;
+
+            for ( Batch batch : split( pending ) )
+            {
+                Response response = null;
+                try
+                {
+                    response = client.post( batch.getBody() );
+
+                    if ( response != null && response.getStatus() == Response.Status.NOT_FOUND.getStatusCode() )
+                    {
+                        WebClientBuilder.close( response );
+
+                        LOG.debug( "Peer {} does not support batch delivery", targetPeer.getId() );
+
+                        return pending.subList( offset, pending.size() );
+                    }
+
+                    WebClientBuilder.checkResponse( response, Response.Status.ACCEPTED );
+
+                    messengerDataService.markAsSent( batch.envelopes );
+
+                    offset += batch.envelopes.size();
+                }
+                catch ( Exception e )
+                {
+                    messengerDataService.incrementDeliveryAttempts( batch.envelopes );
+
+                    LOG.error( "Error in RemotePeerMessageSender", e );
+
+                    //break transmission of all subsequent messages for this peer in this round
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            WebClientBuilder.close( client );
+        }
+
+        return Collections.emptyList();
+    }
+
+
+    protected void sendOneByOne( List<Envelope> pending )
     {
         WebClient client = null;
         try
         {
             client = getWebClient( targetPeer.getPeerInfo() );
-            for ( Envelope envelope : envelopes )
+            for ( Envelope envelope : pending )
             {
                 Response response = null;
                 try
@@ -66,18 +159,43 @@ public class RemotePeerMessageSender implements Callable<Boolean>
                     break;
                 }
             }
-            return true;
-        }
-        catch ( Exception e )
-        {
-            LOG.error( e.getMessage() );
         }
         finally
         {
             WebClientBuilder.close( client );
         }
+    }
 
-        return false;
+
+    /**
+     * Splits envelopes into batches preserving their order. Envelope exceeding the size limit alone forms its own batch
+     */
+    protected List<Batch> split( List<Envelope> pending )
+    {
+        List<Batch> batches = Lists.newArrayList();
+        Batch batch = new Batch();
+
+        for ( Envelope envelope : pending )
+        {
+            String json = JsonUtil.toJsonMinified( envelope );
+            int bytes = json.getBytes( StandardCharsets.UTF_8 ).length;
+
+            if ( !batch.envelopes.isEmpty() && ( batch.envelopes.size() >= MAX_BATCH_SIZE
+                    || batch.bytes + bytes > MAX_BATCH_BYTES ) )
+            {
+                batches.add( batch );
+                batch = new Batch();
+            }
+
+            batch.add( envelope, json, bytes );
+        }
+
+        if ( !batch.envelopes.isEmpty() )
+        {
+            batches.add( batch );
+        }
+
+        return batches;
     }
 
 
@@ -85,4 +203,43 @@ public class RemotePeerMessageSender implements Callable<Boolean>
     {
         return WebClientBuilder.buildPeerWebClient( peerInfo, "/messenger/message" );
     }
+
+
+    protected WebClient getBatchWebClient( PeerInfo peerInfo )
+    {
+        return WebClientBuilder.buildPeerWebClient( peerInfo, "/messenger/messages" );
+    }
+
+
+    static class Batch
+    {
+        private final List<Envelope> envelopes = Lists.newArrayList();
+        private final StringBuilder body = new StringBuilder( "[" );
+        private int bytes;
+
+
+        private void add( Envelope envelope, String json, int jsonBytes )
+        {
+            if ( !envelopes.isEmpty() )
+            {
+                body.append( ',' );
+            }
+
+            body.append( json );
+            envelopes.add( envelope );
+            bytes += jsonBytes;
+        }
+
+
+        List<Envelope> getEnvelopes()
+        {
+            return envelopes;
+        }
+
+
+        String getBody()
+        {
+            return body.toString() + "]";
+        }
+    }
 }
@@ -313,4 +313,68 @@ public class MessageDao implements DataService<String, MessageEntity>
             em.close();
         }
     }
+
+
+    public void markAsSent( final Collection<String> messageIds )
+    {
+        if ( messageIds.isEmpty() )
+        {
+            return;
+        }
+
+        EntityManager em = emf.createEntityManager();
+        try
+        {
+            em.getTransaction().begin();
+            Query query = em.createQuery( "update MessageEntity e set e.isSent = true where e.id in :ids" )
+                            .setParameter( "ids", messageIds );
+
+            query.executeUpdate();
+            em.getTransaction().commit();
+        }
+        catch ( Exception e )
+        {
+            LOG.error( e.toString(), e );
+            if ( em.getTransaction().isActive() )
+            {
+                em.getTransaction().rollback();
+            }
+        }
+        finally
+        {
+            em.close();
+        }
+    }
+
+
+    public void incrementDeliveryAttempts( final Collection<String> messageIds )
+    {
+        if ( messageIds.isEmpty() )
+        {
+            return;
+        }
+
+        EntityManager em = emf.createEntityManager();
+        try
+        {
+            em.getTransaction().begin();
+            Query query = em.createQuery( "update MessageEntity e set e.attempts = e.attempts + 1 where e.id in :ids" )
+                            .setParameter( "ids", messageIds );
+
+            query.executeUpdate();
+            em.getTransaction().commit();
+        }
+        catch ( Exception e )
+        {
+            LOG.error( e.toString(), e );
+            if ( em.getTransaction().isActive() )
+            {
+                em.getTransaction().rollback();
+            }
+        }
+        finally
+        {
+            em.close();
+        }
+    }
 }
@@ -11,6 +11,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import io.subutai.core.messenger.api.MessageStatus;
 import io.subutai.core.messenger.impl.Envelope;
 import io.subutai.core.messenger.impl.MessageImpl;
 import io.subutai.core.messenger.impl.entity.MessageEntity;
@@ -141,4 +142,21 @@ public class EnvelopeTest
 
         TestCase.assertEquals( envelope.getCreateDate(), new Timestamp( ts ) );
     }
+
+
+    @Test
+    public void testStatus() throws Exception
+    {
+        assertFalse( envelope.getStatus().isDone() );
+
+        envelope.setSent( true );
+
+        assertEquals( MessageStatus.SENT, envelope.getStatus().get() );
+
+        Envelope expiredEnvelope = new Envelope( message, TARGET_PEER_ID, RECIPIENT, TIME_TO_LIVE, HEADERS );
+
+        expiredEnvelope.setExpired();
+
+        assertEquals( MessageStatus.EXPIRED, expiredEnvelope.getStatus().get() );
+    }
 }
@@ -2,6 +2,7 @@ package io.subutai.core.messenger.impl;
 
 
 import java.io.PrintStream;
+import java.util.Collections;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -14,6 +15,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import com.google.common.collect.Lists;
+
 import io.subutai.core.messenger.impl.dao.MessageDao;
 import io.subutai.core.messenger.impl.entity.MessageEntity;
 
@@ -22,6 +25,7 @@ import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -233,4 +237,41 @@ public class MessageDaoTest
 
         verifyException();
     }
+
+
+    @Test
+    public void testMarkAsSentBatch() throws Exception
+    {
+        messageDao.markAsSent( Collections.<String>emptyList() );
+
+        verify( entityManager, never() ).createQuery( anyString() );
+
+        messageDao.markAsSent( Lists.newArrayList( ID, ID ) );
+
+        verify( entityManager ).createQuery( anyString() );
+        verify( transaction ).commit();
+
+
+        throwException();
+
+        messageDao.markAsSent( Lists.newArrayList( ID ) );
+
+        verifyException();
+    }
+
+
+    @Test
+    public void testIncrementDeliveryAttemptsBatch() throws Exception
+    {
+        messageDao.incrementDeliveryAttempts( Lists.newArrayList( ID, ID ) );
+
+        verify( entityManager ).createQuery( anyString() );
+
+
+        throwException();
+
+        messageDao.incrementDeliveryAttempts( Lists.newArrayList( ID ) );
+
+        verifyException();
+    }
 }
@@ -2,10 +2,10 @@ package io.subutai.core.messenger.impl;
 
 
 import java.sql.Timestamp;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.CompletionService;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -13,20 +13,31 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
 
-import io.subutai.common.peer.LocalPeer;
 import io.subutai.common.peer.Peer;
-import io.subutai.common.peer.PeerInfo;
+import io.subutai.common.peer.PeerException;
+import io.subutai.core.messenger.api.Message;
 import io.subutai.core.peer.api.PeerManager;
 
-import static org.mockito.Matchers.anyString;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,7 +47,6 @@ public class MessageSenderTest
 {
     private static final String TARGET_PEER_ID = UUID.randomUUID().toString();
     private static final int TIME_TO_LIVE = 5;
-    private static final Timestamp CREATE_DATE = new Timestamp( System.currentTimeMillis() );
     @Mock
     PeerManager peerManager;
     @Mock
@@ -50,17 +60,13 @@ public class MessageSenderTest
     @Mock
     Envelope envelope;
     @Mock
-    Peer peer;
+    Message message;
     @Mock
-    LocalPeer localPeer;
+    Peer peer;
     @Mock
     Logger logger;
     @Mock
-    PeerInfo peerInfo;
-    @Mock
-    CompletionService completer;
-    @Mock
-    Future future;
+    Callable<Boolean> sender;
 
     MessageSender messageSender;
 
@@ -72,7 +78,26 @@ public class MessageSenderTest
         messageSender.mainLoopExecutor = mainLoopExecutor;
         messageSender.restExecutor = restExecutor;
         messageSender.LOG = logger;
-        messageSender.completer = completer;
+
+        when( envelope.getMessage() ).thenReturn( message );
+        when( message.getId() ).thenReturn( UUID.randomUUID() );
+        when( envelope.getTargetPeerId() ).thenReturn( TARGET_PEER_ID );
+        when( envelope.getTimeToLive() ).thenReturn( TIME_TO_LIVE );
+        when( envelope.getCreateDate() ).thenReturn( new Timestamp( System.currentTimeMillis() ) );
+        when( messenger.getPeerManager() ).thenReturn( peerManager );
+        when( peerManager.getPeer( TARGET_PEER_ID ) ).thenReturn( peer );
+    }
+
+
+    private MessageSender createDirectSender()
+    {
+        messageSender.restExecutor = MoreExecutors.sameThreadExecutor();
+
+        MessageSender directSender = spy( messageSender );
+
+        doReturn( sender ).when( directSender ).createSender( any( Peer.class ), anySetOf( Envelope.class ) );
+
+        return directSender;
     }
 
 
@@ -82,7 +107,7 @@ public class MessageSenderTest
         messageSender.init();
 
         verify( mainLoopExecutor ).scheduleWithFixedDelay( isA( Runnable.class ), eq( 0L ),
-                eq( ( long ) MessageSender.SLEEP_BETWEEN_ITERATIONS_SEC ), eq( TimeUnit.SECONDS ) );
+                eq( ( long ) MessageSender.SWEEP_INTERVAL_SEC ), eq( TimeUnit.SECONDS ) );
     }
 
 
@@ -106,36 +131,147 @@ public class MessageSenderTest
 
 
     @Test
-    public void testDeliverMessages() throws Exception
+    public void testEnqueue() throws Exception
+    {
+        messageSender.enqueue( envelope );
+        messageSender.enqueue( envelope );
+
+        verify( restExecutor ).execute( isA( MessageSender.PeerQueue.class ) );
+
+        MessageSender.PeerQueue peerQueue = messageSender.getPeerQueue( TARGET_PEER_ID );
+
+        assertEquals( 1, peerQueue.size() );
+        assertTrue( peerQueue.isActive() );
+    }
+
+
+    @Test
+    public void testLoadUndeliveredMessages() throws Exception
     {
         when( messengerDataService.getEnvelopes() ).thenReturn( Sets.newHashSet( envelope ) );
-        when( envelope.getTimeToLive() ).thenReturn( TIME_TO_LIVE );
-        when( envelope.getTargetPeerId() ).thenReturn( TARGET_PEER_ID );
-        when( envelope.getCreateDate() ).thenReturn( CREATE_DATE );
-        when( peerManager.getPeer( TARGET_PEER_ID ) ).thenReturn( peer );
-        when( peer.getId() ).thenReturn( TARGET_PEER_ID );
-        when( peerManager.getLocalPeer() ).thenReturn( localPeer );
-//        when( peerManager.getLocalPeerInfo() ).thenReturn( peerInfo );
-        when( peerInfo.getId() ).thenReturn( UUID.randomUUID().toString() );
-        when( localPeer.isLocal() ).thenReturn( false );
-        when( localPeer.getId() ).thenReturn( UUID.randomUUID().toString() );
-        when( completer.take() ).thenReturn( future );
-        when( messenger.getPeerManager() ).thenReturn( peerManager );
 
-        messageSender.deliverMessages();
+        messageSender.loadUndeliveredMessages();
+
+        verify( restExecutor ).execute( isA( MessageSender.PeerQueue.class ) );
+    }
+
+
+    @Test
+    public void testDeliverMessages() throws Exception
+    {
+        MessageSender directSender = createDirectSender();
+        when( envelope.isSent() ).thenReturn( true );
+
+        directSender.enqueue( envelope );
+
+        verify( sender ).call();
+
+        MessageSender.PeerQueue peerQueue = directSender.getPeerQueue( TARGET_PEER_ID );
+
+        assertEquals( 0, peerQueue.size() );
+        assertFalse( peerQueue.isActive() );
+    }
 
-        verify( completer ).submit( isA( RemotePeerMessageSender.class ) );
+
+    @Test
+    public void testDeliverMessagesRetry() throws Exception
+    {
+        MessageSender directSender = createDirectSender();
+        when( envelope.isSent() ).thenReturn( false );
+
+        directSender.enqueue( envelope );
+
+        verify( mainLoopExecutor )
+                .schedule( isA( Runnable.class ), eq( MessageSender.MIN_RETRY_DELAY_MS ), eq( TimeUnit.MILLISECONDS ) );
+
+        MessageSender.PeerQueue peerQueue = directSender.getPeerQueue( TARGET_PEER_ID );
+
+        assertEquals( 1, peerQueue.size() );
+        assertTrue( peerQueue.isActive() );
+
+        //new envelopes wait for the backoff to elapse
+        Envelope envelope2 = createEnvelope();
+
+        directSender.enqueue( envelope2 );
+
+        verify( sender, times( 1 ) ).call();
+        assertEquals( 2, peerQueue.size() );
+    }
+
+
+    @Test
+    public void testDeliverExpiredMessages() throws Exception
+    {
+        MessageSender directSender = createDirectSender();
+        when( envelope.getCreateDate() )
+                .thenReturn( new Timestamp( System.currentTimeMillis() - ( TIME_TO_LIVE + 1 ) * 1000L ) );
+
+        directSender.enqueue( envelope );
+
+        verify( sender, never() ).call();
+        assertEquals( 0, directSender.getPeerQueue( TARGET_PEER_ID ).size() );
+    }
+
+
+    @Test
+    public void testDropQueueOfRemovedPeer() throws Exception
+    {
+        MessageSender directSender = createDirectSender();
+        when( peerManager.getPeer( TARGET_PEER_ID ) ).thenThrow( new PeerException( "Peer not found" ) );
+
+        directSender.enqueue( envelope );
+
+        verify( sender, never() ).call();
+        verify( mainLoopExecutor, never() )
+                .schedule( isA( Runnable.class ), anyLong(), any( TimeUnit.class ) );
+        assertFalse( directSender.peerQueues.containsKey( TARGET_PEER_ID ) );
+    }
+
+
+    @Test
+    public void testSkipEnvelopesDeliveredDuringSweep() throws Exception
+    {
+        final MessageSender directSender = createDirectSender();
+        when( envelope.isSent() ).thenReturn( true );
+        when( messengerDataService.getEnvelopes() ).thenAnswer( new Answer<Set<Envelope>>()
+        {
+            @Override
+            public Set<Envelope> answer( final InvocationOnMock invocation ) throws Throwable
+            {
+                //envelope gets delivered after the snapshot is read
+                directSender.enqueue( envelope );
+
+                return Sets.newHashSet( envelope );
+            }
+        } );
+
+        directSender.loadUndeliveredMessages();
+
+        verify( sender, times( 1 ) ).call();
+        assertEquals( 0, directSender.getPeerQueue( TARGET_PEER_ID ).size() );
+    }
+
+
+    @Test
+    public void testCreateSender() throws Exception
+    {
+        Set<Envelope> envelopes = Sets.newHashSet( envelope );
+
+        assertTrue( messageSender.createSender( peer, envelopes ) instanceof RemotePeerMessageSender );
 
         when( peer.isLocal() ).thenReturn( true );
 
-        messageSender.deliverMessages();
+        assertTrue( messageSender.createSender( peer, envelopes ) instanceof LocalPeerMessageSender );
+    }
 
-        verify( completer ).submit( isA( LocalPeerMessageSender.class ) );
 
-        doThrow( new InterruptedException() ).when( completer ).take();
+    private Envelope createEnvelope()
+    {
+        Envelope envelope2 = new Envelope( new MessageImpl( TARGET_PEER_ID, "payload" ), TARGET_PEER_ID, "recipient",
+                TIME_TO_LIVE, null );
 
-        messageSender.deliverMessages();
+        envelope2.setCreateDate( new Timestamp( System.currentTimeMillis() ) );
 
-        verify( logger ).warn( anyString(), isA( InterruptedException.class ) );
+        return envelope2;
     }
 }
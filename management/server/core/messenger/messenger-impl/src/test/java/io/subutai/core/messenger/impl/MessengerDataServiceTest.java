@@ -2,6 +2,7 @@ package io.subutai.core.messenger.impl;
 
 
 import java.sql.Timestamp;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -16,6 +17,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 import io.subutai.core.messenger.impl.dao.MessageDao;
 import io.subutai.core.messenger.impl.entity.MessageEntity;
@@ -124,6 +126,21 @@ public class MessengerDataServiceTest
     }
 
 
+    @Test
+    public void testBatchUpdates() throws Exception
+    {
+        List<String> ids = Lists.newArrayList( envelope.getMessage().getId().toString() );
+
+        messengerDataService.markAsSent( Sets.newHashSet( envelope ) );
+
+        verify( messageDao ).markAsSent( ids );
+
+        messengerDataService.incrementDeliveryAttempts( Sets.newHashSet( envelope ) );
+
+        verify( messageDao ).incrementDeliveryAttempts( ids );
+    }
+
+
     @Test
     public void testSaveEnvelope() throws Exception
     {
@@ -15,6 +15,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import io.subutai.common.dao.DaoManager;
@@ -37,6 +38,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -119,6 +121,7 @@ public class MessengerImplTest
         messenger.sendMessage( localPeer, message, RECIPIENT, TIME_TO_LIVE, HEADERS );
 
         verify( messengerDataService ).saveEnvelope( isA( Envelope.class ) );
+        verify( messageSender ).enqueue( isA( Envelope.class ) );
 
         doThrow( new RuntimeException() ).when( messengerDataService ).saveEnvelope( any( Envelope.class ) );
 
@@ -213,4 +216,35 @@ public class MessengerImplTest
         {
         }
     }
+
+
+    @Test
+    public void testProcessMessages() throws Exception
+    {
+        Envelope envelope =
+                new Envelope( new MessageImpl( LOCAL_PEER_ID, PAYLOAD ), LOCAL_PEER_ID, RECIPIENT, TIME_TO_LIVE,
+                        HEADERS );
+        Envelope envelope2 =
+                new Envelope( new MessageImpl( LOCAL_PEER_ID, PAYLOAD ), LOCAL_PEER_ID, RECIPIENT, TIME_TO_LIVE,
+                        HEADERS );
+        MessageListener listener = mock( MessageListener.class );
+        messenger.addMessageListener( listener );
+        when( listener.getRecipient() ).thenReturn( RECIPIENT );
+
+
+        messenger.processMessages( JsonUtil.toJson( Lists.newArrayList( envelope, envelope2 ) ) );
+
+        verify( notificationExecutor, times( 2 ) ).execute( isA( MessageNotifier.class ) );
+
+
+        //test exception
+        try
+        {
+            messenger.processMessages( null );
+            fail( "Expected message exception" );
+        }
+        catch ( MessageException e )
+        {
+        }
+    }
 }
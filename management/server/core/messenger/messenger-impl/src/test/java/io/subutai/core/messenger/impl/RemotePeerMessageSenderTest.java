@@ -1,7 +1,11 @@
 package io.subutai.core.messenger.impl;
 
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import javax.ws.rs.core.Response;
@@ -14,17 +18,22 @@ import org.mockito.runners.MockitoJUnitRunner;
 
 import org.apache.cxf.jaxrs.client.WebClient;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import io.subutai.common.peer.Peer;
 import io.subutai.common.peer.PeerInfo;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -54,6 +63,10 @@ public class RemotePeerMessageSenderTest
     WebClient webClient;
     @Mock
     Response response;
+    @Mock
+    WebClient batchWebClient;
+    @Mock
+    Response batchResponse;
 
 
     RemotePeerMessageSender remotePeerMessageSender;
@@ -74,6 +87,28 @@ public class RemotePeerMessageSenderTest
         when( peer.getPeerInfo() ).thenReturn( peerInfo );
         when( peerInfo.getIp() ).thenReturn( IP );
         doReturn( webClient ).when( remotePeerMessageSender ).getWebClient( any( PeerInfo.class ) );
+        doReturn( batchWebClient ).when( remotePeerMessageSender ).getBatchWebClient( any( PeerInfo.class ) );
+    }
+
+
+    private RemotePeerMessageSender createBatchSender( Envelope... envelopes )
+    {
+        Set<Envelope> envelopeSet = new LinkedHashSet<>( Arrays.asList( envelopes ) );
+
+        RemotePeerMessageSender sender =
+                spy( new RemotePeerMessageSender( messengerDataService, peer, envelopeSet ) );
+
+        doReturn( webClient ).when( sender ).getWebClient( any( PeerInfo.class ) );
+        doReturn( batchWebClient ).when( sender ).getBatchWebClient( any( PeerInfo.class ) );
+
+        return sender;
+    }
+
+
+    private Envelope createEnvelope()
+    {
+        return new Envelope( new MessageImpl( SOURCE_PEER_ID, PAYLOAD ), TARGET_PEER_ID, RECIPIENT, TIME_TO_LIVE,
+                HEADERS );
     }
 
 
@@ -99,4 +134,73 @@ public class RemotePeerMessageSenderTest
 
         verify( messengerDataService ).incrementDeliveryAttempts( envelope );
     }
+
+
+    @Test
+    public void testCallBatch() throws Exception
+    {
+        Envelope envelope2 = createEnvelope();
+        RemotePeerMessageSender sender = createBatchSender( envelope, envelope2 );
+        doReturn( batchResponse ).when( batchWebClient ).post( anyString() );
+        doReturn( Response.Status.ACCEPTED.getStatusCode() ).when( batchResponse ).getStatus();
+
+        sender.call();
+
+        verify( batchWebClient ).post( anyString() );
+        verify( webClient, never() ).post( anyString() );
+        verify( messengerDataService ).markAsSent( Lists.newArrayList( envelope, envelope2 ) );
+    }
+
+
+    @Test
+    public void testCallBatchException() throws Exception
+    {
+        Envelope envelope2 = createEnvelope();
+        RemotePeerMessageSender sender = createBatchSender( envelope, envelope2 );
+        doThrow( new RuntimeException() ).when( batchWebClient ).post( anyString() );
+
+        sender.call();
+
+        verify( messengerDataService ).incrementDeliveryAttempts( Lists.newArrayList( envelope, envelope2 ) );
+        verify( webClient, never() ).post( anyString() );
+    }
+
+
+    @Test
+    public void testCallBatchNotSupported() throws Exception
+    {
+        Envelope envelope2 = createEnvelope();
+        RemotePeerMessageSender sender = createBatchSender( envelope, envelope2 );
+        doReturn( batchResponse ).when( batchWebClient ).post( anyString() );
+        doReturn( Response.Status.NOT_FOUND.getStatusCode() ).when( batchResponse ).getStatus();
+        doReturn( response ).when( webClient ).post( anyString() );
+        doReturn( Response.Status.ACCEPTED.getStatusCode() ).when( response ).getStatus();
+
+        sender.call();
+
+        verify( webClient, times( 2 ) ).post( anyString() );
+        verify( messengerDataService ).markAsSent( envelope );
+        verify( messengerDataService ).markAsSent( envelope2 );
+    }
+
+
+    @Test
+    public void testSplit() throws Exception
+    {
+        List<Envelope> envelopes = Lists.newArrayList();
+
+        for ( int i = 0; i < RemotePeerMessageSender.MAX_BATCH_SIZE + 1; i++ )
+        {
+            envelopes.add( createEnvelope() );
+        }
+
+        List<RemotePeerMessageSender.Batch> batches = remotePeerMessageSender.split( envelopes );
+
+        assertEquals( 2, batches.size() );
+        assertEquals( envelopes.subList( 0, RemotePeerMessageSender.MAX_BATCH_SIZE ),
+                batches.get( 0 ).getEnvelopes() );
+        assertEquals( 1, batches.get( 1 ).getEnvelopes().size() );
+        assertTrue( batches.get( 1 ).getBody().startsWith( "[" ) );
+        assertTrue( batches.get( 1 ).getBody().endsWith( "]" ) );
+    }
 }
@@ -57,4 +57,19 @@ public class RestServiceImplTest
 
         assertEquals( Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), response.getStatus() );
     }
+
+
+    @Test
+    public void testProcessMessages() throws Exception
+    {
+        Response response = restService.processMessages( "[]" );
+
+        assertEquals( Response.Status.ACCEPTED.getStatusCode(), response.getStatus() );
+
+        doThrow( new MessageException( "" ) ).when( messageProcessor ).processMessages( anyString() );
+
+        response = restService.processMessages( "" );
+
+        assertEquals( Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(), response.getStatus() );
+    }
 }
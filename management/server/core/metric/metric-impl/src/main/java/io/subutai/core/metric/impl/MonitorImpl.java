@@ -1,6 +1,7 @@
 package io.subutai.core.metric.impl;
 
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -508,8 +509,20 @@ public class MonitorImpl extends HostListener implements Monitor
 
             if ( null != commandResult && commandResult.hasSucceeded() )
             {
-                LOG.debug( "OBTAINED METRIC: \n {}", commandResult.getStdOut() );
-                result = mapper.readValue( commandResult.getStdOut(), HistoricalMetrics.class );
+                //parse output as stream, metrics of a long period can be large
+                InputStream metrics = commandResult.openStdOut();
+
+                try
+                {
+                    result = mapper.readValue( metrics, HistoricalMetrics.class );
+                }
+                finally
+                {
+                    metrics.close();
+
+                    commandResult.close();
+                }
+
                 result.setStartTime( startTime );
                 result.setEndTime( endTime );
             }
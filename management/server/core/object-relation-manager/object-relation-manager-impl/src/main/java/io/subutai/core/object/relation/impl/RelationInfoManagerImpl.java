@@ -31,9 +31,9 @@ import io.subutai.core.identity.api.IdentityManager;
 import io.subutai.core.identity.api.model.User;
 import io.subutai.core.identity.api.model.UserDelegate;
 import io.subutai.core.object.relation.impl.dao.RelationDataService;
+import io.subutai.core.object.relation.impl.dao.RelationGraph;
 import io.subutai.core.object.relation.impl.model.RelationChallengeImpl;
 import io.subutai.core.object.relation.impl.model.RelationInfoImpl;
-import io.subutai.core.object.relation.impl.model.RelationLinkImpl;
 import io.subutai.core.security.api.SecurityManager;
 import io.subutai.core.security.api.crypto.EncryptionTool;
 import io.subutai.core.security.api.crypto.KeyManager;
@@ -179,23 +179,26 @@ public class RelationInfoManagerImpl implements RelationInfoManager
 
 
     // return -3 means no relation exist
-    private int getDeeper( final RelationInfo relationInfo, final RelationLink target, final RelationLink object,
-                           Set<RelationLink> relationLinks )
+    private int getDeeper( final RelationGraph relationGraph, final RelationInfo relationInfo,
+                           final Ownership ownership, final RelationLink target, final RelationLink object,
+                           Set<String> relationLinks )
     {
 
-        List<Relation> byTargetRelations = relationDataService.findByTarget( target );
-        relationLinks.add( target );
+        List<RelationGraph.Edge> byTargetRelations = relationGraph.getByTarget( target );
+        relationLinks.add( target.getUniqueIdentifier() );
         // When relation info is found check that relation was granted from verified source
-        for ( final Relation targetRelation : byTargetRelations )
+        for ( final RelationGraph.Edge targetRelation : byTargetRelations )
         {
-            int compare = compareRelationships( targetRelation.getRelationInfo(), relationInfo );
-            if ( targetRelation.getTrustedObject().equals( object ) )
+            int compare = compareRelationships( targetRelation, relationInfo, ownership );
+            if ( targetRelation.isTrustedObject( object ) )
             {
                 return compare;
             }
-            if ( compare >= 0 && !relationLinks.contains( targetRelation.getTrustedObject() ) )
+            RelationLink trustedObject = targetRelation.getTrustedObject();
+            if ( compare >= 0 && !relationLinks.contains( trustedObject.getUniqueIdentifier() ) )
             {
-                int result = getDeeper( relationInfo, targetRelation.getTrustedObject(), object, relationLinks );
+                int result = getDeeper( relationGraph, relationInfo, ownership, trustedObject, object,
+                        relationLinks );
                 if ( result != -3 )
                 {
                     return result;
@@ -211,27 +214,27 @@ public class RelationInfoManagerImpl implements RelationInfoManager
      * Compare relationship depending on each relationship property, if relation ownership level differs then this
      * relation is not comparable, other properties simply should match, and data should come in key=value format 1 - a
      * is greater 0 - equal -1 - a is less -2 - incomparable TODO extract this method into RelationInfo.equals (PS.
-     * dynamic comparison will be possible)
+     * dynamic comparison will be possible). Ownership of granted relation is taken from relation graph and ownership
+     * of requested relation is parsed once per check
      */
-    private int compareRelationships( RelationInfo a, RelationInfo b )
+    private int compareRelationships( RelationGraph.Edge a, RelationInfo b, Ownership ownB )
     {
         int ownership = 0;
 
         // This relation comparison logic can be taken out by interface means so that client could implement his own
         // comparison mechanism
-        if ( a.getRelationTraits() != null && b.getRelationTraits() != null )
+        if ( a.getTraits() != null && b.getRelationTraits() != null )
         {
             for ( final Map.Entry<String, String> entry : b.getRelationTraits().entrySet() )
             {
                 String keyB = entry.getKey();
 
                 String valueB = entry.getValue();
-                String valueA = a.getRelationTraits().get( keyB );
+                String valueA = a.getTraits().get( keyB );
 
-                if ( "ownership".equals( keyB ) )
+                if ( RelationGraph.OWNERSHIP_TRAIT.equals( keyB ) )
                 {
-                    Ownership ownA = Ownership.getByName( valueA );
-                    Ownership ownB = Ownership.getByName( valueB );
+                    Ownership ownA = a.getOwnership();
                     if ( ownA.getLevel() > ownB.getLevel() )
                     {
                         ownership = 1;
@@ -324,27 +327,39 @@ public class RelationInfoManagerImpl implements RelationInfoManager
             decryptAndVerifyChallenge( encodedToken, source.getKeyId() );
         }
 
-        Set<RelationLink> relationLinks = Sets.newHashSet();
+        RelationGraph relationGraph;
+        try
+        {
+            relationGraph = relationDataService.getRelationGraph();
+        }
+        catch ( RuntimeException e )
+        {
+            logger.error( "Failed to read relations", e );
+            throw new RelationVerificationException( "Failed to read relations", e );
+        }
+
+        Set<String> relationLinks = Sets.newHashSet();
         RelationInfo relationInfo = new RelationInfoImpl( relationInfoMeta );
+        Ownership ownership = Ownership.getByName( relationInfo.getRelationTraits() == null ? null :
+                                                   relationInfo.getRelationTraits()
+                                                               .get( RelationGraph.OWNERSHIP_TRAIT ) );
 
-        RelationLinkImpl target = new RelationLinkImpl( source );
-        List<Relation> byTargetRelations = relationDataService.findByTarget( target );
+        List<RelationGraph.Edge> byTargetRelations = relationGraph.getByTarget( source );
 
-        RelationLinkImpl object = new RelationLinkImpl( targetObject );
-        List<Relation> bySourceRelations = relationDataService.findBySource( target );
+        List<RelationGraph.Edge> bySourceRelations = relationGraph.getBySource( source );
 
         // When relation info is found check that relation was granted from verified source
-        for ( final Relation targetRelation : byTargetRelations )
+        for ( final RelationGraph.Edge targetRelation : byTargetRelations )
         {
-            if ( targetRelation.getRelationStatus() == RelationStatus.STATED && Strings.isNullOrEmpty( encodedToken ) )
+            if ( targetRelation.getStatus() == RelationStatus.STATED && Strings.isNullOrEmpty( encodedToken ) )
             {
                 logger.error( "You should pass relation token challenge first." );
                 throw new RelationVerificationException( "You should pass relation token challenge first." );
             }
-            if ( targetRelation.getTrustedObject().equals( object ) )
+            if ( targetRelation.isTrustedObject( targetObject ) )
             {
                 // Requested relation should be less then or equal to relation that was granted
-                if ( compareRelationships( targetRelation.getRelationInfo(), relationInfo ) >= 0 )
+                if ( compareRelationships( targetRelation, relationInfo, ownership ) >= 0 )
                 {
                     return;
                 }
@@ -354,7 +369,8 @@ public class RelationInfoManagerImpl implements RelationInfoManager
                     throw new RelationVerificationException( "Your relation has insufficient permissions." );
                 }
             }
-            int result = getDeeper( relationInfo, targetRelation.getTrustedObject(), object, relationLinks );
+            int result = getDeeper( relationGraph, relationInfo, ownership, targetRelation.getTrustedObject(),
+                    targetObject, relationLinks );
             if ( result != -3 )
             {
                 if ( result >= 0 )
@@ -374,17 +390,17 @@ public class RelationInfoManagerImpl implements RelationInfoManager
         // relationship verification should be done at transitional point between relation links, checks should be
         // applied towards granting link, such as: does this granting link has permissions to set new relation link
         // and new relation link doesn't exceed relation link grantee has
-        for ( final Relation sourceRelation : bySourceRelations )
+        for ( final RelationGraph.Edge sourceRelation : bySourceRelations )
         {
-            if ( sourceRelation.getRelationStatus() == RelationStatus.STATED && Strings.isNullOrEmpty( encodedToken ) )
+            if ( sourceRelation.getStatus() == RelationStatus.STATED && Strings.isNullOrEmpty( encodedToken ) )
             {
                 logger.error( "You should pass relation token challenge first." );
                 throw new RelationVerificationException( "You should pass relation token challenge first." );
             }
-            if ( sourceRelation.getTrustedObject().equals( object ) )
+            if ( sourceRelation.isTrustedObject( targetObject ) )
             {
                 // Requested relation should be less then or equal to relation that was granted
-                if ( compareRelationships( sourceRelation.getRelationInfo(), relationInfo ) >= 0 )
+                if ( compareRelationships( sourceRelation, relationInfo, ownership ) >= 0 )
                 {
                     return;
                 }
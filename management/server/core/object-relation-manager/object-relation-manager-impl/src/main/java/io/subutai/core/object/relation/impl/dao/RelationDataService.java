@@ -27,6 +27,7 @@ public class RelationDataService
 {
     private static final Logger logger = LoggerFactory.getLogger( RelationDataService.class );
     private DaoManager daoManager = null;
+    private final RelationGraph relationGraph = new RelationGraph();
 
 
     public RelationDataService( final DaoManager daoManager )
@@ -44,6 +45,8 @@ public class RelationDataService
             daoManager.startTransaction( em );
             em.persist( relationLink );
             daoManager.commitTransaction( em );
+
+            putToGraph( relationLink );
         }
         catch ( Exception ex )
         {
@@ -64,8 +67,10 @@ public class RelationDataService
         try
         {
             daoManager.startTransaction( em );
-            em.merge( relationLink );
+            Object merged = em.merge( relationLink );
             daoManager.commitTransaction( em );
+
+            putToGraph( merged );
         }
         catch ( Exception ex )
         {
@@ -88,12 +93,19 @@ public class RelationDataService
         {
             daoManager.startTransaction( em );
 
+            List<Object> merged = Lists.newArrayList();
+
             for ( Object relationLink : relationLinks )
             {
-                em.merge( relationLink );
+                merged.add( em.merge( relationLink ) );
             }
 
             daoManager.commitTransaction( em );
+
+            for ( Object relationLink : merged )
+            {
+                putToGraph( relationLink );
+            }
         }
         catch ( Exception ex )
         {
@@ -122,6 +134,11 @@ public class RelationDataService
             }
 
             daoManager.commitTransaction( em );
+
+            for ( Object relationLink : relationLinks )
+            {
+                putToGraph( relationLink );
+            }
         }
         catch ( Exception ex )
         {
@@ -149,6 +166,8 @@ public class RelationDataService
             qr.executeUpdate();
 
             daoManager.commitTransaction( em );
+
+            relationGraph.remove( trustRelationId );
         }
         catch ( Exception ex )
         {
@@ -179,6 +198,8 @@ public class RelationDataService
             qr.executeUpdate();
 
             daoManager.commitTransaction( em );
+
+            relationGraph.removeLink( link.getUniqueIdentifier() );
         }
         catch ( Exception ex )
         {
@@ -191,6 +212,33 @@ public class RelationDataService
     }
 
 
+    /**
+     * Returns in-memory graph of all relations, loading it on first use. Failure to read relations is propagated
+     * rather than leaving an empty graph behind
+     */
+    public RelationGraph getRelationGraph()
+    {
+        while ( !relationGraph.isLoaded() )
+        {
+            //relations changed while being read are read again
+            long version = relationGraph.getVersion();
+
+            relationGraph.load( readAllRelations(), version );
+        }
+
+        return relationGraph;
+    }
+
+
+    private void putToGraph( Object object )
+    {
+        if ( object instanceof Relation )
+        {
+            relationGraph.put( ( Relation ) object );
+        }
+    }
+
+
     public RelationImpl find( long trustRelationId )
     {
         EntityManager em = daoManager.getEntityManagerFactory().createEntityManager();
@@ -283,22 +331,31 @@ public class RelationDataService
 
     public List<Relation> getAllRelations()
     {
-        EntityManager em = daoManager.getEntityManagerFactory().createEntityManager();
         List<Relation> result = Lists.newArrayList();
         try
         {
-            Query qr = em.createQuery( "SELECT ss FROM RelationImpl AS ss ORDER BY ss.relationStatus DESC" );
-            result.addAll( qr.getResultList() );
+            result.addAll( readAllRelations() );
         }
         catch ( Exception ex )
         {
             logger.warn( "Error querying for trust relation.", ex );
         }
+        return result;
+    }
+
+
+    private List<Relation> readAllRelations()
+    {
+        EntityManager em = daoManager.getEntityManagerFactory().createEntityManager();
+        try
+        {
+            Query qr = em.createQuery( "SELECT ss FROM RelationImpl AS ss ORDER BY ss.relationStatus DESC" );
+            return Lists.newArrayList( ( List<Relation> ) qr.getResultList() );
+        }
         finally
         {
             daoManager.closeEntityManager( em );
         }
-        return result;
     }
 
 
@@ -0,0 +1,314 @@
+package io.subutai.core.object.relation.impl.dao;
+
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+
+import io.subutai.common.security.objects.Ownership;
+import io.subutai.common.security.relation.RelationLink;
+import io.subutai.common.security.relation.model.Relation;
+import io.subutai.common.security.relation.model.RelationStatus;
+
+
+/**
+ * In-memory copy of relations indexed by unique identifiers of source, target and trusted object links. Traits and
+ * ownership of each relation are extracted once when relation is added, so relation checks do not touch the database.
+ * Graph is changed by RelationDataService after each committed change of relations. Lookups are served from an
+ * immutable snapshot which is rebuilt on every change, relations are changed far less often than they are checked.
+ */
+public class RelationGraph
+{
+    public static final String OWNERSHIP_TRAIT = "ownership";
+
+    //verified relations go first as in relation queries of RelationDataService
+    private static final Ordering<Edge> EDGE_ORDER = new Ordering<Edge>()
+    {
+        @Override
+        public int compare( final Edge left, final Edge right )
+        {
+            if ( left.status != right.status )
+            {
+                return left.status == RelationStatus.VERIFIED ? -1 : 1;
+            }
+
+            return Long.compare( left.id, right.id );
+        }
+    };
+
+    private final Map<Long, Edge> edges = Maps.newHashMap();
+    private volatile Snapshot snapshot = null;
+    private long version = 0;
+
+
+    public boolean isLoaded()
+    {
+        return snapshot != null;
+    }
+
+
+    /**
+     * Returns relations whose target is the given link, verified relations first
+     */
+    public List<Edge> getByTarget( RelationLink target )
+    {
+        return getSnapshot().byTarget.get( target.getUniqueIdentifier() );
+    }
+
+
+    /**
+     * Returns relations whose source is the given link, verified relations first
+     */
+    public List<Edge> getBySource( RelationLink source )
+    {
+        return getSnapshot().bySource.get( source.getUniqueIdentifier() );
+    }
+
+
+    /**
+     * Returns relations whose trusted object is the given link, verified relations first
+     */
+    public List<Edge> getByObject( RelationLink object )
+    {
+        return getSnapshot().byObject.get( object.getUniqueIdentifier() );
+    }
+
+
+    synchronized long getVersion()
+    {
+        return version;
+    }
+
+
+    /**
+     * Fills graph with relations unless it was changed since the given version, i.e. since relations were read
+     */
+    synchronized void load( Collection<Relation> relations, long expectedVersion )
+    {
+        if ( expectedVersion != version )
+        {
+            return;
+        }
+
+        edges.clear();
+
+        for ( final Relation relation : relations )
+        {
+            edges.put( relation.getId(), new Edge( relation ) );
+        }
+
+        rebuild();
+    }
+
+
+    synchronized void put( Relation relation )
+    {
+        version++;
+
+        if ( isLoaded() )
+        {
+            edges.put( relation.getId(), new Edge( relation ) );
+
+            rebuild();
+        }
+    }
+
+
+    synchronized void remove( long relationId )
+    {
+        version++;
+
+        if ( isLoaded() && edges.remove( relationId ) != null )
+        {
+            rebuild();
+        }
+    }
+
+
+    /**
+     * Removes relations where the link is source, target or trusted object
+     */
+    synchronized void removeLink( String uniqueIdentifier )
+    {
+        version++;
+
+        if ( !isLoaded() )
+        {
+            return;
+        }
+
+        boolean removed = false;
+
+        for ( Edge edge : Lists.newArrayList( edges.values() ) )
+        {
+            if ( edge.isLinkedTo( uniqueIdentifier ) )
+            {
+                edges.remove( edge.id );
+                removed = true;
+            }
+        }
+
+        if ( removed )
+        {
+            rebuild();
+        }
+    }
+
+
+    synchronized void invalidate()
+    {
+        version++;
+        edges.clear();
+        snapshot = null;
+    }
+
+
+    private Snapshot getSnapshot()
+    {
+        Snapshot current = snapshot;
+
+        if ( current == null )
+        {
+            throw new IllegalStateException( "Relation graph is not loaded" );
+        }
+
+        return current;
+    }
+
+
+    private void rebuild()
+    {
+        ListMultimap<String, Edge> bySource = ArrayListMultimap.create();
+        ListMultimap<String, Edge> byTarget = ArrayListMultimap.create();
+        ListMultimap<String, Edge> byObject = ArrayListMultimap.create();
+
+        for ( final Edge edge : EDGE_ORDER.sortedCopy( edges.values() ) )
+        {
+            putIfLinked( bySource, edge.sourceId, edge );
+            putIfLinked( byTarget, edge.targetId, edge );
+            putIfLinked( byObject, edge.objectId, edge );
+        }
+
+        snapshot = new Snapshot( bySource, byTarget, byObject );
+    }
+
+
+    private static void putIfLinked( ListMultimap<String, Edge> index, String uniqueIdentifier, Edge edge )
+    {
+        if ( uniqueIdentifier != null )
+        {
+            index.put( uniqueIdentifier, edge );
+        }
+    }
+
+
+    private static String getUniqueIdentifier( RelationLink link )
+    {
+        return link == null ? null : link.getUniqueIdentifier();
+    }
+
+
+    /**
+     * Relation as seen at the moment it was added to graph
+     */
+    public static class Edge
+    {
+        private final long id;
+        private final String sourceId;
+        private final String targetId;
+        private final String objectId;
+        private final RelationLink trustedObject;
+        private final RelationStatus status;
+        private final Map<String, String> traits;
+        private final Ownership ownership;
+
+
+        Edge( final Relation relation )
+        {
+            this.id = relation.getId();
+            this.sourceId = getUniqueIdentifier( relation.getSource() );
+            this.targetId = getUniqueIdentifier( relation.getTarget() );
+            this.objectId = getUniqueIdentifier( relation.getTrustedObject() );
+            this.trustedObject = relation.getTrustedObject();
+            this.status = relation.getRelationStatus();
+
+            Map<String, String> relationTraits =
+                    relation.getRelationInfo() == null ? null : relation.getRelationInfo().getRelationTraits();
+
+            this.traits = relationTraits == null ? null :
+                          Collections.unmodifiableMap( Maps.newHashMap( relationTraits ) );
+            this.ownership = Ownership.getByName( traits == null ? null : traits.get( OWNERSHIP_TRAIT ) );
+        }
+
+
+        public long getId()
+        {
+            return id;
+        }
+
+
+        public RelationLink getTrustedObject()
+        {
+            return trustedObject;
+        }
+
+
+        public RelationStatus getStatus()
+        {
+            return status;
+        }
+
+
+        /**
+         * Returns relation traits or null if relation has no relation info
+         */
+        public Map<String, String> getTraits()
+        {
+            return traits;
+        }
+
+
+        public Ownership getOwnership()
+        {
+            return ownership;
+        }
+
+
+        public boolean isTrustedObject( RelationLink link )
+        {
+            return objectId != null && objectId.equals( link.getUniqueIdentifier() );
+        }
+
+
+        private boolean isLinkedTo( String uniqueIdentifier )
+        {
+            return uniqueIdentifier.equals( sourceId ) || uniqueIdentifier.equals( targetId ) || uniqueIdentifier
+                    .equals( objectId );
+        }
+    }
+
+
+    private static class Snapshot
+    {
+        private final ImmutableListMultimap<String, Edge> bySource;
+        private final ImmutableListMultimap<String, Edge> byTarget;
+        private final ImmutableListMultimap<String, Edge> byObject;
+
+
+        private Snapshot( final ListMultimap<String, Edge> bySource, final ListMultimap<String, Edge> byTarget,
+                          final ListMultimap<String, Edge> byObject )
+        {
+            this.bySource = ImmutableListMultimap.copyOf( bySource );
+            this.byTarget = ImmutableListMultimap.copyOf( byTarget );
+            this.byObject = ImmutableListMultimap.copyOf( byObject );
+        }
+    }
+}
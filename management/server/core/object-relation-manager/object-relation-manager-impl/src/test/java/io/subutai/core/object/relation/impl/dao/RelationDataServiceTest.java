@@ -0,0 +1,155 @@
+package io.subutai.core.object.relation.impl.dao;
+
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+
+import com.google.common.collect.Lists;
+
+import io.subutai.common.dao.DaoManager;
+import io.subutai.common.security.objects.Ownership;
+import io.subutai.common.security.relation.RelationLink;
+import io.subutai.common.security.relation.model.Relation;
+import io.subutai.common.security.relation.model.RelationStatus;
+
+import static io.subutai.core.object.relation.impl.dao.RelationGraphTest.link;
+import static io.subutai.core.object.relation.impl.dao.RelationGraphTest.relation;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+@RunWith( MockitoJUnitRunner.class )
+public class RelationDataServiceTest
+{
+    @Mock
+    DaoManager daoManager;
+    @Mock
+    EntityManagerFactory entityManagerFactory;
+    @Mock
+    EntityManager entityManager;
+    @Mock
+    Query query;
+
+    private RelationDataService relationDataService;
+    private RelationLink owner;
+    private RelationLink user;
+    private Relation relation;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        when( daoManager.getEntityManagerFactory() ).thenReturn( entityManagerFactory );
+        when( entityManagerFactory.createEntityManager() ).thenReturn( entityManager );
+        when( entityManager.createQuery( anyString() ) ).thenReturn( query );
+
+        relationDataService = new RelationDataService( daoManager );
+
+        owner = link( "owner" );
+        user = link( "user" );
+        relation = relation( 1, owner, user, link( "object" ), RelationStatus.STATED, Ownership.USER );
+    }
+
+
+    @Test
+    public void testGetRelationGraph() throws Exception
+    {
+        when( query.getResultList() ).thenReturn( Lists.newArrayList( relation ) );
+
+        RelationGraph graph = relationDataService.getRelationGraph();
+
+        assertTrue( graph.isLoaded() );
+        assertEquals( 1, graph.getByTarget( user ).size() );
+
+        //graph is read once and then kept up to date
+        assertSame( graph, relationDataService.getRelationGraph() );
+        verify( query ).getResultList();
+    }
+
+
+    @Test
+    public void testGetRelationGraphDuringConcurrentWrite() throws Exception
+    {
+        final Relation stored = relation( 2, owner, user, link( "stored" ), RelationStatus.STATED, Ownership.USER );
+
+        when( query.getResultList() ).thenAnswer( new Answer<List<Relation>>()
+        {
+            private int reads = 0;
+
+
+            @Override
+            public List<Relation> answer( final InvocationOnMock invocation ) throws Throwable
+            {
+                if ( reads++ == 0 )
+                {
+                    //relation is committed after it was missed by the read
+                    relationDataService.save( stored );
+
+                    return Lists.newArrayList( relation );
+                }
+
+                return Lists.newArrayList( relation, stored );
+            }
+        } );
+
+        RelationGraph graph = relationDataService.getRelationGraph();
+
+        verify( query, times( 2 ) ).getResultList();
+        assertEquals( 2, graph.getByTarget( user ).size() );
+    }
+
+
+    @Test
+    public void testWritesKeepGraphCoherent() throws Exception
+    {
+        when( query.getResultList() ).thenReturn( Lists.newArrayList( relation ) );
+
+        RelationGraph graph = relationDataService.getRelationGraph();
+
+        Relation added = relation( 2, user, owner, link( "added" ), RelationStatus.STATED, Ownership.USER );
+
+        relationDataService.save( added );
+
+        assertEquals( 1, graph.getByTarget( owner ).size() );
+
+        relationDataService.remove( 2 );
+
+        assertTrue( graph.getByTarget( owner ).isEmpty() );
+
+        relationDataService.removeAllRelationsWithLink( user );
+
+        assertTrue( graph.getBySource( owner ).isEmpty() );
+        verify( query ).getResultList();
+    }
+
+
+    @Test
+    public void testFailedWriteKeepsGraph() throws Exception
+    {
+        when( query.getResultList() ).thenReturn( Lists.newArrayList( relation ) );
+
+        RelationGraph graph = relationDataService.getRelationGraph();
+
+        when( query.executeUpdate() ).thenThrow( new RuntimeException() );
+
+        relationDataService.remove( 1 );
+
+        assertEquals( 1, graph.getByTarget( user ).size() );
+    }
+}
@@ -0,0 +1,294 @@
+package io.subutai.core.object.relation.impl.dao;
+
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+
+import io.subutai.common.security.objects.Ownership;
+import io.subutai.common.security.relation.RelationLink;
+import io.subutai.common.security.relation.model.Relation;
+import io.subutai.common.security.relation.model.RelationInfo;
+import io.subutai.common.security.relation.model.RelationStatus;
+
+
+/**
+ * Compares relation lookups served by {@link RelationGraph} with scanning all relations for matching links, which is
+ * what each relation query of RelationDataService did before the graph, minus the database round trip. Also reports
+ * the cost of a write, since every change rebuilds the graph snapshot.
+ *
+ * Usage: RelationGraphBenchmark [relations] [lookups], defaults to 5000 relations and 100000 lookups
+ */
+public class RelationGraphBenchmark
+{
+    private static final int USERS = 50;
+    private static final int ROUNDS = 3;
+    private static final int WRITES = 200;
+
+
+    public static void main( String[] args ) throws Exception
+    {
+        int relationCount = args.length > 0 ? Integer.parseInt( args[0] ) : 5000;
+        int lookups = args.length > 1 ? Integer.parseInt( args[1] ) : 100000;
+
+        List<RelationLink> users = Lists.newArrayList();
+
+        for ( int i = 0; i < USERS; i++ )
+        {
+            users.add( new BenchmarkLink( "user-" + i ) );
+        }
+
+        List<Relation> relations = Lists.newArrayList();
+
+        for ( int i = 0; i < relationCount; i++ )
+        {
+            relations.add( new BenchmarkRelation( i, users.get( i % USERS ), users.get( ( i + 1 ) % USERS ),
+                    new BenchmarkLink( "object-" + i ) ) );
+        }
+
+        for ( int round = 1; round <= ROUNDS; round++ )
+        {
+            //first round warms up
+            run( relations, users, lookups, round > 1 );
+        }
+    }
+
+
+    private static void run( List<Relation> relations, List<RelationLink> users, int lookups, boolean report )
+    {
+        RelationGraph graph = new RelationGraph();
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        graph.load( relations, graph.getVersion() );
+
+        long loadNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        long found = 0;
+
+        stopwatch.reset().start();
+
+        for ( int i = 0; i < lookups; i++ )
+        {
+            found += graph.getByTarget( users.get( i % USERS ) ).size();
+        }
+
+        long graphNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        stopwatch.reset().start();
+
+        for ( int i = 0; i < lookups; i++ )
+        {
+            found -= scanByTarget( relations, users.get( i % USERS ) ).size();
+        }
+
+        long scanNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        if ( found != 0 )
+        {
+            throw new IllegalStateException( "Graph and scan found different relations" );
+        }
+
+        stopwatch.reset().start();
+
+        for ( int i = 0; i < WRITES; i++ )
+        {
+            graph.put( new BenchmarkRelation( relations.size() + i, users.get( 0 ), users.get( 1 ),
+                    new BenchmarkLink( "added-" + i ) ) );
+        }
+
+        long writeNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        if ( report )
+        {
+            System.out.println( String.format( "%d relations: load %.2f ms, write %.2f ms, lookup graph %.0f ns, "
+                            + "lookup scan %.0f ns", relations.size(), loadNs / 1e6, writeNs / 1e6 / WRITES,
+                    ( double ) graphNs / lookups, ( double ) scanNs / lookups ) );
+        }
+    }
+
+
+    private static List<Relation> scanByTarget( List<Relation> relations, RelationLink target )
+    {
+        List<Relation> result = Lists.newArrayList();
+
+        for ( Relation relation : relations )
+        {
+            if ( target.getUniqueIdentifier().equals( relation.getTarget().getUniqueIdentifier() ) )
+            {
+                result.add( relation );
+            }
+        }
+
+        return result;
+    }
+
+
+    private static class BenchmarkLink implements RelationLink
+    {
+        private final String uniqueIdentifier;
+
+
+        private BenchmarkLink( final String uniqueIdentifier )
+        {
+            this.uniqueIdentifier = uniqueIdentifier;
+        }
+
+
+        @Override
+        public String getLinkId()
+        {
+            return getClassPath() + "|" + uniqueIdentifier;
+        }
+
+
+        @Override
+        public String getUniqueIdentifier()
+        {
+            return uniqueIdentifier;
+        }
+
+
+        @Override
+        public String getClassPath()
+        {
+            return BenchmarkLink.class.getSimpleName();
+        }
+
+
+        @Override
+        public String getContext()
+        {
+            return "";
+        }
+
+
+        @Override
+        public String getKeyId()
+        {
+            return null;
+        }
+    }
+
+
+    private static class BenchmarkRelation implements Relation, RelationInfo
+    {
+        private final long id;
+        private final RelationLink source;
+        private final RelationLink target;
+        private final RelationLink trustedObject;
+        private RelationStatus relationStatus = RelationStatus.VERIFIED;
+
+
+        private BenchmarkRelation( final long id, final RelationLink source, final RelationLink target,
+                                   final RelationLink trustedObject )
+        {
+            this.id = id;
+            this.source = source;
+            this.target = target;
+            this.trustedObject = trustedObject;
+        }
+
+
+        @Override
+        public long getId()
+        {
+            return id;
+        }
+
+
+        @Override
+        public RelationLink getSource()
+        {
+            return source;
+        }
+
+
+        @Override
+        public RelationLink getTarget()
+        {
+            return target;
+        }
+
+
+        @Override
+        public RelationLink getTrustedObject()
+        {
+            return trustedObject;
+        }
+
+
+        @Override
+        public RelationInfo getRelationInfo()
+        {
+            return this;
+        }
+
+
+        @Override
+        public RelationStatus getRelationStatus()
+        {
+            return relationStatus;
+        }
+
+
+        @Override
+        public void setRelationStatus( final RelationStatus relationStatus )
+        {
+            this.relationStatus = relationStatus;
+        }
+
+
+        @Override
+        public String getKeyId()
+        {
+            return null;
+        }
+
+
+        @Override
+        public int getOwnershipLevel()
+        {
+            return Ownership.USER.getLevel();
+        }
+
+
+        @Override
+        public boolean isReadPermission()
+        {
+            return true;
+        }
+
+
+        @Override
+        public boolean isWritePermission()
+        {
+            return true;
+        }
+
+
+        @Override
+        public boolean isUpdatePermission()
+        {
+            return true;
+        }
+
+
+        @Override
+        public boolean isDeletePermission()
+        {
+            return true;
+        }
+
+
+        @Override
+        public Map<String, String> getRelationTraits()
+        {
+            return Collections.singletonMap( RelationGraph.OWNERSHIP_TRAIT, Ownership.USER.getName() );
+        }
+    }
+}
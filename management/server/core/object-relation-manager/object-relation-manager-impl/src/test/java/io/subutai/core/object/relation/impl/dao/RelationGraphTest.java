@@ -0,0 +1,307 @@
+package io.subutai.core.object.relation.impl.dao;
+
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import io.subutai.common.security.objects.Ownership;
+import io.subutai.common.security.relation.RelationLink;
+import io.subutai.common.security.relation.model.Relation;
+import io.subutai.common.security.relation.model.RelationInfo;
+import io.subutai.common.security.relation.model.RelationStatus;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+public class RelationGraphTest
+{
+    private static final String OWNER_ID = "owner";
+    private static final String USER_ID = "user";
+    private static final String OBJECT_ID = "object";
+    private static final String OTHER_OBJECT_ID = "other-object";
+
+    private RelationGraph graph;
+    private RelationLink owner;
+    private RelationLink user;
+    private RelationLink object;
+    private RelationLink otherObject;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        graph = new RelationGraph();
+
+        owner = link( OWNER_ID );
+        user = link( USER_ID );
+        object = link( OBJECT_ID );
+        otherObject = link( OTHER_OBJECT_ID );
+    }
+
+
+    @Test( expected = IllegalStateException.class )
+    public void testGetBeforeLoad() throws Exception
+    {
+        assertFalse( graph.isLoaded() );
+
+        graph.getByTarget( user );
+    }
+
+
+    @Test
+    public void testLoad() throws Exception
+    {
+        Relation stated = relation( 2, owner, user, object, RelationStatus.STATED, Ownership.USER );
+        Relation verified = relation( 3, owner, user, otherObject, RelationStatus.VERIFIED, Ownership.GROUP );
+
+        graph.load( Lists.newArrayList( stated, verified ), graph.getVersion() );
+
+        assertTrue( graph.isLoaded() );
+        assertEquals( Lists.newArrayList( 3L, 2L ), ids( graph.getByTarget( user ) ) );
+        assertEquals( Lists.newArrayList( 3L, 2L ), ids( graph.getBySource( owner ) ) );
+        assertEquals( Lists.newArrayList( 2L ), ids( graph.getByObject( object ) ) );
+
+        RelationGraph.Edge edge = graph.getByObject( otherObject ).get( 0 );
+
+        assertEquals( Ownership.GROUP, edge.getOwnership() );
+        assertTrue( edge.isTrustedObject( otherObject ) );
+        assertFalse( edge.isTrustedObject( object ) );
+    }
+
+
+    @Test
+    public void testLoadIgnoredAfterConcurrentChange() throws Exception
+    {
+        long version = graph.getVersion();
+
+        //relation is stored while all relations are being read
+        graph.put( relation( 1, owner, user, object, RelationStatus.STATED, Ownership.USER ) );
+
+        graph.load( Collections.<Relation>emptyList(), version );
+
+        assertFalse( graph.isLoaded() );
+
+        graph.load( Lists.newArrayList( relation( 1, owner, user, object, RelationStatus.STATED, Ownership.USER ) ),
+                graph.getVersion() );
+
+        assertTrue( graph.isLoaded() );
+        assertEquals( Lists.newArrayList( 1L ), ids( graph.getByTarget( user ) ) );
+    }
+
+
+    @Test
+    public void testPut() throws Exception
+    {
+        graph.load( Collections.<Relation>emptyList(), graph.getVersion() );
+
+        graph.put( relation( 1, owner, user, object, RelationStatus.STATED, Ownership.USER ) );
+
+        assertEquals( Lists.newArrayList( 1L ), ids( graph.getByObject( object ) ) );
+        assertEquals( RelationStatus.STATED, graph.getByObject( object ).get( 0 ).getStatus() );
+
+        //merged relation replaces the former one
+        graph.put( relation( 1, owner, user, object, RelationStatus.VERIFIED, Ownership.USER ) );
+
+        assertEquals( 1, graph.getByObject( object ).size() );
+        assertEquals( RelationStatus.VERIFIED, graph.getByObject( object ).get( 0 ).getStatus() );
+    }
+
+
+    @Test
+    public void testPutKeepsTraitsOfAddedRelation() throws Exception
+    {
+        graph.load( Collections.<Relation>emptyList(), graph.getVersion() );
+
+        Relation relation = relation( 1, owner, user, object, RelationStatus.STATED, Ownership.USER );
+        graph.put( relation );
+
+        relation.getRelationInfo().getRelationTraits().put( RelationGraph.OWNERSHIP_TRAIT, Ownership.ALL.getName() );
+
+        assertEquals( Ownership.USER, graph.getByObject( object ).get( 0 ).getOwnership() );
+        assertEquals( Ownership.USER.getName(),
+                graph.getByObject( object ).get( 0 ).getTraits().get( RelationGraph.OWNERSHIP_TRAIT ) );
+    }
+
+
+    @Test
+    public void testPutWithoutRelationInfo() throws Exception
+    {
+        graph.load( Collections.<Relation>emptyList(), graph.getVersion() );
+
+        Relation relation = relation( 1, owner, user, object, RelationStatus.STATED, Ownership.USER );
+        when( relation.getRelationInfo() ).thenReturn( null );
+
+        graph.put( relation );
+
+        assertNull( graph.getByObject( object ).get( 0 ).getTraits() );
+        assertEquals( Ownership.ALL, graph.getByObject( object ).get( 0 ).getOwnership() );
+    }
+
+
+    @Test
+    public void testRemove() throws Exception
+    {
+        graph.load( Lists.newArrayList( relation( 1, owner, user, object, RelationStatus.STATED, Ownership.USER ),
+                relation( 2, owner, user, otherObject, RelationStatus.STATED, Ownership.USER ) ),
+                graph.getVersion() );
+
+        graph.remove( 1 );
+
+        assertTrue( graph.getByObject( object ).isEmpty() );
+        assertEquals( Lists.newArrayList( 2L ), ids( graph.getByTarget( user ) ) );
+        assertEquals( Lists.newArrayList( 2L ), ids( graph.getBySource( owner ) ) );
+    }
+
+
+    @Test
+    public void testRemoveLink() throws Exception
+    {
+        graph.load( Lists.newArrayList( relation( 1, owner, user, object, RelationStatus.STATED, Ownership.USER ),
+                relation( 2, owner, user, otherObject, RelationStatus.STATED, Ownership.USER ),
+                relation( 3, user, owner, object, RelationStatus.STATED, Ownership.USER ) ), graph.getVersion() );
+
+        graph.removeLink( OBJECT_ID );
+
+        assertTrue( graph.getByObject( object ).isEmpty() );
+        assertEquals( Lists.newArrayList( 2L ), ids( graph.getByTarget( user ) ) );
+        assertTrue( graph.getByTarget( owner ).isEmpty() );
+        assertTrue( graph.getBySource( user ).isEmpty() );
+
+        graph.removeLink( USER_ID );
+
+        assertTrue( graph.getBySource( owner ).isEmpty() );
+        assertTrue( graph.getByObject( otherObject ).isEmpty() );
+    }
+
+
+    @Test
+    public void testInvalidate() throws Exception
+    {
+        graph.load( Lists.newArrayList( relation( 1, owner, user, object, RelationStatus.STATED, Ownership.USER ) ),
+                graph.getVersion() );
+
+        long version = graph.getVersion();
+
+        graph.invalidate();
+
+        assertFalse( graph.isLoaded() );
+        assertTrue( graph.getVersion() > version );
+    }
+
+
+    @Test
+    public void testReadDuringConcurrentWrites() throws Exception
+    {
+        final int relationCount = 500;
+
+        graph.load( Collections.<Relation>emptyList(), graph.getVersion() );
+
+        final List<Relation> relations = Lists.newArrayList();
+
+        for ( int i = 0; i < relationCount; i++ )
+        {
+            relations.add( relation( i, owner, user, link( OBJECT_ID + i ), RelationStatus.STATED, Ownership.USER ) );
+        }
+
+        final CountDownLatch done = new CountDownLatch( 1 );
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread reader = new Thread( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    int previous = 0;
+
+                    while ( done.getCount() > 0 )
+                    {
+                        List<RelationGraph.Edge> edges = graph.getByTarget( user );
+
+                        //every snapshot is complete, relations only get added
+                        assertTrue( edges.size() >= previous );
+
+                        previous = edges.size();
+                    }
+                }
+                catch ( Throwable e )
+                {
+                    failure.set( e );
+                }
+            }
+        } );
+
+        reader.start();
+
+        for ( Relation relation : relations )
+        {
+            graph.put( relation );
+        }
+
+        done.countDown();
+        reader.join();
+
+        assertNull( failure.get() );
+        assertEquals( relationCount, graph.getByTarget( user ).size() );
+        assertEquals( relationCount, graph.getBySource( owner ).size() );
+    }
+
+
+    private static List<Long> ids( List<RelationGraph.Edge> edges )
+    {
+        List<Long> ids = Lists.newArrayList();
+
+        for ( RelationGraph.Edge edge : edges )
+        {
+            ids.add( edge.getId() );
+        }
+
+        return ids;
+    }
+
+
+    static RelationLink link( String uniqueIdentifier )
+    {
+        RelationLink link = mock( RelationLink.class );
+
+        when( link.getUniqueIdentifier() ).thenReturn( uniqueIdentifier );
+
+        return link;
+    }
+
+
+    static Relation relation( long id, RelationLink source, RelationLink target, RelationLink trustedObject,
+                              RelationStatus status, Ownership ownership )
+    {
+        Relation relation = mock( Relation.class );
+        RelationInfo relationInfo = mock( RelationInfo.class );
+
+        when( relation.getId() ).thenReturn( id );
+        when( relation.getSource() ).thenReturn( source );
+        when( relation.getTarget() ).thenReturn( target );
+        when( relation.getTrustedObject() ).thenReturn( trustedObject );
+        when( relation.getRelationStatus() ).thenReturn( status );
+        when( relation.getRelationInfo() ).thenReturn( relationInfo );
+        Map<String, String> traits = Maps.newHashMap();
+        traits.put( RelationGraph.OWNERSHIP_TRAIT, ownership.getName() );
+
+        when( relationInfo.getRelationTraits() ).thenReturn( traits );
+
+        return relation;
+    }
+}
@@ -4,6 +4,7 @@ package io.subutai.core.peer.impl;
 import java.io.IOException;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 
 import javax.annotation.security.PermitAll;
@@ -83,6 +84,7 @@ import io.subutai.core.identity.api.IdentityManager;
 import io.subutai.core.identity.api.model.User;
 import io.subutai.core.messenger.api.Message;
 import io.subutai.core.messenger.api.MessageException;
+import io.subutai.core.messenger.api.MessageStatus;
 import io.subutai.core.messenger.api.Messenger;
 import io.subutai.core.peer.api.PeerManager;
 import io.subutai.core.peer.impl.command.BlockingCommandCallback;
@@ -568,12 +570,26 @@ public class RemotePeerImpl implements RemotePeer
         Preconditions.checkArgument( responseTimeout > 0, "Invalid response timeout" );
         Preconditions.checkNotNull( responseType, "Invalid response type" );
 
-        //send request
-        MessageRequest messageRequest = sendRequestInternal( request, recipient, requestTimeout, headers );
+        MessageRequest messageRequest = createMessageRequest( request, recipient, requestTimeout, headers );
 
-        //wait for response here
-        MessageResponse messageResponse =
-                messageResponseListener.waitResponse( messageRequest, requestTimeout, responseTimeout );
+        //register request before sending it so that a fast response is not missed
+        messageResponseListener.registerRequest( messageRequest );
+
+        MessageResponse messageResponse;
+        try
+        {
+            //send request
+            Future<MessageStatus> messageStatus = sendMessageRequest( messageRequest, requestTimeout, headers );
+
+            //wait for response here
+            messageResponse =
+                    messageResponseListener.waitResponse( messageRequest, messageStatus, requestTimeout,
+                            responseTimeout );
+        }
+        finally
+        {
+            messageResponseListener.unregisterRequest( messageRequest );
+        }
 
         LOG.debug( String.format( "%s", messageResponse ) );
         if ( messageResponse != null )
@@ -606,26 +622,42 @@ public class RemotePeerImpl implements RemotePeer
 
     protected <T> MessageRequest sendRequestInternal( final T request, final String recipient, final int requestTimeout,
                                                       final Map<String, String> headers ) throws PeerException
+    {
+        MessageRequest messageRequest = createMessageRequest( request, recipient, requestTimeout, headers );
+
+        sendMessageRequest( messageRequest, requestTimeout, headers );
+
+        return messageRequest;
+    }
+
+
+    protected <T> MessageRequest createMessageRequest( final T request, final String recipient,
+                                                       final int requestTimeout, final Map<String, String> headers )
     {
         Preconditions.checkNotNull( request, "Invalid request" );
         Preconditions.checkArgument( !Strings.isNullOrEmpty( recipient ), "Invalid recipient" );
         Preconditions.checkArgument( requestTimeout > 0, "Invalid request timeout" );
 
-        MessageRequest messageRequest = new MessageRequest( new Payload( request, localPeerId ), recipient, headers );
+        return new MessageRequest( new Payload( request, localPeerId ), recipient, headers );
+    }
+
+
+    protected Future<MessageStatus> sendMessageRequest( final MessageRequest messageRequest, final int requestTimeout,
+                                                        final Map<String, String> headers ) throws PeerException
+    {
         Message message = messenger.createMessage( messageRequest );
 
         messageRequest.setMessageId( message.getId() );
 
         try
         {
-            messenger.sendMessage( this, message, RecipientType.PEER_REQUEST_LISTENER.name(), requestTimeout, headers );
+            return messenger.sendMessage( this, message, RecipientType.PEER_REQUEST_LISTENER.name(), requestTimeout,
+                    headers );
         }
         catch ( MessageException e )
         {
             throw new PeerException( e );
         }
-
-        return messageRequest;
     }
 
 
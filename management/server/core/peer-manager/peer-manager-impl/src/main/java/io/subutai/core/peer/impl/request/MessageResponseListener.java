@@ -3,14 +3,18 @@ package io.subutai.core.peer.impl.request;
 
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import io.subutai.common.cache.ExpiringCache;
+import com.google.common.util.concurrent.SettableFuture;
+
 import io.subutai.common.peer.MessageRequest;
 import io.subutai.common.peer.MessageResponse;
 import io.subutai.common.peer.PeerException;
@@ -22,13 +26,16 @@ import io.subutai.core.messenger.api.MessageStatus;
 import io.subutai.core.messenger.api.Messenger;
 
 
+/**
+ * Matches responses to requests sent to remote peers. Request must be registered before it is sent so that a response
+ * arriving before the sender starts waiting is not lost
+ */
 public class MessageResponseListener extends MessageListener implements Disposable
 {
     private static final Logger LOG = LoggerFactory.getLogger( MessageResponseListener.class.getName() );
 
     private Messenger messenger;
-    protected Map<UUID, Semaphore> semaphoreMap = new ConcurrentHashMap<>();
-    protected ExpiringCache<UUID, MessageResponse> responses = new ExpiringCache<>();
+    protected Map<UUID, SettableFuture<MessageResponse>> pendingResponses = new ConcurrentHashMap<>();
 
 
     public MessageResponseListener( Messenger messenger )
@@ -42,60 +49,88 @@ public class MessageResponseListener extends MessageListener implements Disposab
     @Override
     public void dispose()
     {
-        responses.dispose();
+        for ( SettableFuture<MessageResponse> pendingResponse : pendingResponses.values() )
+        {
+            pendingResponse.cancel( false );
+        }
+
+        pendingResponses.clear();
     }
 
 
-    public MessageResponse waitResponse( MessageRequest request, int requestTimeout, int responseTimeout )
-            throws PeerException
+    public void registerRequest( MessageRequest request )
     {
+        pendingResponses.put( request.getId(), SettableFuture.<MessageResponse>create() );
+    }
 
-        MessageStatus messageStatus;
-        try
-        {
-            long start = System.currentTimeMillis();
 
-            messageStatus = messenger.getMessageStatus( request.getMessageId() );
+    public void unregisterRequest( MessageRequest request )
+    {
+        pendingResponses.remove( request.getId() );
+    }
+
 
-            while ( messageStatus == MessageStatus.IN_PROCESS
-                    && System.currentTimeMillis() - start < ( requestTimeout + 5 ) * 1000 )
+    /**
+     * Waits for delivery of registered request and then for its response
+     *
+     * @param request - registered request
+     * @param messageStatus - delivery status of request message
+     * @param requestTimeout - request timeout in seconds
+     * @param responseTimeout - response timeout in seconds
+     *
+     * @return response or null if response did not arrive within timeout
+     */
+    public MessageResponse waitResponse( MessageRequest request, Future<MessageStatus> messageStatus,
+                                         int requestTimeout, int responseTimeout ) throws PeerException
+    {
+        SettableFuture<MessageResponse> response = pendingResponses.get( request.getId() );
+
+        if ( response == null )
+        {
+            throw new PeerException( "Request is not registered" );
+        }
+
+        try
+        {
+            if ( messageStatus.get( requestTimeout + 5L, TimeUnit.SECONDS ) != MessageStatus.SENT )
             {
-                Thread.sleep( 100 );
-                messageStatus = messenger.getMessageStatus( request.getMessageId() );
+                throw new PeerException( "Failed to send message" );
             }
         }
-        catch ( Exception e )
+        catch ( TimeoutException e )
         {
-            throw new PeerException( e );
+            throw new PeerException( "Failed to send message" );
         }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
 
-        if ( messageStatus != MessageStatus.SENT )
+            throw new PeerException( e );
+        }
+        catch ( ExecutionException | CancellationException e )
         {
-            throw new PeerException( "Failed to send message" );
+            throw new PeerException( e );
         }
 
-
-        //put semaphore to map so that response can release it
-        semaphoreMap.put( request.getId(), new Semaphore( 0 ) );
-
         //wait for response
         try
         {
-            if ( !semaphoreMap.get( request.getId() ).tryAcquire( responseTimeout + 5L, TimeUnit.SECONDS ) )
-            {
-                LOG.warn( "Could not obtain response within timeout interval" );
-            }
+            return response.get( responseTimeout + 5L, TimeUnit.SECONDS );
+        }
+        catch ( TimeoutException e )
+        {
+            LOG.warn( "Could not obtain response within timeout interval" );
         }
         catch ( InterruptedException e )
         {
             Thread.currentThread().interrupt();
         }
+        catch ( ExecutionException | CancellationException e )
+        {
+            LOG.warn( "Error obtaining response: {}", e.getMessage() );
+        }
 
-        //remove semaphore from map
-        semaphoreMap.remove( request.getId() );
-
-        //return responses
-        return responses.remove( request.getId() );
+        return null;
     }
 
 
@@ -103,16 +138,17 @@ public class MessageResponseListener extends MessageListener implements Disposab
     public void onMessage( final Message message )
     {
         MessageResponse messageResponse = message.getPayload( MessageResponse.class );
-        //store response to map for waiting thread
-        responses.put( messageResponse.getRequestId(), messageResponse, 5 * 1000L );
 
-        //obtain semaphore from map
-        Semaphore semaphore = semaphoreMap.remove( messageResponse.getRequestId() );
+        //complete response of waiting thread
+        SettableFuture<MessageResponse> pendingResponse = pendingResponses.get( messageResponse.getRequestId() );
 
-        //release semaphore to unblock waiting thread
-        if ( semaphore != null )
+        if ( pendingResponse != null )
+        {
+            pendingResponse.set( messageResponse );
+        }
+        else
         {
-            semaphore.release();
+            LOG.debug( "No request is waiting for response {}", messageResponse.getRequestId() );
         }
     }
 }
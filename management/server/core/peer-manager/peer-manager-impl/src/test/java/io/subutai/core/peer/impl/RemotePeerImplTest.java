@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 
 import org.junit.Before;
@@ -325,12 +326,15 @@ public class RemotePeerImplTest
         verify( messenger ).sendMessage( any( Peer.class ), eq( message ), anyString(), eq( TIMEOUT ), eq( headers ) );
 
         MessageResponse messageResponse = mock( MessageResponse.class );
-        when( messageResponseListener.waitResponse( any( MessageRequest.class ), anyInt(), anyInt() ) )
+        when( messageResponseListener
+                .waitResponse( any( MessageRequest.class ), any( Future.class ), anyInt(), anyInt() ) )
                 .thenReturn( messageResponse );
 
         remotePeer.sendRequest( REQUEST, RECIPIENT, TIMEOUT, Object.class, TIMEOUT, headers );
 
         verify( messageResponse ).getException();
+        verify( messageResponseListener ).registerRequest( any( MessageRequest.class ) );
+        verify( messageResponseListener ).unregisterRequest( any( MessageRequest.class ) );
 
         Payload payload = mock( Payload.class );
         when( messageResponse.getPayload() ).thenReturn( payload );
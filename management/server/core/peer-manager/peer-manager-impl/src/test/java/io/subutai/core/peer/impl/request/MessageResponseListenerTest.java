@@ -1,34 +1,34 @@
 package io.subutai.core.peer.impl.request;
 
 
-import java.io.PrintStream;
-import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
-import io.subutai.common.cache.ExpiringCache;
+
+import com.google.common.util.concurrent.Futures;
+
 import io.subutai.common.peer.MessageRequest;
 import io.subutai.common.peer.MessageResponse;
 import io.subutai.common.peer.PeerException;
 import io.subutai.core.messenger.api.Message;
-import io.subutai.core.messenger.api.MessageException;
 import io.subutai.core.messenger.api.MessageStatus;
 import io.subutai.core.messenger.api.Messenger;
 
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
 import static junit.framework.TestCase.assertTrue;
 import static junit.framework.TestCase.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
-import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
-import static org.mockito.Mockito.reset;
-import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 
@@ -37,22 +37,15 @@ public class MessageResponseListenerTest
 {
     private static final int REQUEST_TIMEOUT = 3;
     private static final int RESPONSE_TIMEOUT = 3;
+    private static final UUID REQUEST_ID = UUID.randomUUID();
     @Mock
     Messenger messenger;
     @Mock
-    Map<UUID, Semaphore> semaphoreMap;
-    @Mock
-    ExpiringCache<UUID, MessageResponse> responses;
-    @Mock
     Message message;
     @Mock
     MessageResponse messageResponse;
     @Mock
-    Semaphore semaphore;
-    @Mock
     MessageRequest messageRequest;
-    @Mock
-    InterruptedException interruptedException;
 
 
     MessageResponseListener listener;
@@ -62,77 +55,107 @@ public class MessageResponseListenerTest
     public void setUp() throws Exception
     {
         listener = new MessageResponseListener( messenger );
-        listener.semaphoreMap = semaphoreMap;
-        listener.responses = responses;
         when( message.getPayload( MessageResponse.class ) ).thenReturn( messageResponse );
-        when( semaphoreMap.remove( any( UUID.class ) ) ).thenReturn( semaphore );
-        when( messenger.getMessageStatus( any( UUID.class ) ) ).thenReturn( MessageStatus.IN_PROCESS )
-                                                               .thenReturn( MessageStatus.SENT );
-        when( messageRequest.getId() ).thenReturn( UUID.randomUUID() );
-        when( semaphoreMap.get( any( UUID.class ) ) ).thenReturn( semaphore );
+        when( messageResponse.getRequestId() ).thenReturn( REQUEST_ID );
+        when( messageRequest.getId() ).thenReturn( REQUEST_ID );
     }
 
 
     @Test
     public void testDispose() throws Exception
     {
+        listener.registerRequest( messageRequest );
+
         listener.dispose();
 
-        verify( responses ).dispose();
+        assertTrue( listener.pendingResponses.isEmpty() );
     }
 
 
     @Test
     public void testOnMessage() throws Exception
     {
+        //response without waiting request is dropped
         listener.onMessage( message );
 
-        verify( responses ).put( any( UUID.class ), eq( messageResponse ), anyLong() );
-        verify( semaphoreMap ).remove( any( UUID.class ) );
-        verify( semaphore ).release();
+        assertTrue( listener.pendingResponses.isEmpty() );
+
+        listener.registerRequest( messageRequest );
+
+        listener.onMessage( message );
+
+        assertSame( messageResponse, listener.pendingResponses.get( REQUEST_ID ).get() );
     }
 
 
     @Test
     public void testWaitResponse() throws Exception
     {
+        listener.registerRequest( messageRequest );
+
+        //response arrives before the sender starts waiting
+        listener.onMessage( message );
+
+        assertSame( messageResponse,
+                listener.waitResponse( messageRequest, Futures.immediateFuture( MessageStatus.SENT ), REQUEST_TIMEOUT,
+                        RESPONSE_TIMEOUT ) );
+
+        listener.unregisterRequest( messageRequest );
 
-        listener.waitResponse( messageRequest, REQUEST_TIMEOUT, RESPONSE_TIMEOUT );
+        assertTrue( listener.pendingResponses.isEmpty() );
+    }
 
-        verify( responses ).remove( any( UUID.class ) );
 
-        when( messenger.getMessageStatus( any( UUID.class ) ) ).thenReturn( MessageStatus.EXPIRED );
+    @Test
+    public void testWaitResponseNotSent() throws Exception
+    {
+        listener.registerRequest( messageRequest );
 
         try
         {
-            listener.waitResponse( messageRequest, REQUEST_TIMEOUT, RESPONSE_TIMEOUT );
+            listener.waitResponse( messageRequest, Futures.immediateFuture( MessageStatus.EXPIRED ), REQUEST_TIMEOUT,
+                    RESPONSE_TIMEOUT );
             fail( "Expected PeerException" );
         }
         catch ( PeerException e )
         {
         }
 
-        when( messenger.getMessageStatus( any( UUID.class ) ) ).thenReturn( MessageStatus.SENT );
-
-        doThrow( new MessageException( "" ) ).when( messenger ).getMessageStatus( any( UUID.class ) );
+        Future<MessageStatus> messageStatus = mock( Future.class );
+        doThrow( new TimeoutException() ).when( messageStatus ).get( anyLong(), any( TimeUnit.class ) );
 
         try
         {
-            listener.waitResponse( messageRequest, REQUEST_TIMEOUT, RESPONSE_TIMEOUT );
+            listener.waitResponse( messageRequest, messageStatus, REQUEST_TIMEOUT, RESPONSE_TIMEOUT );
             fail( "Expected PeerException" );
         }
         catch ( PeerException e )
         {
         }
 
+        listener.unregisterRequest( messageRequest );
 
-        reset( messenger );
+        try
+        {
+            listener.waitResponse( messageRequest, Futures.immediateFuture( MessageStatus.SENT ), REQUEST_TIMEOUT,
+                    RESPONSE_TIMEOUT );
+            fail( "Expected PeerException" );
+        }
+        catch ( PeerException e )
+        {
+        }
+    }
 
-        when( messenger.getMessageStatus( any( UUID.class ) ) ).thenReturn( MessageStatus.SENT );
 
-        doThrow( interruptedException ).when( semaphore ).tryAcquire( anyLong(), any( TimeUnit.class ) );
+    @Test
+    public void testWaitResponseInterrupted() throws Exception
+    {
+        listener.registerRequest( messageRequest );
+
+        Thread.currentThread().interrupt();
 
-        listener.waitResponse( messageRequest, REQUEST_TIMEOUT, RESPONSE_TIMEOUT );
+        assertNull( listener.waitResponse( messageRequest, Futures.immediateFuture( MessageStatus.SENT ),
+                REQUEST_TIMEOUT, RESPONSE_TIMEOUT ) );
 
         assertTrue( Thread.interrupted() );
     }
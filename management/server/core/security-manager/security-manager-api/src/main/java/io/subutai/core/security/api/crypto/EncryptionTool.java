@@ -1,6 +1,9 @@
 package io.subutai.core.security.api.crypto;
 
 
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
@@ -72,6 +75,19 @@ public interface EncryptionTool
     byte[] encrypt( final byte[] message, final String publicKeyHostId, boolean armored );
 
 
+    /**
+     * Returns stream which encrypts data written to it with the given pub key into the given stream. Closing the
+     * returned stream finishes the encrypted message but leaves the given stream open
+     */
+    OutputStream encrypt( final OutputStream out, final PGPPublicKey publicKey, boolean armored ) throws PGPException;
+
+
+    /**
+     * Returns stream of decrypted content of the given encrypted stream. Content is decrypted as the stream is read
+     */
+    InputStream decrypt( final InputStream message, PGPSecretKeyRing keyRing, String pwd ) throws PGPException;
+
+
     /* *****************************************
      *
      */
@@ -280,4 +280,16 @@ public interface KeyManager
     void updatePublicKeyRing( PGPPublicKeyRing publicKeyRing );
 
     PGPPublicKey getRemoteHostPublicKey( String hostIdTarget );
+
+
+    /* *****************************
+     * Returns number of key ring and private key lookups served from cache
+     */
+    long getKeyRingCacheHitCount();
+
+
+    /* *****************************
+     * Returns number of key ring and private key lookups that missed cache
+     */
+    long getKeyRingCacheMissCount();
 }
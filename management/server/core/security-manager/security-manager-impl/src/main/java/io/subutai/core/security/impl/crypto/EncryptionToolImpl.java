@@ -2,6 +2,8 @@ package io.subutai.core.security.impl.crypto;
 
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.SignatureException;
 
 import org.bouncycastle.openpgp.PGPException;
@@ -46,7 +48,7 @@ public class EncryptionToolImpl implements EncryptionTool
     @Override
     public byte[] decrypt( final byte[] message ) throws PGPException
     {
-        return PGPEncryptionUtil.decrypt( message, keyManager.getSecretKeyRingInputStream( null ),
+        return decryptWithCachedKeys( message, keyManager.getSecretKeyRing( null ),
                 keyManager.getSecurityKeyData().getSecretKeyringPwd() );
     }
 
@@ -64,7 +66,7 @@ public class EncryptionToolImpl implements EncryptionTool
 
         PGPSecretKeyRing secKeyRing = keyManager.getSecretKeyRing( secretKeyHostId );
 
-        return PGPEncryptionUtil.decrypt( message, secKeyRing, pwd );
+        return decryptWithCachedKeys( message, secKeyRing, pwd );
     }
 
 
@@ -145,6 +147,21 @@ public class EncryptionToolImpl implements EncryptionTool
             pwd = keyManager.getSecurityKeyData().getSecretKeyringPwd();
         }
 
+        return decryptWithCachedKeys( message, keyRing, pwd );
+    }
+
+
+    /* *****************************************
+     * Reuses private keys extracted earlier if key ring is protected by the peer password
+     */
+    private byte[] decryptWithCachedKeys( final byte[] message, PGPSecretKeyRing keyRing, String pwd )
+            throws PGPException
+    {
+        if ( keyRing != null && pwd.equals( keyManager.getSecurityKeyData().getSecretKeyringPwd() ) )
+        {
+            return PGPEncryptionUtil.decrypt( message, keyRing, pwd, keyManager.getKeyRingCache().getPrivateKeys() );
+        }
+
         return PGPEncryptionUtil.decrypt( message, keyRing, pwd );
     }
 
@@ -173,6 +190,38 @@ public class EncryptionToolImpl implements EncryptionTool
     }
 
 
+    /* *****************************************
+     *
+     */
+    @Override
+    public OutputStream encrypt( final OutputStream out, final PGPPublicKey publicKey, final boolean armored )
+            throws PGPException
+    {
+        return PGPEncryptionUtil.encrypt( out, publicKey, armored );
+    }
+
+
+    /* *****************************************
+     *
+     */
+    @Override
+    public InputStream decrypt( final InputStream message, final PGPSecretKeyRing keyRing, String pwd )
+            throws PGPException
+    {
+        if ( Strings.isNullOrEmpty( pwd ) )
+        {
+            pwd = keyManager.getSecurityKeyData().getSecretKeyringPwd();
+        }
+
+        if ( pwd.equals( keyManager.getSecurityKeyData().getSecretKeyringPwd() ) )
+        {
+            return PGPEncryptionUtil.decrypt( message, keyRing, pwd, keyManager.getKeyRingCache().getPrivateKeys() );
+        }
+
+        return PGPEncryptionUtil.decrypt( message, keyRing, pwd );
+    }
+
+
     /* *****************************************
      *
      */
@@ -57,6 +57,7 @@ public class KeyManagerImpl implements KeyManager
     private KeyServer keyServer = null;
     private SecurityKeyData keyData = null;
     private EncryptionTool encryptionTool = null;
+    private final KeyRingCache keyRingCache = new KeyRingCache();
 
 
     /* *****************************
@@ -436,6 +437,8 @@ public class KeyManagerImpl implements KeyManager
                 securityDataService.saveSecretKeyData( fingerprint, secretKeyRing.getEncoded(), pwd, type );
                 securityDataService.saveKeyData( identityId, fingerprint, "", type );
                 //*******************
+
+                keyRingCache.invalidateIdentity( identityId );
             }
         }
         catch ( Exception ex )
@@ -491,6 +494,9 @@ public class KeyManagerImpl implements KeyManager
                 String fingerprint = PGPKeyUtil.getFingerprint( publicKey.getFingerprint() );
                 securityDataService.saveKeyData( identityId, "", fingerprint, type );
                 //*************************
+
+                keyRingCache.invalidateIdentity( identityId );
+                keyRingCache.invalidateFingerprint( fingerprint );
             }
         }
         catch ( Exception ex )
@@ -513,6 +519,8 @@ public class KeyManagerImpl implements KeyManager
                 String fingerprint = getFingerprint( identityId );
                 securityDataService.removeKeyData( identityId );
                 securityDataService.removeKeyAllTrustData( fingerprint );
+
+                keyRingCache.invalidateIdentity( identityId );
             }
 
             //Remove from KeyStore
@@ -542,6 +550,8 @@ public class KeyManagerImpl implements KeyManager
                     securityDataService.removeSecretKeyData( keyIden.getSecretKeyFingerprint() );
                     securityDataService.removeKeyData( identityId );
                     securityDataService.removeKeyAllTrustData( keyIden.getSecretKeyFingerprint() );
+
+                    keyRingCache.invalidateIdentity( identityId );
                 }
             }
             else
@@ -615,6 +625,8 @@ public class KeyManagerImpl implements KeyManager
                     securityDataService.removeKeyData( identityId );
                     securityDataService.removeSecretKeyData( identityId );
                     securityDataService.removeKeyAllTrustData( fingerprint );
+
+                    keyRingCache.invalidateIdentity( identityId );
                 }
             }
         }
@@ -662,11 +674,25 @@ public class KeyManagerImpl implements KeyManager
     {
         try
         {
+            PGPPublicKeyRing publicKeyRing = keyRingCache.getPublicKeyRingByFingerprint( fingerprint );
+
+            if ( publicKeyRing != null )
+            {
+                return publicKeyRing;
+            }
+
             byte[] aKeyData = keyServer.getPublicKeyByFingerprint( fingerprint ).getKeyData();
 
             if ( aKeyData != null )
             {
-                return PGPKeyUtil.readPublicKeyRing( aKeyData );
+                publicKeyRing = PGPKeyUtil.readPublicKeyRing( aKeyData );
+
+                if ( publicKeyRing != null )
+                {
+                    keyRingCache.putPublicKeyRingByFingerprint( fingerprint, publicKeyRing );
+                }
+
+                return publicKeyRing;
             }
         }
         catch ( Exception e )
@@ -725,6 +751,13 @@ public class KeyManagerImpl implements KeyManager
             identityId = keyData.getManHostId();
         }
 
+        publicKeyRing = keyRingCache.getPublicKeyRing( identityId );
+
+        if ( publicKeyRing != null )
+        {
+            return publicKeyRing;
+        }
+
         try
         {
             SecurityKey keyIden = securityDataService.getKeyData( identityId );
@@ -742,6 +775,11 @@ public class KeyManagerImpl implements KeyManager
 
                 publicKeyRing = PGPKeyUtil.readPublicKeyRing( aKeyData );
 
+                if ( publicKeyRing != null )
+                {
+                    keyRingCache.putPublicKeyRing( identityId, publicKeyRing );
+                }
+
                 return publicKeyRing;
             }
         }
@@ -789,9 +827,15 @@ public class KeyManagerImpl implements KeyManager
             identityId = keyData.getManHostId();
         }
 
+        PGPSecretKeyRing secretKeyRing = keyRingCache.getSecretKeyRing( identityId );
+
+        if ( secretKeyRing != null )
+        {
+            return secretKeyRing;
+        }
+
         try
         {
-            PGPSecretKeyRing secretKeyRing;
             SecurityKey keyIden = securityDataService.getKeyData( identityId );
 
             if ( keyIden == null )
@@ -807,6 +851,8 @@ public class KeyManagerImpl implements KeyManager
 
                 if ( secretKeyRing != null )
                 {
+                    keyRingCache.putSecretKeyRing( identityId, secretKeyRing );
+
                     return secretKeyRing;
                 }
                 else
@@ -907,7 +953,19 @@ public class KeyManagerImpl implements KeyManager
 
             if ( secretKey != null )
             {
-                return PGPEncryptionUtil.getPrivateKey( secretKey, keyData.getSecretKeyringPwd() );
+                PGPPrivateKey privateKey = keyRingCache.getPrivateKeys().get( secretKey.getKeyID() );
+
+                if ( privateKey == null )
+                {
+                    privateKey = PGPEncryptionUtil.getPrivateKey( secretKey, keyData.getSecretKeyringPwd() );
+
+                    if ( privateKey != null )
+                    {
+                        keyRingCache.getPrivateKeys().putIfAbsent( secretKey.getKeyID(), privateKey );
+                    }
+                }
+
+                return privateKey;
             }
             else
             {
@@ -931,6 +989,8 @@ public class KeyManagerImpl implements KeyManager
         try
         {
             keyServer.updatePublicKey( publicKeyRing );
+
+            keyRingCache.invalidateFingerprint( KeyRingCache.getFingerprint( publicKeyRing ) );
         }
         catch ( IOException | PGPException e )
         {
@@ -998,6 +1058,35 @@ public class KeyManagerImpl implements KeyManager
     }
 
 
+    /* *****************************
+     *
+     */
+    KeyRingCache getKeyRingCache()
+    {
+        return keyRingCache;
+    }
+
+
+    /* *****************************
+     *
+     */
+    @Override
+    public long getKeyRingCacheHitCount()
+    {
+        return keyRingCache.getTotalStats().hitCount();
+    }
+
+
+    /* *****************************
+     *
+     */
+    @Override
+    public long getKeyRingCacheMissCount()
+    {
+        return keyRingCache.getTotalStats().missCount();
+    }
+
+
     /* *****************************************
      *
      */
@@ -0,0 +1,189 @@
+package io.subutai.core.security.impl.crypto;
+
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPPrivateKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ForwardingConcurrentMap;
+import com.google.common.collect.ImmutableMap;
+
+import io.subutai.common.security.crypto.pgp.PGPKeyUtil;
+
+
+/**
+ * Bounded cache of parsed key rings and extracted private keys. Public and secret key rings are cached by identity id,
+ * public key rings additionally by fingerprint, private keys by key id. Entries are invalidated by key manager when
+ * keys are saved, updated or removed. Entries also expire after a while since keys can be added to the key server
+ * bypassing key manager.
+ */
+class KeyRingCache
+{
+    static final int MAX_KEY_RINGS = 1000;
+    static final int EXPIRATION_MIN = 10;
+
+    private final Cache<String, PGPPublicKeyRing> publicKeyRings = newCache();
+    private final Cache<String, PGPPublicKeyRing> publicKeyRingsByFingerprint = newCache();
+    private final Cache<String, PGPSecretKeyRing> secretKeyRings = newCache();
+    private final Cache<Long, PGPPrivateKey> privateKeys = newCache();
+
+    //map view of private keys which records hits and misses of lookups
+    private final ConcurrentMap<Long, PGPPrivateKey> privateKeysView =
+            new ForwardingConcurrentMap<Long, PGPPrivateKey>()
+            {
+                @Override
+                protected ConcurrentMap<Long, PGPPrivateKey> delegate()
+                {
+                    return privateKeys.asMap();
+                }
+
+
+                @Override
+                public PGPPrivateKey get( final Object key )
+                {
+                    return privateKeys.getIfPresent( key );
+                }
+            };
+
+
+    private static <K, V> Cache<K, V> newCache()
+    {
+        return CacheBuilder.newBuilder().maximumSize( MAX_KEY_RINGS )
+                           .expireAfterWrite( EXPIRATION_MIN, TimeUnit.MINUTES ).recordStats().build();
+    }
+
+
+    PGPPublicKeyRing getPublicKeyRing( String identityId )
+    {
+        return publicKeyRings.getIfPresent( identityId );
+    }
+
+
+    void putPublicKeyRing( String identityId, PGPPublicKeyRing publicKeyRing )
+    {
+        publicKeyRings.put( identityId, publicKeyRing );
+    }
+
+
+    PGPPublicKeyRing getPublicKeyRingByFingerprint( String fingerprint )
+    {
+        return publicKeyRingsByFingerprint.getIfPresent( fingerprint.toUpperCase() );
+    }
+
+
+    void putPublicKeyRingByFingerprint( String fingerprint, PGPPublicKeyRing publicKeyRing )
+    {
+        publicKeyRingsByFingerprint.put( fingerprint.toUpperCase(), publicKeyRing );
+    }
+
+
+    PGPSecretKeyRing getSecretKeyRing( String identityId )
+    {
+        return secretKeyRings.getIfPresent( identityId );
+    }
+
+
+    void putSecretKeyRing( String identityId, PGPSecretKeyRing secretKeyRing )
+    {
+        secretKeyRings.put( identityId, secretKeyRing );
+    }
+
+
+    /**
+     * Returns private keys by key id. Only keys protected by the peer secret key ring password may be put here
+     */
+    ConcurrentMap<Long, PGPPrivateKey> getPrivateKeys()
+    {
+        return privateKeysView;
+    }
+
+
+    /**
+     * Removes key rings of identity and private keys of its secret key ring
+     */
+    void invalidateIdentity( String identityId )
+    {
+        PGPPublicKeyRing publicKeyRing = publicKeyRings.getIfPresent( identityId );
+        PGPSecretKeyRing secretKeyRing = secretKeyRings.getIfPresent( identityId );
+
+        publicKeyRings.invalidate( identityId );
+        secretKeyRings.invalidate( identityId );
+
+        if ( publicKeyRing != null )
+        {
+            publicKeyRingsByFingerprint.invalidate( getFingerprint( publicKeyRing ) );
+        }
+
+        if ( secretKeyRing != null )
+        {
+            for ( Iterator<PGPSecretKey> iterator = secretKeyRing.getSecretKeys(); iterator.hasNext(); )
+            {
+                privateKeys.invalidate( iterator.next().getKeyID() );
+            }
+        }
+    }
+
+
+    /**
+     * Removes public key rings with the given fingerprint cached under any identity
+     */
+    void invalidateFingerprint( String fingerprint )
+    {
+        String normalizedFingerprint = fingerprint.toUpperCase();
+
+        publicKeyRingsByFingerprint.invalidate( normalizedFingerprint );
+
+        for ( Iterator<PGPPublicKeyRing> iterator = publicKeyRings.asMap().values().iterator(); iterator.hasNext(); )
+        {
+            if ( normalizedFingerprint.equals( getFingerprint( iterator.next() ) ) )
+            {
+                iterator.remove();
+            }
+        }
+    }
+
+
+    void invalidateAll()
+    {
+        publicKeyRings.invalidateAll();
+        publicKeyRingsByFingerprint.invalidateAll();
+        secretKeyRings.invalidateAll();
+        privateKeys.invalidateAll();
+    }
+
+
+    /**
+     * Returns hit/miss statistics of each cache
+     */
+    Map<String, CacheStats> getStats()
+    {
+        return ImmutableMap.of( "publicKeyRings", publicKeyRings.stats(), "publicKeyRingsByFingerprint",
+                publicKeyRingsByFingerprint.stats(), "secretKeyRings", secretKeyRings.stats(), "privateKeys",
+                privateKeys.stats() );
+    }
+
+
+    /**
+     * Returns hit/miss statistics of all caches together
+     */
+    CacheStats getTotalStats()
+    {
+        return publicKeyRings.stats().plus( publicKeyRingsByFingerprint.stats() ).plus( secretKeyRings.stats() )
+                             .plus( privateKeys.stats() );
+    }
+
+
+    static String getFingerprint( PGPPublicKeyRing publicKeyRing )
+    {
+        return PGPKeyUtil.getFingerprint( publicKeyRing.getPublicKey().getFingerprint() ).toUpperCase();
+    }
+}
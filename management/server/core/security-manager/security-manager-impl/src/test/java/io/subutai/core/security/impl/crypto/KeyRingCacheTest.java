@@ -0,0 +1,132 @@
+package io.subutai.core.security.impl.crypto;
+
+
+import org.bouncycastle.openpgp.PGPPrivateKey;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+import com.google.common.collect.Iterators;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static org.mockito.Mockito.when;
+
+
+@RunWith( MockitoJUnitRunner.class )
+public class KeyRingCacheTest
+{
+    private static final String IDENTITY_ID = "identity";
+    private static final byte[] FINGERPRINT_BYTES = { ( byte ) 0xAB, ( byte ) 0xCD };
+    private static final String FINGERPRINT = "ABCD";
+    private static final long KEY_ID = 123L;
+
+    @Mock
+    PGPPublicKeyRing publicKeyRing;
+    @Mock
+    PGPPublicKey publicKey;
+    @Mock
+    PGPSecretKeyRing secretKeyRing;
+    @Mock
+    PGPSecretKey secretKey;
+    @Mock
+    PGPPrivateKey privateKey;
+
+    KeyRingCache keyRingCache;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        keyRingCache = new KeyRingCache();
+
+        when( publicKeyRing.getPublicKey() ).thenReturn( publicKey );
+        when( publicKey.getFingerprint() ).thenReturn( FINGERPRINT_BYTES );
+        when( secretKeyRing.getSecretKeys() ).thenReturn( Iterators.forArray( secretKey ) );
+        when( secretKey.getKeyID() ).thenReturn( KEY_ID );
+    }
+
+
+    @Test
+    public void testGetPublicKeyRing() throws Exception
+    {
+        assertNull( keyRingCache.getPublicKeyRing( IDENTITY_ID ) );
+
+        keyRingCache.putPublicKeyRing( IDENTITY_ID, publicKeyRing );
+
+        assertSame( publicKeyRing, keyRingCache.getPublicKeyRing( IDENTITY_ID ) );
+    }
+
+
+    @Test
+    public void testGetPublicKeyRingByFingerprint() throws Exception
+    {
+        keyRingCache.putPublicKeyRingByFingerprint( FINGERPRINT.toLowerCase(), publicKeyRing );
+
+        assertSame( publicKeyRing, keyRingCache.getPublicKeyRingByFingerprint( FINGERPRINT ) );
+    }
+
+
+    @Test
+    public void testInvalidateIdentity() throws Exception
+    {
+        keyRingCache.putPublicKeyRing( IDENTITY_ID, publicKeyRing );
+        keyRingCache.putPublicKeyRingByFingerprint( FINGERPRINT, publicKeyRing );
+        keyRingCache.putSecretKeyRing( IDENTITY_ID, secretKeyRing );
+        keyRingCache.getPrivateKeys().put( KEY_ID, privateKey );
+
+        keyRingCache.invalidateIdentity( IDENTITY_ID );
+
+        assertNull( keyRingCache.getPublicKeyRing( IDENTITY_ID ) );
+        assertNull( keyRingCache.getPublicKeyRingByFingerprint( FINGERPRINT ) );
+        assertNull( keyRingCache.getSecretKeyRing( IDENTITY_ID ) );
+        assertNull( keyRingCache.getPrivateKeys().get( KEY_ID ) );
+    }
+
+
+    @Test
+    public void testInvalidateFingerprint() throws Exception
+    {
+        keyRingCache.putPublicKeyRing( IDENTITY_ID, publicKeyRing );
+        keyRingCache.putPublicKeyRingByFingerprint( FINGERPRINT, publicKeyRing );
+        keyRingCache.putSecretKeyRing( IDENTITY_ID, secretKeyRing );
+
+        keyRingCache.invalidateFingerprint( FINGERPRINT.toLowerCase() );
+
+        assertNull( keyRingCache.getPublicKeyRing( IDENTITY_ID ) );
+        assertNull( keyRingCache.getPublicKeyRingByFingerprint( FINGERPRINT ) );
+        assertSame( secretKeyRing, keyRingCache.getSecretKeyRing( IDENTITY_ID ) );
+    }
+
+
+    @Test
+    public void testGetStats() throws Exception
+    {
+        keyRingCache.getPrivateKeys().get( KEY_ID );
+        keyRingCache.getPrivateKeys().put( KEY_ID, privateKey );
+        keyRingCache.getPrivateKeys().get( KEY_ID );
+
+        assertEquals( 1, keyRingCache.getStats().get( "privateKeys" ).hitCount() );
+        assertEquals( 1, keyRingCache.getStats().get( "privateKeys" ).missCount() );
+    }
+
+
+    @Test
+    public void testGetTotalStats() throws Exception
+    {
+        keyRingCache.getPublicKeyRing( IDENTITY_ID );
+        keyRingCache.putPublicKeyRing( IDENTITY_ID, publicKeyRing );
+        keyRingCache.getPublicKeyRing( IDENTITY_ID );
+        keyRingCache.getSecretKeyRing( IDENTITY_ID );
+
+        assertEquals( 1, keyRingCache.getTotalStats().hitCount() );
+        assertEquals( 2, keyRingCache.getTotalStats().missCount() );
+    }
+}
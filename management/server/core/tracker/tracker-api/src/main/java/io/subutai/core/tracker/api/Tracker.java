@@ -12,6 +12,7 @@ import java.util.List;
 import java.util.UUID;
 
 import io.subutai.common.tracker.TrackerOperation;
+import io.subutai.common.tracker.TrackerOperationLog;
 import io.subutai.common.tracker.TrackerOperationView;
 
 
@@ -31,6 +32,32 @@ public interface Tracker
      */
     TrackerOperationView getTrackerOperation( String source, UUID operationTrackId );
 
+    /**
+     * Returns log lines of operation starting from the given line. Allows to read log of operation incrementally
+     *
+     * @param source - source of operation, usually this is a module name
+     * @param operationTrackId - id of operation
+     * @param fromLine - zero based number of the first line to return
+     *
+     * @return - log lines
+     */
+    List<String> getTrackerOperationLog( String source, UUID operationTrackId, int fromLine );
+
+    /**
+     * Waits until log lines after the given line are appended to operation or operation completes, whichever happens
+     * first. Allows to follow log of operation without polling, resuming from the line returned in {@link
+     * TrackerOperationLog#getNextLine()}
+     *
+     * @param source - source of operation, usually this is a module name
+     * @param operationTrackId - id of operation
+     * @param fromLine - zero based number of the first line to return
+     * @param timeoutMs - max time to wait
+     *
+     * @return - log lines with the number of the line to request next, null if operation is not found
+     */
+    TrackerOperationLog waitForTrackerOperationLog( String source, UUID operationTrackId, int fromLine,
+                                                    long timeoutMs );
+
     /**
      * Creates operation and save it to DB
      *
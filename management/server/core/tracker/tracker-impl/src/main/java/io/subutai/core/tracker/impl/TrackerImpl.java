@@ -13,13 +13,18 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.gson.JsonSyntaxException;
 
 import io.subutai.common.dao.DaoManager;
 import io.subutai.common.tracker.OperationState;
 import io.subutai.common.tracker.TrackerOperation;
+import io.subutai.common.tracker.TrackerOperationLog;
 import io.subutai.common.tracker.TrackerOperationView;
 import io.subutai.common.util.TaskUtil;
 import io.subutai.core.identity.api.IdentityManager;
@@ -39,10 +44,15 @@ public class TrackerImpl implements Tracker
      */
     private static final Logger LOG = LoggerFactory.getLogger( TrackerImpl.class.getName() );
     private static final String SOURCE_IS_EMPTY_MSG = "Source is null or empty";
+    private static final long MIN_LOG_POLL_INTERVAL_MS = 100;
+    private static final long MAX_LOG_POLL_INTERVAL_MS = 1000;
     TrackerOperationDataService dataService;
     private DaoManager daoManager;
     private IdentityManager identityManager;
     private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor();
+    //running operations, reads of them are served from memory instead of DB
+    private final Cache<UUID, ActiveOperation> activeOperations =
+            CacheBuilder.newBuilder().expireAfterAccess( 1, TimeUnit.HOURS ).build();
 
 
     /**
@@ -59,6 +69,13 @@ public class TrackerImpl implements Tracker
         Preconditions.checkArgument( !Strings.isNullOrEmpty( source ), SOURCE_IS_EMPTY_MSG );
         Preconditions.checkNotNull( operationTrackId, "Operation track id is null" );
 
+        TrackerOperationImpl activeOperation = getActiveOperation( source, operationTrackId );
+
+        if ( activeOperation != null )
+        {
+            return new TrackerOperationViewImpl( activeOperation );
+        }
+
         if ( identityManager.isAdmin() )
         {
             return dataService.getTrackerOperation( source, operationTrackId );
@@ -68,6 +85,119 @@ public class TrackerImpl implements Tracker
     }
 
 
+    /**
+     * Returns log lines of tracker operation starting from the given line
+     *
+     * @param source - source of tracker operation, usually this is a module name
+     * @param operationTrackId - id of operation
+     * @param fromLine - zero based number of the first line to return
+     *
+     * @return - log lines
+     */
+    @Override
+    public List<String> getTrackerOperationLog( String source, UUID operationTrackId, int fromLine )
+    {
+        Preconditions.checkArgument( !Strings.isNullOrEmpty( source ), SOURCE_IS_EMPTY_MSG );
+        Preconditions.checkNotNull( operationTrackId, "Operation track id is null" );
+        Preconditions.checkArgument( fromLine >= 0, "Line number must not be negative" );
+
+        TrackerOperationImpl activeOperation = getActiveOperation( source, operationTrackId );
+
+        if ( activeOperation != null )
+        {
+            return activeOperation.getLogLines( fromLine );
+        }
+
+        if ( identityManager.isAdmin() )
+        {
+            return dataService.getTrackerOperationLog( source, operationTrackId, fromLine );
+        }
+
+        return dataService.getTrackerUserOperationLog( source, operationTrackId, fromLine,
+                identityManager.getActiveUser().getId() );
+    }
+
+
+    /**
+     * Waits until log lines after the given line are appended to tracker operation or the operation completes,
+     * whichever happens first
+     *
+     * @param source - source of tracker operation, usually this is a module name
+     * @param operationTrackId - id of operation
+     * @param fromLine - zero based number of the first line to return
+     * @param timeoutMs - max time to wait
+     *
+     * @return - log lines with the number of the line to request next, null if operation is not found
+     */
+    @Override
+    public TrackerOperationLog waitForTrackerOperationLog( String source, UUID operationTrackId, int fromLine,
+                                                           long timeoutMs )
+    {
+        Preconditions.checkArgument( !Strings.isNullOrEmpty( source ), SOURCE_IS_EMPTY_MSG );
+        Preconditions.checkNotNull( operationTrackId, "Operation track id is null" );
+        Preconditions.checkArgument( fromLine >= 0, "Line number must not be negative" );
+
+        TrackerOperationImpl activeOperation = getActiveOperation( source, operationTrackId );
+
+        if ( activeOperation != null )
+        {
+            return activeOperation.waitForLogLines( fromLine, timeoutMs );
+        }
+
+        //operation is not tracked in memory, e.g. after restart, poll what is stored backing off between reads
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        long pollIntervalMs = MIN_LOG_POLL_INTERVAL_MS;
+
+        while ( true )
+        {
+            TrackerOperationView po = getTrackerOperation( source, operationTrackId );
+
+            if ( po == null )
+            {
+                return null;
+            }
+
+            List<String> lines = Strings.isNullOrEmpty( po.getLog() ) ? new ArrayList<String>() :
+                                 Splitter.on( '\n' ).splitToList( po.getLog() );
+
+            lines = lines.subList( Math.min( fromLine, lines.size() ), lines.size() );
+
+            long remainingMs = deadline - System.currentTimeMillis();
+
+            if ( !lines.isEmpty() || po.getState() != OperationState.RUNNING || remainingMs <= 0
+                    || Thread.currentThread().isInterrupted() )
+            {
+                return new TrackerOperationLog( lines, fromLine + lines.size(), po.getState() );
+            }
+
+            TaskUtil.sleep( Math.min( pollIntervalMs, remainingMs ) );
+
+            pollIntervalMs = Math.min( pollIntervalMs * 2, MAX_LOG_POLL_INTERVAL_MS );
+        }
+    }
+
+
+    /**
+     * Returns running operation from memory if it is accessible by the active user
+     */
+    private TrackerOperationImpl getActiveOperation( String source, UUID operationTrackId )
+    {
+        ActiveOperation activeOperation = activeOperations.getIfPresent( operationTrackId );
+
+        if ( activeOperation == null || !activeOperation.operation.getSource().equalsIgnoreCase( source ) )
+        {
+            return null;
+        }
+
+        if ( identityManager.isAdmin() || activeOperation.userId == identityManager.getActiveUser().getId() )
+        {
+            return activeOperation.operation;
+        }
+
+        return null;
+    }
+
+
     /**
      * Saves tracker operation o DB
      *
@@ -83,22 +213,15 @@ public class TrackerImpl implements Tracker
 
         try
         {
-            //*********************************
-            long userId;
-            User user = identityManager.getActiveUser();
+            long userId = getUserId();
 
-            if ( user != null )
-            {
-                userId = user.getId();
-            }
-            else
+            dataService.saveTrackerOperation( source, po, userId );
+
+            if ( po.getState() == OperationState.RUNNING )
             {
-                userId = identityManager.getSystemUser().getId();
+                activeOperations.put( po.getId(), new ActiveOperation( po, userId ) );
             }
 
-            //*********************************
-
-            dataService.saveTrackerOperation( source, po, userId );
             return true;
         }
         catch ( Exception e )
@@ -110,6 +233,68 @@ public class TrackerImpl implements Tracker
     }
 
 
+    /**
+     * Appends log lines of tracker operation to DB. Operation itself is saved only if its state has changed
+     *
+     * @param source - source of tracker operation, usually this is a module
+     * @param po - tracker operation
+     * @param logLines - consecutive log lines not yet stored, empty if only state of operation has changed
+     * @param fromLine - zero based number of the first of the lines in operation log
+     * @param stateChanged - true if state of operation has changed
+     *
+     * @return - true if all went well, false otherwise
+     */
+    boolean appendTrackerOperationLog( String source, TrackerOperationImpl po, List<String> logLines, int fromLine,
+                                       boolean stateChanged )
+    {
+        Preconditions.checkArgument( !Strings.isNullOrEmpty( source ), SOURCE_IS_EMPTY_MSG );
+        Preconditions.checkNotNull( po, "Tracker operation is null" );
+        Preconditions.checkNotNull( logLines, "Log lines are null" );
+
+        boolean appended = false;
+
+        try
+        {
+            long userId = stateChanged ? getUserId() : 0;
+
+            dataService.appendTrackerOperationLog( source, po, logLines, fromLine, stateChanged, userId );
+
+            appended = true;
+        }
+        catch ( Exception e )
+        {
+            LOG.error( "Error in appendTrackerOperationLog", e );
+        }
+
+        if ( appended && po.getState() != OperationState.RUNNING )
+        {
+            activeOperations.invalidate( po.getId() );
+        }
+        else
+        {
+            //keep operation in memory while it is being appended to or its log is not completely stored
+            activeOperations.getIfPresent( po.getId() );
+        }
+
+        return appended;
+    }
+
+
+    private long getUserId()
+    {
+        User user = identityManager.getActiveUser();
+
+        if ( user != null )
+        {
+            return user.getId();
+        }
+        else
+        {
+            return identityManager.getSystemUser().getId();
+        }
+    }
+
+
     /**
      * Creates tracker operation and save it to DB
      *
@@ -206,28 +391,30 @@ public class TrackerImpl implements Tracker
     @Override
     public void printOperationLog( String source, UUID operationTrackId, long maxOperationDurationMs )
     {
-        int logSize = 0;
+        int fromLine = 0;
         long startedTs = System.currentTimeMillis();
         while ( !Thread.interrupted() )
         {
-            TrackerOperationView po = getTrackerOperation( source.toUpperCase(), operationTrackId );
-            if ( po != null )
+            long remainingMs = maxOperationDurationMs - ( System.currentTimeMillis() - startedTs );
+
+            //blocks until new lines are appended instead of polling
+            TrackerOperationLog operationLog =
+                    waitForTrackerOperationLog( source.toUpperCase(), operationTrackId, fromLine,
+                            Math.max( 0, remainingMs ) );
+            if ( operationLog != null )
             {
                 //print log if anything new is appended to it
-                if ( logSize != po.getLog().length() )
+                if ( !operationLog.getLines().isEmpty() )
                 {
-                    System.out.println( po.getLog().substring( logSize, po.getLog().length() ) );
-                    logSize = po.getLog().length();
+                    System.out.println( Joiner.on( "\n" ).join( operationLog.getLines() ) );
                 }
+                fromLine = operationLog.getNextLine();
                 //return if operation is completed
                 //or if time limit is reached
-                long ts = System.currentTimeMillis() - startedTs;
-                if ( po.getState() != OperationState.RUNNING || ts > maxOperationDurationMs )
+                if ( operationLog.getState() != OperationState.RUNNING || remainingMs <= 0 )
                 {
                     return;
                 }
-
-                TaskUtil.sleep( 100 );
             }
             else
             {
@@ -284,6 +471,8 @@ public class TrackerImpl implements Tracker
     public void dispose()
     {
         purger.shutdown();
+
+        activeOperations.invalidateAll();
     }
 
 
@@ -297,4 +486,18 @@ public class TrackerImpl implements Tracker
     {
         this.identityManager = identityManager;
     }
+
+
+    private static class ActiveOperation
+    {
+        private final TrackerOperationImpl operation;
+        private final long userId;
+
+
+        private ActiveOperation( final TrackerOperationImpl operation, final long userId )
+        {
+            this.operation = operation;
+            this.userId = userId;
+        }
+    }
 }
\ No newline at end of file
@@ -2,14 +2,18 @@ package io.subutai.core.tracker.impl;
 
 
 import java.sql.Timestamp;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
 
 import io.subutai.common.tracker.OperationState;
 import io.subutai.common.tracker.TrackerOperation;
+import io.subutai.common.tracker.TrackerOperationLog;
 import io.subutai.common.util.UUIDUtil;
 
 
@@ -36,6 +40,10 @@ public class TrackerOperationImpl implements TrackerOperation
      * log of operation
      */
     private final StringBuilder log;
+    /**
+     * start positions of log lines in log
+     */
+    private final transient List<Integer> lineStarts;
     /**
      * Creation date of operation
      */
@@ -47,7 +55,19 @@ public class TrackerOperationImpl implements TrackerOperation
     /**
      * State of operation
      */
-    private OperationState state;
+    private volatile OperationState state;
+    /**
+     * serializes writes of log to DB, held without holding the operation itself
+     */
+    private final transient Object persistLock;
+    /**
+     * number of log lines stored to DB, guarded by persistLock
+     */
+    private transient int persistedLines;
+    /**
+     * state of operation stored to DB, guarded by persistLock
+     */
+    private transient OperationState persistedState;
 
 
     public TrackerOperationImpl( String source, String description, TrackerImpl tracker )
@@ -60,7 +80,10 @@ public class TrackerOperationImpl implements TrackerOperation
         this.source = source;
         this.tracker = tracker;
         log = new StringBuilder();
+        lineStarts = Lists.newArrayList();
         state = OperationState.RUNNING;
+        persistLock = new Object();
+        persistedState = OperationState.RUNNING;
         id = UUIDUtil.generateTimeBasedUUID();
         createDate = new Date();
     }
@@ -83,7 +106,66 @@ public class TrackerOperationImpl implements TrackerOperation
     @Override
     public synchronized String getLog()
     {
-        return log.toString();
+        //log is not saved with operation, see TrackerOperationDataService
+        return log == null ? "" : log.toString();
+    }
+
+
+    /**
+     * Returns log lines starting from the given line
+     *
+     * @param fromLine - zero based number of the first line to return
+     */
+    public synchronized List<String> getLogLines( int fromLine )
+    {
+        if ( fromLine >= lineStarts.size() )
+        {
+            return Collections.emptyList();
+        }
+
+        List<String> lines = Lists.newArrayList();
+
+        for ( int i = Math.max( 0, fromLine ); i < lineStarts.size(); i++ )
+        {
+            int end = i + 1 < lineStarts.size() ? lineStarts.get( i + 1 ) - 1 : log.length();
+
+            lines.add( log.substring( lineStarts.get( i ), end ) );
+        }
+
+        return lines;
+    }
+
+
+    /**
+     * Waits until lines after the given line are appended to log or operation completes, whichever happens first
+     *
+     * @param fromLine - zero based number of the first line to return
+     * @param timeoutMs - max time to wait
+     *
+     * @return log lines starting from the given line with the number of the line to request next
+     */
+    public synchronized TrackerOperationLog waitForLogLines( int fromLine, long timeoutMs )
+    {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        long remainingMs = timeoutMs;
+
+        try
+        {
+            while ( fromLine >= lineStarts.size() && state == OperationState.RUNNING && remainingMs > 0 )
+            {
+                wait( remainingMs );
+
+                remainingMs = deadline - System.currentTimeMillis();
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        List<String> lines = getLogLines( fromLine );
+
+        return new TrackerOperationLog( lines, Math.max( 0, fromLine ) + lines.size(), state );
     }
 
 
@@ -129,27 +211,88 @@ public class TrackerOperationImpl implements TrackerOperation
     }
 
 
-    private synchronized void addLog( String logString, OperationState state )
+    private void addLog( String logString, OperationState state )
+    {
+        if ( appendLog( logString, state ) )
+        {
+            //also retries lines which previous appends failed to store
+            persistLog();
+        }
+    }
+
+
+    /**
+     * Appends log line and sets state of operation
+     *
+     * @return true if log or state of operation has changed
+     */
+    private synchronized boolean appendLog( String logString, OperationState state )
     {
         //ignore all messages after operation was marked as complete
         if ( this.state != OperationState.RUNNING )
         {
-            return;
+            //yet give lines that failed to be stored another chance
+            return true;
         }
 
+        boolean lineAdded = false;
+
         if ( !Strings.isNullOrEmpty( logString ) )
         {
             if ( log.length() > 0 )
             {
                 log.append( "\n" );
             }
-            log.append( String.format( "{\"date\" : %s, \"log\" : \"%s\", \"state\" : \"%s\"},",
+            String logLine = String.format( "{\"date\" : %s, \"log\" : \"%s\", \"state\" : \"%s\"},",
                     new Timestamp( System.currentTimeMillis() ).getTime(),
                     logString.replaceAll( "\r", "" ).replaceAll( "\n", "" ).replaceAll( "\\\\", "" )
-                             .replaceAll( "\"", "" ).replaceAll( "\\{", "" ).replaceAll( "}", "" ), state ) );
+                             .replaceAll( "\"", "" ).replaceAll( "\\{", "" ).replaceAll( "}", "" ), state );
+            lineStarts.add( log.length() );
+            log.append( logLine );
+            lineAdded = true;
         }
+
+        boolean stateChanged = this.state != state;
         this.state = state;
-        tracker.saveTrackerOperation( source, this );
+
+        if ( lineAdded || stateChanged )
+        {
+            //wake up clients following the log
+            notifyAll();
+        }
+
+        return lineAdded || stateChanged;
+    }
+
+
+    /**
+     * Stores log lines that are not yet in DB, operation itself is saved only when its state has changed. Lines are
+     * written outside of the operation lock so that a slow DB does not block appending to or reading of the log.
+     */
+    private void persistLog()
+    {
+        synchronized ( persistLock )
+        {
+            int fromLine;
+            List<String> lines;
+            OperationState currentState;
+
+            synchronized ( this )
+            {
+                fromLine = persistedLines;
+                lines = getLogLines( fromLine );
+                currentState = this.state;
+            }
+
+            boolean stateChanged = currentState != persistedState;
+
+            if ( ( !lines.isEmpty() || stateChanged ) && tracker
+                    .appendTrackerOperationLog( source, this, lines, fromLine, stateChanged ) )
+            {
+                persistedLines = fromLine + lines.size();
+                persistedState = currentState;
+            }
+        }
     }
 
 
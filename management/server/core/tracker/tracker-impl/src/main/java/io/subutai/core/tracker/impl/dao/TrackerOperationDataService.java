@@ -4,6 +4,7 @@ package io.subutai.core.tracker.impl.dao;
 import java.sql.SQLException;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -17,7 +18,11 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.cxf.common.util.CollectionUtils;
 
+import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
@@ -25,6 +30,7 @@ import io.subutai.common.tracker.TrackerOperationView;
 import io.subutai.core.tracker.impl.TrackerOperationImpl;
 import io.subutai.core.tracker.impl.TrackerOperationViewImpl;
 import io.subutai.core.tracker.impl.entity.TrackerOperationEntity;
+import io.subutai.core.tracker.impl.entity.TrackerOperationLogEntity;
 import io.subutai.core.tracker.impl.entity.TrackerOperationPK;
 
 
@@ -32,6 +38,25 @@ public class TrackerOperationDataService
 {
     private static final Logger LOGGER = LoggerFactory.getLogger( TrackerOperationDataService.class );
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    //operation is saved without its log, log lines are appended to tracker_operation_log one by one
+    private static final Gson HEADER_GSON =
+            new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().setExclusionStrategies( new ExclusionStrategy()
+            {
+                @Override
+                public boolean shouldSkipField( final FieldAttributes f )
+                {
+                    return f.getDeclaringClass() == TrackerOperationImpl.class && "log".equals( f.getName() );
+                }
+
+
+                @Override
+                public boolean shouldSkipClass( final Class<?> clazz )
+                {
+                    return false;
+                }
+            } ).create();
+    //max number of operation ids passed to a single IN clause
+    private static final int MAX_IDS_PER_QUERY = 500;
     private EntityManagerFactory emf;
 
 
@@ -75,6 +100,7 @@ public class TrackerOperationDataService
     public TrackerOperationView getTrackerOperation( String source, final UUID operationTrackId )
     {
         TrackerOperationEntity result = null;
+        List<String> logLines = null;
         source = source.toUpperCase();
         EntityManager em = emf.createEntityManager();
         try
@@ -91,6 +117,7 @@ public class TrackerOperationDataService
             if ( !CollectionUtils.isEmpty( operations ) )
             {
                 result = operations.get( 0 );
+                logLines = getLogLines( em, source, operationTrackId.toString(), 0 );
             }
 
             em.getTransaction().commit();
@@ -109,7 +136,7 @@ public class TrackerOperationDataService
         }
         if ( result != null )
         {
-            return createTrackerOperation( result.getInfo() );
+            return createTrackerOperation( result.getInfo(), logLines );
         }
         else
         {
@@ -121,6 +148,7 @@ public class TrackerOperationDataService
     public TrackerOperationView getTrackerUserOperation( String source, final UUID operationTrackId, long userId )
     {
         TrackerOperationEntity result = null;
+        List<String> logLines = null;
         source = source.toUpperCase();
         EntityManager em = emf.createEntityManager();
         try
@@ -139,6 +167,7 @@ public class TrackerOperationDataService
             if ( !CollectionUtils.isEmpty( operations ) )
             {
                 result = operations.get( 0 );
+                logLines = getLogLines( em, source, operationTrackId.toString(), 0 );
             }
 
             em.getTransaction().commit();
@@ -157,7 +186,7 @@ public class TrackerOperationDataService
         }
         if ( result != null )
         {
-            return createTrackerOperation( result.getInfo() );
+            return createTrackerOperation( result.getInfo(), logLines );
         }
         else
         {
@@ -166,12 +195,178 @@ public class TrackerOperationDataService
     }
 
 
-    private TrackerOperationViewImpl createTrackerOperation( String infoClob )
+    /**
+     * Returns log lines of tracker operation starting from the given line
+     *
+     * @param source - source of tracker operation
+     * @param operationTrackId - id of operation
+     * @param fromLine - zero based number of the first line to return
+     */
+    public List<String> getTrackerOperationLog( String source, final UUID operationTrackId, final int fromLine )
+    {
+        List<String> result = Lists.newArrayList();
+        source = source.toUpperCase();
+        EntityManager em = emf.createEntityManager();
+        try
+        {
+            em.getTransaction().begin();
+
+            result = getLogLines( em, source, operationTrackId.toString(), fromLine );
+
+            em.getTransaction().commit();
+        }
+        catch ( Exception e )
+        {
+            LOGGER.error( "Error in getTrackerOperationLog.", e );
+            if ( em.getTransaction().isActive() )
+            {
+                em.getTransaction().rollback();
+            }
+        }
+        finally
+        {
+            em.close();
+        }
+        return result;
+    }
+
+
+    /**
+     * Returns log lines of tracker operation starting from the given line if the operation belongs to the user
+     *
+     * @param source - source of tracker operation
+     * @param operationTrackId - id of operation
+     * @param fromLine - zero based number of the first line to return
+     * @param userId - id of user
+     */
+    public List<String> getTrackerUserOperationLog( String source, final UUID operationTrackId, final int fromLine,
+                                                    long userId )
+    {
+        List<String> result = Lists.newArrayList();
+        source = source.toUpperCase();
+        EntityManager em = emf.createEntityManager();
+        try
+        {
+            em.getTransaction().begin();
+
+            TypedQuery<Long> query = em.createQuery(
+                    "select count(to) from TrackerOperationEntity to where to.source = :source and to"
+                            + ".operationTrackId = :operationTrackId and to.userId = :userId", Long.class );
+            query.setParameter( "source", source );
+            query.setParameter( "operationTrackId", operationTrackId.toString() );
+            query.setParameter( "userId", userId );
+
+            if ( query.getSingleResult() > 0 )
+            {
+                result = getLogLines( em, source, operationTrackId.toString(), fromLine );
+            }
+
+            em.getTransaction().commit();
+        }
+        catch ( Exception e )
+        {
+            LOGGER.error( "Error in getTrackerUserOperationLog.", e );
+            if ( em.getTransaction().isActive() )
+            {
+                em.getTransaction().rollback();
+            }
+        }
+        finally
+        {
+            em.close();
+        }
+        return result;
+    }
+
+
+    private List<String> getLogLines( EntityManager em, String source, String operationTrackId, int fromLine )
+    {
+        TypedQuery<String> query = em.createNamedQuery( TrackerOperationLogEntity.QUERY_GET_LOG, String.class );
+        query.setParameter( "source", source );
+        query.setParameter( "operationTrackId", operationTrackId );
+        query.setParameter( "fromLine", fromLine );
+
+        return query.getResultList();
+    }
+
+
+    /**
+     * Loads log lines of all given operations with one query per {@code MAX_IDS_PER_QUERY} operations
+     *
+     * @return log lines mapped by operation id
+     */
+    private Map<String, List<String>> getLogLines( EntityManager em, List<TrackerOperationEntity> operations )
+    {
+        Map<String, List<String>> logLines = Maps.newHashMap();
+
+        List<String> operationTrackIds = Lists.newArrayList();
+
+        for ( TrackerOperationEntity operation : operations )
+        {
+            operationTrackIds.add( operation.getOperationTrackId() );
+        }
+
+        for ( List<String> ids : Lists.partition( operationTrackIds, MAX_IDS_PER_QUERY ) )
+        {
+            TypedQuery<TrackerOperationLogEntity> query =
+                    em.createNamedQuery( TrackerOperationLogEntity.QUERY_GET_LOGS, TrackerOperationLogEntity.class );
+            query.setParameter( "operationTrackIds", ids );
+
+            for ( TrackerOperationLogEntity logEntity : query.getResultList() )
+            {
+                List<String> lines = logLines.get( logEntity.getOperationTrackId() );
+
+                if ( lines == null )
+                {
+                    lines = Lists.newArrayList();
+                    logLines.put( logEntity.getOperationTrackId(), lines );
+                }
+
+                lines.add( logEntity.getLine() );
+            }
+        }
+
+        return logLines;
+    }
+
+
+    private List<TrackerOperationView> createTrackerOperations( EntityManager em,
+                                                                List<TrackerOperationEntity> operations )
+    {
+        List<TrackerOperationView> result = Lists.newArrayList();
+
+        Map<String, List<String>> logLines = getLogLines( em, operations );
+
+        for ( TrackerOperationEntity operation : operations )
+        {
+            List<String> operationLogLines = logLines.get( operation.getOperationTrackId() );
+
+            result.add( createTrackerOperation( operation.getInfo(), operationLogLines ) );
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Creates view of tracker operation
+     *
+     * @param infoClob - serialized operation
+     * @param logLines - log lines of operation, operations saved before log lines were stored separately have no
+     * lines and carry their log inside the serialized operation
+     */
+    private TrackerOperationViewImpl createTrackerOperation( String infoClob, List<String> logLines )
     {
         if ( infoClob != null && infoClob.length() > 0 )
         {
             TrackerOperationImpl po = GSON.fromJson( infoClob, TrackerOperationImpl.class );
-            return new TrackerOperationViewImpl( po );
+
+            if ( CollectionUtils.isEmpty( logLines ) )
+            {
+                return new TrackerOperationViewImpl( po );
+            }
+
+            return new TrackerOperationViewImpl( po, Joiner.on( "\n" ).join( logLines ) );
         }
         return null;
     }
@@ -206,12 +401,61 @@ public class TrackerOperationDataService
     }
 
 
+    /**
+     * Appends log lines of tracker operation. Previously stored log lines are not rewritten
+     *
+     * @param source - source of tracker operation
+     * @param po - tracker operation
+     * @param logLines - consecutive log lines to append, empty if there are no new lines
+     * @param fromLine - zero based number of the first of the lines in operation log
+     * @param saveOperation - true if operation itself must be saved too, e.g. when its state has changed
+     * @param userId - id of user, used when operation is saved
+     */
+    public void appendTrackerOperationLog( String source, final TrackerOperationImpl po, final List<String> logLines,
+                                           final int fromLine, final boolean saveOperation, final long userId )
+            throws SQLException
+    {
+        source = source.toUpperCase();
+        EntityManager em = emf.createEntityManager();
+        try
+        {
+            em.getTransaction().begin();
+
+            for ( int i = 0; i < logLines.size(); i++ )
+            {
+                em.persist( new TrackerOperationLogEntity( source, po.getId().toString(), fromLine + i,
+                        logLines.get( i ) ) );
+            }
+
+            if ( saveOperation )
+            {
+                em.merge( extractFromTrackerOperationImpl( source, po, userId ) );
+            }
+
+            em.getTransaction().commit();
+        }
+        catch ( Exception e )
+        {
+            LOGGER.error( "Error appending TrackerOperation log.", e );
+            if ( em.getTransaction().isActive() )
+            {
+                em.getTransaction().rollback();
+            }
+            throw new SQLException( e );
+        }
+        finally
+        {
+            em.close();
+        }
+    }
+
+
     private TrackerOperationEntity extractFromTrackerOperationImpl( String source, TrackerOperationImpl po,
                                                                     long userId )
     {
         source = source.toUpperCase();
-        return new TrackerOperationEntity( source, po.getId().toString(), po.createDate().getTime(), GSON.toJson( po ),
-                userId );
+        return new TrackerOperationEntity( source, po.getId().toString(), po.createDate().getTime(),
+                HEADER_GSON.toJson( po ), userId );
     }
 
 
@@ -225,18 +469,15 @@ public class TrackerOperationDataService
         {
             em.getTransaction().begin();
 
-            TypedQuery<String> query = em.createQuery(
-                    "select to.info from TrackerOperationEntity to where to.source = :source and to.ts >= :fromDate "
-                            + "and to.ts <= :toDate  order by to.ts desc", String.class );
+            TypedQuery<TrackerOperationEntity> query = em.createQuery(
+                    "select to from TrackerOperationEntity to where to.source = :source and to.ts >= :fromDate "
+                            + "and to.ts <= :toDate  order by to.ts desc", TrackerOperationEntity.class );
             query.setParameter( "source", source );
             query.setParameter( "fromDate", fromDate.getTime() );
             query.setParameter( "toDate", toDate.getTime() );
             query.setMaxResults( limit );
-            List<String> infoList = query.getResultList();
-            for ( final String info : infoList )
-            {
-                result.add( createTrackerOperation( info ) );
-            }
+
+            result = createTrackerOperations( em, query.getResultList() );
 
             em.getTransaction().commit();
         }
@@ -298,19 +539,17 @@ public class TrackerOperationDataService
         {
             em.getTransaction().begin();
 
-            TypedQuery<String> query = em.createQuery(
-                    "select to.info from TrackerOperationEntity to where to.source = :source and to.ts >= :fromDate "
-                            + "and to.ts <= :toDate and to.userId = :userId order by to.ts desc", String.class );
+            TypedQuery<TrackerOperationEntity> query = em.createQuery(
+                    "select to from TrackerOperationEntity to where to.source = :source and to.ts >= :fromDate "
+                            + "and to.ts <= :toDate and to.userId = :userId order by to.ts desc",
+                    TrackerOperationEntity.class );
             query.setParameter( "source", source );
             query.setParameter( "fromDate", fromDate.getTime() );
             query.setParameter( "toDate", toDate.getTime() );
             query.setParameter( "userId", userId );
             query.setMaxResults( limit );
-            List<String> infoList = query.getResultList();
-            for ( final String info : infoList )
-            {
-                result.add( createTrackerOperation( info ) );
-            }
+
+            result = createTrackerOperations( em, query.getResultList() );
 
             em.getTransaction().commit();
         }
@@ -416,16 +655,12 @@ public class TrackerOperationDataService
         {
             em.getTransaction().begin();
 
-            TypedQuery<String> query = em.createQuery(
-                    "select to.info from TrackerOperationEntity to where to.viewState = true and to.userId = :userId "
-                            + "order by to.ts desc", String.class );
+            TypedQuery<TrackerOperationEntity> query = em.createQuery(
+                    "select to from TrackerOperationEntity to where to.viewState = true and to.userId = :userId "
+                            + "order by to.ts desc", TrackerOperationEntity.class );
             query.setParameter( "userId", userId );
 
-            List<String> infoList = query.getResultList();
-            for ( final String info : infoList )
-            {
-                result.add( createTrackerOperation( info ) );
-            }
+            result = createTrackerOperations( em, query.getResultList() );
 
             em.getTransaction().commit();
         }
@@ -463,7 +698,7 @@ public class TrackerOperationDataService
 
             for ( final String info : infoList )
             {
-                operationViews.add( createTrackerOperation( info ) );
+                operationViews.add( createTrackerOperation( info, null ) );
             }
 
             em.getTransaction().commit();
@@ -510,6 +745,11 @@ public class TrackerOperationDataService
             query.setParameter( "operationTrackId", operationId.getOperationTrackId() );
             query.executeUpdate();
 
+            Query logQuery = em.createNamedQuery( TrackerOperationLogEntity.QUERY_DELETE_LOG );
+            logQuery.setParameter( "source", operationId.getSource() );
+            logQuery.setParameter( "operationTrackId", operationId.getOperationTrackId() );
+            logQuery.executeUpdate();
+
             em.getTransaction().commit();
         }
         catch ( Exception e )
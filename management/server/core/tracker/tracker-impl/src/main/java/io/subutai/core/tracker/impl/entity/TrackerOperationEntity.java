@@ -67,6 +67,18 @@ public class TrackerOperationEntity
     }
 
 
+    public String getSource()
+    {
+        return source;
+    }
+
+
+    public String getOperationTrackId()
+    {
+        return operationTrackId;
+    }
+
+
     public String getInfo()
     {
         return info;
@@ -0,0 +1,123 @@
+package io.subutai.core.tracker.impl.entity;
+
+
+import javax.persistence.Access;
+import javax.persistence.AccessType;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Lob;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+
+
+/**
+ * Single log line of tracker operation. Lines are only appended, so adding a line to operation log does not rewrite
+ * previously stored lines.
+ */
+@Entity
+@Table( name = "tracker_operation_log" )
+@Access( AccessType.FIELD )
+@IdClass( TrackerOperationLogPK.class )
+@NamedQueries( {
+        @NamedQuery( name = "getTrackerOperationLog", query =
+                "SELECT l.line FROM TrackerOperationLogEntity l WHERE l.source = :source AND l.operationTrackId = "
+                        + ":operationTrackId AND l.lineNumber >= :fromLine ORDER BY l.lineNumber" ),
+        @NamedQuery( name = "getTrackerOperationsLogs", query =
+                "SELECT l FROM TrackerOperationLogEntity l WHERE l.operationTrackId IN :operationTrackIds ORDER BY "
+                        + "l.lineNumber" ),
+        @NamedQuery( name = "deleteTrackerOperationLog", query =
+                "DELETE FROM TrackerOperationLogEntity l WHERE l.source = :source AND l.operationTrackId = "
+                        + ":operationTrackId" )
+} )
+public class TrackerOperationLogEntity
+{
+
+    public static final String QUERY_GET_LOG = "getTrackerOperationLog";
+    public static final String QUERY_GET_LOGS = "getTrackerOperationsLogs";
+    public static final String QUERY_DELETE_LOG = "deleteTrackerOperationLog";
+
+    @Id
+    @Column( name = "source_id" )
+    private String source;
+    @Id
+    @Column( name = "operation_track_id" )
+    private String operationTrackId;
+    @Id
+    @Column( name = "line_number" )
+    private int lineNumber;
+
+    @Lob
+    @Column( name = "line" )
+    private String line;
+
+
+    public TrackerOperationLogEntity( final String source, final String operationTrackId, final int lineNumber,
+                                      final String line )
+    {
+        this.source = source;
+        this.operationTrackId = operationTrackId;
+        this.lineNumber = lineNumber;
+        this.line = line;
+    }
+
+
+    public TrackerOperationLogEntity()
+    {
+    }
+
+
+    public String getSource()
+    {
+        return source;
+    }
+
+
+    public String getOperationTrackId()
+    {
+        return operationTrackId;
+    }
+
+
+    public int getLineNumber()
+    {
+        return lineNumber;
+    }
+
+
+    public String getLine()
+    {
+        return line;
+    }
+
+
+    @Override
+    public boolean equals( final Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( !( o instanceof TrackerOperationLogEntity ) )
+        {
+            return false;
+        }
+
+        final TrackerOperationLogEntity entity = ( TrackerOperationLogEntity ) o;
+
+        return lineNumber == entity.lineNumber && operationTrackId.equals( entity.operationTrackId ) && source
+                .equals( entity.source );
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        int result = source.hashCode();
+        result = 31 * result + operationTrackId.hashCode();
+        result = 31 * result + lineNumber;
+        return result;
+    }
+}
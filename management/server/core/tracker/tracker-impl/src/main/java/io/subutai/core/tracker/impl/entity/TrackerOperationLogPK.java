@@ -0,0 +1,90 @@
+package io.subutai.core.tracker.impl.entity;
+
+
+import java.io.Serializable;
+
+
+public class TrackerOperationLogPK implements Serializable
+{
+    private String source;
+    private String operationTrackId;
+    private int lineNumber;
+
+
+    public TrackerOperationLogPK()
+    {
+    }
+
+
+    public TrackerOperationLogPK( final String source, final String operationTrackId, final int lineNumber )
+    {
+        this.source = source;
+        this.operationTrackId = operationTrackId;
+        this.lineNumber = lineNumber;
+    }
+
+
+    public String getSource()
+    {
+        return source;
+    }
+
+
+    public void setSource( final String source )
+    {
+        this.source = source;
+    }
+
+
+    public String getOperationTrackId()
+    {
+        return operationTrackId;
+    }
+
+
+    public void setOperationTrackId( final String operationTrackId )
+    {
+        this.operationTrackId = operationTrackId;
+    }
+
+
+    public int getLineNumber()
+    {
+        return lineNumber;
+    }
+
+
+    public void setLineNumber( final int lineNumber )
+    {
+        this.lineNumber = lineNumber;
+    }
+
+
+    @Override
+    public boolean equals( final Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( !( o instanceof TrackerOperationLogPK ) )
+        {
+            return false;
+        }
+
+        final TrackerOperationLogPK that = ( TrackerOperationLogPK ) o;
+
+        return lineNumber == that.lineNumber && operationTrackId.equals( that.operationTrackId ) && source
+                .equals( that.source );
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+        int result = source.hashCode();
+        result = 31 * result + operationTrackId.hashCode();
+        result = 31 * result + lineNumber;
+        return result;
+    }
+}
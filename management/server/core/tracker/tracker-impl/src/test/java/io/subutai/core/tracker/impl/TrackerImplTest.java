@@ -8,6 +8,9 @@ package io.subutai.core.tracker.impl;
 
 import java.util.Date;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
@@ -19,20 +22,31 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import com.google.common.collect.Lists;
+
 import io.subutai.common.dao.DaoManager;
 import io.subutai.common.test.SystemOutRedirectTest;
 import io.subutai.common.tracker.OperationState;
+import io.subutai.common.tracker.TrackerOperation;
+import io.subutai.common.tracker.TrackerOperationLog;
 import io.subutai.common.tracker.TrackerOperationView;
 import io.subutai.core.identity.api.IdentityManager;
 import io.subutai.core.identity.api.model.User;
 import io.subutai.core.tracker.impl.dao.TrackerOperationDataService;
 
 import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -53,8 +67,6 @@ public class TrackerImplTest extends SystemOutRedirectTest
     @Mock
     private TrackerOperationImpl productOperation;
     @Mock
-    private TrackerOperationView productOperationView;
-    @Mock
     DaoManager daoManager;
     @Mock
     EntityManagerFactory entityManagerFactory;
@@ -119,6 +131,30 @@ public class TrackerImplTest extends SystemOutRedirectTest
     }
 
 
+    @Test
+    public void testGetActiveTrackerOperation() throws Exception
+    {
+        TrackerOperation operation = tracker.createTrackerOperation( SOURCE, DESCRIPTION );
+        operation.addLog( DESCRIPTION );
+
+        TrackerOperationView view = tracker.getTrackerOperation( SOURCE, operation.getId() );
+
+        assertEquals( operation.getLog(), view.getLog() );
+        assertEquals( 1, tracker.getTrackerOperationLog( SOURCE, operation.getId(), 0 ).size() );
+        verify( dataService, never() ).getTrackerUserOperation( anyString(), any( UUID.class ), anyLong() );
+
+        operation.addLogDone( DESCRIPTION );
+
+        verify( dataService )
+                .appendTrackerOperationLog( eq( SOURCE.toUpperCase() ), eq( ( TrackerOperationImpl ) operation ),
+                        anyListOf( String.class ), eq( 1 ), eq( true ), eq( 1L ) );
+
+        tracker.getTrackerOperation( SOURCE, operation.getId() );
+
+        verify( dataService ).getTrackerUserOperation( SOURCE, operation.getId(), 1L );
+    }
+
+
     @Test
     public void testGetTrackerOperations() throws Exception
     {
@@ -147,13 +183,65 @@ public class TrackerImplTest extends SystemOutRedirectTest
     @Test
     public void testPrintOperationLog() throws Exception
     {
-        doReturn( productOperationView ).when( tracker ).getTrackerOperation( SOURCE.toUpperCase(), OPERATION_ID );
-        when( productOperationView.getLog() ).thenReturn( "log" );
-        when( productOperationView.getState() ).thenReturn( OperationState.RUNNING )
-                                               .thenReturn( OperationState.SUCCEEDED );
+        doReturn( new TrackerOperationLog( Lists.newArrayList( "log" ), 1, OperationState.RUNNING ) )
+                .when( tracker ).waitForTrackerOperationLog( eq( SOURCE.toUpperCase() ), eq( OPERATION_ID ), eq( 0 ),
+                anyLong() );
+        doReturn( new TrackerOperationLog( Lists.<String>newArrayList(), 1, OperationState.SUCCEEDED ) )
+                .when( tracker ).waitForTrackerOperationLog( eq( SOURCE.toUpperCase() ), eq( OPERATION_ID ), eq( 1 ),
+                anyLong() );
 
         tracker.printOperationLog( SOURCE, OPERATION_ID, 200 );
 
         assertEquals( "log", getSysOut() );
     }
+
+
+    @Test
+    public void testWaitForTrackerOperationLog() throws Exception
+    {
+        final TrackerOperation operation = tracker.createTrackerOperation( SOURCE, DESCRIPTION );
+        operation.addLog( DESCRIPTION );
+
+        TrackerOperationLog operationLog = tracker.waitForTrackerOperationLog( SOURCE, operation.getId(), 1, 10 );
+
+        assertTrue( operationLog.getLines().isEmpty() );
+        assertEquals( 1, operationLog.getNextLine() );
+
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        executor.schedule( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                operation.addLogDone( DESCRIPTION );
+            }
+        }, 100, TimeUnit.MILLISECONDS );
+
+        operationLog = tracker.waitForTrackerOperationLog( SOURCE, operation.getId(), 1, 10000 );
+
+        assertEquals( 1, operationLog.getLines().size() );
+        assertEquals( 2, operationLog.getNextLine() );
+        assertEquals( OperationState.SUCCEEDED, operationLog.getState() );
+
+        executor.shutdown();
+    }
+
+
+    @Test
+    public void testWaitForStoredTrackerOperationLog() throws Exception
+    {
+        TrackerOperationView operationView = mock( TrackerOperationView.class );
+        doReturn( true ).when( identityManager ).isAdmin();
+        doReturn( operationView ).when( dataService ).getTrackerOperation( SOURCE, OPERATION_ID );
+        doReturn( DESCRIPTION ).when( operationView ).getLog();
+        doReturn( OperationState.RUNNING ).when( operationView ).getState();
+
+        long start = System.currentTimeMillis();
+
+        TrackerOperationLog operationLog = tracker.waitForTrackerOperationLog( SOURCE, OPERATION_ID, 1, 500 );
+
+        assertTrue( System.currentTimeMillis() - start >= 500 );
+        assertTrue( operationLog.getLines().isEmpty() );
+        verify( dataService, atMost( 5 ) ).getTrackerOperation( SOURCE, OPERATION_ID );
+    }
 }
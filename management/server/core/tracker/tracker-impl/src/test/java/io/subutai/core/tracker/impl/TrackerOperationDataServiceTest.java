@@ -21,10 +21,15 @@ import com.google.common.collect.Lists;
 
 import io.subutai.core.tracker.impl.dao.TrackerOperationDataService;
 import io.subutai.core.tracker.impl.entity.TrackerOperationEntity;
+import io.subutai.core.tracker.impl.entity.TrackerOperationLogEntity;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -68,6 +73,8 @@ public class TrackerOperationDataServiceTest
         when( entityManager
                 .createNamedQuery( TrackerOperationEntity.QUERY_GET_OPERATION, TrackerOperationEntity.class ) )
                 .thenReturn( typedQuery );
+        when( entityManager.createNamedQuery( TrackerOperationLogEntity.QUERY_GET_LOG, String.class ) )
+                .thenReturn( typedQuery );
 
         trackerOperation = new TrackerOperationImpl( SOURCE, DESCRIPTION, tracker );
     }
@@ -129,6 +136,24 @@ public class TrackerOperationDataServiceTest
     }
 
 
+    @Test
+    public void testAppendTrackerOperationLog() throws Exception
+    {
+        trackerOperationDataService
+                .appendTrackerOperationLog( SOURCE, trackerOperation, Lists.newArrayList( DESCRIPTION, DESCRIPTION ),
+                        0, false, 0 );
+
+        verify( entityManager, times( 2 ) ).persist( isA( TrackerOperationLogEntity.class ) );
+        verify( entityManager, never() ).merge( any() );
+        verify( entityTransaction ).commit();
+
+        trackerOperationDataService
+                .appendTrackerOperationLog( SOURCE, trackerOperation, Lists.<String>newArrayList(), 2, true, 0 );
+
+        verify( entityManager ).merge( isA( TrackerOperationEntity.class ) );
+    }
+
+
     @Test( expected = SQLException.class )
     public void testGetTrackerOperations() throws Exception
     {
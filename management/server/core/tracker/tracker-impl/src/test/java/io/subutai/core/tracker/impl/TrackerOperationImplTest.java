@@ -8,12 +8,14 @@ package io.subutai.core.tracker.impl;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import org.junit.Test;
 
 import io.subutai.common.tracker.OperationState;
+import io.subutai.common.tracker.TrackerOperationLog;
 import io.subutai.common.util.UUIDUtil;
 
 import static org.hamcrest.CoreMatchers.containsString;
@@ -21,7 +23,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -128,7 +137,87 @@ public class TrackerOperationImplTest
 
         poi.addLogFailed( DUMMY_LOG );
 
-        verify( ti ).saveTrackerOperation( SOURCE, poi );
+        verify( ti ).appendTrackerOperationLog( SOURCE, poi, poi.getLogLines( 0 ), 0, true );
+    }
+
+
+    @Test
+    public void shouldAppendOnlyNewLine()
+    {
+        TrackerImpl ti = mock( TrackerImpl.class );
+        when( ti.appendTrackerOperationLog( anyString(), any( TrackerOperationImpl.class ), anyListOf( String.class ),
+                anyInt(), anyBoolean() ) ).thenReturn( true );
+        TrackerOperationImpl poi = new TrackerOperationImpl( SOURCE, DESCRIPTION, ti );
+
+        poi.addLog( DUMMY_LOG );
+        poi.addLog( "" );
+        poi.addLog( DUMMY_LOG + 2 );
+
+        verify( ti ).appendTrackerOperationLog( SOURCE, poi, poi.getLogLines( 0 ).subList( 0, 1 ), 0, false );
+        verify( ti ).appendTrackerOperationLog( SOURCE, poi, poi.getLogLines( 1 ), 1, false );
+        verify( ti, times( 2 ) )
+                .appendTrackerOperationLog( anyString(), any( TrackerOperationImpl.class ), anyListOf( String.class ),
+                        anyInt(), anyBoolean() );
+    }
+
+
+    @Test
+    public void shouldRetryLinesFailedToAppend()
+    {
+        TrackerImpl ti = mock( TrackerImpl.class );
+        when( ti.appendTrackerOperationLog( anyString(), any( TrackerOperationImpl.class ), anyListOf( String.class ),
+                anyInt(), anyBoolean() ) ).thenReturn( false, true );
+        TrackerOperationImpl poi = new TrackerOperationImpl( SOURCE, DESCRIPTION, ti );
+
+        poi.addLog( DUMMY_LOG );
+        poi.addLogDone( DUMMY_LOG + 2 );
+
+        verify( ti ).appendTrackerOperationLog( SOURCE, poi, poi.getLogLines( 0 ), 0, true );
+
+        //nothing is left to store
+        poi.addLog( DUMMY_LOG );
+
+        verify( ti, times( 2 ) )
+                .appendTrackerOperationLog( anyString(), any( TrackerOperationImpl.class ), anyListOf( String.class ),
+                        anyInt(), anyBoolean() );
+    }
+
+
+    @Test
+    public void testGetLogLines()
+    {
+        TrackerOperationImpl poi = new TrackerOperationImpl( SOURCE, DESCRIPTION, mock( TrackerImpl.class ) );
+
+        poi.addLog( DUMMY_LOG );
+        poi.addLog( DUMMY_LOG + 2 );
+
+        List<String> lines = poi.getLogLines( 0 );
+
+        assertEquals( 2, lines.size() );
+        assertEquals( poi.getLog(), lines.get( 0 ) + "\n" + lines.get( 1 ) );
+        assertEquals( lines.subList( 1, 2 ), poi.getLogLines( 1 ) );
+        assertTrue( poi.getLogLines( 2 ).isEmpty() );
+    }
+
+
+    @Test
+    public void testWaitForLogLines()
+    {
+        TrackerOperationImpl poi = new TrackerOperationImpl( SOURCE, DESCRIPTION, mock( TrackerImpl.class ) );
+
+        poi.addLog( DUMMY_LOG );
+
+        TrackerOperationLog operationLog = poi.waitForLogLines( 0, 0 );
+
+        assertEquals( 1, operationLog.getLines().size() );
+        assertEquals( 1, operationLog.getNextLine() );
+
+        poi.addLogFailed( DUMMY_LOG );
+
+        operationLog = poi.waitForLogLines( 2, 10000 );
+
+        assertTrue( operationLog.getLines().isEmpty() );
+        assertEquals( OperationState.FAILED, operationLog.getState() );
     }
 
 
@@ -1,11 +1,13 @@
 package io.subutai.core.tracker.rest.ui;
 
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
@@ -19,6 +21,18 @@ public interface RestService
     Response getTrackerOperation(@PathParam("source") String source, @PathParam("uuid") String uuid);
 
 
+    /**
+     * Long polling of operation log. Responds as soon as lines after the given line are appended or operation
+     * completes, or when the timeout elapses
+     */
+    @GET
+    @Path( "operations/{source}/{uuid}/log" )
+    @Produces( { MediaType.APPLICATION_JSON } )
+    Response getTrackerOperationLog( @PathParam( "source" ) String source, @PathParam( "uuid" ) String uuid,
+                                     @DefaultValue( "0" ) @QueryParam( "from" ) int fromLine,
+                                     @DefaultValue( "30000" ) @QueryParam( "timeout" ) long timeoutMs );
+
+
     @GET
     @Path( "operations/{source}/{dateFrom}/{dateTo}/{limit}" )
     @Produces( { MediaType.APPLICATION_JSON } )
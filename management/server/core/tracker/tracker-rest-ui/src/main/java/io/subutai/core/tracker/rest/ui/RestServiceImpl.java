@@ -14,6 +14,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 
+import io.subutai.common.tracker.TrackerOperationLog;
 import io.subutai.common.tracker.TrackerOperationView;
 import io.subutai.common.util.JsonUtil;
 import io.subutai.core.tracker.api.Tracker;
@@ -23,6 +24,7 @@ public class RestServiceImpl implements RestService
 {
 
     private static final Logger LOG = LoggerFactory.getLogger( RestServiceImpl.class.getName() );
+    private static final long MAX_LOG_WAIT_MS = 60000;
 
     private final Tracker tracker;
 
@@ -61,6 +63,34 @@ public class RestServiceImpl implements RestService
     }
 
 
+    @Override
+    public Response getTrackerOperationLog( final String source, final String uuid, final int fromLine,
+                                            final long timeoutMs )
+    {
+        try
+        {
+            UUID poUUID = UUID.fromString( uuid );
+
+            TrackerOperationLog operationLog = tracker.waitForTrackerOperationLog( source, poUUID, fromLine,
+                    Math.max( 0, Math.min( timeoutMs, MAX_LOG_WAIT_MS ) ) );
+
+            if ( operationLog != null )
+            {
+                return Response.ok().entity( JsonUtil.toJson( operationLog ) ).build();
+            }
+            else
+            {
+                return Response.status( Response.Status.NOT_FOUND ).build();
+            }
+        }
+        catch ( NullPointerException | IllegalArgumentException e )
+        {
+            LOG.error( "Error in getTrackerOperationLog", e );
+            return Response.status( Response.Status.BAD_REQUEST ).entity( e.getMessage() ).build();
+        }
+    }
+
+
     @Override
     public Response getTrackerOperations( final String source, final String fromDate, final String toDate,
                                           final int limit )
@@ -34,6 +34,11 @@ public class CacheEntry<V>
 
     private ReentrantLock lock = new ReentrantLock( true );
 
+    /**
+     * handle of the scheduled expiry check
+     */
+    private volatile HashedTimerWheel.Timeout timeout;
+
 
     void lock()
     {
@@ -84,6 +89,39 @@ public class CacheEntry<V>
     }
 
 
+    /**
+     * Returns time left until entry expires
+     *
+     * @return remaining time-to-live in milliseconds, 0 if entry has expired
+     */
+    long getRemainingTtlMs()
+    {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - createTimestamp.get() );
+
+        return Math.max( 0, ttlMs - elapsedMs );
+    }
+
+
+    void setTimeout( final HashedTimerWheel.Timeout timeout )
+    {
+        this.timeout = timeout;
+    }
+
+
+    /**
+     * Cancels scheduled expiry check of this entry if any
+     */
+    void cancelTimeout()
+    {
+        HashedTimerWheel.Timeout currentTimeout = timeout;
+
+        if ( currentTimeout != null )
+        {
+            currentTimeout.cancel();
+        }
+    }
+
+
     /**
      * Returns boolean indicating if entry has expired. Entry is considered to be expired if specified {@code ttl} has
      * passed since the moment of entry creation
@@ -7,101 +7,132 @@ package io.subutai.common.cache;
 
 
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.subutai.common.util.BoundedCachedExecutor;
+
 
 /**
  * This is a cache with entries having time-to-live setting. After the specified interval entry gets evicted (expires).
- * It is possible to add expiry callback to an entry to handle the expiration event
+ * It is possible to add expiry callback to an entry to handle the expiration event.
+ *
+ * Expiration is driven by a {@code HashedTimerWheel} shared by all cache instances, so no cache owns a thread and
+ * eviction does not scan entries. Expiry callbacks are executed on a shared bounded executor.
  */
 public class ExpiringCache<K, V>
 {
     private static final Logger LOG = LoggerFactory.getLogger( ExpiringCache.class.getName() );
 
-    private static final long EVICTION_RUN_INTERVAL_MS = 100;
-    private final Map<K, CacheEntry<V>> entries = new ConcurrentHashMap<>();
+    private static final int EXPIRATION_NOTIFIER_THREADS = 4;
+    private static final ExecutorService EXPIRATION_NOTIFIER =
+            new BoundedCachedExecutor( EXPIRATION_NOTIFIER_THREADS, EXPIRATION_NOTIFIER_THREADS, 60 );
+
+    private final ConcurrentMap<K, CacheEntry<V>> entries = new ConcurrentHashMap<>();
 
-    private final ScheduledExecutorService evictor;
-    private final ExecutorService expirationNotifier;
+    private final HashedTimerWheel timer;
 
 
     /**
-     * Initializes {@code ExpiringCache}. Starts evictor executor service
+     * Initializes {@code ExpiringCache} backed by the shared timer wheel
      */
     public ExpiringCache()
     {
-        evictor = Executors.newSingleThreadScheduledExecutor();
+        this( HashedTimerWheel.getSharedInstance() );
+    }
 
-        expirationNotifier = Executors.newCachedThreadPool();
 
-        evictor.scheduleWithFixedDelay( new Runnable()
+    ExpiringCache( final HashedTimerWheel timer )
+    {
+        this.timer = timer;
+    }
+
+
+    private void scheduleExpiry( final K key, final CacheEntry<V> entry, long delayMs )
+    {
+        entry.setTimeout( timer.schedule( new Runnable()
         {
             @Override
             public void run()
             {
                 try
                 {
-                    evictExpiredEntries();
+                    checkExpiry( key, entry );
                 }
                 catch ( Exception e )
                 {
                     LOG.error( "Error in eviction task", e );
                 }
             }
-        }, 0, EVICTION_RUN_INTERVAL_MS, TimeUnit.MILLISECONDS );
+        }, delayMs ) );
     }
 
 
-    private void evictExpiredEntries()
+    private void checkExpiry( final K key, final CacheEntry<V> entry )
     {
-        for ( Iterator<Map.Entry<K, CacheEntry<V>>> it = entries.entrySet().iterator(); it.hasNext(); )
-        {
-            final Map.Entry<K, CacheEntry<V>> entry = it.next();
+        entry.lock();
 
-            entry.getValue().lock();
-
-            try
+        try
+        {
+            if ( !entry.isExpired() )
             {
-                if ( entry.getValue().isExpired() )
+                //lifespan was prolonged by get, check again later
+                if ( entries.get( key ) == entry )
                 {
-                    it.remove();
-
-                    if ( entry.getValue() instanceof CacheEntryWithExpiryCallback )
-                    {
-                        evictEntry( ( CacheEntryWithExpiryCallback ) entry.getValue() );
-                    }
+                    scheduleExpiry( key, entry, entry.getRemainingTtlMs() );
                 }
             }
-            finally
+            else if ( entries.remove( key, entry ) && entry instanceof CacheEntryWithExpiryCallback )
             {
-                entry.getValue().unlock();
+                evictEntry( ( CacheEntryWithExpiryCallback ) entry );
             }
         }
+        finally
+        {
+            entry.unlock();
+        }
     }
 
 
     private void evictEntry( final CacheEntryWithExpiryCallback callback )
     {
-        expirationNotifier.execute( new Runnable()
+        EXPIRATION_NOTIFIER.execute( new Runnable()
         {
             @Override
             public void run()
             {
-                callback.callExpiryCallback();
+                try
+                {
+                    callback.callExpiryCallback();
+                }
+                catch ( Exception e )
+                {
+                    LOG.error( "Error in expiry callback", e );
+                }
             }
         } );
     }
 
 
+    private void addEntry( final K key, final CacheEntry<V> entry, long ttlMs )
+    {
+        //entry must be in place before its timeout can fire
+        CacheEntry<V> previous = entries.put( key, entry );
+
+        if ( previous != null )
+        {
+            previous.cancelTimeout();
+        }
+
+        scheduleExpiry( key, entry, ttlMs );
+    }
+
+
     /**
      * Returns entry or null if missing or expired. Resets lifespan of entry
      *
@@ -150,7 +181,7 @@ public class ExpiringCache<K, V>
     {
         if ( key != null && value != null && ttlMs > 0 )
         {
-            entries.put( key, new CacheEntry<>( value, ttlMs ) );
+            addEntry( key, new CacheEntry<>( value, ttlMs ), ttlMs );
             return true;
         }
         return false;
@@ -171,7 +202,7 @@ public class ExpiringCache<K, V>
     {
         if ( key != null && value != null && ttlMs > 0 )
         {
-            entries.put( key, new CacheEntryWithExpiryCallback<>( value, ttlMs, callback ) );
+            addEntry( key, new CacheEntryWithExpiryCallback<>( value, ttlMs, callback ), ttlMs );
             return true;
         }
         return false;
@@ -192,6 +223,7 @@ public class ExpiringCache<K, V>
             CacheEntry<V> entry = entries.remove( key );
             if ( entry != null )
             {
+                entry.cancelTimeout();
                 return entry.getValue();
             }
         }
@@ -215,6 +247,11 @@ public class ExpiringCache<K, V>
      */
     public void clear()
     {
+        for ( CacheEntry<V> entry : entries.values() )
+        {
+            entry.cancelTimeout();
+        }
+
         entries.clear();
     }
 
@@ -235,8 +272,6 @@ public class ExpiringCache<K, V>
      */
     public void dispose()
     {
-        evictor.shutdown();
-        expirationNotifier.shutdown();
-        entries.clear();
+        clear();
     }
 }
@@ -0,0 +1,435 @@
+package io.subutai.common.cache;
+
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+
+/**
+ * Hashed timer wheel. Schedules tasks with O(1) insertion and cancellation. A single worker thread advances the wheel
+ * one bucket per tick and runs tasks whose deadline has been reached, so expiry precision is limited by the tick
+ * duration. Tasks are run on the worker thread and must be short, offload heavy work to another executor. Worker
+ * thread is started lazily and parks while the wheel is empty.
+ */
+public class HashedTimerWheel
+{
+    private static final Logger LOG = LoggerFactory.getLogger( HashedTimerWheel.class.getName() );
+
+    private static final long DEFAULT_TICK_MS = 100;
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+    //max number of new timeouts moved into wheel per tick to avoid starving expiration
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private static final HashedTimerWheel SHARED_INSTANCE =
+            new HashedTimerWheel( DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE, "shared-timer-wheel" );
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final String name;
+
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pendingTimeouts = new AtomicLong();
+    private final Object idleMonitor = new Object();
+
+    private volatile Thread workerThread;
+    private volatile boolean stopped;
+    private long startTime;
+    private long tick;
+
+
+    public HashedTimerWheel( long tickMs, int wheelSize, String name )
+    {
+        Preconditions.checkArgument( tickMs > 0, "Tick duration must be greater than 0" );
+        Preconditions.checkArgument( wheelSize > 0, "Wheel size must be greater than 0" );
+
+        //round wheel size up to power of two
+        int normalizedSize = 1;
+        while ( normalizedSize < wheelSize )
+        {
+            normalizedSize <<= 1;
+        }
+
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos( tickMs );
+        this.wheel = new Bucket[normalizedSize];
+        this.mask = normalizedSize - 1;
+        this.name = name;
+
+        for ( int i = 0; i < normalizedSize; i++ )
+        {
+            wheel[i] = new Bucket();
+        }
+    }
+
+
+    /**
+     * Returns timer wheel shared by all components of this bundle
+     */
+    public static HashedTimerWheel getSharedInstance()
+    {
+        return SHARED_INSTANCE;
+    }
+
+
+    /**
+     * Schedules task for one-time execution after the given delay
+     *
+     * @param task - task to run
+     * @param delayMs - delay in milliseconds
+     *
+     * @return handle which can be used to cancel the task
+     */
+    public Timeout schedule( Runnable task, long delayMs )
+    {
+        Preconditions.checkNotNull( task, "Task is null" );
+        Preconditions.checkState( !stopped, "Timer is stopped" );
+
+        start();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( Math.max( 0, delayMs ) ) - startTime;
+
+        Timeout timeout = new Timeout( this, task, deadline );
+
+        pendingTimeouts.incrementAndGet();
+
+        newTimeouts.add( timeout );
+
+        synchronized ( idleMonitor )
+        {
+            idleMonitor.notifyAll();
+        }
+
+        return timeout;
+    }
+
+
+    /**
+     * Returns number of scheduled not yet fired and not cancelled tasks
+     */
+    public long getPendingTimeouts()
+    {
+        return pendingTimeouts.get();
+    }
+
+
+    /**
+     * Stops the worker thread. Pending tasks are discarded
+     */
+    public void stop()
+    {
+        stopped = true;
+
+        Thread worker = workerThread;
+
+        if ( worker != null )
+        {
+            worker.interrupt();
+        }
+    }
+
+
+    private void start()
+    {
+        if ( workerThread == null )
+        {
+            synchronized ( this )
+            {
+                if ( workerThread == null )
+                {
+                    startTime = System.nanoTime();
+
+                    Thread worker = new Thread( new Worker(), name );
+                    worker.setDaemon( true );
+                    worker.start();
+
+                    workerThread = worker;
+                }
+            }
+        }
+    }
+
+
+    private class Worker implements Runnable
+    {
+        @Override
+        public void run()
+        {
+            while ( !stopped )
+            {
+                try
+                {
+                    awaitWork();
+
+                    long deadline = waitForNextTick();
+
+                    processCancelledTimeouts();
+
+                    Bucket bucket = wheel[( int ) ( tick & mask )];
+
+                    transferTimeouts();
+
+                    bucket.expireTimeouts( deadline );
+
+                    tick++;
+                }
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+
+                    return;
+                }
+                catch ( Exception e )
+                {
+                    LOG.error( "Error in timer wheel worker", e );
+                }
+            }
+        }
+
+
+        private void awaitWork() throws InterruptedException
+        {
+            synchronized ( idleMonitor )
+            {
+                while ( pendingTimeouts.get() == 0 && !stopped )
+                {
+                    idleMonitor.wait();
+                }
+            }
+        }
+
+
+        private long waitForNextTick() throws InterruptedException
+        {
+            long deadline = tickNanos * ( tick + 1 );
+
+            long sleepNanos = deadline - ( System.nanoTime() - startTime );
+
+            if ( sleepNanos > 0 )
+            {
+                TimeUnit.NANOSECONDS.sleep( sleepNanos );
+            }
+
+            return deadline;
+        }
+
+
+        private void transferTimeouts()
+        {
+            for ( int i = 0; i < MAX_TRANSFERS_PER_TICK; i++ )
+            {
+                Timeout timeout = newTimeouts.poll();
+
+                if ( timeout == null )
+                {
+                    break;
+                }
+
+                if ( timeout.state.get() == Timeout.ST_CANCELLED )
+                {
+                    continue;
+                }
+
+                long calculated = timeout.deadline / tickNanos;
+                timeout.remainingRounds = ( calculated - tick ) / wheel.length;
+
+                //schedule already expired timeouts into the current tick
+                long ticks = Math.max( calculated, tick );
+
+                wheel[( int ) ( ticks & mask )].add( timeout );
+            }
+        }
+
+
+        private void processCancelledTimeouts()
+        {
+            Timeout timeout;
+
+            while ( ( timeout = cancelledTimeouts.poll() ) != null )
+            {
+                if ( timeout.bucket != null )
+                {
+                    timeout.bucket.remove( timeout );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Handle of a scheduled task
+     */
+    public static final class Timeout
+    {
+        private static final int ST_INIT = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED = 2;
+
+        private final HashedTimerWheel timer;
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger( ST_INIT );
+
+        //fields below are accessed by worker thread only
+        private long remainingRounds;
+        private Timeout next;
+        private Timeout prev;
+        private Bucket bucket;
+
+
+        private Timeout( final HashedTimerWheel timer, final Runnable task, final long deadline )
+        {
+            this.timer = timer;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+
+        /**
+         * Cancels the task.
+         *
+         * @return true if the task was cancelled, false if it has already fired or been cancelled
+         */
+        public boolean cancel()
+        {
+            if ( !state.compareAndSet( ST_INIT, ST_CANCELLED ) )
+            {
+                return false;
+            }
+
+            timer.pendingTimeouts.decrementAndGet();
+
+            timer.cancelledTimeouts.add( this );
+
+            return true;
+        }
+
+
+        public boolean isCancelled()
+        {
+            return state.get() == ST_CANCELLED;
+        }
+
+
+        public boolean isExpired()
+        {
+            return state.get() == ST_EXPIRED;
+        }
+
+
+        private void expire()
+        {
+            if ( !state.compareAndSet( ST_INIT, ST_EXPIRED ) )
+            {
+                return;
+            }
+
+            timer.pendingTimeouts.decrementAndGet();
+
+            try
+            {
+                task.run();
+            }
+            catch ( Exception e )
+            {
+                LOG.error( "Error running timer task", e );
+            }
+        }
+    }
+
+
+    /**
+     * Doubly linked list of timeouts hashed into the same wheel slot
+     */
+    private static final class Bucket
+    {
+        private Timeout head;
+        private Timeout tail;
+
+
+        private void add( Timeout timeout )
+        {
+            timeout.bucket = this;
+
+            if ( head == null )
+            {
+                head = tail = timeout;
+            }
+            else
+            {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+
+        private void expireTimeouts( long deadline )
+        {
+            Timeout timeout = head;
+
+            while ( timeout != null )
+            {
+                Timeout next = timeout.next;
+
+                if ( timeout.remainingRounds <= 0 && timeout.deadline <= deadline )
+                {
+                    remove( timeout );
+
+                    timeout.expire();
+                }
+                else if ( timeout.isCancelled() )
+                {
+                    remove( timeout );
+                }
+                else
+                {
+                    timeout.remainingRounds--;
+                }
+
+                timeout = next;
+            }
+        }
+
+
+        private void remove( Timeout timeout )
+        {
+            if ( timeout.bucket != this )
+            {
+                return;
+            }
+
+            Timeout next = timeout.next;
+
+            if ( timeout.prev != null )
+            {
+                timeout.prev.next = next;
+            }
+            if ( next != null )
+            {
+                next.prev = timeout.prev;
+            }
+
+            if ( timeout == head )
+            {
+                head = next;
+            }
+            if ( timeout == tail )
+            {
+                tail = timeout.prev;
+            }
+
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
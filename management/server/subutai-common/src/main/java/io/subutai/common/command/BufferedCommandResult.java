@@ -0,0 +1,132 @@
+package io.subutai.common.command;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Preconditions;
+
+import io.subutai.common.exception.ActionFailedException;
+
+
+/**
+ * Command result backed by command output buffers. Holds a snapshot of output produced so far, output is only
+ * materialized into strings when requested.
+ */
+public class BufferedCommandResult implements CommandResult
+{
+    private final Integer exitCode;
+    private final CommandOutput stdOut;
+    private final long stdOutLength;
+    private final CommandOutput stdErr;
+    private final long stdErrLength;
+    private final CommandStatus status;
+
+
+    public BufferedCommandResult( final Integer exitCode, final CommandOutput stdOut, final CommandOutput stdErr,
+                                  final CommandStatus status )
+    {
+        Preconditions.checkNotNull( stdOut );
+        Preconditions.checkNotNull( stdErr );
+
+        this.exitCode = exitCode;
+        this.stdOut = stdOut;
+        this.stdOutLength = stdOut.length();
+        this.stdErr = stdErr;
+        this.stdErrLength = stdErr.length();
+        this.status = status;
+    }
+
+
+    @Override
+    public Integer getExitCode()
+    {
+        return exitCode;
+    }
+
+
+    @Override
+    public String getStdOut()
+    {
+        return toString( stdOut, stdOutLength );
+    }
+
+
+    @Override
+    public String getStdErr()
+    {
+        return toString( stdErr, stdErrLength );
+    }
+
+
+    @Override
+    public InputStream openStdOut() throws IOException
+    {
+        return stdOut.openStream( stdOutLength );
+    }
+
+
+    @Override
+    public InputStream openStdErr() throws IOException
+    {
+        return stdErr.openStream( stdErrLength );
+    }
+
+
+    @Override
+    public boolean hasSucceeded()
+    {
+        return status == CommandStatus.SUCCEEDED;
+    }
+
+
+    @Override
+    public boolean hasCompleted()
+    {
+        return status == CommandStatus.FAILED || status == CommandStatus.SUCCEEDED;
+    }
+
+
+    @Override
+    public boolean hasTimedOut()
+    {
+        return status == CommandStatus.TIMEOUT || status == CommandStatus.KILLED;
+    }
+
+
+    @Override
+    public CommandStatus getStatus()
+    {
+        return status;
+    }
+
+
+    @Override
+    public void close()
+    {
+        stdOut.dispose();
+        stdErr.dispose();
+    }
+
+
+    private String toString( CommandOutput output, long length )
+    {
+        try
+        {
+            return output.toString( length );
+        }
+        catch ( IOException e )
+        {
+            throw new ActionFailedException( "Failed to read command output", e );
+        }
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return MoreObjects.toStringHelper( this ).add( "exitCode", exitCode ).add( "stdOutLength", stdOutLength )
+                          .add( "stdErrLength", stdErrLength ).add( "status", status ).toString();
+    }
+}
@@ -2,7 +2,9 @@ package io.subutai.common.command;
 
 
 /**
- * Callback that might be passed to Host.execute method
+ * Callback that might be passed to Host.execute method. Responses are delivered in order on a thread shared with other
+ * commands, so onResponse should return quickly and must not wait for the result of another command; hand long work
+ * off to a separate executor.
  */
 public interface CommandCallback
 {
@@ -0,0 +1,288 @@
+package io.subutai.common.command;
+
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Preconditions;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+
+
+/**
+ * Output of a command. Output is kept in memory up to a threshold, past it the whole output is moved to a temporary
+ * file and further output is appended there. Output can be read back as a whole or as a stream up to a given length,
+ * so that readers see a consistent snapshot while output keeps growing. Once the command completes the output is
+ * closed, the temporary file is removed on {@link #dispose()}. Reading disposed output fails rather than returning
+ * empty output.
+ */
+public class CommandOutput
+{
+    private static final Logger LOG = LoggerFactory.getLogger( CommandOutput.class );
+
+    public static final int DEFAULT_SPILL_THRESHOLD = 512 * 1024;
+
+    private final int spillThreshold;
+    private byte[] buffer = new byte[0];
+    private File file;
+    private OutputStream fileStream;
+    private long length;
+    private boolean closed;
+    private boolean disposed;
+
+
+    public CommandOutput()
+    {
+        this( DEFAULT_SPILL_THRESHOLD );
+    }
+
+
+    public CommandOutput( final int spillThreshold )
+    {
+        Preconditions.checkArgument( spillThreshold >= 0, "Invalid threshold" );
+
+        this.spillThreshold = spillThreshold;
+    }
+
+
+    public synchronized void append( String text )
+    {
+        if ( closed || text == null || text.isEmpty() )
+        {
+            return;
+        }
+
+        byte[] bytes = text.getBytes( Charsets.UTF_8 );
+
+        if ( file == null && length + bytes.length > spillThreshold )
+        {
+            spill();
+        }
+
+        if ( file != null )
+        {
+            try
+            {
+                fileStream.write( bytes );
+
+                length += bytes.length;
+
+                return;
+            }
+            catch ( IOException e )
+            {
+                LOG.error( "Error writing command output to {}", file, e );
+
+                //keep output in memory
+                unspill();
+            }
+        }
+
+        if ( length + bytes.length > buffer.length )
+        {
+            buffer = Arrays.copyOf( buffer, ( int ) Math.max( length + bytes.length, buffer.length * 2L ) );
+        }
+
+        System.arraycopy( bytes, 0, buffer, ( int ) length, bytes.length );
+
+        length += bytes.length;
+    }
+
+
+    /**
+     * Returns length of output in bytes
+     */
+    public synchronized long length()
+    {
+        return length;
+    }
+
+
+    public synchronized boolean isSpilled()
+    {
+        return file != null;
+    }
+
+
+    public synchronized boolean isDisposed()
+    {
+        return disposed;
+    }
+
+
+    /**
+     * Opens stream of the first {@code limit} bytes of output. Caller must close the stream.
+     */
+    public synchronized InputStream openStream( long limit ) throws IOException
+    {
+        if ( disposed )
+        {
+            throw new IOException( "Command output is disposed" );
+        }
+
+        long size = Math.min( limit, length );
+
+        if ( file == null )
+        {
+            return new ByteArrayInputStream( buffer, 0, ( int ) size );
+        }
+
+        if ( fileStream != null )
+        {
+            fileStream.flush();
+        }
+
+        return ByteStreams.limit( new FileInputStream( file ), size );
+    }
+
+
+    public InputStream openStream() throws IOException
+    {
+        return openStream( length() );
+    }
+
+
+    /**
+     * Returns the first {@code limit} bytes of output as string
+     */
+    public String toString( long limit ) throws IOException
+    {
+        InputStream inputStream = openStream( limit );
+
+        try
+        {
+            return new String( ByteStreams.toByteArray( inputStream ), Charsets.UTF_8 );
+        }
+        finally
+        {
+            Closeables.closeQuietly( inputStream );
+        }
+    }
+
+
+    /**
+     * Completes output, further appends are ignored. Output can still be read until disposed
+     */
+    public synchronized void close()
+    {
+        closed = true;
+
+        if ( fileStream != null )
+        {
+            close( fileStream );
+
+            fileStream = null;
+        }
+    }
+
+
+    /**
+     * Removes temporary file if any, output is discarded and can no longer be read
+     */
+    public synchronized void dispose()
+    {
+        close();
+
+        disposed = true;
+
+        if ( file != null )
+        {
+            if ( !file.delete() )
+            {
+                LOG.warn( "Could not delete {}", file );
+            }
+
+            file = null;
+        }
+
+        buffer = new byte[0];
+        length = 0;
+    }
+
+
+    private void spill()
+    {
+        File tempFile = null;
+        OutputStream outputStream = null;
+
+        try
+        {
+            tempFile = File.createTempFile( "command-output", ".tmp" );
+
+            outputStream = new BufferedOutputStream( new FileOutputStream( tempFile ) );
+
+            outputStream.write( buffer, 0, ( int ) length );
+
+            file = tempFile;
+            fileStream = outputStream;
+            buffer = new byte[0];
+        }
+        catch ( IOException e )
+        {
+            LOG.error( "Error spilling command output to disk", e );
+
+            //keep output in memory
+            if ( tempFile != null )
+            {
+                close( outputStream );
+
+                if ( !tempFile.delete() )
+                {
+                    LOG.warn( "Could not delete {}", tempFile );
+                }
+            }
+        }
+    }
+
+
+    private void unspill()
+    {
+        try
+        {
+            close( fileStream );
+
+            fileStream = null;
+            buffer = Files.readAllBytes( file.toPath() );
+            length = buffer.length;
+        }
+        catch ( IOException e )
+        {
+            LOG.error( "Error reading command output from {}", file, e );
+
+            buffer = new byte[0];
+            length = 0;
+        }
+
+        if ( !file.delete() )
+        {
+            LOG.warn( "Could not delete {}", file );
+        }
+
+        file = null;
+    }
+
+
+    private static void close( OutputStream outputStream )
+    {
+        try
+        {
+            Closeables.close( outputStream, true );
+        }
+        catch ( IOException e )
+        {
+            //ignore
+        }
+    }
+}
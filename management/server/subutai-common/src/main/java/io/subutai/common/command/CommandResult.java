@@ -1,6 +1,10 @@
 package io.subutai.common.command;
 
 
+import java.io.IOException;
+import java.io.InputStream;
+
+
 /**
  * Command Result returned by Host.execute
  */
@@ -28,6 +32,21 @@ public interface CommandResult
     public String getStdErr();
 
 
+    /**
+     * Opens command output as stream, so that large output can be read without materializing it. Caller must close
+     * the stream
+     * @return - command output in UTF-8
+     */
+    public InputStream openStdOut() throws IOException;
+
+
+    /**
+     * Opens error messages as stream. Caller must close the stream
+     * @return - error messages in UTF-8
+     */
+    public InputStream openStdErr() throws IOException;
+
+
     /**
      * Command exit code status
      * @return - true if status equals CommandStatus.SUCCEEDED
@@ -53,4 +72,10 @@ public interface CommandResult
      * @return - Returns status of a command
      */
     public CommandStatus getStatus();
+
+
+    /**
+     * Releases resources held by result, e.g. output spilled to disk. Output can not be read afterwards
+     */
+    public void close();
 }
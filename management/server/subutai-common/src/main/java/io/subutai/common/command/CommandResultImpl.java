@@ -1,8 +1,13 @@
 package io.subutai.common.command;
 
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Charsets;
 import com.google.common.base.MoreObjects;
+import com.google.common.base.Strings;
 
 
 /**
@@ -65,6 +70,20 @@ public class CommandResultImpl implements CommandResult
     }
 
 
+    @Override
+    public InputStream openStdOut()
+    {
+        return new ByteArrayInputStream( Strings.nullToEmpty( stdOut ).getBytes( Charsets.UTF_8 ) );
+    }
+
+
+    @Override
+    public InputStream openStdErr()
+    {
+        return new ByteArrayInputStream( Strings.nullToEmpty( stdErr ).getBytes( Charsets.UTF_8 ) );
+    }
+
+
     @Override
     public boolean hasSucceeded()
     {
@@ -93,6 +112,13 @@ public class CommandResultImpl implements CommandResult
     }
 
 
+    @Override
+    public void close()
+    {
+        //output is held in memory
+    }
+
+
     @Override
     public String toString()
     {
@@ -0,0 +1,25 @@
+package io.subutai.common.command;
+
+
+import java.util.List;
+
+
+/**
+ * Wrapper to serialize a batch of responses
+ */
+public class ResponsesWrapper
+{
+    private final List<ResponseImpl> responses;
+
+
+    public ResponsesWrapper( final List<ResponseImpl> responses )
+    {
+        this.responses = responses;
+    }
+
+
+    public List<ResponseImpl> getResponses()
+    {
+        return responses;
+    }
+}
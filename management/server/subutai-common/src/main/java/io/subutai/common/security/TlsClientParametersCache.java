@@ -0,0 +1,179 @@
+package io.subutai.common.security;
+
+
+import java.io.File;
+import java.security.KeyStore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.X509KeyManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+import org.apache.cxf.transport.https.AliasedX509ExtendedKeyManager;
+
+import io.subutai.common.security.crypto.keystore.KeyStoreData;
+import io.subutai.common.security.crypto.keystore.KeyStoreTool;
+import io.subutai.common.security.crypto.ssl.SSLManager;
+import io.subutai.common.settings.SecuritySettings;
+
+
+/**
+ * Caches TLS client parameters built from PX2 keystore and truststore. Key material is reloaded only when either file
+ * changes on disk or {@link #invalidate()} is called. All clients share one SSL socket factory, so keep-alive
+ * connections and TLS sessions to peers are reused across web clients.
+ */
+public final class TlsClientParametersCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger( TlsClientParametersCache.class );
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private static volatile Entry entry;
+
+
+    private TlsClientParametersCache()
+    {
+        throw new IllegalAccessError( "Utility class" );
+    }
+
+
+    /**
+     * Returns TLS client parameters, reloading key material if keystore or truststore has changed
+     */
+    public static TLSClientParameters getTlsClientParameters()
+    {
+        KeyStoreData keyStoreData = new KeyStoreData();
+        keyStoreData.setupKeyStorePx2();
+        keyStoreData.setAlias( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
+
+        KeyStoreData trustStoreData = new KeyStoreData();
+        trustStoreData.setupTrustStorePx2();
+
+        return getTlsClientParameters( keyStoreData, trustStoreData );
+    }
+
+
+    static TLSClientParameters getTlsClientParameters( KeyStoreData keyStoreData, KeyStoreData trustStoreData )
+    {
+        String stamp = GENERATION.get() + ";" + stamp( keyStoreData ) + ";" + stamp( trustStoreData );
+
+        Entry current = entry;
+
+        if ( current != null && current.stamp.equals( stamp ) )
+        {
+            return current.tlsClientParameters;
+        }
+
+        synchronized ( TlsClientParametersCache.class )
+        {
+            current = entry;
+
+            if ( current == null || !current.stamp.equals( stamp ) )
+            {
+                current = new Entry( stamp, load( keyStoreData, trustStoreData ) );
+
+                entry = current;
+            }
+
+            return current.tlsClientParameters;
+        }
+    }
+
+
+    /**
+     * Forces reload of key material on next request, must be called when keystore or truststore is modified
+     */
+    public static void invalidate()
+    {
+        GENERATION.incrementAndGet();
+    }
+
+
+    private static String stamp( KeyStoreData keyStoreData )
+    {
+        File file = new File( keyStoreData.getKeyStoreFile() );
+
+        return file.getPath() + ":" + file.lastModified() + ":" + file.length();
+    }
+
+
+    private static TLSClientParameters load( KeyStoreData keyStoreData, KeyStoreData trustStoreData )
+    {
+        LOG.debug( "Loading key with alias: {}", SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
+
+        KeyStoreTool keyStoreManager = new KeyStoreTool();
+        KeyStore keyStore = keyStoreManager.load( keyStoreData );
+        KeyStore trustStore = keyStoreManager.load( trustStoreData );
+
+        SSLManager sslManager = new SSLManager( keyStore, keyStoreData, trustStore, trustStoreData );
+
+        TLSClientParameters tlsClientParameters = new TLSClientParameters();
+        tlsClientParameters.setDisableCNCheck( true );
+        tlsClientParameters.setTrustManagers( sslManager.getClientTrustManagers() );
+        tlsClientParameters.setKeyManagers( sslManager.getClientKeyManagers() );
+        tlsClientParameters.setCertAlias( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
+
+        try
+        {
+            //the same socket factory instance lets JDK reuse pooled connections and TLS sessions
+            SSLContext sslContext = SSLContext.getInstance( "TLS" );
+            sslContext.init( aliasKeyManagers( tlsClientParameters.getKeyManagers() ),
+                    tlsClientParameters.getTrustManagers(), null );
+
+            tlsClientParameters.setSSLSocketFactory( sslContext.getSocketFactory() );
+        }
+        catch ( Exception e )
+        {
+            LOG.error( "Error creating SSL socket factory, falling back to per client factory", e );
+        }
+
+        return tlsClientParameters;
+    }
+
+
+    /**
+     * Makes key managers always pick the PX2 root key, the same as CXF does for the cert alias of its own factories
+     */
+    private static KeyManager[] aliasKeyManagers( KeyManager[] keyManagers ) throws Exception
+    {
+        if ( keyManagers == null )
+        {
+            return null;
+        }
+
+        KeyManager[] aliasedKeyManagers = new KeyManager[keyManagers.length];
+
+        for ( int i = 0; i < keyManagers.length; i++ )
+        {
+            if ( keyManagers[i] instanceof X509KeyManager )
+            {
+                aliasedKeyManagers[i] = new AliasedX509ExtendedKeyManager( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS,
+                        ( X509KeyManager ) keyManagers[i] );
+            }
+            else
+            {
+                aliasedKeyManagers[i] = keyManagers[i];
+            }
+        }
+
+        return aliasedKeyManagers;
+    }
+
+
+    private static class Entry
+    {
+        private final String stamp;
+        private final TLSClientParameters tlsClientParameters;
+
+
+        private Entry( final String stamp, final TLSClientParameters tlsClientParameters )
+        {
+            this.stamp = stamp;
+            this.tlsClientParameters = tlsClientParameters;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package io.subutai.common.security;
 
 
-import java.security.KeyStore;
 import java.util.Arrays;
 import java.util.Collections;
 
@@ -12,18 +11,14 @@ import javax.ws.rs.core.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.apache.cxf.configuration.jsse.TLSClientParameters;
 import org.apache.cxf.jaxrs.client.WebClient;
 import org.apache.cxf.transport.http.HTTPConduit;
+import org.apache.cxf.transports.http.configuration.ConnectionType;
 import org.apache.cxf.transports.http.configuration.HTTPClientPolicy;
 
 import io.subutai.common.peer.PeerException;
 import io.subutai.common.peer.PeerInfo;
-import io.subutai.common.security.crypto.keystore.KeyStoreData;
-import io.subutai.common.security.crypto.keystore.KeyStoreTool;
-import io.subutai.common.security.crypto.ssl.SSLManager;
 import io.subutai.common.settings.Common;
-import io.subutai.common.settings.SecuritySettings;
 
 
 /**
@@ -59,39 +54,9 @@ public class WebClientBuilder
         {
             client = WebClient.create( effectiveUrl, Collections.singletonList( provider ) );
         }
-        client.type( MediaType.APPLICATION_JSON );
-        client.accept( MediaType.APPLICATION_JSON );
-
-        HTTPConduit httpConduit = ( HTTPConduit ) WebClient.getConfig( client ).getConduit();
-
-        HTTPClientPolicy httpClientPolicy = new HTTPClientPolicy();
-        httpClientPolicy.setConnectionTimeout( connectTimeoutMs );
-        httpClientPolicy.setReceiveTimeout( readTimeoutMs );
-        httpClientPolicy.setMaxRetransmits( maxAttempts );
-
-        httpConduit.setClient( httpClientPolicy );
 
-        KeyStoreTool keyStoreManager = new KeyStoreTool();
-        KeyStoreData keyStoreData = new KeyStoreData();
-        keyStoreData.setupKeyStorePx2();
-        keyStoreData.setAlias( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
-        KeyStore keyStore = keyStoreManager.load( keyStoreData );
+        configure( client, connectTimeoutMs, readTimeoutMs, maxAttempts );
 
-        LOG.debug( String.format( "Getting key with alias: %s for url: %s", SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS,
-                effectiveUrl ) );
-
-        KeyStoreData trustStoreData = new KeyStoreData();
-        trustStoreData.setupTrustStorePx2();
-        KeyStore trustStore = keyStoreManager.load( trustStoreData );
-
-        SSLManager sslManager = new SSLManager( keyStore, keyStoreData, trustStore, trustStoreData );
-
-        TLSClientParameters tlsClientParameters = new TLSClientParameters();
-        tlsClientParameters.setDisableCNCheck( true );
-        tlsClientParameters.setTrustManagers( sslManager.getClientTrustManagers() );
-        tlsClientParameters.setKeyManagers( sslManager.getClientKeyManagers() );
-        tlsClientParameters.setCertAlias( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
-        httpConduit.setTlsClientParameters( tlsClientParameters );
         return client;
     }
 
@@ -110,38 +75,9 @@ public class WebClientBuilder
         String effectiveUrl = String.format( ENVIRONMENT_URL_TEMPLATE, peerInfo.getIp(), peerInfo.getPublicSecurePort(),
                 path.startsWith( "/" ) ? path : "/" + path );
         WebClient client = WebClient.create( effectiveUrl, Arrays.asList( provider ) );
-        client.type( MediaType.APPLICATION_JSON );
-        client.accept( MediaType.APPLICATION_JSON );
-        HTTPConduit httpConduit = ( HTTPConduit ) WebClient.getConfig( client ).getConduit();
 
-        HTTPClientPolicy httpClientPolicy = new HTTPClientPolicy();
-        httpClientPolicy.setConnectionTimeout( connectTimeoutMs );
-        httpClientPolicy.setReceiveTimeout( readTimeoutMs );
-        httpClientPolicy.setMaxRetransmits( maxAttempts );
+        configure( client, connectTimeoutMs, readTimeoutMs, maxAttempts );
 
-        httpConduit.setClient( httpClientPolicy );
-
-        KeyStoreTool keyStoreManager = new KeyStoreTool();
-        KeyStoreData keyStoreData = new KeyStoreData();
-        keyStoreData.setupKeyStorePx2();
-        keyStoreData.setAlias( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
-        KeyStore keyStore = keyStoreManager.load( keyStoreData );
-
-        LOG.debug( String.format( "Getting key with alias: %s for url: %s", SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS,
-                effectiveUrl ) );
-
-        KeyStoreData trustStoreData = new KeyStoreData();
-        trustStoreData.setupTrustStorePx2();
-        KeyStore trustStore = keyStoreManager.load( trustStoreData );
-
-        SSLManager sslManager = new SSLManager( keyStore, keyStoreData, trustStore, trustStoreData );
-
-        TLSClientParameters tlsClientParameters = new TLSClientParameters();
-        tlsClientParameters.setDisableCNCheck( true );
-        tlsClientParameters.setTrustManagers( sslManager.getClientTrustManagers() );
-        tlsClientParameters.setKeyManagers( sslManager.getClientKeyManagers() );
-        tlsClientParameters.setCertAlias( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
-        httpConduit.setTlsClientParameters( tlsClientParameters );
         return client;
     }
 
@@ -149,42 +85,31 @@ public class WebClientBuilder
     public static WebClient buildEnvironmentWebClient( final PeerInfo peerInfo, final String path,
                                                        final Object provider )
     {
-        String effectiveUrl = String.format( ENVIRONMENT_URL_TEMPLATE, peerInfo.getIp(), peerInfo.getPublicSecurePort(),
-                path.startsWith( "/" ) ? path : "/" + path );
-        WebClient client = WebClient.create( effectiveUrl, Arrays.asList( provider ) );
+        return buildEnvironmentWebClient( peerInfo, path, provider, DEFAULT_CONNECTION_TIMEOUT,
+                DEFAULT_RECEIVE_TIMEOUT, DEFAULT_MAX_RETRANSMITS );
+    }
+
+
+    /**
+     * Sets up content type, timeouts and TLS of the client. TLS parameters are cached and shared by all clients, so
+     * key material is not read from disk and connections to peers are reused
+     */
+    private static void configure( WebClient client, long connectTimeoutMs, long readTimeoutMs, int maxAttempts )
+    {
         client.type( MediaType.APPLICATION_JSON );
         client.accept( MediaType.APPLICATION_JSON );
+
         HTTPConduit httpConduit = ( HTTPConduit ) WebClient.getConfig( client ).getConduit();
 
         HTTPClientPolicy httpClientPolicy = new HTTPClientPolicy();
-        httpClientPolicy.setConnectionTimeout( DEFAULT_CONNECTION_TIMEOUT );
-        httpClientPolicy.setReceiveTimeout( DEFAULT_RECEIVE_TIMEOUT );
-        httpClientPolicy.setMaxRetransmits( DEFAULT_MAX_RETRANSMITS );
+        httpClientPolicy.setConnectionTimeout( connectTimeoutMs );
+        httpClientPolicy.setReceiveTimeout( readTimeoutMs );
+        httpClientPolicy.setMaxRetransmits( maxAttempts );
+        httpClientPolicy.setConnection( ConnectionType.KEEP_ALIVE );
 
         httpConduit.setClient( httpClientPolicy );
 
-        KeyStoreTool keyStoreManager = new KeyStoreTool();
-        KeyStoreData keyStoreData = new KeyStoreData();
-        keyStoreData.setupKeyStorePx2();
-        keyStoreData.setAlias( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
-        KeyStore keyStore = keyStoreManager.load( keyStoreData );
-
-        LOG.debug( String.format( "Getting key with alias: %s for url: %s", SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS,
-                effectiveUrl ) );
-
-        KeyStoreData trustStoreData = new KeyStoreData();
-        trustStoreData.setupTrustStorePx2();
-        KeyStore trustStore = keyStoreManager.load( trustStoreData );
-
-        SSLManager sslManager = new SSLManager( keyStore, keyStoreData, trustStore, trustStoreData );
-
-        TLSClientParameters tlsClientParameters = new TLSClientParameters();
-        tlsClientParameters.setDisableCNCheck( true );
-        tlsClientParameters.setTrustManagers( sslManager.getClientTrustManagers() );
-        tlsClientParameters.setKeyManagers( sslManager.getClientKeyManagers() );
-        tlsClientParameters.setCertAlias( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
-        httpConduit.setTlsClientParameters( tlsClientParameters );
-        return client;
+        httpConduit.setTlsClientParameters( TlsClientParametersCache.getTlsClientParameters() );
     }
 
 
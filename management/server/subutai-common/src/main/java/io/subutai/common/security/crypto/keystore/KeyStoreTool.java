@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.subutai.common.exception.ActionFailedException;
+import io.subutai.common.security.TlsClientParametersCache;
 import io.subutai.common.security.crypto.certificate.CertificateData;
 import io.subutai.common.security.crypto.certificate.CertificateTool;
 import io.subutai.common.security.crypto.key.KeyManager;
@@ -150,6 +151,9 @@ public class KeyStoreTool
         {
             LOGGER.error( "Error saving keystore", ex );
         }
+
+        //drop cached key material of web clients
+        TlsClientParametersCache.invalidate();
     }
 
 
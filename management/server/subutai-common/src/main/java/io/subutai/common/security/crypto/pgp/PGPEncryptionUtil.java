@@ -3,6 +3,8 @@ package io.subutai.common.security.crypto.pgp;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -19,6 +21,8 @@ import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.x500.X500Name;
@@ -95,6 +99,7 @@ public class PGPEncryptionUtil
     private static final Logger LOG = LoggerFactory.getLogger( PGPEncryptionUtil.class );
     private static final BouncyCastleProvider provider = new BouncyCastleProvider();
     private static final char[] HEX_ARRAY = "0123456789ABCDEF".toCharArray();
+    private static final int STREAM_BUFFER_SIZE = 1 << 16;
 
     static
     {
@@ -143,6 +148,71 @@ public class PGPEncryptionUtil
     }
 
 
+    /**
+     * Returns stream which encrypts data written to it into the given stream. Data is compressed and encrypted as it
+     * is written using partial length packets, so memory usage does not depend on message size. Closing the returned
+     * stream finishes the message but leaves the given stream open.
+     */
+    public static OutputStream encrypt( final OutputStream out, final PGPPublicKey publicKey, final boolean armored )
+            throws PGPException
+    {
+        try
+        {
+            final OutputStream theOut = armored ? new ArmoredOutputStream( out ) : out;
+            final PGPEncryptedDataGenerator generator = new PGPEncryptedDataGenerator(
+                    new JcePGPDataEncryptorBuilder( SymmetricKeyAlgorithmTags.AES_256 ).setWithIntegrityPacket( true )
+                                                                                       .setSecureRandom(
+                                                                                               new SecureRandom() )
+                                                                                       .setProvider( provider ) );
+            generator.addMethod( new JcePublicKeyKeyEncryptionMethodGenerator( publicKey ).setProvider( provider ) );
+            final OutputStream cOut = generator.open( theOut, new byte[STREAM_BUFFER_SIZE] );
+            final PGPCompressedDataGenerator comData = new PGPCompressedDataGenerator( CompressionAlgorithmTags.ZIP );
+            final PGPLiteralDataGenerator literal = new PGPLiteralDataGenerator();
+            final OutputStream pOut = literal.open( comData.open( cOut ), PGPLiteralData.BINARY, "filename", new Date(),
+                    new byte[STREAM_BUFFER_SIZE] );
+
+            return new FilterOutputStream( pOut )
+            {
+                private boolean closed = false;
+
+
+                @Override
+                public void write( final byte[] b, final int off, final int len ) throws IOException
+                {
+                    pOut.write( b, off, len );
+                }
+
+
+                @Override
+                public void close() throws IOException
+                {
+                    if ( closed )
+                    {
+                        return;
+                    }
+
+                    closed = true;
+
+                    literal.close();
+                    comData.close();
+                    generator.close();
+
+                    if ( armored )
+                    {
+                        theOut.close();
+                    }
+
+                    out.flush();
+                }
+            };
+        }
+        catch ( Exception e )
+        {
+            throw new PGPException( "Error in encrypt", e );
+        }
+    }
+
+
     public static byte[] decrypt( final byte[] encryptedMessage, final PGPSecretKeyRing secretKeyRing,
                                   final String secretPwd ) throws PGPException
     {
@@ -174,6 +244,99 @@ public class PGPEncryptionUtil
     }
 
 
+    /**
+     * Decrypts message reusing private keys extracted by previous calls. Extraction of a private key runs the S2K
+     * derivation which dominates the cost of decrypting small messages.
+     *
+     * @param privateKeys - private keys by key id, populated with keys extracted by this call. Keys are taken from it
+     * only for key ids present in the secret key ring
+     */
+    public static byte[] decrypt( final byte[] encryptedMessage, final PGPSecretKeyRing secretKeyRing,
+                                  final String secretPwd, final ConcurrentMap<Long, PGPPrivateKey> privateKeys )
+            throws PGPException
+    {
+        try ( InputStream in = decrypt( new ByteArrayInputStream( encryptedMessage ), secretKeyRing, secretPwd,
+                privateKeys ) )
+        {
+            return Streams.readAll( in );
+        }
+        catch ( IOException e )
+        {
+            throw new PGPException( "Error in decrypt", e );
+        }
+    }
+
+
+    public static InputStream decrypt( final InputStream encryptedMessage, final PGPSecretKeyRing secretKeyRing,
+                                       final String secretPwd ) throws PGPException
+    {
+        return decrypt( encryptedMessage, secretKeyRing, secretPwd, new ConcurrentHashMap<Long, PGPPrivateKey>() );
+    }
+
+
+    /**
+     * Returns decrypted content of encrypted message. Only packet headers are read upfront, the content is decrypted
+     * and decompressed as the returned stream is read. Closing the returned stream closes the encrypted message.
+     *
+     * @param privateKeys - private keys by key id, populated with keys extracted by this call. Keys are taken from it
+     * only for key ids present in the secret key ring
+     */
+    public static InputStream decrypt( final InputStream encryptedMessage, final PGPSecretKeyRing secretKeyRing,
+                                       final String secretPwd, final ConcurrentMap<Long, PGPPrivateKey> privateKeys )
+            throws PGPException
+    {
+        try
+        {
+            PGPPrivateKey key = null;
+            PGPPublicKeyEncryptedData encrypted = null;
+
+            for ( final Iterator<PGPPublicKeyEncryptedData> i = getEncryptedObjects( encryptedMessage );
+                  ( key == null ) && i.hasNext(); )
+            {
+                encrypted = i.next();
+
+                //cached key is used only if it belongs to the given ring
+                PGPSecretKey secretKey = secretKeyRing.getSecretKey( encrypted.getKeyID() );
+
+                if ( secretKey != null )
+                {
+                    key = privateKeys.get( encrypted.getKeyID() );
+
+                    if ( key == null )
+                    {
+                        key = getPrivateKey( secretKey, secretPwd );
+                    }
+
+                    if ( key != null )
+                    {
+                        privateKeys.putIfAbsent( encrypted.getKeyID(), key );
+                    }
+                }
+            }
+            if ( key == null )
+            {
+                throw new IllegalArgumentException( "secret key for message not found." );
+            }
+
+            final InputStream stream = encrypted.getDataStream(
+                    new JcePublicKeyDataDecryptorFactoryBuilder().setProvider( provider ).build( key ) );
+
+            return new FilterInputStream( asLiteral( stream ).getInputStream() )
+            {
+                @Override
+                public void close() throws IOException
+                {
+                    encryptedMessage.close();
+                }
+            };
+        }
+        catch ( Exception e )
+        {
+            throw new PGPException( "Error in decrypt", e );
+        }
+    }
+
+
     private static PGPLiteralData asLiteral( final byte[] message, final InputStream secretKeyRing,
                                              final String secretPwd ) throws IOException, PGPException
     {
@@ -198,14 +361,20 @@ public class PGPEncryptionUtil
     }
 
 
-    @SuppressWarnings( "unchecked" )
     private static Iterator<PGPPublicKeyEncryptedData> getEncryptedObjects( final byte[] message ) throws IOException
+    {
+        return getEncryptedObjects( new ByteArrayInputStream( message ) );
+    }
+
+
+    @SuppressWarnings( "unchecked" )
+    private static Iterator<PGPPublicKeyEncryptedData> getEncryptedObjects( final InputStream message )
+            throws IOException
     {
         try
         {
             final PGPObjectFactory factory =
-                    new PGPObjectFactory( PGPUtil.getDecoderStream( new ByteArrayInputStream( message ) ),
-                            new JcaKeyFingerprintCalculator() );
+                    new PGPObjectFactory( PGPUtil.getDecoderStream( message ), new JcaKeyFingerprintCalculator() );
             final Object first = factory.nextObject();
             final Object list = ( first instanceof PGPEncryptedDataList ) ? first : factory.nextObject();
             return ( ( PGPEncryptedDataList ) list ).getEncryptedDataObjects();
@@ -0,0 +1,64 @@
+package io.subutai.common.tracker;
+
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+
+/**
+ * Portion of operation log returned to clients following the log. Clients resume from {@link #getNextLine()}
+ */
+public class TrackerOperationLog
+{
+    private final List<String> lines;
+    private final int nextLine;
+    private final OperationState state;
+
+
+    public TrackerOperationLog( final List<String> lines, final int nextLine, final OperationState state )
+    {
+        Preconditions.checkNotNull( lines, "Lines are null" );
+        Preconditions.checkArgument( nextLine >= 0, "Next line must not be negative" );
+
+        this.lines = Lists.newArrayList( lines );
+        this.nextLine = nextLine;
+        this.state = state;
+    }
+
+
+    /**
+     * Returns log lines appended since the requested line
+     */
+    public List<String> getLines()
+    {
+        return Collections.unmodifiableList( lines );
+    }
+
+
+    /**
+     * Returns zero based number of the line to request next
+     */
+    public int getNextLine()
+    {
+        return nextLine;
+    }
+
+
+    /**
+     * Returns state of operation at the moment the lines were read
+     */
+    public OperationState getState()
+    {
+        return state;
+    }
+
+
+    @Override
+    public String toString()
+    {
+        return "TrackerOperationLog{" + "lines=" + lines.size() + ", nextLine=" + nextLine + ", state=" + state + '}';
+    }
+}
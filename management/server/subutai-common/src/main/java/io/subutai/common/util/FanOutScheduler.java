@@ -0,0 +1,561 @@
+package io.subutai.common.util;
+
+
+import java.security.AccessControlContext;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.security.PrivilegedExceptionAction;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ExecutionList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+
+/**
+ * Scheduler of parallel steps shared by {@link PeerUtil}, {@link TaskUtil} and {@link HostUtil}. Tasks are submitted to
+ * a lane, e.g. a peer or a resource host, which limits how many of them run at once. Queued tasks of a lane are grouped
+ * by environment and served round-robin, so that a large environment does not starve the others. All lanes share one
+ * pool of threads which are reused across calls and released when idle. Since a reused thread keeps the security
+ * context of whoever created it, each task runs under the access control context of the thread which submitted it.
+ */
+public class FanOutScheduler
+{
+    private static final Logger LOG = LoggerFactory.getLogger( FanOutScheduler.class );
+
+    private static final String DEFAULT_GROUP = "";
+    private static final long SLOW_WAIT_THRESHOLD_MS = 1000;
+
+    private static final FanOutScheduler INSTANCE = new FanOutScheduler( "fan-out" );
+
+    private final ExecutorService executor;
+
+    //guarded by this
+    private final Map<String, Lane> lanes = Maps.newHashMap();
+    private final Map<String, LaneStats> laneStats = Maps.newHashMap();
+
+
+    FanOutScheduler( String name )
+    {
+        this.executor = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat( name + "-%d" ).setDaemon( true ).build() );
+    }
+
+
+    public static FanOutScheduler getInstance()
+    {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Submits task to lane
+     *
+     * @param laneId id of lane, e.g. target host id
+     * @param maxParallel maximum number of tasks of the lane running at once, a value less than or equal to 0 means
+     * unlimited
+     * @param groupId id of environment the task belongs to, may be null
+     * @param task task to run
+     */
+    public <T> ListenableFuture<T> submit( String laneId, int maxParallel, String groupId, Callable<T> task )
+    {
+        return submit( laneId, laneId, maxParallel, groupId, task );
+    }
+
+
+    /**
+     * Submits task to lane, statistics are collected under the given key, so that short-lived lanes of the same kind
+     * are reported together
+     */
+    public <T> ListenableFuture<T> submit( String laneId, String statsKey, int maxParallel, String groupId,
+                                           Callable<T> task )
+    {
+        Preconditions.checkArgument( !Strings.isNullOrEmpty( laneId ), "Invalid lane id" );
+        Preconditions.checkArgument( !Strings.isNullOrEmpty( statsKey ), "Invalid stats key" );
+        Preconditions.checkNotNull( task, "Invalid task" );
+
+        ScheduledTask<T> scheduledTask = new ScheduledTask<>( withContext( task, AccessController.getContext() ), laneId,
+                statsKey, Strings.isNullOrEmpty( groupId ) ? DEFAULT_GROUP : groupId );
+
+        synchronized ( this )
+        {
+            Lane lane = lanes.get( laneId );
+
+            if ( lane == null )
+            {
+                lane = new Lane();
+
+                lanes.put( laneId, lane );
+            }
+
+            lane.maxParallel = maxParallel;
+
+            lane.enqueue( scheduledTask );
+
+            statsOf( statsKey ).submitted++;
+
+            dispatch( laneId, lane );
+        }
+
+        return scheduledTask;
+    }
+
+
+    /**
+     * Cancels queued and running tasks of environment
+     *
+     * @return true if any task was cancelled
+     */
+    public boolean cancel( String groupId )
+    {
+        Preconditions.checkArgument( !Strings.isNullOrEmpty( groupId ), "Invalid group id" );
+
+        List<ScheduledTask<?>> tasks = Lists.newArrayList();
+
+        synchronized ( this )
+        {
+            for ( Lane lane : lanes.values() )
+            {
+                Deque<ScheduledTask<?>> queue = lane.queues.get( groupId );
+
+                if ( queue != null )
+                {
+                    tasks.addAll( queue );
+                }
+
+                for ( ScheduledTask<?> task : lane.running )
+                {
+                    if ( groupId.equals( task.groupId ) )
+                    {
+                        tasks.add( task );
+                    }
+                }
+            }
+        }
+
+        boolean cancelled = false;
+
+        for ( ScheduledTask<?> task : tasks )
+        {
+            cancelled |= task.cancel( true );
+        }
+
+        return cancelled;
+    }
+
+
+    /**
+     * Returns snapshot of statistics per stats key, by default per lane
+     */
+    public synchronized Map<String, LaneStats> getStats()
+    {
+        Map<String, LaneStats> stats = Maps.newHashMap();
+
+        for ( Map.Entry<String, LaneStats> entry : laneStats.entrySet() )
+        {
+            stats.put( entry.getKey(), new LaneStats( entry.getValue() ) );
+        }
+
+        for ( Lane lane : lanes.values() )
+        {
+            for ( Deque<ScheduledTask<?>> queue : lane.queues.values() )
+            {
+                for ( ScheduledTask<?> task : queue )
+                {
+                    stats.get( task.statsKey ).queued++;
+                }
+            }
+
+            for ( ScheduledTask<?> task : lane.running )
+            {
+                stats.get( task.statsKey ).running++;
+            }
+        }
+
+        return stats;
+    }
+
+
+    void shutdown()
+    {
+        executor.shutdownNow();
+
+        try
+        {
+            executor.awaitTermination( 1, TimeUnit.SECONDS );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * Wraps task so that it runs as the submitting user, e.g. Subject of the caller, on whatever pool thread picks it up
+     */
+    private static <T> Callable<T> withContext( final Callable<T> task, final AccessControlContext context )
+    {
+        return new Callable<T>()
+        {
+            @Override
+            public T call() throws Exception
+            {
+                try
+                {
+                    return AccessController.doPrivileged( new PrivilegedExceptionAction<T>()
+                    {
+                        @Override
+                        public T run() throws Exception
+                        {
+                            return task.call();
+                        }
+                    }, context );
+                }
+                catch ( PrivilegedActionException e )
+                {
+                    throw e.getException();
+                }
+            }
+        };
+    }
+
+
+    //must be called under lock
+    private void dispatch( String laneId, Lane lane )
+    {
+        while ( lane.hasCapacity() )
+        {
+            ScheduledTask<?> task = lane.poll();
+
+            if ( task == null )
+            {
+                break;
+            }
+
+            lane.running.add( task );
+
+            executor.execute( task );
+        }
+
+        if ( lane.running.isEmpty() && lane.size == 0 )
+        {
+            lanes.remove( laneId );
+        }
+    }
+
+
+    private synchronized void onStart( ScheduledTask<?> task )
+    {
+        long waitTime = task.startTime - task.submitTime;
+
+        LaneStats stats = statsOf( task.statsKey );
+
+        stats.totalWaitMillis += waitTime;
+        stats.maxWaitMillis = Math.max( stats.maxWaitMillis, waitTime );
+
+        if ( waitTime > SLOW_WAIT_THRESHOLD_MS )
+        {
+            LOG.debug( "Task waited {} ms in lane {}", waitTime, task.laneId );
+        }
+    }
+
+
+    private synchronized void onComplete( ScheduledTask<?> task, long runTime )
+    {
+        LaneStats stats = statsOf( task.statsKey );
+
+        stats.completed++;
+        stats.totalRunMillis += runTime;
+
+        Lane lane = lanes.get( task.laneId );
+
+        if ( lane != null )
+        {
+            lane.running.remove( task );
+
+            dispatch( task.laneId, lane );
+        }
+    }
+
+
+    private synchronized void onCancel( ScheduledTask<?> task )
+    {
+        Lane lane = lanes.get( task.laneId );
+
+        if ( lane != null && lane.remove( task ) )
+        {
+            statsOf( task.statsKey ).cancelled++;
+
+            dispatch( task.laneId, lane );
+        }
+    }
+
+
+    private LaneStats statsOf( String statsKey )
+    {
+        LaneStats stats = laneStats.get( statsKey );
+
+        if ( stats == null )
+        {
+            stats = new LaneStats();
+
+            laneStats.put( statsKey, stats );
+        }
+
+        return stats;
+    }
+
+
+    private static class Lane
+    {
+        //queued tasks per group in round-robin order
+        private final Map<String, Deque<ScheduledTask<?>>> queues = Maps.newLinkedHashMap();
+        private final List<ScheduledTask<?>> running = Lists.newArrayList();
+        private int maxParallel;
+        private int size;
+
+
+        boolean hasCapacity()
+        {
+            return maxParallel <= 0 || running.size() < maxParallel;
+        }
+
+
+        void enqueue( ScheduledTask<?> task )
+        {
+            Deque<ScheduledTask<?>> queue = queues.get( task.groupId );
+
+            if ( queue == null )
+            {
+                queue = Lists.newLinkedList();
+
+                queues.put( task.groupId, queue );
+            }
+
+            queue.add( task );
+
+            size++;
+        }
+
+
+        ScheduledTask<?> poll()
+        {
+            Iterator<Map.Entry<String, Deque<ScheduledTask<?>>>> iterator = queues.entrySet().iterator();
+
+            if ( !iterator.hasNext() )
+            {
+                return null;
+            }
+
+            Map.Entry<String, Deque<ScheduledTask<?>>> entry = iterator.next();
+
+            ScheduledTask<?> task = entry.getValue().poll();
+
+            //move group to the end of the round
+            iterator.remove();
+
+            if ( !entry.getValue().isEmpty() )
+            {
+                queues.put( entry.getKey(), entry.getValue() );
+            }
+
+            size--;
+
+            return task;
+        }
+
+
+        boolean remove( ScheduledTask<?> task )
+        {
+            Deque<ScheduledTask<?>> queue = queues.get( task.groupId );
+
+            if ( queue != null && queue.remove( task ) )
+            {
+                if ( queue.isEmpty() )
+                {
+                    queues.remove( task.groupId );
+                }
+
+                size--;
+
+                return true;
+            }
+
+            return false;
+        }
+    }
+
+
+    private class ScheduledTask<T> extends FutureTask<T> implements ListenableFuture<T>
+    {
+        private final ExecutionList executionList = new ExecutionList();
+        private final String laneId;
+        private final String statsKey;
+        private final String groupId;
+        private final long submitTime = System.currentTimeMillis();
+        private long startTime;
+
+
+        ScheduledTask( final Callable<T> callable, final String laneId, final String statsKey, final String groupId )
+        {
+            super( callable );
+
+            this.laneId = laneId;
+            this.statsKey = statsKey;
+            this.groupId = groupId;
+        }
+
+
+        @Override
+        public void run()
+        {
+            startTime = System.currentTimeMillis();
+
+            onStart( this );
+
+            try
+            {
+                super.run();
+            }
+            finally
+            {
+                onComplete( this, System.currentTimeMillis() - startTime );
+            }
+        }
+
+
+        @Override
+        public boolean cancel( final boolean mayInterruptIfRunning )
+        {
+            boolean cancelled = super.cancel( mayInterruptIfRunning );
+
+            if ( cancelled )
+            {
+                onCancel( this );
+            }
+
+            return cancelled;
+        }
+
+
+        @Override
+        public void addListener( final Runnable listener, final Executor exec )
+        {
+            executionList.add( listener, exec );
+        }
+
+
+        @Override
+        protected void done()
+        {
+            executionList.execute();
+        }
+    }
+
+
+    /**
+     * Queue and latency statistics of a lane
+     */
+    public static class LaneStats
+    {
+        private int queued;
+        private int running;
+        private long submitted;
+        private long completed;
+        private long cancelled;
+        private long totalWaitMillis;
+        private long maxWaitMillis;
+        private long totalRunMillis;
+
+
+        LaneStats()
+        {
+        }
+
+
+        LaneStats( LaneStats stats )
+        {
+            this.submitted = stats.submitted;
+            this.completed = stats.completed;
+            this.cancelled = stats.cancelled;
+            this.totalWaitMillis = stats.totalWaitMillis;
+            this.maxWaitMillis = stats.maxWaitMillis;
+            this.totalRunMillis = stats.totalRunMillis;
+        }
+
+
+        public int getQueued()
+        {
+            return queued;
+        }
+
+
+        public int getRunning()
+        {
+            return running;
+        }
+
+
+        public long getSubmitted()
+        {
+            return submitted;
+        }
+
+
+        public long getCompleted()
+        {
+            return completed;
+        }
+
+
+        public long getCancelled()
+        {
+            return cancelled;
+        }
+
+
+        public long getMaxWaitMillis()
+        {
+            return maxWaitMillis;
+        }
+
+
+        public long getAverageWaitMillis()
+        {
+            return completed == 0 ? 0 : totalWaitMillis / completed;
+        }
+
+
+        public long getAverageRunMillis()
+        {
+            return completed == 0 ? 0 : totalRunMillis / completed;
+        }
+
+
+        @Override
+        public String toString()
+        {
+            return String.format(
+                    "queued=%d, running=%d, completed=%d, cancelled=%d, avgWait=%dms, maxWait=%dms, avgRun=%dms",
+                    queued, running, completed, cancelled, getAverageWaitMillis(), maxWaitMillis,
+                    getAverageRunMillis() );
+        }
+    }
+}
@@ -8,8 +8,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
@@ -20,6 +18,8 @@ import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 
 import io.subutai.common.peer.Host;
 import io.subutai.common.settings.Common;
@@ -31,7 +31,7 @@ public class HostUtil
 
     private final Set<Task> allTasks = Sets.newConcurrentHashSet();
 
-    private Map<String, ExecutorService> taskExecutors = Maps.newConcurrentMap();
+    private final Map<Task, Future<Boolean>> taskFutures = Maps.newConcurrentMap();
 
     private final Map<String, Map<Task, EnvironmentTaskFuture>> environmentTasksFuturesMap = Maps.newConcurrentMap();
 
@@ -66,12 +66,15 @@ public class HostUtil
 
     public void cancelAll()
     {
-        for ( ExecutorService executorService : taskExecutors.values() )
+        for ( Task task : taskFutures.keySet() )
         {
-            executorService.shutdownNow();
-        }
+            Future<Boolean> taskFuture = taskFutures.remove( task );
 
-        taskExecutors.clear();
+            if ( taskFuture != null )
+            {
+                taskFuture.cancel( true );
+            }
+        }
 
         allTasks.clear();
 
@@ -411,36 +414,33 @@ public class HostUtil
     }
 
 
-    private ExecutorService getTaskExecutor( Host host, Task task )
-    {
-        String executorId = host.getId() + "-" + task.getClass().getName();
-
-        ExecutorService executorService = taskExecutors.get( executorId );
-
-        if ( executorService == null )
-        {
-            executorService = task.maxParallelTasks() > 0 ? Executors
-                    .newFixedThreadPool( Math.min( Common.MAX_EXECUTOR_SIZE, task.maxParallelTasks() ) ) :
-                              Executors.newCachedThreadPool();
-
-            taskExecutors.put( executorId, executorService );
-        }
-
-        return executorService;
-    }
-
-
     private <R> Future<Boolean> submitTask( Host host, final Task<R> task, final String environmentId )
     {
-        ExecutorService taskExecutor = getTaskExecutor( host, task );
-
         task.setHost( host );
 
         task.setSubmitTimestamp( System.currentTimeMillis() );
 
         task.setTaskState( Task.TaskState.RUNNING );
 
-        final Future<Boolean> taskFuture = taskExecutor.submit( new HostTaskCommand<>( task, environmentId ) );
+        //tasks of the same kind on a host share the limit
+        String laneId = host.getId() + "-" + task.getClass().getName();
+
+        int maxParallel =
+                task.maxParallelTasks() > 0 ? Math.min( Common.MAX_EXECUTOR_SIZE, task.maxParallelTasks() ) : 0;
+
+        final ListenableFuture<Boolean> taskFuture = FanOutScheduler.getInstance().submit( laneId, maxParallel,
+                environmentId, new HostTaskCommand<>( task, environmentId ) );
+
+        taskFutures.put( task, taskFuture );
+
+        taskFuture.addListener( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                taskFutures.remove( task );
+            }
+        }, MoreExecutors.directExecutor() );
 
         if ( environmentId != null )
         {
@@ -5,10 +5,6 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
@@ -19,14 +15,33 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 import io.subutai.common.peer.Peer;
-import io.subutai.common.settings.Common;
 
 
 public class PeerUtil<T>
 {
     private static final Logger LOG = LoggerFactory.getLogger( PeerUtil.class );
 
+    //maximum number of tasks running at once against a peer across all callers
+    static final int MAX_PARALLEL_TASKS_PER_PEER = 20;
+
     private final Set<PeerTask<T>> peerTasks = Sets.newHashSet();
+    private final String groupId;
+
+
+    public PeerUtil()
+    {
+        this( null );
+    }
+
+
+    /**
+     * @param groupId id of environment the tasks belong to, tasks of different environments are served fairly and
+     * can be cancelled by environment via {@link FanOutScheduler#cancel(String)}
+     */
+    public PeerUtil( final String groupId )
+    {
+        this.groupId = groupId;
+    }
 
 
     /**
@@ -86,20 +101,17 @@ public class PeerUtil<T>
 
         Set<PeerTaskResult<T>> peerTaskResults = Sets.newHashSet();
 
-        ExecutorService taskExecutor =
-                Executors.newFixedThreadPool( Math.min( Common.MAX_EXECUTOR_SIZE, peerTasks.size() ) );
-
-        CompletionService<T> taskCompletionService = new ExecutorCompletionService<>( taskExecutor );
+        FanOutScheduler scheduler = FanOutScheduler.getInstance();
 
         Map<Peer, Future<T>> peerFutures = Maps.newHashMap();
 
         for ( PeerTask<T> peerTask : peerTasks )
         {
-            peerFutures.put( peerTask.getPeer(), taskCompletionService.submit( peerTask.getTask() ) );
+            peerFutures.put( peerTask.getPeer(),
+                    scheduler.submit( "peer-" + peerTask.getPeer().getId(), MAX_PARALLEL_TASKS_PER_PEER, groupId,
+                            peerTask.getTask() ) );
         }
 
-        taskExecutor.shutdown();
-
         futuresLoop:
         while ( !Thread.interrupted() && !peerFutures.isEmpty() )
         {
@@ -0,0 +1,127 @@
+package io.subutai.common.util;
+
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+
+/**
+ * Executor with a fixed number of serial lanes. Tasks submitted with the same key always land on the same lane and
+ * are executed in submission order, while tasks with different keys run in parallel on up to {@code laneCount}
+ * threads. Idle lanes release their threads.
+ */
+public class StripedExecutor
+{
+    private static final int LANE_THREAD_EXPIRY_SEC = 60;
+
+    private final ThreadPoolExecutor[] lanes;
+
+
+    public StripedExecutor( int laneCount, String name )
+    {
+        Preconditions.checkArgument( laneCount > 0, "Invalid lane count" );
+
+        lanes = new ThreadPoolExecutor[laneCount];
+
+        for ( int i = 0; i < laneCount; i++ )
+        {
+            ThreadPoolExecutor lane = new ThreadPoolExecutor( 1, 1, LANE_THREAD_EXPIRY_SEC, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    new ThreadFactoryBuilder().setNameFormat( String.format( "%s-lane-%d", name, i ) )
+                                              .setDaemon( true ).build() );
+
+            lane.allowCoreThreadTimeOut( true );
+
+            lanes[i] = lane;
+        }
+    }
+
+
+    /**
+     * Returns serial executor for the given key
+     */
+    public Executor getLane( Object key )
+    {
+        Preconditions.checkNotNull( key );
+
+        return lanes[indexOf( key )];
+    }
+
+
+    public void execute( Object key, Runnable task )
+    {
+        getLane( key ).execute( task );
+    }
+
+
+    int indexOf( Object key )
+    {
+        //spread hash bits since keys are frequently UUIDs with weak low bits
+        int hash = key.hashCode();
+        hash ^= ( hash >>> 16 );
+
+        return ( hash & Integer.MAX_VALUE ) % lanes.length;
+    }
+
+
+    public int getLaneCount()
+    {
+        return lanes.length;
+    }
+
+
+    /**
+     * Returns number of queued tasks per lane
+     */
+    public int[] getQueueDepths()
+    {
+        int[] depths = new int[lanes.length];
+
+        for ( int i = 0; i < lanes.length; i++ )
+        {
+            depths[i] = lanes[i].getQueue().size();
+        }
+
+        return depths;
+    }
+
+
+    public int getMaxQueueDepth()
+    {
+        int max = 0;
+
+        for ( ThreadPoolExecutor lane : lanes )
+        {
+            max = Math.max( max, lane.getQueue().size() );
+        }
+
+        return max;
+    }
+
+
+    public long getCompletedTaskCount()
+    {
+        long completed = 0;
+
+        for ( ThreadPoolExecutor lane : lanes )
+        {
+            completed += lane.getCompletedTaskCount();
+        }
+
+        return completed;
+    }
+
+
+    public void shutdown()
+    {
+        for ( ThreadPoolExecutor lane : lanes )
+        {
+            lane.shutdown();
+        }
+    }
+}
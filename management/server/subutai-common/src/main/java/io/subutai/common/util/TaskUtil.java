@@ -5,11 +5,8 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,7 +22,26 @@ public class TaskUtil<T>
 {
     private static final Logger LOG = LoggerFactory.getLogger( TaskUtil.class );
 
+    private static final AtomicLong CALL_COUNTER = new AtomicLong();
+
     private final Set<Task<T>> tasks = Sets.newHashSet();
+    private final String groupId;
+
+
+    public TaskUtil()
+    {
+        this( null );
+    }
+
+
+    /**
+     * @param groupId id of environment the tasks belong to, tasks of different environments are served fairly and
+     * can be cancelled by environment via {@link FanOutScheduler#cancel(String)}
+     */
+    public TaskUtil( final String groupId )
+    {
+        this.groupId = groupId;
+    }
 
 
     public void addTask( Task<T> task )
@@ -80,20 +96,20 @@ public class TaskUtil<T>
 
         Set<TaskResult<T>> taskResults = Sets.newHashSet();
 
-        ExecutorService taskExecutor =
-                Executors.newFixedThreadPool( Math.min( Common.MAX_EXECUTOR_SIZE, tasks.size() ) );
-
-        CompletionService<T> taskCompletionService = new ExecutorCompletionService<>( taskExecutor );
+        FanOutScheduler scheduler = FanOutScheduler.getInstance();
 
         Map<Task<T>, Future<T>> taskFutures = Maps.newHashMap();
 
+        //limit applies per call, so that concurrent callers do not queue behind each other
+        String laneId = "task-call-" + CALL_COUNTER.incrementAndGet();
+
         for ( Task<T> task : tasks )
         {
-            taskFutures.put( task, taskCompletionService.submit( task ) );
+            taskFutures.put( task,
+                    scheduler.submit( laneId, "task-" + task.getClass().getName(), Common.MAX_EXECUTOR_SIZE, groupId,
+                            task ) );
         }
 
-        taskExecutor.shutdown();
-
 
         futuresLoop:
         while ( !Thread.interrupted() && !taskFutures.isEmpty() )
@@ -0,0 +1,285 @@
+package io.subutai.common.cache;
+
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Stopwatch;
+
+
+/**
+ * Compares {@link ExpiringCache} backed by the shared timer wheel with the former cache which scanned all entries on
+ * its own evictor thread every 100 ms. Reports cost of put, get and remove and the time a scan takes, which the former
+ * cache paid on every pass even when no entry was due.
+ *
+ * Usage: ExpiringCacheBenchmark [entries...], defaults to 10000 and 100000
+ */
+public class ExpiringCacheBenchmark
+{
+    private static final long TTL_MS = TimeUnit.MINUTES.toMillis( 10 );
+    private static final long IDLE_MS = 1000;
+    private static final int ROUNDS = 3;
+
+
+    public static void main( String[] args ) throws Exception
+    {
+        int[] sizes = new int[args.length > 0 ? args.length : 2];
+
+        for ( int i = 0; i < sizes.length; i++ )
+        {
+            sizes[i] = args.length > 0 ? Integer.parseInt( args[i] ) : ( i == 0 ? 10000 : 100000 );
+        }
+
+        for ( int size : sizes )
+        {
+            for ( int round = 1; round <= ROUNDS; round++ )
+            {
+                //first round warms up
+                run( "wheel", new WheelCache(), size, round > 1 );
+                run( "scanning", new ScanningCache(), size, round > 1 );
+            }
+        }
+
+        HashedTimerWheel.getSharedInstance().stop();
+    }
+
+
+    private static void run( String name, BenchmarkCache cache, int size, boolean report ) throws Exception
+    {
+        Long[] keys = new Long[size];
+
+        for ( int i = 0; i < size; i++ )
+        {
+            keys[i] = ( long ) i;
+        }
+
+        Stopwatch stopwatch = Stopwatch.createStarted();
+
+        for ( Long key : keys )
+        {
+            cache.put( key, key, TTL_MS );
+        }
+
+        long putNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        stopwatch.reset().start();
+
+        for ( Long key : keys )
+        {
+            cache.get( key );
+        }
+
+        long getNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        //let the evictor run while nothing is due
+        Thread.sleep( IDLE_MS );
+
+        stopwatch.reset().start();
+
+        for ( Long key : keys )
+        {
+            cache.remove( key );
+        }
+
+        long removeNs = stopwatch.elapsed( TimeUnit.NANOSECONDS );
+
+        cache.dispose();
+
+        if ( report )
+        {
+            System.out.println( String.format(
+                    "%s, %d entries: put %d ns/op, get %d ns/op, remove %d ns/op, idle scans %d, %d us per scan",
+                    name, size, putNs / size, getNs / size, removeNs / size, cache.getScans(),
+                    cache.getScans() == 0 ? 0 : cache.getScanNanos() / cache.getScans() / 1000 ) );
+        }
+    }
+
+
+    private interface BenchmarkCache
+    {
+        void put( Long key, Long value, long ttlMs );
+
+        Long get( Long key );
+
+        Long remove( Long key );
+
+        long getScans();
+
+        long getScanNanos();
+
+        void dispose();
+    }
+
+
+    private static class WheelCache implements BenchmarkCache
+    {
+        private final ExpiringCache<Long, Long> cache = new ExpiringCache<>();
+
+
+        @Override
+        public void put( final Long key, final Long value, final long ttlMs )
+        {
+            cache.put( key, value, ttlMs );
+        }
+
+
+        @Override
+        public Long get( final Long key )
+        {
+            return cache.get( key );
+        }
+
+
+        @Override
+        public Long remove( final Long key )
+        {
+            return cache.remove( key );
+        }
+
+
+        @Override
+        public long getScans()
+        {
+            return 0;
+        }
+
+
+        @Override
+        public long getScanNanos()
+        {
+            return 0;
+        }
+
+
+        @Override
+        public void dispose()
+        {
+            cache.dispose();
+        }
+    }
+
+
+    /**
+     * Eviction as done by the former implementation: full scan of entries every 100 ms on a thread of its own
+     */
+    private static class ScanningCache implements BenchmarkCache
+    {
+        private static final long EVICTION_RUN_INTERVAL_MS = 100;
+
+        private final Map<Long, CacheEntry<Long>> entries = new ConcurrentHashMap<>();
+        private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicLong scans = new AtomicLong();
+        private final AtomicLong scanNanos = new AtomicLong();
+
+
+        ScanningCache()
+        {
+            evictor.scheduleWithFixedDelay( new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    evictExpiredEntries();
+                }
+            }, 0, EVICTION_RUN_INTERVAL_MS, TimeUnit.MILLISECONDS );
+        }
+
+
+        private void evictExpiredEntries()
+        {
+            long start = System.nanoTime();
+
+            for ( Iterator<Map.Entry<Long, CacheEntry<Long>>> it = entries.entrySet().iterator(); it.hasNext(); )
+            {
+                CacheEntry<Long> entry = it.next().getValue();
+
+                entry.lock();
+
+                try
+                {
+                    if ( entry.isExpired() )
+                    {
+                        it.remove();
+                    }
+                }
+                finally
+                {
+                    entry.unlock();
+                }
+            }
+
+            scanNanos.addAndGet( System.nanoTime() - start );
+            scans.incrementAndGet();
+        }
+
+
+        @Override
+        public void put( final Long key, final Long value, final long ttlMs )
+        {
+            entries.put( key, new CacheEntry<>( value, ttlMs ) );
+        }
+
+
+        @Override
+        public Long get( final Long key )
+        {
+            CacheEntry<Long> entry = entries.get( key );
+
+            if ( entry != null )
+            {
+                entry.lock();
+
+                try
+                {
+                    if ( !entry.isExpired() )
+                    {
+                        entry.resetCreationTimestamp();
+
+                        return entry.getValue();
+                    }
+                }
+                finally
+                {
+                    entry.unlock();
+                }
+            }
+
+            return null;
+        }
+
+
+        @Override
+        public Long remove( final Long key )
+        {
+            CacheEntry<Long> entry = entries.remove( key );
+
+            return entry == null ? null : entry.getValue();
+        }
+
+
+        @Override
+        public long getScans()
+        {
+            return scans.get();
+        }
+
+
+        @Override
+        public long getScanNanos()
+        {
+            return scanNanos.get();
+        }
+
+
+        @Override
+        public void dispose()
+        {
+            evictor.shutdown();
+        }
+    }
+}
@@ -1,17 +1,31 @@
 package io.subutai.common.cache;
 
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 import io.subutai.common.cache.EntryExpiryCallback;
 import io.subutai.common.cache.ExpiringCache;
 import io.subutai.common.command.CommandStatus;
 import io.subutai.common.command.ResponseType;
 
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
 
 @RunWith( MockitoJUnitRunner.class )
 public class ExpiringCacheTest
@@ -85,6 +99,73 @@ public class ExpiringCacheTest
         expiringCache.dispose();
     }
 
+    @Test
+    public void testExpiry() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch( 1 );
+        ExpiringCache<String, String> cache = new ExpiringCache<>();
+
+        cache.put( "key", "value", 100, new EntryExpiryCallback<String>()
+        {
+            @Override
+            public void onEntryExpiry( final String entry )
+            {
+                latch.countDown();
+            }
+        } );
+
+        assertEquals( "value", cache.get( "key" ) );
+        assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+        assertNull( cache.get( "key" ) );
+        assertEquals( 0, cache.size() );
+    }
+
+
+    @Test
+    public void testRemoveCancelsExpiry() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch( 1 );
+        ExpiringCache<String, String> cache = new ExpiringCache<>();
+
+        cache.put( "key", "value", 100, new EntryExpiryCallback<String>()
+        {
+            @Override
+            public void onEntryExpiry( final String entry )
+            {
+                latch.countDown();
+            }
+        } );
+
+        assertEquals( "value", cache.remove( "key" ) );
+        assertFalse( latch.await( 500, TimeUnit.MILLISECONDS ) );
+    }
+
+
+    @Test
+    public void testExpiryFiringBeforePutReturns() throws Exception
+    {
+        HashedTimerWheel timer = mock( HashedTimerWheel.class );
+        doAnswer( new Answer<Object>()
+        {
+            @Override
+            public Object answer( final InvocationOnMock invocation ) throws Throwable
+            {
+                //timeout fires right away on another thread
+                Thread.sleep( 10 );
+
+                ( ( Runnable ) invocation.getArguments()[0] ).run();
+
+                return null;
+            }
+        } ).when( timer ).schedule( any( Runnable.class ), anyLong() );
+        ExpiringCache<String, String> cache = new ExpiringCache<>( timer );
+
+        cache.put( "key", "value", 1 );
+
+        assertEquals( 0, cache.size() );
+    }
+
+
     @Test
     public void test()
     {
@@ -0,0 +1,85 @@
+package io.subutai.common.cache;
+
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+
+public class HashedTimerWheelTest
+{
+    private HashedTimerWheel timer;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        timer = new HashedTimerWheel( 10, 8, "test-timer" );
+    }
+
+
+    @After
+    public void tearDown() throws Exception
+    {
+        timer.stop();
+    }
+
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testConstructor() throws Exception
+    {
+        new HashedTimerWheel( 0, 8, "test-timer" );
+    }
+
+
+    @Test
+    public void testSchedule() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch( 2 );
+
+        Runnable task = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                latch.countDown();
+            }
+        };
+
+        //second task spans several wheel rounds
+        HashedTimerWheel.Timeout timeout = timer.schedule( task, 20 );
+        timer.schedule( task, 300 );
+
+        assertTrue( latch.await( 5, TimeUnit.SECONDS ) );
+        assertTrue( timeout.isExpired() );
+        assertEquals( 0, timer.getPendingTimeouts() );
+    }
+
+
+    @Test
+    public void testCancel() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch( 1 );
+
+        HashedTimerWheel.Timeout timeout = timer.schedule( new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                latch.countDown();
+            }
+        }, 50 );
+
+        assertTrue( timeout.cancel() );
+        assertFalse( timeout.cancel() );
+        assertFalse( latch.await( 200, TimeUnit.MILLISECONDS ) );
+        assertEquals( 0, timer.getPendingTimeouts() );
+    }
+}
@@ -0,0 +1,117 @@
+package io.subutai.common.command;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertTrue;
+
+
+public class CommandOutputTest
+{
+    private static final int THRESHOLD = 10;
+    private static final String OUTPUT = "output";
+
+    private CommandOutput commandOutput;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        commandOutput = new CommandOutput( THRESHOLD );
+    }
+
+
+    @After
+    public void tearDown() throws Exception
+    {
+        commandOutput.dispose();
+    }
+
+
+    @Test
+    public void testAppend() throws Exception
+    {
+        commandOutput.append( OUTPUT );
+        commandOutput.append( null );
+
+        assertFalse( commandOutput.isSpilled() );
+        assertEquals( OUTPUT, commandOutput.toString( commandOutput.length() ) );
+    }
+
+
+    @Test
+    public void testSpill() throws Exception
+    {
+        commandOutput.append( OUTPUT );
+        commandOutput.append( OUTPUT );
+
+        assertTrue( commandOutput.isSpilled() );
+        assertEquals( OUTPUT + OUTPUT, commandOutput.toString( commandOutput.length() ) );
+
+        commandOutput.dispose();
+
+        assertFalse( commandOutput.isSpilled() );
+        assertEquals( 0, commandOutput.length() );
+    }
+
+
+    @Test( expected = IOException.class )
+    public void testReadDisposed() throws Exception
+    {
+        commandOutput.append( OUTPUT );
+
+        commandOutput.dispose();
+
+        commandOutput.toString( OUTPUT.length() );
+    }
+
+
+    @Test
+    public void testClose() throws Exception
+    {
+        commandOutput.append( OUTPUT );
+        commandOutput.append( OUTPUT );
+
+        commandOutput.close();
+
+        commandOutput.append( OUTPUT );
+
+        assertTrue( commandOutput.isSpilled() );
+        assertEquals( OUTPUT + OUTPUT, commandOutput.toString( commandOutput.length() ) );
+    }
+
+
+    @Test
+    public void testSnapshot() throws Exception
+    {
+        commandOutput.append( OUTPUT );
+
+        CommandResult result =
+                new BufferedCommandResult( 0, commandOutput, new CommandOutput(), CommandStatus.RUNNING );
+
+        commandOutput.append( OUTPUT );
+
+        assertEquals( OUTPUT, result.getStdOut() );
+
+        InputStream inputStream = result.openStdOut();
+
+        try
+        {
+            assertEquals( OUTPUT, new String( ByteStreams.toByteArray( inputStream ), Charsets.UTF_8 ) );
+        }
+        finally
+        {
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package io.subutai.common.security;
+
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.security.KeyStore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.cxf.configuration.jsse.TLSClientParameters;
+
+import io.subutai.common.security.crypto.keystore.KeyStoreData;
+import io.subutai.common.security.crypto.keystore.KeyStoreTool;
+import io.subutai.common.security.crypto.keystore.KeyStoreType;
+import io.subutai.common.settings.SecuritySettings;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertNotNull;
+import static junit.framework.TestCase.assertNotSame;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+
+public class TlsClientParametersCacheTest
+{
+    private static final String PASSWORD = "subutai";
+
+    private File keyStoreFile;
+    private File trustStoreFile;
+    private KeyStoreData keyStoreData;
+    private KeyStoreData trustStoreData;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        keyStoreFile = File.createTempFile( "keystore", ".jks" );
+        trustStoreFile = File.createTempFile( "truststore", ".jks" );
+
+        keyStoreData = createKeyStore( keyStoreFile );
+        trustStoreData = createKeyStore( trustStoreFile );
+    }
+
+
+    @After
+    public void tearDown() throws Exception
+    {
+        keyStoreFile.delete();
+        trustStoreFile.delete();
+    }
+
+
+    @Test
+    public void testReuse() throws Exception
+    {
+        TLSClientParameters parameters = getParameters();
+
+        assertNotNull( parameters.getSSLSocketFactory() );
+        assertSame( parameters, getParameters() );
+    }
+
+
+    @Test
+    public void testReloadOnKeyStoreFileChange() throws Exception
+    {
+        TLSClientParameters parameters = getParameters();
+
+        assertTrue( keyStoreFile.setLastModified( keyStoreFile.lastModified() + 10000 ) );
+
+        TLSClientParameters reloaded = getParameters();
+
+        assertNotSame( parameters, reloaded );
+        assertSame( reloaded, getParameters() );
+    }
+
+
+    @Test
+    public void testReloadOnTrustStoreFileChange() throws Exception
+    {
+        TLSClientParameters parameters = getParameters();
+
+        assertTrue( trustStoreFile.setLastModified( trustStoreFile.lastModified() + 10000 ) );
+
+        assertNotSame( parameters, getParameters() );
+    }
+
+
+    @Test
+    public void testReloadOnKeyStoreSave() throws Exception
+    {
+        TLSClientParameters parameters = getParameters();
+
+        long lastModified = keyStoreFile.lastModified();
+        long length = keyStoreFile.length();
+
+        KeyStoreTool keyStoreTool = new KeyStoreTool();
+        keyStoreTool.save( keyStoreTool.load( keyStoreData ), keyStoreData );
+
+        //keep file stamp so that only invalidation by KeyStoreTool can trigger reload
+        assertTrue( keyStoreFile.setLastModified( lastModified ) );
+        assertEquals( length, keyStoreFile.length() );
+
+        assertNotSame( parameters, getParameters() );
+    }
+
+
+    @Test
+    public void testInvalidate() throws Exception
+    {
+        TLSClientParameters parameters = getParameters();
+
+        TlsClientParametersCache.invalidate();
+
+        assertNotSame( parameters, getParameters() );
+    }
+
+
+    private TLSClientParameters getParameters()
+    {
+        return TlsClientParametersCache.getTlsClientParameters( keyStoreData, trustStoreData );
+    }
+
+
+    private static KeyStoreData createKeyStore( File file ) throws Exception
+    {
+        KeyStore keyStore = KeyStore.getInstance( KeyStoreType.JKS.jce() );
+        keyStore.load( null, null );
+
+        try ( FileOutputStream out = new FileOutputStream( file ) )
+        {
+            keyStore.store( out, PASSWORD.toCharArray() );
+        }
+
+        KeyStoreData keyStoreData = new KeyStoreData();
+        keyStoreData.setKeyStoreType( KeyStoreType.JKS );
+        keyStoreData.setKeyStoreFile( file.getPath() );
+        keyStoreData.setPassword( PASSWORD );
+        keyStoreData.setAlias( SecuritySettings.KEYSTORE_PX2_ROOT_ALIAS );
+
+        return keyStoreData;
+    }
+}
@@ -2,17 +2,23 @@ package io.subutai.common.security.crypto.pgp;
 
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigInteger;
 import java.security.PublicKey;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPrivateKey;
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
@@ -34,6 +40,7 @@ import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.StringStartsWith.startsWith;
 
@@ -87,6 +94,64 @@ public class PGPEncryptionUtilTest
     }
 
 
+    @Test
+    public void testStreamingEncryptAndDecrypt() throws Exception
+    {
+        byte[] message = new byte[300 * 1024];
+        new Random().nextBytes( message );
+
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        OutputStream encryptingStream = PGPEncryptionUtil.encrypt( encrypted,
+                PGPEncryptionUtil.findPublicKeyById( findFile( PUBLIC_KEYRING ), PUBLIC_KEY_ID ), true );
+
+        encryptingStream.write( message );
+        encryptingStream.close();
+
+        PGPSecretKeyRing secretKeyRing = PGPKeyUtil.readSecretKeyRing( findFile( SECRET_KEYRING ) );
+        ConcurrentMap<Long, PGPPrivateKey> privateKeys = new ConcurrentHashMap<>();
+
+        InputStream decryptingStream = PGPEncryptionUtil
+                .decrypt( new ByteArrayInputStream( encrypted.toByteArray() ), secretKeyRing, SECRET_PWD,
+                        privateKeys );
+
+        assertTrue( Arrays.equals( message, IOUtils.toByteArray( decryptingStream ) ) );
+        assertEquals( 1, privateKeys.size() );
+
+        //stream output is compatible with byte array api
+        assertTrue( Arrays.equals( message,
+                PGPEncryptionUtil.decrypt( encrypted.toByteArray(), findFile( SECRET_KEYRING ), SECRET_PWD ) ) );
+    }
+
+
+    @Test
+    public void testDecryptIgnoresCachedKeyOfOtherRing() throws Exception
+    {
+        byte[] encryptedMessage = PGPEncryptionUtil.encrypt( MESSAGE.getBytes(),
+                PGPEncryptionUtil.findPublicKeyById( findFile( PUBLIC_KEYRING ), PUBLIC_KEY_ID ), true );
+
+        PGPSecretKeyRing secretKeyRing = PGPKeyUtil.readSecretKeyRing( findFile( SECRET_KEYRING ) );
+        ConcurrentMap<Long, PGPPrivateKey> privateKeys = new ConcurrentHashMap<>();
+
+        PGPEncryptionUtil.decrypt( encryptedMessage, secretKeyRing, SECRET_PWD, privateKeys );
+
+        assertEquals( 1, privateKeys.size() );
+
+        //key cached for the dummy ring must not decrypt on behalf of a ring which does not hold it
+        PGPSecretKeyRing otherSecretKeyRing = PGPKeyUtil.readSecretKeyRing( findFile( PLUGIN_PRIVATE_KEY ) );
+
+        try
+        {
+            PGPEncryptionUtil.decrypt( encryptedMessage, otherSecretKeyRing, SECRET_PWD, privateKeys );
+
+            fail( "Message decrypted with key of other ring" );
+        }
+        catch ( PGPException e )
+        {
+            //expected
+        }
+    }
+
+
     @Test
     public void testSignEncryptAndDecryptVerify() throws Exception
     {
@@ -0,0 +1,233 @@
+package io.subutai.common.util;
+
+
+import java.security.AccessController;
+import java.security.PrivilegedExceptionAction;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.security.auth.Subject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+
+public class FanOutSchedulerTest
+{
+    private static final String LANE = "lane";
+    private static final int MAX_PARALLEL = 2;
+    private static final int TASKS = 20;
+
+    private FanOutScheduler scheduler;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        scheduler = new FanOutScheduler( "test" );
+    }
+
+
+    @After
+    public void tearDown() throws Exception
+    {
+        scheduler.shutdown();
+    }
+
+
+    @Test
+    public void testMaxParallel() throws Exception
+    {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<Object>> futures = Lists.newArrayList();
+
+        for ( int i = 0; i < TASKS; i++ )
+        {
+            futures.add( scheduler.submit( LANE, MAX_PARALLEL, null, new Callable<Object>()
+            {
+                @Override
+                public Object call() throws Exception
+                {
+                    int current = running.incrementAndGet();
+
+                    synchronized ( maxRunning )
+                    {
+                        maxRunning.set( Math.max( maxRunning.get(), current ) );
+                    }
+
+                    TaskUtil.sleep( 10 );
+
+                    running.decrementAndGet();
+
+                    return null;
+                }
+            } ) );
+        }
+
+        for ( Future<Object> future : futures )
+        {
+            future.get( 10, TimeUnit.SECONDS );
+        }
+
+        assertTrue( maxRunning.get() <= MAX_PARALLEL );
+        assertEquals( TASKS, scheduler.getStats().get( LANE ).getSubmitted() );
+    }
+
+
+    @Test
+    public void testRoundRobinAcrossGroups() throws Exception
+    {
+        final CountDownLatch blocker = new CountDownLatch( 1 );
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        //occupy the lane so that the rest is queued
+        Future<Object> blocking = scheduler.submit( LANE, 1, null, new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                blocker.await();
+
+                return null;
+            }
+        } );
+
+        List<Future<Object>> futures = Lists.newArrayList();
+
+        for ( String group : Lists.newArrayList( "a", "a", "a", "b" ) )
+        {
+            futures.add( scheduler.submit( LANE, 1, group, new RecordingTask( group, executed ) ) );
+        }
+
+        blocker.countDown();
+
+        blocking.get( 10, TimeUnit.SECONDS );
+
+        for ( Future<Object> future : futures )
+        {
+            future.get( 10, TimeUnit.SECONDS );
+        }
+
+        assertEquals( Lists.newArrayList( "a", "b", "a", "a" ), executed );
+    }
+
+
+    @Test
+    public void testCancelGroup() throws Exception
+    {
+        final CountDownLatch blocker = new CountDownLatch( 1 );
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        Future<Object> blocking = scheduler.submit( LANE, 1, null, new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                blocker.await();
+
+                return null;
+            }
+        } );
+
+        Future<Object> cancelled = scheduler.submit( LANE, 1, "a", new RecordingTask( "a", executed ) );
+        Future<Object> other = scheduler.submit( LANE, 1, "b", new RecordingTask( "b", executed ) );
+
+        assertTrue( scheduler.cancel( "a" ) );
+        assertEquals( 1, scheduler.getStats().get( LANE ).getQueued() );
+
+        blocker.countDown();
+
+        blocking.get( 10, TimeUnit.SECONDS );
+        other.get( 10, TimeUnit.SECONDS );
+
+        assertTrue( cancelled.isCancelled() );
+        assertEquals( Lists.newArrayList( "b" ), executed );
+        assertFalse( scheduler.cancel( "a" ) );
+    }
+
+
+    @Test
+    public void testStatsKey() throws Exception
+    {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+
+        Future<Object> first = scheduler.submit( "lane-1", "kind", 1, null, new RecordingTask( "a", executed ) );
+        Future<Object> second = scheduler.submit( "lane-2", "kind", 1, null, new RecordingTask( "b", executed ) );
+
+        first.get( 10, TimeUnit.SECONDS );
+        second.get( 10, TimeUnit.SECONDS );
+
+        assertEquals( 1, scheduler.getStats().size() );
+        assertEquals( 2, scheduler.getStats().get( "kind" ).getSubmitted() );
+    }
+
+
+    @Test
+    public void testTaskRunsAsSubmitter() throws Exception
+    {
+        final Subject subject = new Subject();
+
+        //thread of the pool is created without subject and reused for the next tasks
+        assertNull( scheduler.submit( LANE, 1, null, new SubjectTask() ).get( 10, TimeUnit.SECONDS ) );
+
+        Subject result = Subject.doAs( subject, new PrivilegedExceptionAction<Subject>()
+        {
+            @Override
+            public Subject run() throws Exception
+            {
+                return scheduler.submit( LANE, 1, null, new SubjectTask() ).get( 10, TimeUnit.SECONDS );
+            }
+        } );
+
+        assertSame( subject, result );
+        assertNull( scheduler.submit( LANE, 1, null, new SubjectTask() ).get( 10, TimeUnit.SECONDS ) );
+    }
+
+
+    private static class SubjectTask implements Callable<Subject>
+    {
+        @Override
+        public Subject call() throws Exception
+        {
+            return Subject.getSubject( AccessController.getContext() );
+        }
+    }
+
+
+    private static class RecordingTask implements Callable<Object>
+    {
+        private final String group;
+        private final List<String> executed;
+
+
+        RecordingTask( final String group, final List<String> executed )
+        {
+            this.group = group;
+            this.executed = executed;
+        }
+
+
+        @Override
+        public Object call() throws Exception
+        {
+            executed.add( group );
+
+            return null;
+        }
+    }
+}
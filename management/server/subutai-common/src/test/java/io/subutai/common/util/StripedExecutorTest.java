@@ -0,0 +1,87 @@
+package io.subutai.common.util;
+
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertSame;
+import static junit.framework.TestCase.assertTrue;
+
+
+public class StripedExecutorTest
+{
+    private static final int LANES = 4;
+    private static final int TASKS = 100;
+
+    private StripedExecutor executor;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        executor = new StripedExecutor( LANES, "test" );
+    }
+
+
+    @After
+    public void tearDown() throws Exception
+    {
+        executor.shutdown();
+    }
+
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testConstructor() throws Exception
+    {
+        new StripedExecutor( 0, "test" );
+    }
+
+
+    @Test
+    public void testSameKeySameLane() throws Exception
+    {
+        UUID key = UUID.randomUUID();
+
+        assertSame( executor.getLane( key ), executor.getLane( key ) );
+        assertEquals( LANES, executor.getQueueDepths().length );
+    }
+
+
+    @Test
+    public void testOrderPerKey() throws Exception
+    {
+        UUID key = UUID.randomUUID();
+        final List<Integer> executed = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch( TASKS );
+        List<Integer> expected = Lists.newArrayList();
+
+        for ( int i = 0; i < TASKS; i++ )
+        {
+            final int num = i;
+            expected.add( num );
+
+            executor.execute( key, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    executed.add( num );
+                    latch.countDown();
+                }
+            } );
+        }
+
+        assertTrue( latch.await( 10, TimeUnit.SECONDS ) );
+        assertEquals( expected, executed );
+    }
+}
@@ -15,6 +15,7 @@ function trackerSrv($http) {
 		getModules: getModules,
 		getOperations: getOperations,
 		getOperation: getOperation,
+		getOperationLog: getOperationLog,
 
 		getDownloadProgress: getDownloadProgress,
 
@@ -41,6 +42,12 @@ function trackerSrv($http) {
 		return $http.get($url, {withCredentials: true, headers: {'Content-Type': 'application/json'}});
 	}	
 
+	// long polling, responds when new log lines are appended, pass nextLine of the previous response as fromLine
+	function getOperationLog(module, id, fromLine) {
+		var $url = OPERATIONS_URL + module + '/' + id + '/log?from=' + (fromLine || 0);
+		return $http.get($url, {withCredentials: true, headers: {'Content-Type': 'application/json'}});
+	}
+
 
 	function getDownloadProgress(id) {
 		return $http.get(SERVER_URL + "rest/ui/environments/" + id + "/download");